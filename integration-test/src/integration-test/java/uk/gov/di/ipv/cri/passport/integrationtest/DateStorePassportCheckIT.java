@@ -18,6 +18,7 @@ import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsResponse;
 import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Evidence;
 import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.DynamoDbClientFactory;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
 import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
 
@@ -57,7 +58,7 @@ public class DateStorePassportCheckIT {
                 new DataStore<>(
                         dcsResponseTableName,
                         PassportCheckDao.class,
-                        DataStore.getClient(null),
+                        DynamoDbClientFactory.getClient(configurationService),
                         configurationService);
 
         AmazonDynamoDB independentClient =
@@ -0,0 +1,86 @@
+package uk.gov.di.ipv.cri.passport.dcsemulator;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A local stand-in for DCS that speaks the real JOSE protocol, for load testing the passport
+ * check without a network. It serves plain HTTP, so point DCS_POST_URL at
+ * {@code http://localhost:<port>/} when running the CRI against it.
+ */
+public class DcsEmulator {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int DEFAULT_PORT = 8090;
+    private static final int DEFAULT_THREADS = 64;
+    private static final int DEFAULT_BACKLOG = 256;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public DcsEmulator(int port, int threads, DcsEmulatorHandler handler) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), DEFAULT_BACKLOG);
+        // Latency is emulated by sleeping, so each in-flight request holds a worker thread
+        this.executor = Executors.newFixedThreadPool(threads);
+        server.createContext("/", handler);
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException, GeneralSecurityException {
+        Map<String, String> env = System.getenv();
+        ValidityRules validityRules =
+                new ValidityRules(
+                        ValidityRules.parsePassportNumbers(
+                                env.get("DCS_EMULATOR_ERROR_PASSPORT_NUMBERS")),
+                        ValidityRules.parsePassportNumbers(
+                                env.get("DCS_EMULATOR_INVALID_PASSPORT_NUMBERS")),
+                        getDoubleEnv(env, "DCS_EMULATOR_ERROR_RATE", 0),
+                        getDoubleEnv(env, "DCS_EMULATOR_INVALID_RATE", 0),
+                        Boolean.parseBoolean(
+                                env.getOrDefault("DCS_EMULATOR_REJECT_EXPIRED", "true")),
+                        Clock.systemUTC());
+        LatencyDistribution latency = LatencyDistribution.parse(env.get("DCS_EMULATOR_LATENCY"));
+        DcsEmulatorHandler handler =
+                new DcsEmulatorHandler(
+                        DcsEmulatorKeys.fromEnvironment(env), validityRules, latency);
+
+        int port = getIntEnv(env, "DCS_EMULATOR_PORT", DEFAULT_PORT);
+        DcsEmulator emulator =
+                new DcsEmulator(
+                        port, getIntEnv(env, "DCS_EMULATOR_THREADS", DEFAULT_THREADS), handler);
+        Runtime.getRuntime().addShutdownHook(new Thread(emulator::stop));
+        emulator.start();
+        LOGGER.info("DCS emulator listening on port {} with {}", port, latency);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private static int getIntEnv(Map<String, String> env, String name, int defaultValue) {
+        String value = env.get(name);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static double getDoubleEnv(Map<String, String> env, String name, double defaultValue) {
+        String value = env.get(name);
+        return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value);
+    }
+}
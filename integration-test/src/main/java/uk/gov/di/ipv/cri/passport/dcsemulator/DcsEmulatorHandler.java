@@ -0,0 +1,204 @@
+package uk.gov.di.ipv.cri.passport.dcsemulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.RSADecrypter;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers a passport check the way DCS does. The request must be signed with the CRI signing key
+ * on both layers and encrypted to the DCS encryption key, and the response is signed with the DCS
+ * signing key on both layers and encrypted to the CRI encryption certificate.
+ */
+public class DcsEmulatorHandler implements HttpHandler {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String CONTENT_TYPE = "application/jose";
+    private static final String THUMBPRINT_HEADER = "x5t#S256";
+
+    private final ObjectMapper objectMapper =
+            new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ValidityRules validityRules;
+    private final LatencyDistribution latency;
+    private final RSASSAVerifier requestVerifier;
+    private final RSADecrypter requestDecrypter;
+    private final RSASSASigner responseSigner;
+    private final RSAEncrypter responseEncrypter;
+    private final JWSHeader responseSigningHeader;
+    private final String criSigningThumbprint;
+
+    public DcsEmulatorHandler(
+            DcsEmulatorKeys keys, ValidityRules validityRules, LatencyDistribution latency)
+            throws GeneralSecurityException {
+        this.validityRules = validityRules;
+        this.latency = latency;
+        this.requestVerifier =
+                new RSASSAVerifier((RSAPublicKey) keys.getCriSigningCert().getPublicKey());
+        this.requestDecrypter = new RSADecrypter(keys.getDcsEncryptionKey());
+        this.responseSigner = new RSASSASigner(keys.getDcsSigningKey());
+        this.responseEncrypter =
+                new RSAEncrypter((RSAPublicKey) keys.getCriEncryptionCert().getPublicKey());
+        this.responseSigningHeader =
+                new JWSHeader.Builder(JWSAlgorithm.RS256)
+                        .customParams(
+                                Map.of(
+                                        "x5t",
+                                        thumbprint(keys.getDcsSigningCert(), "SHA-1"),
+                                        THUMBPRINT_HEADER,
+                                        thumbprint(keys.getDcsSigningCert(), "SHA-256")))
+                        .build();
+        this.criSigningThumbprint = thumbprint(keys.getCriSigningCert(), "SHA-256");
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        long startNanos = System.nanoTime();
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "text/plain", "Method not allowed");
+                return;
+            }
+            byte[] requestBody;
+            try (InputStream body = exchange.getRequestBody()) {
+                requestBody = body.readAllBytes();
+            }
+            Random random = ThreadLocalRandom.current();
+            String responseBody;
+            try {
+                DcsPayload payload =
+                        unwrapRequest(new String(requestBody, StandardCharsets.US_ASCII));
+                DcsResponse response = validityRules.evaluate(payload, random);
+                responseBody = wrapResponse(response);
+                LOGGER.info(
+                        "Answered passport check {} with valid={} error={}",
+                        response.getRequestId(),
+                        response.isValid(),
+                        response.isError());
+            } catch (RejectedRequestException e) {
+                LOGGER.warn("Rejected passport check: {}", e.getMessage());
+                send(exchange, 400, "text/plain", e.getMessage());
+                return;
+            }
+            awaitLatency(startNanos, latency.sampleMillis(random));
+            send(exchange, 200, CONTENT_TYPE, responseBody);
+        } catch (JOSEException e) {
+            LOGGER.error("Failed to build emulated DCS response: {}", e.getMessage());
+            throw new IOException(e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    DcsPayload unwrapRequest(String requestBody) throws RejectedRequestException {
+        try {
+            JWSObject outer = verify(JWSObject.parse(requestBody), "Outer");
+            JWEObject encrypted = JWEObject.parse(outer.getPayload().toString());
+            encrypted.decrypt(requestDecrypter);
+            JWSObject inner = verify(JWSObject.parse(encrypted.getPayload().toString()), "Inner");
+            return objectMapper.readValue(inner.getPayload().toString(), DcsPayload.class);
+        } catch (ParseException | JOSEException | IOException e) {
+            throw new RejectedRequestException(
+                    String.format("Invalid passport check request: %s", e.getMessage()));
+        }
+    }
+
+    String wrapResponse(DcsResponse response) throws JOSEException, IOException {
+        JWSObject inner = sign(objectMapper.writeValueAsString(response));
+        JWEObject encrypted =
+                new JWEObject(
+                        new JWEHeader.Builder(
+                                        JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A128CBC_HS256)
+                                .type(new JOSEObjectType("JWE"))
+                                .build(),
+                        new Payload(inner.serialize()));
+        encrypted.encrypt(responseEncrypter);
+        return sign(encrypted.serialize()).serialize();
+    }
+
+    private JWSObject verify(JWSObject jwsObject, String layer)
+            throws JOSEException, RejectedRequestException {
+        Object thumbprint = jwsObject.getHeader().getCustomParam(THUMBPRINT_HEADER);
+        if (thumbprint != null && !criSigningThumbprint.equals(thumbprint)) {
+            throw new RejectedRequestException(
+                    String.format("%s signature was made with an unknown certificate", layer));
+        }
+        if (!jwsObject.verify(requestVerifier)) {
+            throw new RejectedRequestException(String.format("%s signature invalid", layer));
+        }
+        return jwsObject;
+    }
+
+    private JWSObject sign(String payload) throws JOSEException {
+        JWSObject jwsObject = new JWSObject(responseSigningHeader, new Payload(payload));
+        jwsObject.sign(responseSigner);
+        return jwsObject;
+    }
+
+    private static void awaitLatency(long startNanos, long latencyMillis) {
+        // The sample is the whole response time, so the time spent on crypto counts towards it
+        long remainingNanos =
+                TimeUnit.MILLISECONDS.toNanos(latencyMillis) - (System.nanoTime() - startNanos);
+        if (remainingNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+    private static String thumbprint(X509Certificate cert, String hashAlg)
+            throws GeneralSecurityException {
+        byte[] digest = MessageDigest.getInstance(hashAlg).digest(cert.getEncoded());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    static class RejectedRequestException extends Exception {
+        RejectedRequestException(String message) {
+            super(message);
+        }
+    }
+}
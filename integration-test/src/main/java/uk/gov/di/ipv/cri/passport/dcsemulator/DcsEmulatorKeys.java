@@ -0,0 +1,89 @@
+package uk.gov.di.ipv.cri.passport.dcsemulator;
+
+import java.io.ByteArrayInputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * The key material the emulator holds, given as base64 DER in the same form as the SSM
+ * parameters the CRI reads. The CRI certificates are the counterparts of the CRI's own keys, and
+ * the DCS keys are the counterparts of the DCS certificates configured in the CRI.
+ */
+public class DcsEmulatorKeys {
+    private final X509Certificate criSigningCert;
+    private final X509Certificate criEncryptionCert;
+    private final PrivateKey dcsEncryptionKey;
+    private final PrivateKey dcsSigningKey;
+    private final X509Certificate dcsSigningCert;
+
+    public DcsEmulatorKeys(
+            X509Certificate criSigningCert,
+            X509Certificate criEncryptionCert,
+            PrivateKey dcsEncryptionKey,
+            PrivateKey dcsSigningKey,
+            X509Certificate dcsSigningCert) {
+        this.criSigningCert = criSigningCert;
+        this.criEncryptionCert = criEncryptionCert;
+        this.dcsEncryptionKey = dcsEncryptionKey;
+        this.dcsSigningKey = dcsSigningKey;
+        this.dcsSigningCert = dcsSigningCert;
+    }
+
+    public static DcsEmulatorKeys fromEnvironment(Map<String, String> env)
+            throws GeneralSecurityException {
+        return new DcsEmulatorKeys(
+                parseCertificate(require(env, "DCS_EMULATOR_CRI_SIGNING_CERT")),
+                parseCertificate(require(env, "DCS_EMULATOR_CRI_ENCRYPTION_CERT")),
+                parseKey(require(env, "DCS_EMULATOR_DCS_ENCRYPTION_KEY")),
+                parseKey(require(env, "DCS_EMULATOR_DCS_SIGNING_KEY")),
+                parseCertificate(require(env, "DCS_EMULATOR_DCS_SIGNING_CERT")));
+    }
+
+    public X509Certificate getCriSigningCert() {
+        return criSigningCert;
+    }
+
+    public X509Certificate getCriEncryptionCert() {
+        return criEncryptionCert;
+    }
+
+    public PrivateKey getDcsEncryptionKey() {
+        return dcsEncryptionKey;
+    }
+
+    public PrivateKey getDcsSigningKey() {
+        return dcsSigningKey;
+    }
+
+    public X509Certificate getDcsSigningCert() {
+        return dcsSigningCert;
+    }
+
+    private static String require(Map<String, String> env, String name) {
+        String value = env.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(
+                    String.format("The environment variable '%s' must be provided", name));
+        }
+        return value;
+    }
+
+    private static X509Certificate parseCertificate(String base64Certificate)
+            throws GeneralSecurityException {
+        byte[] binaryCertificate = Base64.getDecoder().decode(base64Certificate);
+        CertificateFactory factory = CertificateFactory.getInstance("X.509");
+        return (X509Certificate)
+                factory.generateCertificate(new ByteArrayInputStream(binaryCertificate));
+    }
+
+    private static PrivateKey parseKey(String base64Key) throws GeneralSecurityException {
+        byte[] binaryKey = Base64.getDecoder().decode(base64Key);
+        return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(binaryKey));
+    }
+}
@@ -0,0 +1,99 @@
+package uk.gov.di.ipv.cri.passport.dcsemulator;
+
+import java.util.Random;
+
+/**
+ * How long the emulator waits before answering. Parsed from a spec such as {@code fixed:200},
+ * {@code uniform:100:400}, {@code normal:250:50} or {@code lognormal:250:0.5}, with every
+ * duration in milliseconds. The normal and log-normal forms take the mean and the median
+ * respectively, and an optional final value caps the sample.
+ */
+public class LatencyDistribution {
+    private final String type;
+    private final double first;
+    private final double second;
+    private final long maxMillis;
+
+    private LatencyDistribution(String type, double first, double second, long maxMillis) {
+        this.type = type;
+        this.first = first;
+        this.second = second;
+        this.maxMillis = maxMillis;
+    }
+
+    public static LatencyDistribution none() {
+        return new LatencyDistribution("fixed", 0, 0, Long.MAX_VALUE);
+    }
+
+    public static LatencyDistribution parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return none();
+        }
+        String[] parts = spec.trim().split(":");
+        String type = parts[0].toLowerCase();
+        try {
+            switch (type) {
+                case "fixed":
+                    requireParts(spec, parts, 2);
+                    return new LatencyDistribution(
+                            type, Double.parseDouble(parts[1]), 0, Long.MAX_VALUE);
+                case "uniform":
+                case "normal":
+                case "lognormal":
+                    requireParts(spec, parts, 3);
+                    long maxMillis =
+                            parts.length > 3 ? Long.parseLong(parts[3]) : Long.MAX_VALUE;
+                    return new LatencyDistribution(
+                            type,
+                            Double.parseDouble(parts[1]),
+                            Double.parseDouble(parts[2]),
+                            maxMillis);
+                default:
+                    throw new IllegalArgumentException(
+                            String.format("Unknown latency distribution: %s", spec));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid latency distribution: %s", spec), e);
+        }
+    }
+
+    public long sampleMillis(Random random) {
+        double sample;
+        switch (type) {
+            case "uniform":
+                sample = first + random.nextDouble() * (second - first);
+                break;
+            case "normal":
+                sample = first + random.nextGaussian() * second;
+                break;
+            case "lognormal":
+                sample = first * Math.exp(random.nextGaussian() * second);
+                break;
+            default:
+                sample = first;
+        }
+        return Math.min(maxMillis, Math.max(0L, Math.round(sample)));
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyDistribution{"
+                + "type="
+                + type
+                + ", first="
+                + first
+                + ", second="
+                + second
+                + ", maxMillis="
+                + maxMillis
+                + '}';
+    }
+
+    private static void requireParts(String spec, String[] parts, int count) {
+        if (parts.length < count) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid latency distribution: %s", spec));
+        }
+    }
+}
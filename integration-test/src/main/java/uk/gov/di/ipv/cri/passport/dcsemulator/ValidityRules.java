@@ -0,0 +1,71 @@
+package uk.gov.di.ipv.cri.passport.dcsemulator;
+
+import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsResponse;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Decides what the emulator answers for a passport. Listed passport numbers always error or
+ * fail, expired passports fail, and the rest error or fail at the configured rates.
+ */
+public class ValidityRules {
+    static final String ERROR_MESSAGE = "Emulated DCS error";
+
+    private final Set<String> errorPassportNumbers;
+    private final Set<String> invalidPassportNumbers;
+    private final double errorRate;
+    private final double invalidRate;
+    private final boolean rejectExpired;
+    private final Clock clock;
+
+    public ValidityRules(
+            Set<String> errorPassportNumbers,
+            Set<String> invalidPassportNumbers,
+            double errorRate,
+            double invalidRate,
+            boolean rejectExpired,
+            Clock clock) {
+        this.errorPassportNumbers = errorPassportNumbers;
+        this.invalidPassportNumbers = invalidPassportNumbers;
+        this.errorRate = errorRate;
+        this.invalidRate = invalidRate;
+        this.rejectExpired = rejectExpired;
+        this.clock = clock;
+    }
+
+    public static Set<String> parsePassportNumbers(String value) {
+        if (value == null || value.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(number -> !number.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public DcsResponse evaluate(DcsPayload payload, Random random) {
+        String correlationId = String.valueOf(payload.getCorrelationId());
+        String requestId = String.valueOf(payload.getRequestId());
+        String passportNumber = payload.getPassportNumber();
+        if (errorPassportNumbers.contains(passportNumber) || random.nextDouble() < errorRate) {
+            return new DcsResponse(correlationId, requestId, true, false, List.of(ERROR_MESSAGE));
+        }
+        boolean valid =
+                !invalidPassportNumbers.contains(passportNumber)
+                        && !(rejectExpired && isExpired(payload))
+                        && random.nextDouble() >= invalidRate;
+        return new DcsResponse(correlationId, requestId, false, valid, null);
+    }
+
+    private boolean isExpired(DcsPayload payload) {
+        LocalDate expiryDate = payload.getExpiryDate();
+        return expiryDate != null && expiryDate.isBefore(LocalDate.now(clock));
+    }
+}
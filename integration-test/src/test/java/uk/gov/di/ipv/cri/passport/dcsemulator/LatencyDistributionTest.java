@@ -0,0 +1,49 @@
+package uk.gov.di.ipv.cri.passport.dcsemulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyDistributionTest {
+    @Test
+    void shouldNotWaitWithoutASpec() {
+        assertEquals(0, LatencyDistribution.parse(null).sampleMillis(new Random(1)));
+    }
+
+    @Test
+    void shouldSampleFixedLatency() {
+        assertEquals(200, LatencyDistribution.parse("fixed:200").sampleMillis(new Random(1)));
+    }
+
+    @Test
+    void shouldSampleUniformLatencyWithinBounds() {
+        LatencyDistribution latency = LatencyDistribution.parse("uniform:100:400");
+        Random random = new Random(1);
+
+        for (int i = 0; i < 1000; i++) {
+            long sample = latency.sampleMillis(random);
+            assertTrue(sample >= 100 && sample <= 400);
+        }
+    }
+
+    @Test
+    void shouldCapAndFloorNormalLatency() {
+        LatencyDistribution latency = LatencyDistribution.parse("normal:100:1000:300");
+        Random random = new Random(1);
+
+        for (int i = 0; i < 1000; i++) {
+            long sample = latency.sampleMillis(random);
+            assertTrue(sample >= 0 && sample <= 300);
+        }
+    }
+
+    @Test
+    void shouldRejectUnknownDistribution() {
+        assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.parse("pareto:1"));
+        assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.parse("uniform:1"));
+    }
+}
@@ -0,0 +1,90 @@
+package uk.gov.di.ipv.cri.passport.dcsemulator;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsResponse;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ValidityRulesTest {
+    private static final Clock CLOCK =
+            Clock.fixed(Instant.parse("2022-03-01T10:00:00Z"), ZoneOffset.UTC);
+    private static final LocalDate VALID_EXPIRY = LocalDate.of(2024, 9, 3);
+
+    private final ValidityRules underTest =
+            new ValidityRules(
+                    ValidityRules.parsePassportNumbers("111111111"),
+                    ValidityRules.parsePassportNumbers("222222222, 333333333"),
+                    0,
+                    0,
+                    true,
+                    CLOCK);
+
+    @Test
+    void shouldAnswerValidAndEchoTheRequestIds() {
+        DcsPayload payload = dcsPayload("123456789", VALID_EXPIRY);
+
+        DcsResponse response = underTest.evaluate(payload, new Random(1));
+
+        assertTrue(response.isValid());
+        assertFalse(response.isError());
+        assertEquals(payload.getCorrelationId().toString(), response.getCorrelationId());
+        assertEquals(payload.getRequestId().toString(), response.getRequestId());
+    }
+
+    @Test
+    void shouldAnswerInvalidForListedPassportNumbers() {
+        DcsResponse response =
+                underTest.evaluate(dcsPayload("333333333", VALID_EXPIRY), new Random(1));
+
+        assertFalse(response.isValid());
+        assertFalse(response.isError());
+    }
+
+    @Test
+    void shouldAnswerInvalidForExpiredPassports() {
+        DcsResponse response =
+                underTest.evaluate(
+                        dcsPayload("123456789", LocalDate.of(2022, 2, 28)), new Random(1));
+
+        assertFalse(response.isValid());
+    }
+
+    @Test
+    void shouldAnswerErrorForListedPassportNumbers() {
+        DcsResponse response =
+                underTest.evaluate(dcsPayload("111111111", VALID_EXPIRY), new Random(1));
+
+        assertTrue(response.isError());
+        assertEquals(List.of(ValidityRules.ERROR_MESSAGE), response.getErrorMessage());
+    }
+
+    @Test
+    void shouldAnswerInvalidAtTheConfiguredRate() {
+        ValidityRules alwaysInvalid = new ValidityRules(Set.of(), Set.of(), 0, 1, false, CLOCK);
+
+        assertFalse(
+                alwaysInvalid
+                        .evaluate(dcsPayload("123456789", VALID_EXPIRY), new Random(1))
+                        .isValid());
+    }
+
+    private static DcsPayload dcsPayload(String passportNumber, LocalDate expiryDate) {
+        return new DcsPayload(
+                passportNumber,
+                "Tattsyrup",
+                List.of("Tubbs"),
+                LocalDate.of(1984, 9, 28),
+                expiryDate);
+    }
+}
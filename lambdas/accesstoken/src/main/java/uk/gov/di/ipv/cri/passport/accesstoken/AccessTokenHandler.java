@@ -15,11 +15,15 @@ import org.apache.http.HttpStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import software.amazon.lambda.powertools.logging.Logging;
+import software.amazon.lambda.powertools.metrics.Metrics;
 import uk.gov.di.ipv.cri.passport.accesstoken.exceptions.ClientAuthenticationException;
 import uk.gov.di.ipv.cri.passport.accesstoken.validation.TokenRequestValidator;
 import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.passport.library.error.ErrorResponse;
+import uk.gov.di.ipv.cri.passport.library.exceptions.DeadlineExceededException;
 import uk.gov.di.ipv.cri.passport.library.helpers.ApiGatewayResponseGenerator;
 import uk.gov.di.ipv.cri.passport.library.helpers.LogHelper;
+import uk.gov.di.ipv.cri.passport.library.helpers.RequestDeadline;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.AuthorizationCodeItem;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportSessionItem;
 import uk.gov.di.ipv.cri.passport.library.service.AccessTokenService;
@@ -69,8 +73,28 @@ public class AccessTokenHandler
 
     @Override
     @Logging(clearState = true)
+    @Metrics
     public APIGatewayProxyResponseEvent handleRequest(
             APIGatewayProxyRequestEvent input, Context context) {
+        RequestDeadline.start(context, configurationService.getRequestDeadlineReserveMillis());
+        try {
+            return processRequest(input, context);
+        } catch (DeadlineExceededException e) {
+            LOGGER.error(e.getMessage());
+            return ApiGatewayResponseGenerator.proxyJsonResponse(
+                    HttpStatus.SC_GATEWAY_TIMEOUT,
+                    new ErrorObject(
+                                    OAuth2Error.SERVER_ERROR_CODE,
+                                    ErrorResponse.REQUEST_DEADLINE_EXCEEDED.getMessage())
+                            .toJSONObject());
+        } finally {
+            RequestDeadline.finish();
+            configurationService.publishSsmRoundTripMetric();
+        }
+    }
+
+    private APIGatewayProxyResponseEvent processRequest(
+            APIGatewayProxyRequestEvent input, Context context) {
         LogHelper.attachComponentIdToLogs();
         try {
             tokenRequestValidator.authenticateClient(input.getBody());
@@ -2,16 +2,17 @@ package uk.gov.di.ipv.cri.passport.accesstoken.domain;
 
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.ECKey;
 import com.nimbusds.oauth2.sdk.auth.ClientAuthenticationMethod;
 import com.nimbusds.oauth2.sdk.auth.Secret;
 import com.nimbusds.oauth2.sdk.auth.verifier.ClientCredentialsSelector;
 import com.nimbusds.oauth2.sdk.auth.verifier.Context;
 import com.nimbusds.oauth2.sdk.auth.verifier.InvalidClientException;
 import com.nimbusds.oauth2.sdk.id.ClientID;
+import uk.gov.di.ipv.cri.passport.library.exceptions.UnknownClientException;
 import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
 
 import java.security.PublicKey;
-import java.text.ParseException;
 import java.util.List;
 
 public class ConfigurationServicePublicKeySelector implements ClientCredentialsSelector<Object> {
@@ -37,11 +38,16 @@ public class ConfigurationServicePublicKeySelector implements ClientCredentialsS
             Context context)
             throws InvalidClientException {
         try {
-            return List.of(
+            ECKey signingPublicJwk =
                     configurationService
-                            .getClientSigningPublicJwk(claimedClientID.getValue())
-                            .toECPublicKey());
-        } catch (ParseException | JOSEException e) {
+                            .getClientConfig(claimedClientID.getValue())
+                            .getSigningPublicJwk();
+            if (signingPublicJwk == null) {
+                throw new InvalidClientException(
+                        "No valid signing public JWK configured for client");
+            }
+            return List.of(signingPublicJwk.toECPublicKey());
+        } catch (UnknownClientException | JOSEException e) {
             throw new InvalidClientException(e.getMessage());
         }
     }
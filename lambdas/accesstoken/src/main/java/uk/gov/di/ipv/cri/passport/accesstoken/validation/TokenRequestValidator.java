@@ -18,6 +18,7 @@ import uk.gov.di.ipv.cri.passport.library.helpers.JwtHelper;
 import uk.gov.di.ipv.cri.passport.library.helpers.LogHelper;
 import uk.gov.di.ipv.cri.passport.library.helpers.LogHelper.LogField;
 import uk.gov.di.ipv.cri.passport.library.helpers.RequestHelper;
+import uk.gov.di.ipv.cri.passport.library.persistence.ConditionalWriteResult;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.ClientAuthJwtIdItem;
 import uk.gov.di.ipv.cri.passport.library.service.ClientAuthJwtIdService;
 import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
@@ -85,20 +86,24 @@ public class TokenRequestValidator {
             LOGGER.error("The client auth JWT id (jti) is missing");
             throw new InvalidClientException("The client auth JWT id (jti) is missing");
         }
-        ClientAuthJwtIdItem clientAuthJwtIdItem =
-                clientAuthJwtIdService.getClientAuthJwtIdItem(jwtId.getValue());
-        if (clientAuthJwtIdItem != null) {
+        ConditionalWriteResult result =
+                clientAuthJwtIdService.recordClientAuthJwtId(jwtId.getValue());
+        if (result == ConditionalWriteResult.CONDITION_FAILED) {
+            // Only a replay pays for the extra read, to log when the jti was first used
+            ClientAuthJwtIdItem clientAuthJwtIdItem =
+                    clientAuthJwtIdService.getClientAuthJwtIdItem(jwtId.getValue());
             LoggingUtils.appendKey(LogField.JTI_LOG_FIELD.getFieldName(), jwtId.getValue());
-            LoggingUtils.appendKey(
-                    LogField.USED_AT_DATE_TIME_LOG_FIELD.getFieldName(),
-                    clientAuthJwtIdItem.getUsedAtDateTime());
+            if (clientAuthJwtIdItem != null) {
+                LoggingUtils.appendKey(
+                        LogField.USED_AT_DATE_TIME_LOG_FIELD.getFieldName(),
+                        clientAuthJwtIdItem.getUsedAtDateTime());
+            }
             LOGGER.error("The client auth JWT id (jti) has already been used");
             LoggingUtils.removeKeys(
                     LogField.JTI_LOG_FIELD.getFieldName(),
                     LogField.USED_AT_DATE_TIME_LOG_FIELD.getFieldName());
             throw new InvalidClientException("The client auth JWT id (jti) has already been used");
         }
-        clientAuthJwtIdService.persistClientAuthJwtId(jwtId.getValue());
     }
 
     private ClientAuthenticationVerifier<Object> getClientAuthVerifier(
@@ -18,6 +18,7 @@ import com.nimbusds.oauth2.sdk.token.AccessToken;
 import com.nimbusds.oauth2.sdk.token.BearerAccessToken;
 import com.nimbusds.oauth2.sdk.token.Tokens;
 import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -30,6 +31,7 @@ import uk.gov.di.ipv.cri.passport.library.persistence.item.AuthorizationCodeItem
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportSessionItem;
 import uk.gov.di.ipv.cri.passport.library.service.AccessTokenService;
 import uk.gov.di.ipv.cri.passport.library.service.AuthorizationCodeService;
+import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
 import uk.gov.di.ipv.cri.passport.library.service.PassportSessionService;
 import uk.gov.di.ipv.cri.passport.library.validation.ValidationResult;
 
@@ -60,10 +62,16 @@ class AccessTokenHandlerTest {
     @Mock private Context context;
     @Mock private AccessTokenService mockAccessTokenService;
     @Mock private AuthorizationCodeService mockAuthorizationCodeService;
+    @Mock private ConfigurationService mockConfigurationService;
     @Mock private PassportSessionService mockPassportSessionService;
     @Mock private TokenRequestValidator mockTokenRequestValidator;
     @InjectMocks private AccessTokenHandler handler;
 
+    @BeforeEach
+    void setUp() {
+        when(context.getRemainingTimeInMillis()).thenReturn(30_000);
+    }
+
     @Test
     void shouldReturnAccessTokenOnSuccessfulExchange() throws Exception {
         APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
@@ -9,11 +9,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.passport.library.config.ClientConfig;
+import uk.gov.di.ipv.cri.passport.library.exceptions.UnknownClientException;
 import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
 
 import java.security.PublicKey;
-import java.text.ParseException;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -38,12 +40,12 @@ class ConfigurationServicePublicKeySelectorTest {
 
     @Test
     void selectPublicKeysShouldReturnAListOfClientEcPublicKeys() throws Exception {
-        when(mockConfigurationService.getClientSigningPublicJwk("testClientId1"))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
-        when(mockConfigurationService.getClientSigningPublicJwk("testClientId2"))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_2));
-        when(mockConfigurationService.getClientSigningPublicJwk("testClientId3"))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_3));
+        when(mockConfigurationService.getClientConfig("testClientId1"))
+                .thenReturn(clientConfig("testClientId1", ECKey.parse(EC_PUBLIC_JWK_1)));
+        when(mockConfigurationService.getClientConfig("testClientId2"))
+                .thenReturn(clientConfig("testClientId2", ECKey.parse(EC_PUBLIC_JWK_2)));
+        when(mockConfigurationService.getClientConfig("testClientId3"))
+                .thenReturn(clientConfig("testClientId3", ECKey.parse(EC_PUBLIC_JWK_3)));
 
         List<? extends PublicKey> publicKeys2 =
                 keySelector.selectPublicKeys(
@@ -65,8 +67,8 @@ class ConfigurationServicePublicKeySelectorTest {
     @Test
     void selectPublicKeysShouldThrowInvalidClientExceptionIfCanNotParsePublicJwk()
             throws Exception {
-        when(mockConfigurationService.getClientSigningPublicJwk("testClientId"))
-                .thenThrow(new ParseException("Not a JWK", 0));
+        when(mockConfigurationService.getClientConfig("testClientId"))
+                .thenReturn(clientConfig("testClientId", null));
 
         InvalidClientException exception =
                 assertThrows(
@@ -74,7 +76,21 @@ class ConfigurationServicePublicKeySelectorTest {
                         () ->
                                 keySelector.selectPublicKeys(
                                         new ClientID("testClientId"), null, null, false, null));
-        assertEquals("Not a JWK", exception.getMessage());
+        assertEquals("No valid signing public JWK configured for client", exception.getMessage());
+    }
+
+    @Test
+    void selectPublicKeysShouldThrowInvalidClientExceptionIfClientIsUnknown() {
+        when(mockConfigurationService.getClientConfig("testClientId"))
+                .thenThrow(new UnknownClientException("Unknown client id: testClientId"));
+
+        InvalidClientException exception =
+                assertThrows(
+                        InvalidClientException.class,
+                        () ->
+                                keySelector.selectPublicKeys(
+                                        new ClientID("testClientId"), null, null, false, null));
+        assertEquals("Unknown client id: testClientId", exception.getMessage());
     }
 
     @Test
@@ -82,8 +98,8 @@ class ConfigurationServicePublicKeySelectorTest {
             throws Exception {
         ECKey ecKeyMock = mock(ECKey.class);
         when(ecKeyMock.toECPublicKey()).thenThrow(new JOSEException("Something went wrong..."));
-        when(mockConfigurationService.getClientSigningPublicJwk("testClientId"))
-                .thenReturn(ecKeyMock);
+        when(mockConfigurationService.getClientConfig("testClientId"))
+                .thenReturn(clientConfig("testClientId", ecKeyMock));
 
         InvalidClientException exception =
                 assertThrows(
@@ -93,4 +109,8 @@ class ConfigurationServicePublicKeySelectorTest {
                                         new ClientID("testClientId"), null, null, false, null));
         assertEquals("Something went wrong...", exception.getMessage());
     }
+
+    private ClientConfig clientConfig(String clientId, ECKey signingPublicJwk) {
+        return new ClientConfig(clientId, signingPublicJwk, Set.of(), "test-issuer");
+    }
 }
@@ -18,6 +18,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.di.ipv.cri.passport.accesstoken.exceptions.ClientAuthenticationException;
+import uk.gov.di.ipv.cri.passport.library.config.ClientConfig;
+import uk.gov.di.ipv.cri.passport.library.persistence.ConditionalWriteResult;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.ClientAuthJwtIdItem;
 import uk.gov.di.ipv.cri.passport.library.service.ClientAuthJwtIdService;
 import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
@@ -34,11 +36,15 @@ import java.time.OffsetDateTime;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.gov.di.ipv.cri.passport.library.helpers.fixtures.TestFixtures.EC_PRIVATE_KEY_1;
 import static uk.gov.di.ipv.cri.passport.library.helpers.fixtures.TestFixtures.EC_PUBLIC_JWK_1;
@@ -63,19 +69,28 @@ class TokenRequestValidatorTest {
 
     @Test
     void shouldNotThrowForValidJwt() throws Exception {
-        when(mockConfigurationService.getClientSigningPublicJwk(clientId))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(mockConfigurationService.getClientConfig(clientId))
+                .thenReturn(
+                        new ClientConfig(
+                                clientId, ECKey.parse(EC_PUBLIC_JWK_1), Set.of(), "test-issuer"));
         when(mockConfigurationService.getMaxClientAuthTokenTtl()).thenReturn("2400");
 
+        when(mockClientAuthJwtIdService.recordClientAuthJwtId(jti))
+                .thenReturn(ConditionalWriteResult.WRITTEN);
+
         var validQueryParams =
                 getValidQueryParams(generateClientAssertion(getValidClaimsSetValues()));
         assertDoesNotThrow(() -> validator.authenticateClient(queryMapToString(validQueryParams)));
+        verify(mockClientAuthJwtIdService).recordClientAuthJwtId(jti);
+        verify(mockClientAuthJwtIdService, never()).getClientAuthJwtIdItem(anyString());
     }
 
     @Test
     void shouldNotThrowForValidJwtWithDerSignature() throws Exception {
-        when(mockConfigurationService.getClientSigningPublicJwk(clientId))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(mockConfigurationService.getClientConfig(clientId))
+                .thenReturn(
+                        new ClientConfig(
+                                clientId, ECKey.parse(EC_PUBLIC_JWK_1), Set.of(), "test-issuer"));
         when(mockConfigurationService.getMaxClientAuthTokenTtl()).thenReturn("2400");
 
         SignedJWT signedJWT = SignedJWT.parse(generateClientAssertion(getValidClaimsSetValues()));
@@ -91,8 +106,10 @@ class TokenRequestValidatorTest {
 
     @Test
     void shouldThrowIfInvalidSignature() throws Exception {
-        when(mockConfigurationService.getClientSigningPublicJwk(clientId))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(mockConfigurationService.getClientConfig(clientId))
+                .thenReturn(
+                        new ClientConfig(
+                                clientId, ECKey.parse(EC_PUBLIC_JWK_1), Set.of(), "test-issuer"));
 
         var invalidSignatureQueryParams =
                 new HashMap<>(
@@ -178,8 +195,10 @@ class TokenRequestValidatorTest {
 
     @Test
     void shouldFailWhenCLientJWTContainsExpiryClaimTooFarInFuture() throws Exception {
-        when(mockConfigurationService.getClientSigningPublicJwk(clientId))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(mockConfigurationService.getClientConfig(clientId))
+                .thenReturn(
+                        new ClientConfig(
+                                clientId, ECKey.parse(EC_PUBLIC_JWK_1), Set.of(), "test-issuer"));
         when(mockConfigurationService.getMaxClientAuthTokenTtl()).thenReturn("2400");
         var expiredClaimsSetValues = new HashMap<>(getValidClaimsSetValues());
         expiredClaimsSetValues.put(
@@ -231,8 +250,10 @@ class TokenRequestValidatorTest {
 
     @Test
     void shouldThrowIfMissingJwtId() throws Exception {
-        when(mockConfigurationService.getClientSigningPublicJwk(clientId))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(mockConfigurationService.getClientConfig(clientId))
+                .thenReturn(
+                        new ClientConfig(
+                                clientId, ECKey.parse(EC_PUBLIC_JWK_1), Set.of(), "test-issuer"));
         when(mockConfigurationService.getMaxClientAuthTokenTtl()).thenReturn("2400");
         Map<String, Object> claimsSetValues = getClaimsSetValuesMissingJwtId();
         String clientAssertion = generateClientAssertion(claimsSetValues);
@@ -249,14 +270,18 @@ class TokenRequestValidatorTest {
 
     @Test
     void shouldThrowIfJwtIdHasAlreadyBeenUsed() throws Exception {
-        when(mockConfigurationService.getClientSigningPublicJwk(clientId))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(mockConfigurationService.getClientConfig(clientId))
+                .thenReturn(
+                        new ClientConfig(
+                                clientId, ECKey.parse(EC_PUBLIC_JWK_1), Set.of(), "test-issuer"));
         when(mockConfigurationService.getMaxClientAuthTokenTtl()).thenReturn("2400");
         Map<String, Object> claimsSetValues = getValidClaimsSetValues();
         String clientAssertion = generateClientAssertion(claimsSetValues);
 
         ClientAuthJwtIdItem clientAuthJwtIdItem =
                 new ClientAuthJwtIdItem(jti, Instant.now().toString());
+        when(mockClientAuthJwtIdService.recordClientAuthJwtId(jti))
+                .thenReturn(ConditionalWriteResult.CONDITION_FAILED);
         when(mockClientAuthJwtIdService.getClientAuthJwtIdItem(jti))
                 .thenReturn(clientAuthJwtIdItem);
 
@@ -13,13 +13,17 @@ import org.apache.http.client.utils.URIBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import software.amazon.lambda.powertools.logging.Logging;
+import software.amazon.lambda.powertools.metrics.Metrics;
 import uk.gov.di.ipv.cri.passport.buildclientoauthresponse.domain.ClientDetails;
 import uk.gov.di.ipv.cri.passport.buildclientoauthresponse.domain.ClientResponse;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditEventTypes;
+import uk.gov.di.ipv.cri.passport.library.error.ErrorResponse;
+import uk.gov.di.ipv.cri.passport.library.exceptions.DeadlineExceededException;
 import uk.gov.di.ipv.cri.passport.library.exceptions.HttpResponseExceptionWithErrorBody;
 import uk.gov.di.ipv.cri.passport.library.exceptions.SqsException;
 import uk.gov.di.ipv.cri.passport.library.helpers.ApiGatewayResponseGenerator;
 import uk.gov.di.ipv.cri.passport.library.helpers.LogHelper;
+import uk.gov.di.ipv.cri.passport.library.helpers.RequestDeadline;
 import uk.gov.di.ipv.cri.passport.library.helpers.RequestHelper;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportSessionItem;
 import uk.gov.di.ipv.cri.passport.library.service.AuditService;
@@ -59,8 +63,28 @@ public class BuildClientOauthResponseHandler
 
     @Override
     @Logging(clearState = true)
+    @Metrics
     public APIGatewayProxyResponseEvent handleRequest(
             APIGatewayProxyRequestEvent input, Context context) {
+        RequestDeadline.start(context, configurationService.getRequestDeadlineReserveMillis());
+        try {
+            return processRequest(input, context);
+        } catch (DeadlineExceededException e) {
+            LOGGER.error(e.getMessage());
+            return ApiGatewayResponseGenerator.proxyJsonResponse(
+                    HttpStatus.SC_GATEWAY_TIMEOUT,
+                    new ErrorObject(
+                                    OAuth2Error.SERVER_ERROR_CODE,
+                                    ErrorResponse.REQUEST_DEADLINE_EXCEEDED.getMessage())
+                            .toJSONObject());
+        } finally {
+            RequestDeadline.finish();
+            configurationService.publishSsmRoundTripMetric();
+        }
+    }
+
+    private APIGatewayProxyResponseEvent processRequest(
+            APIGatewayProxyRequestEvent input, Context context) {
         LogHelper.attachComponentIdToLogs();
 
         try {
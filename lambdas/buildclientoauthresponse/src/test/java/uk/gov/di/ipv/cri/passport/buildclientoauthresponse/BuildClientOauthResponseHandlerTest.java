@@ -56,6 +56,7 @@ class BuildClientOauthResponseHandlerTest {
 
     @BeforeEach
     void setUp() {
+        when(context.getRemainingTimeInMillis()).thenReturn(30_000);
         authorizationCode = new AuthorizationCode();
         handler =
                 new BuildClientOauthResponseHandler(
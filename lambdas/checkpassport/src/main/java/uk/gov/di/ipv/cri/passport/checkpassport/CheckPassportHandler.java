@@ -8,15 +8,17 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.JWSObject;
 import com.nimbusds.oauth2.sdk.AuthorizationRequest;
 import com.nimbusds.oauth2.sdk.ErrorObject;
 import com.nimbusds.oauth2.sdk.OAuth2Error;
 import com.nimbusds.oauth2.sdk.ParseException;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 import software.amazon.lambda.powertools.logging.Logging;
+import software.amazon.lambda.powertools.metrics.Metrics;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditEvent;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditEventTypes;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditEventUser;
@@ -25,27 +27,30 @@ import uk.gov.di.ipv.cri.passport.library.auditing.AuditExtensionsVcEvidence;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditRestricted;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditRestrictedVcCredentialSubject;
 import uk.gov.di.ipv.cri.passport.library.domain.AuthParams;
+import uk.gov.di.ipv.cri.passport.library.domain.CompactSerialization;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsResponse;
-import uk.gov.di.ipv.cri.passport.library.domain.DcsSignedEncryptedResponse;
-import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.ContraIndicators;
 import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.CredentialSubject;
 import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Evidence;
 import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.VerifiableCredential;
 import uk.gov.di.ipv.cri.passport.library.error.ErrorResponse;
-import uk.gov.di.ipv.cri.passport.library.exceptions.EmptyDcsResponseException;
+import uk.gov.di.ipv.cri.passport.library.exceptions.AdmissionRejectedException;
+import uk.gov.di.ipv.cri.passport.library.exceptions.DeadlineExceededException;
 import uk.gov.di.ipv.cri.passport.library.exceptions.HttpResponseExceptionWithErrorBody;
 import uk.gov.di.ipv.cri.passport.library.exceptions.IpvCryptoException;
 import uk.gov.di.ipv.cri.passport.library.exceptions.OAuthHttpResponseExceptionWithErrorBody;
 import uk.gov.di.ipv.cri.passport.library.exceptions.SqsException;
+import uk.gov.di.ipv.cri.passport.library.helpers.AdmissionController;
 import uk.gov.di.ipv.cri.passport.library.helpers.ApiGatewayResponseGenerator;
 import uk.gov.di.ipv.cri.passport.library.helpers.LogHelper;
+import uk.gov.di.ipv.cri.passport.library.helpers.RequestDeadline;
 import uk.gov.di.ipv.cri.passport.library.helpers.RequestHelper;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportSessionItem;
 import uk.gov.di.ipv.cri.passport.library.service.AuditService;
 import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
 import uk.gov.di.ipv.cri.passport.library.service.DcsCryptographyService;
+import uk.gov.di.ipv.cri.passport.library.service.PassportCheckRequestService;
 import uk.gov.di.ipv.cri.passport.library.service.PassportService;
 import uk.gov.di.ipv.cri.passport.library.service.PassportSessionService;
 
@@ -59,6 +64,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class CheckPassportHandler
         implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
@@ -66,9 +75,7 @@ public class CheckPassportHandler
     private static final Logger LOGGER = LogManager.getLogger();
     private static final ObjectMapper objectMapper =
             new ObjectMapper().registerModule(new JavaTimeModule());
-    private static final int MAX_PASSPORT_GPG45_STRENGTH_VALUE = 4;
-    private static final int MAX_PASSPORT_GPG45_VALIDITY_VALUE = 2;
-    private static final int MIN_PASSPORT_GPG45_VALUE = 0;
+    private static final int SC_TOO_MANY_REQUESTS = 429;
 
     public static final String CLIENT_ID_PARAM = "client_id";
     public static final String REDIRECT_URI_PARAM = "redirect_uri";
@@ -85,18 +92,41 @@ public class CheckPassportHandler
     private final AuditService auditService;
 
     private final PassportSessionService passportSessionService;
+    private final PassportCheckRequestService passportCheckRequestService;
+    private final AdmissionController admissionController;
 
     public CheckPassportHandler(
             PassportService passportService,
             ConfigurationService configurationService,
             DcsCryptographyService dcsCryptographyService,
             AuditService auditService,
-            PassportSessionService passportSessionService) {
+            PassportSessionService passportSessionService,
+            PassportCheckRequestService passportCheckRequestService) {
+        this(
+                passportService,
+                configurationService,
+                dcsCryptographyService,
+                auditService,
+                passportSessionService,
+                passportCheckRequestService,
+                null);
+    }
+
+    public CheckPassportHandler(
+            PassportService passportService,
+            ConfigurationService configurationService,
+            DcsCryptographyService dcsCryptographyService,
+            AuditService auditService,
+            PassportSessionService passportSessionService,
+            PassportCheckRequestService passportCheckRequestService,
+            AdmissionController admissionController) {
         this.passportService = passportService;
         this.configurationService = configurationService;
         this.dcsCryptographyService = dcsCryptographyService;
         this.auditService = auditService;
         this.passportSessionService = passportSessionService;
+        this.passportCheckRequestService = passportCheckRequestService;
+        this.admissionController = admissionController;
     }
 
     public CheckPassportHandler()
@@ -108,12 +138,37 @@ public class CheckPassportHandler
         this.auditService =
                 new AuditService(AuditService.getDefaultSqsClient(), configurationService);
         this.passportSessionService = new PassportSessionService(configurationService);
+        this.passportCheckRequestService = new PassportCheckRequestService(configurationService);
+        this.admissionController = AdmissionController.fromConfig(configurationService);
+        this.passportService.warmUpDcsConnection();
     }
 
     @Override
     @Logging(clearState = true)
+    @Metrics
     public APIGatewayProxyResponseEvent handleRequest(
             APIGatewayProxyRequestEvent input, Context context) {
+        RequestDeadline.start(context, configurationService.getRequestDeadlineReserveMillis());
+        try {
+            return processRequest(input, context);
+        } catch (DeadlineExceededException e) {
+            LOGGER.error(e.getMessage());
+            return ApiGatewayResponseGenerator.proxyJsonResponse(
+                    HttpStatus.SC_GATEWAY_TIMEOUT,
+                    new ErrorObject(
+                                    OAuth2Error.SERVER_ERROR_CODE,
+                                    ErrorResponse.REQUEST_DEADLINE_EXCEEDED.getMessage())
+                            .toJSONObject());
+        } finally {
+            RequestDeadline.finish();
+            configurationService.publishSsmRoundTripMetric();
+            passportService.publishConnectionPoolMetrics();
+            passportService.publishCircuitBreakerMetrics();
+        }
+    }
+
+    private APIGatewayProxyResponseEvent processRequest(
+            APIGatewayProxyRequestEvent input, Context context) {
         LogHelper.attachComponentIdToLogs();
         try {
             String passportSessionId = RequestHelper.getPassportSessionId(input);
@@ -130,46 +185,24 @@ public class CheckPassportHandler
                                 .toJSONObject());
             }
 
-            passportSessionService.incrementAttemptCount(passportSessionId);
-
-            String userId = passportSessionItem.getUserId();
-            var authParams = passportSessionItem.getAuthParams();
-
-            AuthorizationRequest authorizationRequest =
-                    AuthorizationRequest.parse(getAuthParamsAsMap(authParams));
-
-            LogHelper.attachClientIdToLogs(authorizationRequest.getClientID().getValue());
-
             DcsPayload dcsPayload = parsePassportFormRequest(input.getBody());
-            JWSObject preparedDcsPayload = preparePayload(dcsPayload);
 
-            auditService.sendAuditEvent(
-                    createAuditEventRequestSent(
-                            userId, dcsPayload, authorizationRequest.getClientID().getValue()));
-
-            DcsSignedEncryptedResponse dcsResponse = doPassportCheck(preparedDcsPayload);
-
-            auditService.sendAuditEvent(createAuditEventResponseReceived());
-
-            DcsResponse unwrappedDcsResponse = unwrapDcsResponse(dcsResponse);
-
-            validateDcsResponse(unwrappedDcsResponse);
-
-            PassportCheckDao passportCheckDao =
-                    new PassportCheckDao(
-                            UUID.randomUUID().toString(),
-                            dcsPayload,
-                            generateGpg45Score(unwrappedDcsResponse),
-                            userId,
-                            authorizationRequest.getClientID().getValue());
-            passportService.persistDcsResponse(passportCheckDao);
-
-            auditService.sendAuditEvent(AuditEventTypes.IPV_PASSPORT_CRI_END);
-
-            passportSessionService.setLatestDcsResponseResourceId(
-                    passportSessionId, passportCheckDao.getResourceId());
-
-            return validateResponseAndAttemptCount(passportSessionId, unwrappedDcsResponse);
+            String requestKey =
+                    passportCheckRequestService.createRequestKey(passportSessionId, dcsPayload);
+            if (!passportCheckRequestService.claim(requestKey)) {
+                return awaitDuplicatePassportCheck(requestKey);
+            }
+            String result = null;
+            try {
+                result = checkPassport(passportSessionId, passportSessionItem, dcsPayload);
+            } finally {
+                if (result == null) {
+                    // Let the next submission go to DCS rather than replaying a failure
+                    passportCheckRequestService.release(requestKey);
+                }
+            }
+            passportCheckRequestService.complete(requestKey, result);
+            return resultResponse(result);
 
         } catch (OAuthHttpResponseExceptionWithErrorBody e) {
             return ApiGatewayResponseGenerator.proxyJsonResponse(
@@ -188,6 +221,15 @@ public class CheckPassportHandler
                                     ErrorResponse.FAILED_TO_PARSE_OAUTH_QUERY_STRING_PARAMETERS
                                             .getMessage())
                             .toJSONObject());
+        } catch (AdmissionRejectedException e) {
+            LOGGER.warn(e.getMessage());
+            return ApiGatewayResponseGenerator.proxyJsonResponse(
+                    SC_TOO_MANY_REQUESTS,
+                    new ErrorObject(
+                                    OAuth2Error.SERVER_ERROR_CODE,
+                                    ErrorResponse.TOO_MANY_PASSPORT_CHECKS.getMessage())
+                            .toJSONObject(),
+                    Map.of(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds())));
         } catch (SqsException e) {
             LOGGER.error("Failed to send audit event to SQS queue because: {}", e.getMessage());
             return ApiGatewayResponseGenerator.proxyJsonResponse(
@@ -197,23 +239,109 @@ public class CheckPassportHandler
                                     ErrorResponse.FAILED_TO_SEND_AUDIT_MESSAGE_TO_SQS_QUEUE
                                             .getMessage())
                             .toJSONObject());
+        } catch (TransactionCanceledException e) {
+            LOGGER.error("Failed to record passport check because: {}", e.getMessage());
+            return ApiGatewayResponseGenerator.proxyJsonResponse(
+                    HttpStatus.SC_INTERNAL_SERVER_ERROR,
+                    new ErrorObject(
+                                    OAuth2Error.SERVER_ERROR_CODE,
+                                    ErrorResponse.FAILED_TO_RECORD_PASSPORT_CHECK.getMessage())
+                            .toJSONObject());
         }
     }
 
-    private APIGatewayProxyResponseEvent validateResponseAndAttemptCount(
-            String passportSessionId, DcsResponse unwrappedDcsResponse) {
+    private String checkPassport(
+            String passportSessionId,
+            PassportSessionItem passportSessionItem,
+            DcsPayload dcsPayload)
+            throws ParseException, OAuthHttpResponseExceptionWithErrorBody, SqsException,
+                    AdmissionRejectedException {
+        var authParams = passportSessionItem.getAuthParams();
+        if (admissionController != null) {
+            // Rejected before the attempt count goes up, so retrying does not use up an attempt
+            admissionController.acquire(authParams == null ? null : authParams.getClientId());
+        }
+
+        String userId = passportSessionItem.getUserId();
+
+        AuthorizationRequest authorizationRequest =
+                AuthorizationRequest.parse(getAuthParamsAsMap(authParams));
+
+        LogHelper.attachClientIdToLogs(authorizationRequest.getClientID().getValue());
+
+        byte[] preparedDcsPayload = preparePayload(dcsPayload);
+
+        LOGGER.info("Sending passport check to DCS");
+        CompletableFuture<CompactSerialization> dcsCall =
+                passportService.dcsPassportCheckAsync(preparedDcsPayload);
+        if (admissionController != null) {
+            dcsCall.whenComplete((response, error) -> admissionController.recordDcsOutcome(error));
+        }
+
+        // Audit while DCS is working on the check
+        try {
+            auditService.sendAuditEvent(
+                    createAuditEventRequestSent(
+                            userId, dcsPayload, authorizationRequest.getClientID().getValue()));
+        } catch (SqsException | RuntimeException e) {
+            dcsCall.cancel(true);
+            throw e;
+        }
 
+        CompactSerialization dcsResponse = awaitPassportCheck(dcsCall);
+
+        auditService.sendAuditEvent(createAuditEventResponseReceived());
+
+        DcsResponse unwrappedDcsResponse = unwrapDcsResponse(dcsResponse);
+
+        validateDcsResponse(unwrappedDcsResponse);
+
+        PassportCheckDao passportCheckDao =
+                new PassportCheckDao(
+                        UUID.randomUUID().toString(),
+                        dcsPayload,
+                        Evidence.fromDcsResponse(unwrappedDcsResponse),
+                        userId,
+                        authorizationRequest.getClientID().getValue());
         int attemptCount =
-                passportSessionService.getPassportSession(passportSessionId).getAttemptCount();
+                passportSessionService.recordPassportCheck(
+                        passportSessionId,
+                        passportSessionItem.getAttemptCount(),
+                        passportCheckDao.getResourceId(),
+                        passportService.createDcsResponseWrite(passportCheckDao));
+
+        auditService.sendAuditEvent(AuditEventTypes.IPV_PASSPORT_CRI_END);
+
+        return determineResult(attemptCount, unwrappedDcsResponse);
+    }
+
+    private APIGatewayProxyResponseEvent awaitDuplicatePassportCheck(String requestKey) {
+        LOGGER.info("Passport check already submitted for this session, waiting for its result");
+        return passportCheckRequestService
+                .awaitResult(requestKey)
+                .map(this::resultResponse)
+                .orElseGet(
+                        () ->
+                                ApiGatewayResponseGenerator.proxyJsonResponse(
+                                        HttpStatus.SC_CONFLICT,
+                                        new ErrorObject(
+                                                        OAuth2Error.SERVER_ERROR_CODE,
+                                                        ErrorResponse.PASSPORT_CHECK_IN_PROGRESS
+                                                                .getMessage())
+                                                .toJSONObject()));
+    }
 
+    private String determineResult(int attemptCount, DcsResponse unwrappedDcsResponse) {
         if (unwrappedDcsResponse.isValid()
                 || attemptCount >= configurationService.getMaximumAttemptCount()) {
-            return ApiGatewayResponseGenerator.proxyJsonResponse(
-                    HttpStatus.SC_OK, Map.of(RESULT, RESULT_FINISH));
+            return RESULT_FINISH;
         }
+        return RESULT_RETRY;
+    }
 
+    private APIGatewayProxyResponseEvent resultResponse(String result) {
         return ApiGatewayResponseGenerator.proxyJsonResponse(
-                HttpStatus.SC_OK, Map.of(RESULT, RESULT_RETRY));
+                HttpStatus.SC_OK, Map.of(RESULT, result));
     }
 
     private AuditEvent createAuditEventRequestSent(
@@ -255,14 +383,6 @@ public class CheckPassportHandler
         }
     }
 
-    private Evidence generateGpg45Score(DcsResponse dcsResponse) {
-        return new Evidence(
-                UUID.randomUUID().toString(),
-                MAX_PASSPORT_GPG45_STRENGTH_VALUE,
-                calculateValidity(dcsResponse),
-                calculateContraIndicators(dcsResponse));
-    }
-
     private DcsPayload parsePassportFormRequest(String input)
             throws OAuthHttpResponseExceptionWithErrorBody {
         LOGGER.info("Parsing passport form data into payload for DCS");
@@ -275,11 +395,11 @@ public class CheckPassportHandler
         }
     }
 
-    private JWSObject preparePayload(DcsPayload dcsPayload)
+    private byte[] preparePayload(DcsPayload dcsPayload)
             throws OAuthHttpResponseExceptionWithErrorBody {
         LOGGER.info("Preparing payload for DCS");
         try {
-            return dcsCryptographyService.preparePayload(dcsPayload);
+            return dcsCryptographyService.prepareRequestBody(dcsPayload);
         } catch (CertificateException
                 | NoSuchAlgorithmException
                 | InvalidKeySpecException
@@ -292,23 +412,39 @@ public class CheckPassportHandler
         }
     }
 
-    private DcsSignedEncryptedResponse doPassportCheck(JWSObject preparedPayload)
+    private CompactSerialization awaitPassportCheck(CompletableFuture<CompactSerialization> dcsCall)
             throws OAuthHttpResponseExceptionWithErrorBody {
-        LOGGER.info("Sending passport check to DCS");
+        RequestDeadline deadline = RequestDeadline.current();
         try {
-            return passportService.dcsPassportCheck(preparedPayload);
-        } catch (IOException | EmptyDcsResponseException e) {
-            LOGGER.error(("Passport check with DCS failed: " + e.getMessage()));
+            if (!deadline.isBounded()) {
+                return dcsCall.get();
+            }
+            return dcsCall.get(
+                    deadline.timeoutMillis(RequestDeadline.STAGE_DCS, 0), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            dcsCall.cancel(true);
+            throw new DeadlineExceededException(
+                    RequestDeadline.STAGE_DCS, deadline.getBudgetMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while waiting for passport check with DCS");
+            throw new OAuthHttpResponseExceptionWithErrorBody(
+                    HttpStatus.SC_INTERNAL_SERVER_ERROR, ErrorResponse.ERROR_CONTACTING_DCS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DeadlineExceededException) {
+                throw (DeadlineExceededException) e.getCause();
+            }
+            LOGGER.error(("Passport check with DCS failed: " + e.getCause().getMessage()));
             throw new OAuthHttpResponseExceptionWithErrorBody(
                     HttpStatus.SC_INTERNAL_SERVER_ERROR, ErrorResponse.ERROR_CONTACTING_DCS);
         }
     }
 
-    private DcsResponse unwrapDcsResponse(DcsSignedEncryptedResponse response)
+    private DcsResponse unwrapDcsResponse(CompactSerialization response)
             throws OAuthHttpResponseExceptionWithErrorBody {
         LOGGER.info("Unwrapping DCS response");
         try {
-            return dcsCryptographyService.unwrapDcsResponse(response);
+            return dcsCryptographyService.unwrapResponseBody(response);
         } catch (CertificateException
                 | java.text.ParseException
                 | JOSEException
@@ -321,14 +457,6 @@ public class CheckPassportHandler
         }
     }
 
-    private int calculateValidity(DcsResponse dcsResponse) {
-        return dcsResponse.isValid() ? MAX_PASSPORT_GPG45_VALIDITY_VALUE : MIN_PASSPORT_GPG45_VALUE;
-    }
-
-    private List<ContraIndicators> calculateContraIndicators(DcsResponse dcsResponse) {
-        return dcsResponse.isValid() ? null : List.of(ContraIndicators.D02);
-    }
-
     private Map<String, List<String>> getAuthParamsAsMap(AuthParams params) {
         if (params != null) {
             Map<String, List<String>> authParams = new HashMap<>();
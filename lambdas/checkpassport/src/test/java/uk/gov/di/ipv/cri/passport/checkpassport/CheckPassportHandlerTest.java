@@ -8,7 +8,6 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.JWSObject;
 import com.nimbusds.oauth2.sdk.OAuth2Error;
 import org.apache.http.HttpStatus;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,26 +16,32 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditEvent;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditEventTypes;
 import uk.gov.di.ipv.cri.passport.library.domain.AuthParams;
+import uk.gov.di.ipv.cri.passport.library.domain.CompactSerialization;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsResponse;
-import uk.gov.di.ipv.cri.passport.library.domain.DcsSignedEncryptedResponse;
 import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.ContraIndicators;
 import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Evidence;
 import uk.gov.di.ipv.cri.passport.library.error.ErrorResponse;
+import uk.gov.di.ipv.cri.passport.library.exceptions.AdmissionRejectedException;
 import uk.gov.di.ipv.cri.passport.library.exceptions.EmptyDcsResponseException;
 import uk.gov.di.ipv.cri.passport.library.exceptions.SqsException;
+import uk.gov.di.ipv.cri.passport.library.helpers.AdmissionController;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportSessionItem;
 import uk.gov.di.ipv.cri.passport.library.service.AuditService;
 import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
 import uk.gov.di.ipv.cri.passport.library.service.DcsCryptographyService;
+import uk.gov.di.ipv.cri.passport.library.service.PassportCheckRequestService;
 import uk.gov.di.ipv.cri.passport.library.service.PassportService;
 import uk.gov.di.ipv.cri.passport.library.service.PassportSessionService;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.spec.InvalidKeySpecException;
@@ -44,11 +49,18 @@ import java.text.ParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -63,6 +75,11 @@ class CheckPassportHandlerTest {
     public static final List<String> FORENAMES = List.of("Tubbs");
     public static final String DATE_OF_BIRTH = "1984-09-28";
     public static final String EXPIRY_DATE = "2024-09-03";
+    private static final String REQUEST_KEY = PASSPORT_SESSION_ID + "#request-hash";
+    private static final byte[] DCS_REQUEST_BODY = "TEST_REQUEST".getBytes(StandardCharsets.UTF_8);
+    private static final CompactSerialization DCS_RESPONSE_BODY =
+            new CompactSerialization(
+                    "TEST.PAY.LOAD".getBytes(StandardCharsets.US_ASCII), new int[] {4, 8});
     public static final Evidence VALID_PASSPORT_EVIDENCE =
             new Evidence(UUID.randomUUID().toString(), 4, 2, null);
     public static final Evidence INVALID_PASSPORT_EVIDENCE =
@@ -92,19 +109,22 @@ class CheckPassportHandlerTest {
     @Mock DcsCryptographyService dcsCryptographyService;
     @Mock PassportSessionService passportSessionService;
     @Mock AuditService auditService;
-    @Mock JWSObject jwsObject;
+    @Mock PassportCheckRequestService passportCheckRequestService;
+    @Mock AdmissionController admissionController;
 
     private CheckPassportHandler underTest;
 
     @BeforeEach
     void setUp() {
+        when(context.getRemainingTimeInMillis()).thenReturn(30_000);
         underTest =
                 new CheckPassportHandler(
                         passportService,
                         configurationService,
                         dcsCryptographyService,
                         auditService,
-                        passportSessionService);
+                        passportSessionService,
+                        passportCheckRequestService);
     }
 
     @Test
@@ -114,6 +134,7 @@ class CheckPassportHandlerTest {
                     EmptyDcsResponseException, SqsException {
         mockDcsResponse(validDcsResponse);
         mockPassportSessionItem(0);
+        mockClaimedPassportCheck();
 
         APIGatewayProxyRequestEvent event =
                 getApiGatewayProxyRequestEvent(
@@ -142,17 +163,30 @@ class CheckPassportHandlerTest {
                     EmptyDcsResponseException {
         mockDcsResponse(validDcsResponse);
         mockPassportSessionItem(0);
+        mockClaimedPassportCheck();
 
         APIGatewayProxyRequestEvent event =
                 getApiGatewayProxyRequestEvent(
                         "12345", objectMapper.writeValueAsString(validPassportFormData));
 
+        TransactWriteItem passportCheckWrite = TransactWriteItem.builder().build();
+        when(passportService.createDcsResponseWrite(any(PassportCheckDao.class)))
+                .thenReturn(passportCheckWrite);
+
         underTest.handleRequest(event, context);
 
         ArgumentCaptor<PassportCheckDao> persistedPassportCheckDao =
                 ArgumentCaptor.forClass(PassportCheckDao.class);
 
-        verify(passportService).persistDcsResponse(persistedPassportCheckDao.capture());
+        verify(passportService).createDcsResponseWrite(persistedPassportCheckDao.capture());
+        verify(passportSessionService)
+                .recordPassportCheck(
+                        PASSPORT_SESSION_ID,
+                        0,
+                        persistedPassportCheckDao.getValue().getResourceId(),
+                        passportCheckWrite);
+        verify(passportSessionService, never()).incrementAttemptCount(any());
+        verify(passportSessionService, times(1)).getPassportSession(PASSPORT_SESSION_ID);
         assertEquals(
                 validPassportFormData.get("passportNumber"),
                 persistedPassportCheckDao.getValue().getDcsPayload().getPassportNumber());
@@ -172,6 +206,7 @@ class CheckPassportHandlerTest {
                     EmptyDcsResponseException {
         mockDcsResponse(validDcsResponse);
         mockPassportSessionItem(0);
+        mockClaimedPassportCheck();
 
         APIGatewayProxyRequestEvent event =
                 getApiGatewayProxyRequestEvent(
@@ -188,6 +223,8 @@ class CheckPassportHandlerTest {
                     EmptyDcsResponseException {
         mockDcsResponse(invalidDcsResponse);
         mockPassportSessionItem(0);
+        mockClaimedPassportCheck();
+        mockRecordedAttemptCount(0, 1);
         when(configurationService.getMaximumAttemptCount()).thenReturn(2);
 
         APIGatewayProxyRequestEvent event =
@@ -204,7 +241,9 @@ class CheckPassportHandlerTest {
                     InvalidKeySpecException, JOSEException, ParseException,
                     EmptyDcsResponseException {
         mockDcsResponse(invalidDcsResponse);
-        mockPassportSessionItem(2);
+        mockPassportSessionItem(1);
+        mockClaimedPassportCheck();
+        mockRecordedAttemptCount(1, 2);
         when(configurationService.getMaximumAttemptCount()).thenReturn(2);
 
         APIGatewayProxyRequestEvent event =
@@ -294,11 +333,10 @@ class CheckPassportHandlerTest {
 
     @Test
     void shouldReturn500OAuthErrorOnDcsErrorResponse() throws Exception {
-        DcsSignedEncryptedResponse dcsSignedEncryptedResponse =
-                new DcsSignedEncryptedResponse("TEST_PAYLOAD");
-        when(passportService.dcsPassportCheck(any(JWSObject.class)))
-                .thenReturn(dcsSignedEncryptedResponse);
-        when(dcsCryptographyService.preparePayload(any(DcsPayload.class))).thenReturn(jwsObject);
+        when(passportService.dcsPassportCheckAsync(any(byte[].class)))
+                .thenReturn(CompletableFuture.completedFuture(DCS_RESPONSE_BODY));
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
 
         DcsResponse errorDcsResponse =
                 new DcsResponse(
@@ -307,10 +345,11 @@ class CheckPassportHandlerTest {
                         true,
                         false,
                         List.of("Test DCS error message"));
-        when(dcsCryptographyService.unwrapDcsResponse(any(DcsSignedEncryptedResponse.class)))
+        when(dcsCryptographyService.unwrapResponseBody(any(CompactSerialization.class)))
                 .thenReturn(errorDcsResponse);
 
         mockPassportSessionItem(0);
+        mockClaimedPassportCheck();
 
         APIGatewayProxyRequestEvent event =
                 getApiGatewayProxyRequestEvent(
@@ -326,6 +365,226 @@ class CheckPassportHandlerTest {
                 responseBody.get("error_description"));
     }
 
+    @Test
+    void shouldReturn500OAuthErrorWhenDcsCannotBeContacted() throws Exception {
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
+        when(passportService.dcsPassportCheckAsync(any(byte[].class)))
+                .thenReturn(
+                        CompletableFuture.failedFuture(
+                                new EmptyDcsResponseException("Response from DCS is empty")));
+        mockPassportSessionItem(0);
+        mockClaimedPassportCheck();
+
+        APIGatewayProxyRequestEvent event =
+                getApiGatewayProxyRequestEvent(
+                        "12345", objectMapper.writeValueAsString(validPassportFormData));
+
+        var response = underTest.handleRequest(event, context);
+        var responseBody = getResponseBody(response);
+
+        assertEquals(HttpStatus.SC_INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals(
+                ErrorResponse.ERROR_CONTACTING_DCS.getMessage(),
+                responseBody.get("error_description"));
+        verify(passportSessionService, never())
+                .recordPassportCheck(any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void shouldReturn500WhenPassportCheckCannotBeRecorded() throws Exception {
+        mockDcsResponse(validDcsResponse);
+        mockPassportSessionItem(0);
+        mockClaimedPassportCheck();
+        when(passportSessionService.recordPassportCheck(
+                        eq(PASSPORT_SESSION_ID), eq(0), any(), any()))
+                .thenThrow(TransactionCanceledException.builder().build());
+
+        APIGatewayProxyRequestEvent event =
+                getApiGatewayProxyRequestEvent(
+                        "12345", objectMapper.writeValueAsString(validPassportFormData));
+
+        var response = underTest.handleRequest(event, context);
+        var responseBody = getResponseBody(response);
+
+        assertEquals(HttpStatus.SC_INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals(
+                ErrorResponse.FAILED_TO_RECORD_PASSPORT_CHECK.getMessage(),
+                responseBody.get("error_description"));
+        verify(auditService, never()).sendAuditEvent(AuditEventTypes.IPV_PASSPORT_CRI_END);
+        verify(passportCheckRequestService).release(REQUEST_KEY);
+    }
+
+    @Test
+    void shouldCancelDcsCheckWhenRequestSentAuditEventFails() throws Exception {
+        CompletableFuture<CompactSerialization> dcsCall = new CompletableFuture<>();
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
+        when(passportService.dcsPassportCheckAsync(any(byte[].class))).thenReturn(dcsCall);
+        doThrow(new SqsException("queue unavailable"))
+                .when(auditService)
+                .sendAuditEvent(any(AuditEvent.class));
+        mockPassportSessionItem(0);
+        mockClaimedPassportCheck();
+
+        APIGatewayProxyRequestEvent event =
+                getApiGatewayProxyRequestEvent(
+                        "12345", objectMapper.writeValueAsString(validPassportFormData));
+
+        var response = underTest.handleRequest(event, context);
+
+        assertEquals(HttpStatus.SC_BAD_REQUEST, response.getStatusCode());
+        assertTrue(dcsCall.isCancelled());
+    }
+
+    @Test
+    void shouldReturn504WhenDeadlineExpiresWaitingForDcs() throws Exception {
+        CompletableFuture<CompactSerialization> dcsCall = new CompletableFuture<>();
+        when(configurationService.getRequestDeadlineReserveMillis()).thenReturn(29_950);
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
+        when(passportService.dcsPassportCheckAsync(any(byte[].class))).thenReturn(dcsCall);
+        mockPassportSessionItem(0);
+        mockClaimedPassportCheck();
+
+        APIGatewayProxyRequestEvent event =
+                getApiGatewayProxyRequestEvent(
+                        "12345", objectMapper.writeValueAsString(validPassportFormData));
+
+        var response = underTest.handleRequest(event, context);
+        var responseBody = getResponseBody(response);
+
+        assertEquals(HttpStatus.SC_GATEWAY_TIMEOUT, response.getStatusCode());
+        assertEquals(
+                ErrorResponse.REQUEST_DEADLINE_EXCEEDED.getMessage(),
+                responseBody.get("error_description"));
+        assertTrue(dcsCall.isCancelled());
+        verify(passportSessionService, never())
+                .recordPassportCheck(any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void shouldRecordResultOfClaimedPassportCheck() throws Exception {
+        mockDcsResponse(validDcsResponse);
+        mockPassportSessionItem(0);
+        mockClaimedPassportCheck();
+
+        var response =
+                underTest.handleRequest(
+                        getApiGatewayProxyRequestEvent(
+                                "12345", objectMapper.writeValueAsString(validPassportFormData)),
+                        context);
+
+        assertEquals(HttpStatus.SC_OK, response.getStatusCode());
+        verify(passportCheckRequestService)
+                .complete(REQUEST_KEY, CheckPassportHandler.RESULT_FINISH);
+        verify(passportCheckRequestService, never()).release(any());
+    }
+
+    @Test
+    void shouldReleaseClaimWhenPassportCheckFails() throws Exception {
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
+        when(passportService.dcsPassportCheckAsync(any(byte[].class)))
+                .thenReturn(
+                        CompletableFuture.failedFuture(
+                                new EmptyDcsResponseException("Response from DCS is empty")));
+        mockPassportSessionItem(0);
+        mockClaimedPassportCheck();
+
+        var response =
+                underTest.handleRequest(
+                        getApiGatewayProxyRequestEvent(
+                                "12345", objectMapper.writeValueAsString(validPassportFormData)),
+                        context);
+
+        assertEquals(HttpStatus.SC_INTERNAL_SERVER_ERROR, response.getStatusCode());
+        verify(passportCheckRequestService).release(REQUEST_KEY);
+        verify(passportCheckRequestService, never()).complete(any(), any());
+    }
+
+    @Test
+    void shouldReturnStoredResultForDuplicatePassportCheck() throws Exception {
+        mockPassportSessionItem(0);
+        when(passportCheckRequestService.createRequestKey(
+                        any(String.class), any(DcsPayload.class)))
+                .thenReturn(REQUEST_KEY);
+        when(passportCheckRequestService.claim(REQUEST_KEY)).thenReturn(false);
+        when(passportCheckRequestService.awaitResult(REQUEST_KEY))
+                .thenReturn(Optional.of(CheckPassportHandler.RESULT_RETRY));
+
+        var response =
+                underTest.handleRequest(
+                        getApiGatewayProxyRequestEvent(
+                                "12345", objectMapper.writeValueAsString(validPassportFormData)),
+                        context);
+
+        assertEquals(HttpStatus.SC_OK, response.getStatusCode());
+        assertEquals(
+                CheckPassportHandler.RESULT_RETRY,
+                getResponseBody(response).get(CheckPassportHandler.RESULT));
+        verify(passportService, never()).dcsPassportCheckAsync(any(byte[].class));
+        verify(passportSessionService, never())
+                .recordPassportCheck(any(), anyInt(), any(), any());
+        verify(auditService, never()).sendAuditEvent(any(AuditEvent.class));
+    }
+
+    @Test
+    void shouldReturn409WhileDuplicatePassportCheckIsInProgress() throws Exception {
+        mockPassportSessionItem(0);
+        when(passportCheckRequestService.createRequestKey(
+                        any(String.class), any(DcsPayload.class)))
+                .thenReturn(REQUEST_KEY);
+        when(passportCheckRequestService.claim(REQUEST_KEY)).thenReturn(false);
+        when(passportCheckRequestService.awaitResult(REQUEST_KEY)).thenReturn(Optional.empty());
+
+        var response =
+                underTest.handleRequest(
+                        getApiGatewayProxyRequestEvent(
+                                "12345", objectMapper.writeValueAsString(validPassportFormData)),
+                        context);
+
+        assertEquals(HttpStatus.SC_CONFLICT, response.getStatusCode());
+        assertEquals(
+                ErrorResponse.PASSPORT_CHECK_IN_PROGRESS.getMessage(),
+                getResponseBody(response).get("error_description"));
+        verify(passportService, never()).dcsPassportCheckAsync(any(byte[].class));
+    }
+
+    @Test
+    void shouldReturn429WithRetryAfterWhenAdmissionIsRejected() throws Exception {
+        mockPassportSessionItem(0);
+        mockClaimedPassportCheck();
+        doThrow(new AdmissionRejectedException("DCS call rejected at the client limit", 2))
+                .when(admissionController)
+                .acquire("12345");
+        CheckPassportHandler handler =
+                new CheckPassportHandler(
+                        passportService,
+                        configurationService,
+                        dcsCryptographyService,
+                        auditService,
+                        passportSessionService,
+                        passportCheckRequestService,
+                        admissionController);
+
+        var response =
+                handler.handleRequest(
+                        getApiGatewayProxyRequestEvent(
+                                "12345", objectMapper.writeValueAsString(validPassportFormData)),
+                        context);
+
+        assertEquals(429, response.getStatusCode());
+        assertEquals("2", response.getHeaders().get("Retry-After"));
+        assertEquals(
+                ErrorResponse.TOO_MANY_PASSPORT_CHECKS.getMessage(),
+                getResponseBody(response).get("error_description"));
+        verify(passportSessionService, never())
+                .recordPassportCheck(any(), anyInt(), any(), any());
+        verify(passportService, never()).dcsPassportCheckAsync(any(byte[].class));
+        verify(passportCheckRequestService).release(REQUEST_KEY);
+    }
+
     private APIGatewayProxyRequestEvent getApiGatewayProxyRequestEvent(
             String clientId, String body) {
         var event = new APIGatewayProxyRequestEvent();
@@ -350,12 +609,11 @@ class CheckPassportHandlerTest {
             throws IOException, EmptyDcsResponseException, CertificateException,
                     NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        DcsSignedEncryptedResponse dcsSignedEncryptedResponse =
-                new DcsSignedEncryptedResponse("TEST_PAYLOAD");
-        when(passportService.dcsPassportCheck(any(JWSObject.class)))
-                .thenReturn(dcsSignedEncryptedResponse);
-        when(dcsCryptographyService.preparePayload(any(DcsPayload.class))).thenReturn(jwsObject);
-        when(dcsCryptographyService.unwrapDcsResponse(any(DcsSignedEncryptedResponse.class)))
+        when(passportService.dcsPassportCheckAsync(any(byte[].class)))
+                .thenReturn(CompletableFuture.completedFuture(DCS_RESPONSE_BODY));
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
+        when(dcsCryptographyService.unwrapResponseBody(any(CompactSerialization.class)))
                 .thenReturn(validDcsResponse);
     }
 
@@ -369,4 +627,17 @@ class CheckPassportHandlerTest {
         when(passportSessionService.getPassportSession(PASSPORT_SESSION_ID))
                 .thenReturn(passportSessionItem);
     }
+
+    private void mockRecordedAttemptCount(int previousAttemptCount, int attemptCount) {
+        when(passportSessionService.recordPassportCheck(
+                        eq(PASSPORT_SESSION_ID), eq(previousAttemptCount), any(), any()))
+                .thenReturn(attemptCount);
+    }
+
+    private void mockClaimedPassportCheck() {
+        when(passportCheckRequestService.createRequestKey(
+                        any(String.class), any(DcsPayload.class)))
+                .thenReturn(REQUEST_KEY);
+        when(passportCheckRequestService.claim(REQUEST_KEY)).thenReturn(true);
+    }
 }
@@ -81,6 +81,7 @@ class InitialiseSessionHandlerTest {
 
     @BeforeEach
     void setUp() throws JOSEException, InvalidKeySpecException, NoSuchAlgorithmException {
+        when(context.getRemainingTimeInMillis()).thenReturn(30_000);
         Map<String, List<String>> shared_claim =
                 Map.of(
                         "givenNames", Arrays.asList("Daniel", "Dan", "Danny"),
@@ -8,6 +8,7 @@ import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSSigner;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.oauth2.sdk.ErrorObject;
 import com.nimbusds.oauth2.sdk.OAuth2Error;
 import com.nimbusds.oauth2.sdk.ParseException;
 import com.nimbusds.oauth2.sdk.token.AccessToken;
@@ -17,6 +18,7 @@ import org.apache.http.HttpStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import software.amazon.lambda.powertools.logging.Logging;
+import software.amazon.lambda.powertools.metrics.Metrics;
 import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditEvent;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditEventTypes;
@@ -28,11 +30,13 @@ import uk.gov.di.ipv.cri.passport.library.auditing.AuditRestrictedVcCredentialSu
 import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.CredentialSubject;
 import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.VerifiableCredential;
 import uk.gov.di.ipv.cri.passport.library.error.ErrorResponse;
+import uk.gov.di.ipv.cri.passport.library.exceptions.DeadlineExceededException;
 import uk.gov.di.ipv.cri.passport.library.exceptions.SqsException;
 import uk.gov.di.ipv.cri.passport.library.helpers.ApiGatewayResponseGenerator;
 import uk.gov.di.ipv.cri.passport.library.helpers.JwtHelper;
 import uk.gov.di.ipv.cri.passport.library.helpers.KmsSigner;
 import uk.gov.di.ipv.cri.passport.library.helpers.LogHelper;
+import uk.gov.di.ipv.cri.passport.library.helpers.RequestDeadline;
 import uk.gov.di.ipv.cri.passport.library.helpers.RequestHelper;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.AccessTokenItem;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
@@ -89,8 +93,28 @@ public class IssueCredentialHandler
 
     @Override
     @Logging(clearState = true)
+    @Metrics
     public APIGatewayProxyResponseEvent handleRequest(
             APIGatewayProxyRequestEvent input, Context context) {
+        RequestDeadline.start(context, configurationService.getRequestDeadlineReserveMillis());
+        try {
+            return processRequest(input, context);
+        } catch (DeadlineExceededException e) {
+            LOGGER.error(e.getMessage());
+            return ApiGatewayResponseGenerator.proxyJsonResponse(
+                    HttpStatus.SC_GATEWAY_TIMEOUT,
+                    new ErrorObject(
+                                    OAuth2Error.SERVER_ERROR_CODE,
+                                    ErrorResponse.REQUEST_DEADLINE_EXCEEDED.getMessage())
+                            .toJSONObject());
+        } finally {
+            RequestDeadline.finish();
+            configurationService.publishSsmRoundTripMetric();
+        }
+    }
+
+    private APIGatewayProxyResponseEvent processRequest(
+            APIGatewayProxyRequestEvent input, Context context) {
         LogHelper.attachComponentIdToLogs();
         try {
             AccessToken accessToken =
@@ -158,6 +182,7 @@ public class IssueCredentialHandler
             return ApiGatewayResponseGenerator.proxyJsonResponse(
                     e.getErrorObject().getHTTPStatusCode(), e.getErrorObject().toJSONObject());
         } catch (JOSEException e) {
+            RequestDeadline.rethrowIfExceeded(e);
             LOGGER.error("Failed to sign verifiable credential: '{}'", e.getMessage());
             return ApiGatewayResponseGenerator.proxyJsonResponse(
                     OAuth2Error.SERVER_ERROR.getHTTPStatusCode(),
@@ -209,7 +234,10 @@ public class IssueCredentialHandler
                 new JWTClaimsSet.Builder()
                         .subject(passportCheck.getUserId())
                         .issuer(configurationService.getVerifiableCredentialIssuer())
-                        .audience(configurationService.getClientIssuer(passportCheck.getClientId()))
+                        .audience(
+                                configurationService
+                                        .getClientConfig(passportCheck.getClientId())
+                                        .getIssuer())
                         .notBeforeTime(new Date(now.toEpochMilli()))
                         .expirationTime(
                                 new Date(
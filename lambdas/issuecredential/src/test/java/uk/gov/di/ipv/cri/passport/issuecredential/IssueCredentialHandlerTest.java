@@ -20,6 +20,7 @@ import com.nimbusds.oauth2.sdk.OAuth2Error;
 import com.nimbusds.oauth2.sdk.token.AccessToken;
 import com.nimbusds.oauth2.sdk.token.BearerAccessToken;
 import com.nimbusds.oauth2.sdk.token.BearerTokenError;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -29,6 +30,7 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditEvent;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditEventTypes;
+import uk.gov.di.ipv.cri.passport.library.config.ClientConfig;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
 import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Evidence;
 import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.NamePartType;
@@ -58,6 +60,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Predicate;
 
@@ -112,6 +115,11 @@ class IssueCredentialHandlerTest {
 
     IssueCredentialHandlerTest() throws Exception {}
 
+    @BeforeEach
+    void setUp() {
+        when(mockContext.getRemainingTimeInMillis()).thenReturn(30_000);
+    }
+
     @Test
     void shouldReturn200OnSuccessfulDcsCredentialRequest() throws SqsException {
         APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
@@ -201,8 +209,10 @@ class IssueCredentialHandlerTest {
         when(mockDcsPassportCheckService.getDcsPassportCheck(anyString()))
                 .thenReturn(passportCheckDao);
         when(mockConfigurationService.getVerifiableCredentialIssuer()).thenReturn("test-issuer");
-        when(mockConfigurationService.getClientIssuer(clientId))
-                .thenReturn("https://example.com/issuer");
+        when(mockConfigurationService.getClientConfig(clientId))
+                .thenReturn(
+                        new ClientConfig(
+                                clientId, null, Set.of(), "https://example.com/issuer"));
 
         APIGatewayProxyResponseEvent response =
                 issueCredentialHandler.handleRequest(event, mockContext);
@@ -449,8 +459,10 @@ class IssueCredentialHandlerTest {
         when(mockDcsPassportCheckService.getDcsPassportCheck(anyString()))
                 .thenReturn(passportCheckDao);
         when(mockConfigurationService.getVerifiableCredentialIssuer()).thenReturn("test-issuer");
-        when(mockConfigurationService.getClientIssuer(clientId))
-                .thenReturn("https://example.com/issuer");
+        when(mockConfigurationService.getClientConfig(clientId))
+                .thenReturn(
+                        new ClientConfig(
+                                clientId, null, Set.of(), "https://example.com/issuer"));
 
         doThrow(new IllegalArgumentException("Test error"))
                 .when(mockAccessTokenService)
@@ -0,0 +1,368 @@
+package uk.gov.di.ipv.cri.passport.reverifypassport;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.nimbusds.jose.JOSEException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.lambda.powertools.logging.Logging;
+import software.amazon.lambda.powertools.metrics.Metrics;
+import uk.gov.di.ipv.cri.passport.library.auditing.AuditEvent;
+import uk.gov.di.ipv.cri.passport.library.auditing.AuditEventTypes;
+import uk.gov.di.ipv.cri.passport.library.auditing.AuditEventUser;
+import uk.gov.di.ipv.cri.passport.library.auditing.AuditExtensions;
+import uk.gov.di.ipv.cri.passport.library.auditing.AuditExtensionsVcEvidence;
+import uk.gov.di.ipv.cri.passport.library.domain.CompactSerialization;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsResponse;
+import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Evidence;
+import uk.gov.di.ipv.cri.passport.library.exceptions.AdmissionRejectedException;
+import uk.gov.di.ipv.cri.passport.library.exceptions.EmptyDcsResponseException;
+import uk.gov.di.ipv.cri.passport.library.exceptions.SqsException;
+import uk.gov.di.ipv.cri.passport.library.helpers.AdmissionController;
+import uk.gov.di.ipv.cri.passport.library.helpers.LogHelper;
+import uk.gov.di.ipv.cri.passport.library.helpers.MetricsHelper;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
+import uk.gov.di.ipv.cri.passport.library.service.AuditService;
+import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
+import uk.gov.di.ipv.cri.passport.library.service.DcsCryptographyService;
+import uk.gov.di.ipv.cri.passport.library.service.PassportReverificationService;
+import uk.gov.di.ipv.cri.passport.library.service.PassportService;
+import uk.gov.di.ipv.cri.passport.reverifypassport.domain.ReverificationRequest;
+import uk.gov.di.ipv.cri.passport.reverifypassport.exceptions.ReverificationException;
+
+import java.io.IOException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.security.spec.InvalidKeySpecException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Re-checks stored passport checks against DCS in bulk. Each SQS message names a run and the
+ * resource ids of the checks to re-verify. Payloads are prepared in parallel and DCS is called from
+ * a fixed-size pool, so the number of calls in flight from one invocation is bounded. The event
+ * source caps how many invocations run at once, and each DCS call waits to be admitted by the same
+ * {@link AdmissionController} limits as passport checks, as the client "reverification". The
+ * evidence from each re-verification is audited and then checkpointed alongside, not over, the
+ * stored check, so a run that is sent again only re-verifies what it has not done yet.
+ */
+public class ReverifyPassportHandler implements RequestHandler<SQSEvent, SQSBatchResponse> {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().registerModule(new JavaTimeModule());
+    static final String ADMISSION_CLIENT_ID = "reverification";
+    private static final long MAX_ADMISSION_WAIT_MILLIS = 60_000L;
+
+    private final PassportService passportService;
+    private final DcsCryptographyService dcsCryptographyService;
+    private final PassportReverificationService reverificationService;
+    private final AuditService auditService;
+    private final ConfigurationService configurationService;
+    private final Executor prepareExecutor;
+    private final Executor dcsExecutor;
+    private final AdmissionController admissionController;
+
+    public ReverifyPassportHandler(
+            PassportService passportService,
+            DcsCryptographyService dcsCryptographyService,
+            PassportReverificationService reverificationService,
+            AuditService auditService,
+            ConfigurationService configurationService,
+            Executor prepareExecutor,
+            Executor dcsExecutor) {
+        this(
+                passportService,
+                dcsCryptographyService,
+                reverificationService,
+                auditService,
+                configurationService,
+                prepareExecutor,
+                dcsExecutor,
+                null);
+    }
+
+    public ReverifyPassportHandler(
+            PassportService passportService,
+            DcsCryptographyService dcsCryptographyService,
+            PassportReverificationService reverificationService,
+            AuditService auditService,
+            ConfigurationService configurationService,
+            Executor prepareExecutor,
+            Executor dcsExecutor,
+            AdmissionController admissionController) {
+        this.passportService = passportService;
+        this.dcsCryptographyService = dcsCryptographyService;
+        this.reverificationService = reverificationService;
+        this.auditService = auditService;
+        this.configurationService = configurationService;
+        this.prepareExecutor = prepareExecutor;
+        this.dcsExecutor = dcsExecutor;
+        this.admissionController = admissionController;
+    }
+
+    public ReverifyPassportHandler()
+            throws CertificateException, NoSuchAlgorithmException, InvalidKeySpecException,
+                    KeyStoreException, IOException {
+        this.configurationService = new ConfigurationService();
+        this.passportService = new PassportService(configurationService);
+        this.dcsCryptographyService = new DcsCryptographyService(configurationService);
+        this.reverificationService = new PassportReverificationService(configurationService);
+        this.auditService =
+                new AuditService(AuditService.getDefaultSqsClient(), configurationService);
+        this.prepareExecutor =
+                Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        this.dcsExecutor =
+                Executors.newFixedThreadPool(
+                        configurationService.getReverificationDcsConcurrency());
+        this.admissionController = AdmissionController.fromConfig(configurationService);
+        this.passportService.warmUpDcsConnection();
+    }
+
+    @Override
+    @Logging(clearState = true)
+    @Metrics
+    public SQSBatchResponse handleRequest(SQSEvent event, Context context) {
+        LogHelper.attachComponentIdToLogs();
+        long startNanos = System.nanoTime();
+        List<SQSBatchResponse.BatchItemFailure> failures = new ArrayList<>();
+
+        Map<String, Map<String, List<String>>> messageIdsByRun = new LinkedHashMap<>();
+        for (SQSEvent.SQSMessage message : event.getRecords()) {
+            try {
+                ReverificationRequest request =
+                        objectMapper.readValue(message.getBody(), ReverificationRequest.class);
+                Map<String, List<String>> messageIdsByResource =
+                        messageIdsByRun.computeIfAbsent(
+                                request.getRunId(), runId -> new LinkedHashMap<>());
+                for (String resourceId : request.getResourceIds()) {
+                    messageIdsByResource
+                            .computeIfAbsent(resourceId, id -> new ArrayList<>())
+                            .add(message.getMessageId());
+                }
+            } catch (JsonProcessingException e) {
+                // Failing the message sends it to the dead-letter queue once it runs out of retries
+                LOGGER.error(
+                        "Failed to parse re-verification request {}: {}",
+                        message.getMessageId(),
+                        e.getMessage());
+                failures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+            }
+        }
+
+        Progress progress = new Progress();
+        Set<String> failedMessageIds = new LinkedHashSet<>();
+        messageIdsByRun.forEach(
+                (runId, messageIdsByResource) -> {
+                    for (String resourceId :
+                            reverify(runId, messageIdsByResource.keySet(), progress)) {
+                        failedMessageIds.addAll(messageIdsByResource.get(resourceId));
+                    }
+                });
+        failedMessageIds.forEach(
+                messageId -> failures.add(new SQSBatchResponse.BatchItemFailure(messageId)));
+
+        publishProgress(progress, startNanos);
+        return new SQSBatchResponse(failures);
+    }
+
+    private Set<String> reverify(String runId, Set<String> resourceIds, Progress progress) {
+        Set<String> completed = reverificationService.getCompletedResourceIds(runId, resourceIds);
+        List<String> pending =
+                resourceIds.stream()
+                        .filter(resourceId -> !completed.contains(resourceId))
+                        .collect(Collectors.toList());
+        progress.skipped += completed.size();
+
+        List<PassportCheckDao> passportChecks = reverificationService.getPassportChecks(pending);
+        if (passportChecks.size() < pending.size()) {
+            // A check that has expired from the table has nothing left to re-verify
+            LOGGER.warn(
+                    "{} passport checks in run {} were not found",
+                    pending.size() - passportChecks.size(),
+                    runId);
+            progress.skipped += pending.size() - passportChecks.size();
+        }
+
+        Map<String, CompletableFuture<Evidence>> checks = new LinkedHashMap<>();
+        for (PassportCheckDao passportCheck : passportChecks) {
+            checks.put(
+                    passportCheck.getResourceId(),
+                    CompletableFuture.supplyAsync(
+                                    () -> prepareRequestBody(passportCheck), prepareExecutor)
+                            .thenApplyAsync(this::checkWithDcs, dcsExecutor));
+        }
+
+        Set<String> failed = new LinkedHashSet<>();
+        Map<String, Evidence> reverified = new LinkedHashMap<>();
+        for (PassportCheckDao passportCheck : passportChecks) {
+            String resourceId = passportCheck.getResourceId();
+            try {
+                Evidence evidence = checks.get(resourceId).join();
+                // Audited before it is checkpointed, so a check is never done without its event
+                auditService.sendAuditEvent(createAuditEvent(passportCheck, evidence));
+                reverified.put(resourceId, evidence);
+            } catch (CompletionException e) {
+                LOGGER.error(
+                        "Failed to re-verify passport check {}: {}",
+                        resourceId,
+                        e.getCause().getMessage());
+                failed.add(resourceId);
+            } catch (SqsException e) {
+                LOGGER.error(
+                        "Failed to audit re-verified passport check {}: {}",
+                        resourceId,
+                        e.getMessage());
+                failed.add(resourceId);
+            }
+        }
+
+        if (!reverified.isEmpty()) {
+            Set<String> unsaved = reverificationService.saveResults(runId, reverified);
+            for (String resourceId : unsaved) {
+                LOGGER.error("Failed to save re-verified passport check {}", resourceId);
+                failed.add(resourceId);
+            }
+            progress.completed += reverified.size() - unsaved.size();
+        }
+        progress.failed += failed.size();
+        return failed;
+    }
+
+    private byte[] prepareRequestBody(PassportCheckDao passportCheck) {
+        DcsPayload stored = passportCheck.getDcsPayload();
+        // A new payload gets its own correlation id, request id and timestamp for DCS
+        DcsPayload dcsPayload =
+                new DcsPayload(
+                        stored.getPassportNumber(),
+                        stored.getSurname(),
+                        stored.getForenames(),
+                        stored.getDateOfBirth(),
+                        stored.getExpiryDate());
+        try {
+            return dcsCryptographyService.prepareRequestBody(dcsPayload);
+        } catch (CertificateException
+                | NoSuchAlgorithmException
+                | InvalidKeySpecException
+                | JOSEException
+                | JsonProcessingException e) {
+            throw new ReverificationException(
+                    String.format("Failed to prepare payload for DCS: %s", e.getMessage()), e);
+        }
+    }
+
+    private Evidence checkWithDcs(byte[] requestBody) {
+        waitForAdmission();
+        DcsResponse dcsResponse;
+        try {
+            CompactSerialization response = callDcs(requestBody);
+            dcsResponse = dcsCryptographyService.unwrapResponseBody(response);
+        } catch (IOException
+                | EmptyDcsResponseException
+                | CertificateException
+                | ParseException
+                | JOSEException e) {
+            throw new ReverificationException(
+                    String.format("Passport check with DCS failed: %s", e.getMessage()), e);
+        }
+        if (dcsResponse.isError()) {
+            throw new ReverificationException(
+                    String.format("DCS encountered an error: %s", dcsResponse.getErrorMessage()));
+        }
+        return Evidence.fromDcsResponse(dcsResponse);
+    }
+
+    private AuditEvent createAuditEvent(PassportCheckDao passportCheck, Evidence evidence) {
+        String componentId = configurationService.getVerifiableCredentialIssuer();
+        AuditEventUser user = new AuditEventUser(passportCheck.getUserId(), null);
+        AuditExtensions extensions = new AuditExtensionsVcEvidence(componentId, List.of(evidence));
+        return new AuditEvent(
+                AuditEventTypes.IPV_PASSPORT_CRI_REVERIFIED, componentId, user, null, extensions);
+    }
+
+    private void waitForAdmission() {
+        if (admissionController == null) {
+            return;
+        }
+        long waitUntil =
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_ADMISSION_WAIT_MILLIS);
+        while (true) {
+            try {
+                admissionController.acquire(ADMISSION_CLIENT_ID);
+                return;
+            } catch (AdmissionRejectedException e) {
+                long waitNanos = TimeUnit.SECONDS.toNanos(e.getRetryAfterSeconds());
+                if (System.nanoTime() + waitNanos > waitUntil) {
+                    throw new ReverificationException(
+                            String.format("DCS call was not admitted: %s", e.getMessage()), e);
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new ReverificationException(
+                            "Interrupted while waiting to call DCS", interrupted);
+                }
+            }
+        }
+    }
+
+    private CompactSerialization callDcs(byte[] requestBody)
+            throws IOException, EmptyDcsResponseException {
+        try {
+            CompactSerialization response = passportService.dcsPassportCheck(requestBody);
+            recordDcsOutcome(null);
+            return response;
+        } catch (IOException | EmptyDcsResponseException | RuntimeException e) {
+            recordDcsOutcome(e);
+            throw e;
+        }
+    }
+
+    private void recordDcsOutcome(Throwable error) {
+        if (admissionController != null) {
+            admissionController.recordDcsOutcome(error);
+        }
+    }
+
+    private static void publishProgress(Progress progress, long startNanos) {
+        long elapsedMillis =
+                Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        double perSecond = progress.completed * 1000.0 / elapsedMillis;
+        LOGGER.info(
+                "Re-verified {} passport checks in {} ms ({} per second), {} failed, {} skipped",
+                progress.completed,
+                elapsedMillis,
+                String.format("%.1f", perSecond),
+                progress.failed,
+                progress.skipped);
+        MetricsHelper.putCount(MetricsHelper.REVERIFICATION_COMPLETED, progress.completed);
+        MetricsHelper.putCount(MetricsHelper.REVERIFICATION_FAILED, progress.failed);
+        MetricsHelper.putCount(MetricsHelper.REVERIFICATION_SKIPPED, progress.skipped);
+        MetricsHelper.putCount(MetricsHelper.REVERIFICATION_PER_SECOND, perSecond);
+    }
+
+    private static final class Progress {
+        private int completed;
+        private int failed;
+        private int skipped;
+    }
+}
@@ -0,0 +1,29 @@
+package uk.gov.di.ipv.cri.passport.reverifypassport.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+
+import java.util.List;
+
+@ExcludeFromGeneratedCoverageReport
+public class ReverificationRequest {
+    @JsonProperty private final String runId;
+    @JsonProperty private final List<String> resourceIds;
+
+    @JsonCreator
+    public ReverificationRequest(
+            @JsonProperty(value = "runId", required = true) String runId,
+            @JsonProperty(value = "resourceIds", required = true) List<String> resourceIds) {
+        this.runId = runId;
+        this.resourceIds = resourceIds;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public List<String> getResourceIds() {
+        return resourceIds;
+    }
+}
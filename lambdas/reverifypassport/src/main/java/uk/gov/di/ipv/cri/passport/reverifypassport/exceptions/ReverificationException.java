@@ -0,0 +1,11 @@
+package uk.gov.di.ipv.cri.passport.reverifypassport.exceptions;
+
+public class ReverificationException extends RuntimeException {
+    public ReverificationException(String message) {
+        super(message);
+    }
+
+    public ReverificationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
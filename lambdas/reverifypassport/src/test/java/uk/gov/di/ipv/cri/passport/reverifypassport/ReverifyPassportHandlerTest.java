@@ -0,0 +1,372 @@
+package uk.gov.di.ipv.cri.passport.reverifypassport;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.passport.library.auditing.AuditEvent;
+import uk.gov.di.ipv.cri.passport.library.auditing.AuditEventTypes;
+import uk.gov.di.ipv.cri.passport.library.domain.CompactSerialization;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsResponse;
+import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.ContraIndicators;
+import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Evidence;
+import uk.gov.di.ipv.cri.passport.library.exceptions.AdmissionRejectedException;
+import uk.gov.di.ipv.cri.passport.library.exceptions.SqsException;
+import uk.gov.di.ipv.cri.passport.library.helpers.AdmissionController;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
+import uk.gov.di.ipv.cri.passport.library.service.AuditService;
+import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
+import uk.gov.di.ipv.cri.passport.library.service.DcsCryptographyService;
+import uk.gov.di.ipv.cri.passport.library.service.PassportReverificationService;
+import uk.gov.di.ipv.cri.passport.library.service.PassportService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReverifyPassportHandlerTest {
+    private static final String RUN_ID = "test-run-id";
+    private static final String ISSUER = "test-issuer";
+    private static final byte[] DCS_REQUEST_BODY = "TEST_REQUEST".getBytes(StandardCharsets.UTF_8);
+    private static final CompactSerialization DCS_RESPONSE_BODY =
+            new CompactSerialization(
+                    "TEST.PAY.LOAD".getBytes(StandardCharsets.US_ASCII), new int[] {4, 8});
+
+    @Mock Context context;
+    @Mock PassportService passportService;
+    @Mock DcsCryptographyService dcsCryptographyService;
+    @Mock PassportReverificationService reverificationService;
+    @Mock AuditService auditService;
+    @Mock ConfigurationService configurationService;
+    @Mock AdmissionController admissionController;
+
+    private ReverifyPassportHandler underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest =
+                new ReverifyPassportHandler(
+                        passportService,
+                        dcsCryptographyService,
+                        reverificationService,
+                        auditService,
+                        configurationService,
+                        Runnable::run,
+                        Runnable::run);
+    }
+
+    @Test
+    void shouldReverifyChecksAndSaveResultsInOneBatch() throws Exception {
+        PassportCheckDao first = passportCheck("resource-1");
+        PassportCheckDao second = passportCheck("resource-2");
+        when(reverificationService.getCompletedResourceIds(eq(RUN_ID), any()))
+                .thenReturn(Set.of());
+        when(reverificationService.getPassportChecks(List.of("resource-1", "resource-2")))
+                .thenReturn(List.of(first, second));
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
+        when(passportService.dcsPassportCheck(DCS_REQUEST_BODY)).thenReturn(DCS_RESPONSE_BODY);
+        when(dcsCryptographyService.unwrapResponseBody(DCS_RESPONSE_BODY))
+                .thenReturn(dcsResponse(true), dcsResponse(false));
+        when(configurationService.getVerifiableCredentialIssuer()).thenReturn(ISSUER);
+        when(reverificationService.saveResults(eq(RUN_ID), anyMap())).thenReturn(Set.of());
+
+        SQSBatchResponse response =
+                underTest.handleRequest(
+                        sqsEvent(message("message-1", "[\"resource-1\", \"resource-2\"]")),
+                        context);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        ArgumentCaptor<Map<String, Evidence>> saved = ArgumentCaptor.forClass(Map.class);
+        verify(reverificationService).saveResults(eq(RUN_ID), saved.capture());
+        assertEquals(List.of("resource-1", "resource-2"), List.copyOf(saved.getValue().keySet()));
+        Evidence firstEvidence = saved.getValue().get("resource-1");
+        assertEquals(2, firstEvidence.getValidityScore());
+        assertNull(firstEvidence.getCi());
+        Evidence secondEvidence = saved.getValue().get("resource-2");
+        assertEquals(0, secondEvidence.getValidityScore());
+        assertEquals(List.of(ContraIndicators.D02), secondEvidence.getCi());
+        assertNull(first.getEvidence());
+        assertNull(second.getEvidence());
+    }
+
+    @Test
+    void shouldAuditEachReverifiedCheck() throws Exception {
+        PassportCheckDao first = passportCheck("resource-1");
+        when(reverificationService.getCompletedResourceIds(eq(RUN_ID), any()))
+                .thenReturn(Set.of());
+        when(reverificationService.getPassportChecks(List.of("resource-1")))
+                .thenReturn(List.of(first));
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
+        when(passportService.dcsPassportCheck(DCS_REQUEST_BODY)).thenReturn(DCS_RESPONSE_BODY);
+        when(dcsCryptographyService.unwrapResponseBody(DCS_RESPONSE_BODY))
+                .thenReturn(dcsResponse(true));
+        when(configurationService.getVerifiableCredentialIssuer()).thenReturn(ISSUER);
+        when(reverificationService.saveResults(eq(RUN_ID), anyMap())).thenReturn(Set.of());
+
+        underTest.handleRequest(sqsEvent(message("message-1", "[\"resource-1\"]")), context);
+
+        ArgumentCaptor<AuditEvent> audited = ArgumentCaptor.forClass(AuditEvent.class);
+        verify(auditService).sendAuditEvent(audited.capture());
+        assertEquals(
+                AuditEventTypes.IPV_PASSPORT_CRI_REVERIFIED, audited.getValue().getEventName());
+        assertEquals(ISSUER, audited.getValue().getComponentId());
+    }
+
+    @Test
+    void shouldNotSaveChecksWhoseAuditEventCouldNotBeSent() throws Exception {
+        PassportCheckDao first = passportCheck("resource-1");
+        when(reverificationService.getCompletedResourceIds(eq(RUN_ID), any()))
+                .thenReturn(Set.of());
+        when(reverificationService.getPassportChecks(List.of("resource-1")))
+                .thenReturn(List.of(first));
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
+        when(passportService.dcsPassportCheck(DCS_REQUEST_BODY)).thenReturn(DCS_RESPONSE_BODY);
+        when(dcsCryptographyService.unwrapResponseBody(DCS_RESPONSE_BODY))
+                .thenReturn(dcsResponse(true));
+        when(configurationService.getVerifiableCredentialIssuer()).thenReturn(ISSUER);
+        doThrow(new SqsException("queue unavailable"))
+                .when(auditService)
+                .sendAuditEvent(any(AuditEvent.class));
+
+        SQSBatchResponse response =
+                underTest.handleRequest(
+                        sqsEvent(message("message-1", "[\"resource-1\"]")), context);
+
+        assertEquals(List.of("message-1"), failedMessageIds(response));
+        verify(reverificationService, never()).saveResults(any(), any());
+    }
+
+    @Test
+    void shouldSendFreshPayloadToDcs() throws Exception {
+        PassportCheckDao stored = passportCheck("resource-1");
+        when(reverificationService.getCompletedResourceIds(eq(RUN_ID), any()))
+                .thenReturn(Set.of());
+        when(reverificationService.getPassportChecks(List.of("resource-1")))
+                .thenReturn(List.of(stored));
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
+        when(passportService.dcsPassportCheck(DCS_REQUEST_BODY)).thenReturn(DCS_RESPONSE_BODY);
+        when(dcsCryptographyService.unwrapResponseBody(DCS_RESPONSE_BODY))
+                .thenReturn(dcsResponse(true));
+        when(configurationService.getVerifiableCredentialIssuer()).thenReturn(ISSUER);
+        when(reverificationService.saveResults(eq(RUN_ID), anyMap())).thenReturn(Set.of());
+
+        underTest.handleRequest(sqsEvent(message("message-1", "[\"resource-1\"]")), context);
+
+        ArgumentCaptor<DcsPayload> sent = ArgumentCaptor.forClass(DcsPayload.class);
+        verify(dcsCryptographyService).prepareRequestBody(sent.capture());
+        DcsPayload storedPayload = stored.getDcsPayload();
+        assertEquals(storedPayload.getPassportNumber(), sent.getValue().getPassportNumber());
+        assertNotEquals(storedPayload.getRequestId(), sent.getValue().getRequestId());
+    }
+
+    @Test
+    void shouldSkipChecksAlreadyCompletedInTheRun() throws Exception {
+        when(reverificationService.getCompletedResourceIds(eq(RUN_ID), any()))
+                .thenReturn(Set.of("resource-1"));
+        when(reverificationService.getPassportChecks(List.of())).thenReturn(List.of());
+
+        SQSBatchResponse response =
+                underTest.handleRequest(
+                        sqsEvent(message("message-1", "[\"resource-1\"]")), context);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        verify(passportService, never()).dcsPassportCheck(any(byte[].class));
+        verify(reverificationService, never()).saveResults(any(), any());
+    }
+
+    @Test
+    void shouldReportOnlyMessagesWithFailedChecks() throws Exception {
+        PassportCheckDao first = passportCheck("resource-1");
+        PassportCheckDao second = passportCheck("resource-2");
+        when(reverificationService.getCompletedResourceIds(eq(RUN_ID), any()))
+                .thenReturn(Set.of());
+        when(reverificationService.getPassportChecks(List.of("resource-1", "resource-2")))
+                .thenReturn(List.of(first, second));
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
+        when(passportService.dcsPassportCheck(DCS_REQUEST_BODY))
+                .thenReturn(DCS_RESPONSE_BODY)
+                .thenThrow(new IOException("DCS unavailable"));
+        when(dcsCryptographyService.unwrapResponseBody(DCS_RESPONSE_BODY))
+                .thenReturn(dcsResponse(true));
+        when(configurationService.getVerifiableCredentialIssuer()).thenReturn(ISSUER);
+        when(reverificationService.saveResults(eq(RUN_ID), anyMap())).thenReturn(Set.of());
+
+        SQSBatchResponse response =
+                underTest.handleRequest(
+                        sqsEvent(
+                                message("message-1", "[\"resource-1\"]"),
+                                message("message-2", "[\"resource-2\"]")),
+                        context);
+
+        assertEquals(List.of("message-2"), failedMessageIds(response));
+        ArgumentCaptor<Map<String, Evidence>> saved = ArgumentCaptor.forClass(Map.class);
+        verify(reverificationService).saveResults(eq(RUN_ID), saved.capture());
+        assertEquals(Set.of("resource-1"), saved.getValue().keySet());
+    }
+
+    @Test
+    void shouldReportMessagesWhoseResultsCouldNotBeSaved() throws Exception {
+        PassportCheckDao first = passportCheck("resource-1");
+        when(reverificationService.getCompletedResourceIds(eq(RUN_ID), any()))
+                .thenReturn(Set.of());
+        when(reverificationService.getPassportChecks(List.of("resource-1")))
+                .thenReturn(List.of(first));
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
+        when(passportService.dcsPassportCheck(DCS_REQUEST_BODY)).thenReturn(DCS_RESPONSE_BODY);
+        when(dcsCryptographyService.unwrapResponseBody(DCS_RESPONSE_BODY))
+                .thenReturn(dcsResponse(true));
+        when(configurationService.getVerifiableCredentialIssuer()).thenReturn(ISSUER);
+        when(reverificationService.saveResults(eq(RUN_ID), anyMap()))
+                .thenReturn(Set.of("resource-1"));
+
+        SQSBatchResponse response =
+                underTest.handleRequest(
+                        sqsEvent(message("message-1", "[\"resource-1\"]")), context);
+
+        assertEquals(List.of("message-1"), failedMessageIds(response));
+    }
+
+    @Test
+    void shouldWaitForAdmissionBeforeCallingDcs() throws Exception {
+        PassportCheckDao first = passportCheck("resource-1");
+        when(reverificationService.getCompletedResourceIds(eq(RUN_ID), any()))
+                .thenReturn(Set.of());
+        when(reverificationService.getPassportChecks(List.of("resource-1")))
+                .thenReturn(List.of(first));
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
+        doThrow(new AdmissionRejectedException("DCS call rejected at the global limit", 0))
+                .doNothing()
+                .when(admissionController)
+                .acquire(ReverifyPassportHandler.ADMISSION_CLIENT_ID);
+        when(passportService.dcsPassportCheck(DCS_REQUEST_BODY)).thenReturn(DCS_RESPONSE_BODY);
+        when(dcsCryptographyService.unwrapResponseBody(DCS_RESPONSE_BODY))
+                .thenReturn(dcsResponse(true));
+        when(configurationService.getVerifiableCredentialIssuer()).thenReturn(ISSUER);
+        when(reverificationService.saveResults(eq(RUN_ID), anyMap())).thenReturn(Set.of());
+
+        SQSBatchResponse response =
+                admittingHandler()
+                        .handleRequest(sqsEvent(message("message-1", "[\"resource-1\"]")), context);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        verify(admissionController, times(2)).acquire(ReverifyPassportHandler.ADMISSION_CLIENT_ID);
+        verify(admissionController).recordDcsOutcome(null);
+    }
+
+    @Test
+    void shouldFailChecksThatAreNotAdmittedInTime() throws Exception {
+        PassportCheckDao first = passportCheck("resource-1");
+        when(reverificationService.getCompletedResourceIds(eq(RUN_ID), any()))
+                .thenReturn(Set.of());
+        when(reverificationService.getPassportChecks(List.of("resource-1")))
+                .thenReturn(List.of(first));
+        when(dcsCryptographyService.prepareRequestBody(any(DcsPayload.class)))
+                .thenReturn(DCS_REQUEST_BODY);
+        doThrow(new AdmissionRejectedException("DCS call rejected at the global limit", 3600))
+                .when(admissionController)
+                .acquire(ReverifyPassportHandler.ADMISSION_CLIENT_ID);
+
+        SQSBatchResponse response =
+                admittingHandler()
+                        .handleRequest(sqsEvent(message("message-1", "[\"resource-1\"]")), context);
+
+        assertEquals(List.of("message-1"), failedMessageIds(response));
+        verify(passportService, never()).dcsPassportCheck(any(byte[].class));
+    }
+
+    @Test
+    void shouldReportMalformedMessagesWithoutCallingDcs() throws Exception {
+        SQSEvent.SQSMessage malformed = new SQSEvent.SQSMessage();
+        malformed.setMessageId("message-1");
+        malformed.setBody("{\"runId\": \"" + RUN_ID + "\"}");
+
+        SQSBatchResponse response = underTest.handleRequest(sqsEvent(malformed), context);
+
+        assertEquals(List.of("message-1"), failedMessageIds(response));
+        verify(passportService, never()).dcsPassportCheck(any(byte[].class));
+        verify(reverificationService, times(0)).getCompletedResourceIds(any(), any());
+    }
+
+    private ReverifyPassportHandler admittingHandler() {
+        return new ReverifyPassportHandler(
+                passportService,
+                dcsCryptographyService,
+                reverificationService,
+                auditService,
+                configurationService,
+                Runnable::run,
+                Runnable::run,
+                admissionController);
+    }
+
+    private static PassportCheckDao passportCheck(String resourceId) {
+        DcsPayload dcsPayload =
+                new DcsPayload(
+                        "1234567890",
+                        "Tattsyrup",
+                        List.of("Tubbs"),
+                        LocalDate.of(1984, 9, 28),
+                        LocalDate.of(2024, 9, 3));
+        PassportCheckDao passportCheck = new PassportCheckDao();
+        passportCheck.setResourceId(resourceId);
+        passportCheck.setDcsPayload(dcsPayload);
+        return passportCheck;
+    }
+
+    private static DcsResponse dcsResponse(boolean valid) {
+        return new DcsResponse(
+                UUID.randomUUID().toString(), UUID.randomUUID().toString(), false, valid, null);
+    }
+
+    private static SQSEvent.SQSMessage message(String messageId, String resourceIds) {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(messageId);
+        message.setBody(
+                String.format("{\"runId\": \"%s\", \"resourceIds\": %s}", RUN_ID, resourceIds));
+        return message;
+    }
+
+    private static SQSEvent sqsEvent(SQSEvent.SQSMessage... messages) {
+        SQSEvent event = new SQSEvent();
+        event.setRecords(List.of(messages));
+        return event;
+    }
+
+    private static List<String> failedMessageIds(SQSBatchResponse response) {
+        return response.getBatchItemFailures().stream()
+                .map(SQSBatchResponse.BatchItemFailure::getItemIdentifier)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,176 @@
+package uk.gov.di.ipv.cri.passport.library.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsResponse;
+import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
+import uk.gov.di.ipv.cri.passport.library.service.DcsCryptographyService;
+import uk.gov.di.ipv.cri.passport.library.service.DcsCryptographyServiceTest;
+import uk.gov.di.ipv.cri.passport.library.utils.TestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the String based and byte oriented nested JOSE modes of DcsCryptographyService. Run
+ * with the gc profiler (enabled in the jmh block of build.gradle) to compare allocation per
+ * request alongside latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DcsJoseModeBenchmark {
+
+    private DcsCryptographyService stringMode;
+    private DcsCryptographyService byteMode;
+    private DcsPayload dcsPayload;
+    private byte[] dcsResponseBody;
+
+    @Setup
+    public void setUp() throws Exception {
+        PrivateKey criSigningKey =
+                privateKey(DcsCryptographyServiceTest.BASE64_SIGNING_PRIVATE_KEY);
+        PrivateKey criEncryptionKey =
+                privateKey(DcsCryptographyServiceTest.BASE64_ENCRYPTION_PRIVATE_KEY);
+        PrivateKey dcsSigningKey = privateKey(DcsCryptographyServiceTest.BASE64_DCS_SIGNING_KEY);
+        Certificate criEncryptionCert =
+                TestUtils.getDcsSigningCertificate(
+                        DcsCryptographyServiceTest.BASE64_ENCRYPTION_PUBLIC_CERT);
+        Certificate dcsSigningCert =
+                TestUtils.getDcsSigningCertificate(
+                        DcsCryptographyServiceTest.BASE64_DCS_SIGNING_CERT);
+
+        ConfigurationService configurationService =
+                new ConfigurationService((name, decrypt) -> null) {
+                    @Override
+                    public PrivateKey getPassportCriSigningKey() {
+                        return criSigningKey;
+                    }
+
+                    @Override
+                    public Certificate getPassportCriSigningCert() {
+                        return criEncryptionCert;
+                    }
+
+                    @Override
+                    public RSAPublicKey getDcsEncryptionPublicKey() {
+                        return (RSAPublicKey) criEncryptionCert.getPublicKey();
+                    }
+
+                    @Override
+                    public RSAPublicKey getDcsSigningPublicKey() {
+                        return (RSAPublicKey) dcsSigningCert.getPublicKey();
+                    }
+
+                    @Override
+                    public PrivateKey getPassportCriPrivateKey() {
+                        return criEncryptionKey;
+                    }
+                };
+        stringMode = new DcsCryptographyService(configurationService, false);
+        byteMode = new DcsCryptographyService(configurationService, true);
+
+        dcsPayload =
+                new DcsPayload(
+                        "123456789",
+                        "SURNAME",
+                        List.of("FORENAME"),
+                        LocalDate.of(1984, 9, 28),
+                        LocalDate.of(2030, 9, 3));
+        dcsResponseBody =
+                createDcsResponseBody(
+                        dcsSigningKey, (RSAPublicKey) criEncryptionCert.getPublicKey());
+    }
+
+    @Benchmark
+    public byte[] prepareRequestBodyStringMode() throws Exception {
+        return stringMode.prepareRequestBody(dcsPayload);
+    }
+
+    @Benchmark
+    public byte[] prepareRequestBodyByteMode() throws Exception {
+        return byteMode.prepareRequestBody(dcsPayload);
+    }
+
+    @Benchmark
+    public DcsResponse unwrapResponseBodyStringMode() throws Exception {
+        return stringMode.unwrapResponseBody(dcsResponseBody);
+    }
+
+    @Benchmark
+    public DcsResponse unwrapResponseBodyByteMode() throws Exception {
+        return byteMode.unwrapResponseBody(dcsResponseBody);
+    }
+
+    private static PrivateKey privateKey(String base64Key) throws Exception {
+        return KeyFactory.getInstance("RSA")
+                .generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(base64Key)));
+    }
+
+    private static byte[] createDcsResponseBody(PrivateKey dcsSigningKey, RSAPublicKey criKey)
+            throws JOSEException, JsonProcessingException {
+        String dcsResponse =
+                new ObjectMapper()
+                        .writeValueAsString(
+                                new DcsResponse(
+                                        UUID.randomUUID().toString(),
+                                        UUID.randomUUID().toString(),
+                                        false,
+                                        true,
+                                        null));
+        JWSObject inner =
+                new JWSObject(
+                        new JWSHeader.Builder(JWSAlgorithm.RS256).build(),
+                        new Payload(dcsResponse));
+        inner.sign(new RSASSASigner(dcsSigningKey));
+        JWEObject encrypted =
+                new JWEObject(
+                        new JWEHeader.Builder(
+                                        JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A128CBC_HS256)
+                                .type(new JOSEObjectType("JWE"))
+                                .build(),
+                        new Payload(inner.serialize()));
+        encrypted.encrypt(new RSAEncrypter(criKey));
+        JWSObject outer =
+                new JWSObject(
+                        new JWSHeader.Builder(JWSAlgorithm.RS256).build(),
+                        new Payload(encrypted.serialize()));
+        outer.sign(new RSASSASigner(dcsSigningKey));
+        return outer.serialize().getBytes(StandardCharsets.US_ASCII);
+    }
+}
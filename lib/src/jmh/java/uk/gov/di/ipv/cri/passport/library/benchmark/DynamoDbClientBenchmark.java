@@ -0,0 +1,59 @@
+package uk.gov.di.ipv.cri.passport.library.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import uk.gov.di.ipv.cri.passport.library.persistence.DynamoDbClientFactory;
+import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the init cost of the access token handler's DynamoDB clients: four clients on their
+ * own URL connection HTTP clients, as each service used to build, against the one shared pooled
+ * client. Each run is a fresh JVM, so class loading is counted as it is in a new Lambda container.
+ * Per-request savings come from connection reuse and need a real table, so they are not measured
+ * here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class DynamoDbClientBenchmark {
+    private static final int SERVICES_PER_HANDLER = 4;
+
+    @Benchmark
+    public void clientPerService(Blackhole blackhole) {
+        for (int i = 0; i < SERVICES_PER_HANDLER; i++) {
+            DynamoDbClient dynamoDbClient =
+                    DynamoDbClient.builder()
+                            .httpClient(UrlConnectionHttpClient.create())
+                            .region(Region.EU_WEST_2)
+                            .build();
+            blackhole.consume(
+                    DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build());
+        }
+    }
+
+    @Benchmark
+    public void sharedClient(Blackhole blackhole) {
+        ConfigurationService configurationService =
+                new ConfigurationService((name, decrypt) -> null);
+        for (int i = 0; i < SERVICES_PER_HANDLER; i++) {
+            blackhole.consume(DynamoDbClientFactory.getClient(configurationService));
+        }
+    }
+}
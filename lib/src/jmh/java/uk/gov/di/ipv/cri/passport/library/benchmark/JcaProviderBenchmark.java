@@ -0,0 +1,117 @@
+package uk.gov.di.ipv.cri.passport.library.benchmark;
+
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.RSADecrypter;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.di.ipv.cri.passport.library.helpers.JcaProviders;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throughput and latency of the RSA operations used for DCS messages with each JCA
+ * provider, at the key sizes used by the CRI (2048) and DCS (4096). "default" leaves provider
+ * selection to the JDK. Other providers, such as AmazonCorrettoCryptoProvider, can be compared by
+ * adding them to the jmh classpath and overriding the provider parameter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JcaProviderBenchmark {
+
+    private static final JWSHeader JWS_HEADER = new JWSHeader.Builder(JWSAlgorithm.RS256).build();
+    private static final JWEHeader JWE_HEADER =
+            new JWEHeader.Builder(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A128CBC_HS256)
+                    .build();
+    private static final Payload PAYLOAD =
+            new Payload("{\"passportNumber\":\"123456789\",\"surname\":\"SURNAME\"}");
+
+    @Param({"default", "BC"})
+    public String provider;
+
+    @Param({"2048", "4096"})
+    public int keySize;
+
+    private RSASSASigner signer;
+    private RSASSAVerifier verifier;
+    private RSAEncrypter encrypter;
+    private RSADecrypter decrypter;
+    private String signedMessage;
+    private String encryptedMessage;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException, JOSEException {
+        Provider jcaProvider =
+                "default".equals(provider) ? null : JcaProviders.getProvider(provider);
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(keySize);
+        KeyPair keyPair = generator.generateKeyPair();
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+
+        signer = JcaProviders.withProvider(new RSASSASigner(keyPair.getPrivate()), jcaProvider);
+        verifier = JcaProviders.withProvider(new RSASSAVerifier(publicKey), jcaProvider);
+        encrypter =
+                JcaProviders.withKeyEncryptionProvider(new RSAEncrypter(publicKey), jcaProvider);
+        decrypter =
+                JcaProviders.withKeyEncryptionProvider(
+                        new RSADecrypter(keyPair.getPrivate()), jcaProvider);
+
+        signedMessage = sign();
+        encryptedMessage = encrypt();
+    }
+
+    @Benchmark
+    public String sign() throws JOSEException {
+        JWSObject jwsObject = new JWSObject(JWS_HEADER, PAYLOAD);
+        jwsObject.sign(signer);
+        return jwsObject.serialize();
+    }
+
+    @Benchmark
+    public boolean verify() throws JOSEException, ParseException {
+        return JWSObject.parse(signedMessage).verify(verifier);
+    }
+
+    @Benchmark
+    public String encrypt() throws JOSEException {
+        JWEObject jweObject = new JWEObject(JWE_HEADER, PAYLOAD);
+        jweObject.encrypt(encrypter);
+        return jweObject.serialize();
+    }
+
+    @Benchmark
+    public Payload decrypt() throws JOSEException, ParseException {
+        JWEObject jweObject = JWEObject.parse(encryptedMessage);
+        jweObject.decrypt(decrypter);
+        return jweObject.getPayload();
+    }
+}
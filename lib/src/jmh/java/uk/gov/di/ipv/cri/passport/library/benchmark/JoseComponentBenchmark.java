@@ -0,0 +1,74 @@
+package uk.gov.di.ipv.cri.passport.library.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.di.ipv.cri.passport.library.config.KeyBoundComponent;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building a JOSE signer and verifier for every message with reusing key-bound instances,
+ * as DcsCryptographyService now does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JoseComponentBenchmark {
+
+    private static final JWSHeader HEADER = new JWSHeader.Builder(JWSAlgorithm.RS256).build();
+
+    private PrivateKey privateKey;
+    private RSAPublicKey publicKey;
+    private Payload payload;
+    private KeyBoundComponent<PrivateKey, RSASSASigner> signer;
+    private KeyBoundComponent<RSAPublicKey, RSASSAVerifier> verifier;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        privateKey = keyPair.getPrivate();
+        publicKey = (RSAPublicKey) keyPair.getPublic();
+        payload = new Payload("{\"passportNumber\":\"123456789\",\"surname\":\"SURNAME\"}");
+        signer = new KeyBoundComponent<>(RSASSASigner::new);
+        verifier = new KeyBoundComponent<>(RSASSAVerifier::new);
+    }
+
+    @Benchmark
+    public boolean signAndVerifyWithNewInstances() throws JOSEException {
+        JWSObject jwsObject = new JWSObject(HEADER, payload);
+        jwsObject.sign(new RSASSASigner(privateKey));
+        return jwsObject.verify(new RSASSAVerifier(publicKey));
+    }
+
+    @Benchmark
+    public boolean signAndVerifyWithKeyBoundInstances() throws JOSEException {
+        JWSObject jwsObject = new JWSObject(HEADER, payload);
+        jwsObject.sign(signer.get(privateKey));
+        return jwsObject.verify(verifier.get(publicKey));
+    }
+}
@@ -0,0 +1,92 @@
+package uk.gov.di.ipv.cri.passport.library.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
+import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Evidence;
+import uk.gov.di.ipv.cri.passport.library.persistence.ItemTableSchemas;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares resolving a bean schema on every DataStore call, as DataStore used to, with the cached
+ * static schema. The per-call benchmarks map a passport check to attributes and back, which is
+ * the work of a put followed by a get. The cold benchmarks run once in a fresh JVM, so they show
+ * what the first call in a new Lambda container pays for each schema.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TableSchemaBenchmark {
+
+    private PassportCheckDao passportCheck;
+
+    @Setup
+    public void setUp() {
+        passportCheck =
+                new PassportCheckDao(
+                        "test-resource-id",
+                        new DcsPayload(
+                                "123456789",
+                                "SURNAME",
+                                List.of("FORENAME"),
+                                LocalDate.of(1984, 9, 28),
+                                LocalDate.of(2030, 9, 3)),
+                        new Evidence("test-txn", 4, 2, null),
+                        "test-user-id",
+                        "test-client-id");
+    }
+
+    @Benchmark
+    public PassportCheckDao beanSchemaPerCall() {
+        return roundTrip(TableSchema.fromBean(PassportCheckDao.class), passportCheck);
+    }
+
+    @Benchmark
+    public PassportCheckDao cachedStaticSchema() {
+        return roundTrip(ItemTableSchemas.PASSPORT_CHECK, passportCheck);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public PassportCheckDao beanSchemaCold() {
+        return roundTrip(TableSchema.fromBean(PassportCheckDao.class), passportCheck);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public PassportCheckDao staticSchemaCold() {
+        return roundTrip(ItemTableSchemas.PASSPORT_CHECK, passportCheck);
+    }
+
+    private static PassportCheckDao roundTrip(
+            TableSchema<PassportCheckDao> schema, PassportCheckDao passportCheck) {
+        Map<String, AttributeValue> attributes = schema.itemToMap(passportCheck, true);
+        return schema.mapToItem(attributes);
+    }
+}
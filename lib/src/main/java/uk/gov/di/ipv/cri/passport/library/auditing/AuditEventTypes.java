@@ -9,4 +9,5 @@ public enum AuditEventTypes {
     IPV_PASSPORT_CRI_REQUEST_SENT,
     IPV_PASSPORT_CRI_END,
     IPV_PASSPORT_CRI_VC_ISSUED,
+    IPV_PASSPORT_CRI_REVERIFIED,
 }
@@ -0,0 +1,76 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import com.nimbusds.jose.jwk.ECKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+public final class ClientConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClientConfig.class);
+    private static final String REDIRECT_URL_SEPARATOR = ",";
+
+    private final String clientId;
+    private final ECKey signingPublicJwk;
+    private final Set<String> redirectUrls;
+    private final String issuer;
+
+    public ClientConfig(
+            String clientId, ECKey signingPublicJwk, Set<String> redirectUrls, String issuer) {
+        this.clientId = clientId;
+        this.signingPublicJwk = signingPublicJwk;
+        this.redirectUrls = Set.copyOf(redirectUrls);
+        this.issuer = issuer;
+    }
+
+    public static ClientConfig parse(
+            String clientId, String signingPublicJwk, String redirectUrls, String issuer) {
+        return new ClientConfig(
+                clientId,
+                parseSigningPublicJwk(clientId, signingPublicJwk),
+                redirectUrls == null
+                        ? Collections.emptySet()
+                        : Set.copyOf(Arrays.asList(redirectUrls.split(REDIRECT_URL_SEPARATOR))),
+                issuer);
+    }
+
+    private static ECKey parseSigningPublicJwk(String clientId, String signingPublicJwk) {
+        if (signingPublicJwk == null) {
+            return null;
+        }
+        try {
+            return ECKey.parse(signingPublicJwk);
+        } catch (ParseException e) {
+            LOGGER.error(
+                    "Failed to parse signing public JWK for client {}: {}",
+                    clientId,
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    /** Returns {@code null} when the client has no signing key or it could not be parsed. */
+    public ECKey getSigningPublicJwk() {
+        return signingPublicJwk;
+    }
+
+    public Set<String> getRedirectUrls() {
+        return redirectUrls;
+    }
+
+    public boolean isRedirectUrlAllowed(String redirectUrl) {
+        return redirectUrls.contains(redirectUrl);
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+}
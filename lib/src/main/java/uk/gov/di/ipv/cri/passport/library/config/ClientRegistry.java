@@ -0,0 +1,151 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathResponse;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every client configured under the credential issuers prefix, loaded with one recursive
+ * GetParametersByPath walk and parsed up front. Lookups for unknown client ids are remembered for
+ * a short time so that they don't each trigger a reload.
+ */
+public class ClientRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClientRegistry.class);
+    private static final String SIGNING_PUBLIC_JWK = "signingPublicJwk";
+    private static final String REDIRECT_URLS = "jwtAuthentication/validRedirectUrls";
+    private static final String ISSUER = "jwtAuthentication/issuer";
+    private static final int MAX_UNKNOWN_CLIENTS = 1000;
+
+    private final SsmClient ssmClient;
+    private final String pathPrefix;
+    private final Duration unknownClientTtl;
+    private final Clock clock;
+    private final Runnable roundTripListener;
+    private final Map<String, Instant> unknownClients = new ConcurrentHashMap<>();
+    private volatile Map<String, ClientConfig> clients;
+    private volatile Instant loadedAt = Instant.EPOCH;
+
+    public ClientRegistry(
+            SsmClient ssmClient,
+            String pathPrefix,
+            Duration unknownClientTtl,
+            Clock clock,
+            Runnable roundTripListener) {
+        this.ssmClient = ssmClient;
+        this.pathPrefix = pathPrefix.endsWith("/") ? pathPrefix : pathPrefix + "/";
+        this.unknownClientTtl = unknownClientTtl;
+        this.clock = clock;
+        this.roundTripListener = roundTripListener;
+    }
+
+    public Optional<ClientConfig> getClient(String clientId) {
+        Map<String, ClientConfig> current = clients;
+        if (current == null) {
+            current = loadIfAbsent();
+        }
+        ClientConfig client = current.get(clientId);
+        if (client != null) {
+            return Optional.of(client);
+        }
+
+        Instant now = clock.instant();
+        Instant unknownUntil = unknownClients.get(clientId);
+        if (unknownUntil != null && now.isBefore(unknownUntil)) {
+            return Optional.empty();
+        }
+        if (now.isAfter(loadedAt.plus(unknownClientTtl))) {
+            client = reloadQuietly().get(clientId);
+            if (client != null) {
+                return Optional.of(client);
+            }
+        }
+        if (unknownClients.size() >= MAX_UNKNOWN_CLIENTS) {
+            unknownClients.clear();
+        }
+        unknownClients.put(clientId, now.plus(unknownClientTtl));
+        return Optional.empty();
+    }
+
+    public void refreshIfLoaded() {
+        if (clients != null) {
+            reload();
+        }
+    }
+
+    private synchronized Map<String, ClientConfig> loadIfAbsent() {
+        return clients == null ? reload() : clients;
+    }
+
+    private Map<String, ClientConfig> reloadQuietly() {
+        try {
+            return reload();
+        } catch (SdkException e) {
+            LOGGER.warn("Failed to reload client registry: {}", e.getMessage());
+            return clients;
+        }
+    }
+
+    private synchronized Map<String, ClientConfig> reload() {
+        Map<String, Map<String, String>> valuesByClient = new HashMap<>();
+        String nextToken = null;
+        do {
+            roundTripListener.run();
+            GetParametersByPathResponse response =
+                    ssmClient.getParametersByPath(
+                            GetParametersByPathRequest.builder()
+                                    .path(pathPrefix)
+                                    .recursive(true)
+                                    .withDecryption(true)
+                                    .nextToken(nextToken)
+                                    .build());
+            for (Parameter parameter : response.parameters()) {
+                addParameter(valuesByClient, parameter);
+            }
+            nextToken = response.nextToken();
+        } while (nextToken != null);
+
+        Map<String, ClientConfig> loaded = new HashMap<>();
+        valuesByClient.forEach(
+                (clientId, values) ->
+                        loaded.put(
+                                clientId,
+                                ClientConfig.parse(
+                                        clientId,
+                                        values.get(SIGNING_PUBLIC_JWK),
+                                        values.get(REDIRECT_URLS),
+                                        values.get(ISSUER))));
+        clients = Collections.unmodifiableMap(loaded);
+        loadedAt = clock.instant();
+        unknownClients.keySet().removeAll(loaded.keySet());
+        return clients;
+    }
+
+    private void addParameter(
+            Map<String, Map<String, String>> valuesByClient, Parameter parameter) {
+        if (!parameter.name().startsWith(pathPrefix)) {
+            return;
+        }
+        String relativeName = parameter.name().substring(pathPrefix.length());
+        int separator = relativeName.indexOf('/');
+        if (separator <= 0) {
+            return;
+        }
+        valuesByClient
+                .computeIfAbsent(relativeName.substring(0, separator), key -> new HashMap<>())
+                .put(relativeName.substring(separator + 1), parameter.value());
+    }
+}
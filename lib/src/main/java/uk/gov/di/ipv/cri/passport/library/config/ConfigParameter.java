@@ -0,0 +1,64 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+public enum ConfigParameter {
+    DCS_ENCRYPTION_CERT("DCS_ENCRYPTION_CERT_PARAM"),
+    DCS_SIGNING_CERT("DCS_SIGNING_CERT_PARAM"),
+    JAR_SIGNING_CERT("JAR_SIGNING_CERT_PARAM"),
+    PASSPORT_CRI_ENCRYPTION_KEY("PASSPORT_CRI_ENCRYPTION_KEY_PARAM", true),
+    PASSPORT_CRI_ENCRYPTION_CERT("PASSPORT_CRI_ENCRYPTION_CERT_PARAM"),
+    PASSPORT_CRI_SIGNING_KEY("PASSPORT_CRI_SIGNING_KEY_PARAM", true),
+    PASSPORT_CRI_SIGNING_CERT("PASSPORT_CRI_SIGNING_CERT_PARAM"),
+    PASSPORT_CRI_TLS_KEY("PASSPORT_CRI_TLS_KEY_PARAM", true),
+    PASSPORT_CRI_TLS_CERT("PASSPORT_CRI_TLS_CERT_PARAM"),
+    DCS_TLS_ROOT_CERT("DCS_TLS_ROOT_CERT_PARAM"),
+    DCS_TLS_INTERMEDIATE_CERT("DCS_TLS_INTERMEDIATE_CERT_PARAM"),
+    DCS_POST_URL("DCS_POST_URL_PARAM"),
+    PASSPORT_CRI_CLIENT_AUDIENCE("PASSPORT_CRI_CLIENT_AUDIENCE"),
+    VERIFIABLE_CREDENTIAL_ISSUER("VERIFIABLE_CREDENTIAL_ISSUER_PARAM"),
+    PASSPORT_CRI_CLIENT_AUTH_MAX_TTL("PASSPORT_CRI_CLIENT_AUTH_MAX_TTL"),
+    VERIFIABLE_CREDENTIAL_SIGNING_KEY_ID("VERIFIABLE_CREDENTIAL_SIGNING_KEY_ID_PARAM"),
+    JAR_ENCRYPTION_KEY_ID("JAR_ENCRYPTION_KEY_ID_PARAM"),
+    JAR_KMS_PUBLIC_KEY("JAR_KMS_PUBLIC_KEY_PARAM"),
+    MAX_JWT_TTL("MAX_JWT_TTL"),
+    MAXIMUM_ATTEMPT_COUNT("MAXIMUM_ATTEMPT_COUNT_PARAM"),
+    DUPLICATE_CHECK_KEY("DUPLICATE_CHECK_KEY_PARAM", true),
+    AUTH_CODE_EXPIRY_SECONDS(
+            null, "/%s/credentialIssuers/ukPassport/self/authCodeExpirySeconds", false),
+    BACKEND_SESSION_TTL(null, "/%s/credentialIssuers/ukPassport/self/backendSessionTtl", false);
+
+    private static final String ENVIRONMENT = "ENVIRONMENT";
+
+    private final String environmentVariable;
+    private final String pathTemplate;
+    private final boolean secure;
+
+    ConfigParameter(String environmentVariable) {
+        this(environmentVariable, false);
+    }
+
+    ConfigParameter(String environmentVariable, boolean secure) {
+        this(environmentVariable, null, secure);
+    }
+
+    ConfigParameter(String environmentVariable, String pathTemplate, boolean secure) {
+        this.environmentVariable = environmentVariable;
+        this.pathTemplate = pathTemplate;
+        this.secure = secure;
+    }
+
+    /**
+     * Resolves the SSM parameter name for this lambda's environment, or {@code null} when the
+     * lambda has not been configured with it.
+     */
+    public String getParameterName() {
+        if (environmentVariable != null) {
+            return System.getenv(environmentVariable);
+        }
+        String environment = System.getenv(ENVIRONMENT);
+        return environment == null ? null : String.format(pathTemplate, environment);
+    }
+
+    public boolean isSecure() {
+        return secure;
+    }
+}
@@ -0,0 +1,143 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParametersRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersResponse;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+import software.amazon.awssdk.services.ssm.model.SsmException;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * An immutable view of every SSM parameter this lambda is configured with, fetched in as few
+ * GetParameters calls as the API allows. A batch SSM rejects is left out of the snapshot, so its
+ * parameters are read individually, and loading only fails when every batch is rejected.
+ */
+public final class ConfigSnapshot {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigSnapshot.class);
+    private static final int GET_PARAMETERS_BATCH_SIZE = 10;
+
+    private final Map<ConfigParameter, String> values;
+    private final Map<ConfigParameter, Long> versions;
+    private final Instant loadedAt;
+
+    ConfigSnapshot(
+            Map<ConfigParameter, String> values,
+            Map<ConfigParameter, Long> versions,
+            Instant loadedAt) {
+        this.values = copyOf(values);
+        this.versions = copyOf(versions);
+        this.loadedAt = loadedAt;
+    }
+
+    private static <V> Map<ConfigParameter, V> copyOf(Map<ConfigParameter, V> map) {
+        return map.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new EnumMap<>(map));
+    }
+
+    public static ConfigSnapshot empty() {
+        return new ConfigSnapshot(Collections.emptyMap(), Collections.emptyMap(), Instant.EPOCH);
+    }
+
+    public static ConfigSnapshot load(SsmClient ssmClient, Runnable roundTripListener) {
+        List<String> names =
+                Arrays.stream(ConfigParameter.values())
+                        .map(ConfigParameter::getParameterName)
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .collect(Collectors.toList());
+
+        Map<String, Parameter> parametersByName = new HashMap<>();
+        SsmException firstFailure = null;
+        int failedBatches = 0;
+        int batches = 0;
+        for (int i = 0; i < names.size(); i += GET_PARAMETERS_BATCH_SIZE) {
+            List<String> batch =
+                    names.subList(i, Math.min(i + GET_PARAMETERS_BATCH_SIZE, names.size()));
+            batches++;
+            roundTripListener.run();
+            GetParametersResponse response;
+            try {
+                response =
+                        ssmClient.getParameters(
+                                GetParametersRequest.builder()
+                                        .names(batch)
+                                        .withDecryption(true)
+                                        .build());
+            } catch (SsmException e) {
+                // One name the lambda may not read denies the whole batch, keep the others
+                LOGGER.warn(
+                        "Failed to load SSM parameters {} into config snapshot: {}",
+                        batch,
+                        e.getMessage());
+                if (firstFailure == null) {
+                    firstFailure = e;
+                }
+                failedBatches++;
+                continue;
+            }
+            for (Parameter parameter : response.parameters()) {
+                parametersByName.put(parameter.name(), parameter);
+            }
+            if (response.hasInvalidParameters() && !response.invalidParameters().isEmpty()) {
+                LOGGER.warn(
+                        "SSM parameters not found while loading config snapshot: {}",
+                        response.invalidParameters());
+            }
+        }
+        if (firstFailure != null && failedBatches == batches) {
+            throw firstFailure;
+        }
+
+        Map<ConfigParameter, String> values = new EnumMap<>(ConfigParameter.class);
+        Map<ConfigParameter, Long> versions = new EnumMap<>(ConfigParameter.class);
+        for (ConfigParameter configParameter : ConfigParameter.values()) {
+            String name = configParameter.getParameterName();
+            Parameter parameter = name == null ? null : parametersByName.get(name);
+            if (parameter != null) {
+                values.put(configParameter, parameter.value());
+                if (parameter.version() != null) {
+                    versions.put(configParameter, parameter.version());
+                }
+            }
+        }
+        return new ConfigSnapshot(values, versions, Instant.now());
+    }
+
+    public Optional<String> getString(ConfigParameter parameter) {
+        return Optional.ofNullable(values.get(parameter));
+    }
+
+    public Optional<Long> getLong(ConfigParameter parameter) {
+        return getString(parameter).map(Long::valueOf);
+    }
+
+    public Optional<Integer> getInt(ConfigParameter parameter) {
+        return getString(parameter).map(Integer::valueOf);
+    }
+
+    public Optional<Long> getVersion(ConfigParameter parameter) {
+        return Optional.ofNullable(versions.get(parameter));
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+}
@@ -0,0 +1,11 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+/** Where ConfigurationService reads its parameters from. */
+public interface ConfigSource {
+
+    /**
+     * Returns the value stored under the given parameter name. Sources that can't find the name
+     * either return {@code null} or throw, as the SSM source does.
+     */
+    String getParameter(String name, boolean decrypt);
+}
@@ -0,0 +1,23 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import java.util.Locale;
+
+/**
+ * Reads each parameter from an environment variable derived from its SSM name, e.g. {@code
+ * /dev/credentialIssuers/ukPassport/self/maxJwtTtl} is read from {@code
+ * CONFIG_DEV_CREDENTIALISSUERS_UKPASSPORT_SELF_MAXJWTTTL}.
+ */
+public class EnvironmentConfigSource implements ConfigSource {
+
+    private static final String VARIABLE_PREFIX = "CONFIG_";
+
+    @Override
+    public String getParameter(String name, boolean decrypt) {
+        return name == null ? null : System.getenv(toVariableName(name));
+    }
+
+    public static String toVariableName(String parameterName) {
+        String trimmed = parameterName.startsWith("/") ? parameterName.substring(1) : parameterName;
+        return VARIABLE_PREFIX + trimmed.replaceAll("[^A-Za-z0-9]", "_").toUpperCase(Locale.ROOT);
+    }
+}
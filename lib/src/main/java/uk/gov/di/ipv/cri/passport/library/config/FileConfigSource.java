@@ -0,0 +1,68 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import uk.gov.di.ipv.cri.passport.library.exceptions.ConfigSourceException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Serves parameters from a JSON object or properties file keyed by SSM parameter name. The file
+ * is mapped into memory and parsed once when the source is created.
+ */
+public class FileConfigSource implements ConfigSource {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Map<String, String> values;
+
+    public FileConfigSource(Path path) {
+        String content = readMapped(path);
+        try {
+            this.values =
+                    Collections.unmodifiableMap(
+                            path.toString().endsWith(".json")
+                                    ? parseJson(content)
+                                    : parseProperties(content));
+        } catch (IOException e) {
+            throw new ConfigSourceException("Failed to parse config file " + path, e);
+        }
+    }
+
+    @Override
+    public String getParameter(String name, boolean decrypt) {
+        return values.get(name);
+    }
+
+    private static String readMapped(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return StandardCharsets.UTF_8.decode(buffer).toString();
+        } catch (IOException e) {
+            throw new ConfigSourceException("Failed to read config file " + path, e);
+        }
+    }
+
+    private static Map<String, String> parseJson(String content) throws IOException {
+        return OBJECT_MAPPER.readValue(content, new TypeReference<Map<String, String>>() {});
+    }
+
+    private static Map<String, String> parseProperties(String content) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new StringReader(content));
+        Map<String, String> values = new HashMap<>();
+        properties.stringPropertyNames()
+                .forEach(name -> values.put(name, properties.getProperty(name)));
+        return values;
+    }
+}
@@ -0,0 +1,37 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import java.util.function.Function;
+
+/**
+ * Holds a component built from a key, such as a JOSE signer or decrypter, and only rebuilds it
+ * when a different key is supplied. Components must be safe to share between threads.
+ */
+public class KeyBoundComponent<K, T> {
+
+    private final Function<K, T> factory;
+    private volatile Binding<K, T> binding;
+
+    public KeyBoundComponent(Function<K, T> factory) {
+        this.factory = factory;
+    }
+
+    public T get(K key) {
+        Binding<K, T> current = binding;
+        if (current != null && (current.key == key || current.key.equals(key))) {
+            return current.component;
+        }
+        Binding<K, T> rebuilt = new Binding<>(key, factory.apply(key));
+        binding = rebuilt;
+        return rebuilt.component;
+    }
+
+    private static final class Binding<K, T> {
+        private final K key;
+        private final T component;
+
+        private Binding(K key, T component) {
+            this.key = key;
+            this.component = component;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds parsed certificates and keys against the SSM parameter name and version they were parsed
+ * from, so each version is only decoded once per container.
+ */
+public class KeyMaterialCache {
+
+    private final Map<String, VersionedValue> entries = new ConcurrentHashMap<>();
+
+    public <T> T get(String parameterName, long version, Class<T> type) {
+        VersionedValue entry = entries.get(cacheKey(parameterName, type));
+        if (entry == null || entry.version != version) {
+            return null;
+        }
+        return type.cast(entry.value);
+    }
+
+    public <T> T put(String parameterName, long version, Class<T> type, T value) {
+        VersionedValue stored =
+                entries.compute(
+                        cacheKey(parameterName, type),
+                        (key, existing) ->
+                                existing != null && existing.version >= version
+                                        ? existing
+                                        : new VersionedValue(version, value));
+        return stored.version == version ? type.cast(stored.value) : value;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static String cacheKey(String parameterName, Class<?> type) {
+        return type.getName() + ":" + parameterName;
+    }
+
+    private static final class VersionedValue {
+        private final long version;
+        private final Object value;
+
+        private VersionedValue(long version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
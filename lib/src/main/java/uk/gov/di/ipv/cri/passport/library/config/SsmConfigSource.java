@@ -0,0 +1,35 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.lambda.powertools.parameters.SSMProvider;
+
+public class SsmConfigSource implements ConfigSource {
+
+    private final SSMProvider ssmProvider;
+    private final SsmClient ssmClient;
+
+    /**
+     * @param ssmClient used for batched snapshot and client registry loads, or {@code null} to
+     *     read every parameter individually through the provider
+     */
+    public SsmConfigSource(SSMProvider ssmProvider, SsmClient ssmClient) {
+        this.ssmProvider = ssmProvider;
+        this.ssmClient = ssmClient;
+    }
+
+    @Override
+    public String getParameter(String name, boolean decrypt) {
+        if (decrypt) {
+            return ssmProvider.withDecryption().get(name);
+        }
+        return ssmProvider.get(name);
+    }
+
+    public SSMProvider getSsmProvider() {
+        return ssmProvider;
+    }
+
+    public SsmClient getSsmClient() {
+        return ssmClient;
+    }
+}
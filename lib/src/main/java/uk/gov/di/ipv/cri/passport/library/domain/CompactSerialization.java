@@ -0,0 +1,25 @@
+package uk.gov.di.ipv.cri.passport.library.domain;
+
+import java.nio.charset.StandardCharsets;
+
+public class CompactSerialization {
+    private final byte[] bytes;
+    private final int[] separators;
+
+    public CompactSerialization(byte[] bytes, int[] separators) {
+        this.bytes = bytes;
+        this.separators = separators;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int[] getSeparators() {
+        return separators;
+    }
+
+    public String serialize() {
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
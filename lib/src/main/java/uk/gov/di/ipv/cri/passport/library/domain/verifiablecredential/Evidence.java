@@ -3,8 +3,10 @@ package uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsResponse;
 
 import java.util.List;
+import java.util.UUID;
 
 import static uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.VerifiableCredentialConstants.EVIDENCE_TYPE_IDENTITY_CHECK;
 
@@ -12,6 +14,9 @@ import static uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Ver
 @ExcludeFromGeneratedCoverageReport
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class Evidence {
+    private static final int MAX_PASSPORT_GPG45_STRENGTH_VALUE = 4;
+    private static final int MAX_PASSPORT_GPG45_VALIDITY_VALUE = 2;
+    private static final int MIN_PASSPORT_GPG45_VALUE = 0;
 
     private String type = EVIDENCE_TYPE_IDENTITY_CHECK;
     private String txn;
@@ -28,6 +33,17 @@ public class Evidence {
         this.ci = ci;
     }
 
+    /** Scores a passport check against GPG45 from the answer DCS gave. */
+    public static Evidence fromDcsResponse(DcsResponse dcsResponse) {
+        return new Evidence(
+                UUID.randomUUID().toString(),
+                MAX_PASSPORT_GPG45_STRENGTH_VALUE,
+                dcsResponse.isValid()
+                        ? MAX_PASSPORT_GPG45_VALIDITY_VALUE
+                        : MIN_PASSPORT_GPG45_VALUE,
+                dcsResponse.isValid() ? null : List.of(ContraIndicators.D02));
+    }
+
     public String getType() {
         return type;
     }
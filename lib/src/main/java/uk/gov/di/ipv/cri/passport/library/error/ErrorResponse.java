@@ -24,7 +24,12 @@ public enum ErrorResponse {
     MISSING_USER_ID_HEADER(1017, "Missing user_id header in authorisation request"),
     MISSING_PASSPORT_SESSION_ID_HEADER(1018, "Missing passport_session_id header"),
     FAILED_TO_REVOKE_ACCESS_TOKEN(1019, "Failed to revoke access token"),
-    PASSPORT_SESSION_NOT_FOUND(1020, "Passport session not found");
+    PASSPORT_SESSION_NOT_FOUND(1020, "Passport session not found"),
+    REQUEST_DEADLINE_EXCEEDED(
+            1021, "Request deadline exceeded before completing a downstream call"),
+    PASSPORT_CHECK_IN_PROGRESS(1022, "A passport check with these details is already in progress"),
+    TOO_MANY_PASSPORT_CHECKS(1023, "Too many passport checks, retry later"),
+    FAILED_TO_RECORD_PASSPORT_CHECK(1024, "Failed to record passport check");
 
     private final int code;
     private final String message;
@@ -0,0 +1,12 @@
+package uk.gov.di.ipv.cri.passport.library.exceptions;
+
+import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+
+import java.io.IOException;
+
+@ExcludeFromGeneratedCoverageReport
+public class CallNotPermittedException extends IOException {
+    public CallNotPermittedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package uk.gov.di.ipv.cri.passport.library.exceptions;
+
+import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+
+@ExcludeFromGeneratedCoverageReport
+public class ConfigSourceException extends RuntimeException {
+    public ConfigSourceException(String message) {
+        super(message);
+    }
+
+    public ConfigSourceException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
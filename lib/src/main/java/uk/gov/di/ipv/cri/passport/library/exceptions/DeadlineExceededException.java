@@ -0,0 +1,24 @@
+package uk.gov.di.ipv.cri.passport.library.exceptions;
+
+import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+
+@ExcludeFromGeneratedCoverageReport
+public class DeadlineExceededException extends RuntimeException {
+    private final String stage;
+
+    public DeadlineExceededException(String stage, long budgetMillis) {
+        this(stage, budgetMillis, null);
+    }
+
+    public DeadlineExceededException(String stage, long budgetMillis, Throwable cause) {
+        super(
+                String.format(
+                        "Request deadline of %d ms exceeded in the %s stage", budgetMillis, stage),
+                cause);
+        this.stage = stage;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+}
@@ -0,0 +1,329 @@
+package uk.gov.di.ipv.cri.passport.library.helpers;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpResponseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.core.exception.SdkException;
+import uk.gov.di.ipv.cri.passport.library.exceptions.AdmissionRejectedException;
+import uk.gov.di.ipv.cri.passport.library.service.AdmissionWindowService;
+import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decides whether a request may call DCS, so one busy client cannot use up the DCS throughput
+ * for everyone. Each client has a limit, and a global limit caps the total. A rejected request is
+ * told when to retry instead of waiting. Limits are written as {@code rate:burst}, with the rate
+ * in calls per second.
+ *
+ * <p>Token buckets in each Lambda container absorb bursts. When an {@link AdmissionWindowService}
+ * is given, the rates are also counted in windows shared by every container, so they bound the
+ * total load on DCS rather than the load from each container. If the shared count cannot be
+ * reached, calls are admitted on the container's own buckets.
+ *
+ * <p>The global limit backs off while DCS is struggling: it is halved, down to a tenth, when a
+ * DCS call gets a 429 or 5xx, fails to connect or is refused by the open circuit breaker, and it
+ * recovers step by step as calls succeed. Each container adapts to the calls it makes itself.
+ */
+public class AdmissionController {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String UNKNOWN_CLIENT = "unknown";
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final String GLOBAL_SCOPE = "global";
+    private static final String CLIENT_SCOPE_PREFIX = "client#";
+    private static final double MIN_GLOBAL_RATE_FACTOR = 0.1;
+    private static final double GLOBAL_RATE_RECOVERY_STEP = 0.05;
+    private static final long BACK_OFF_INTERVAL_MILLIS = 1000L;
+
+    private final Limit globalLimit;
+    private final TokenBucket global;
+    private final Limit defaultClientLimit;
+    private final Map<String, Limit> clientLimits;
+    private final ConcurrentMap<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+    private final AdmissionWindowService sharedWindows;
+    private final Clock clock;
+    private double globalRateFactor = 1;
+    private long backedOffAt;
+
+    public AdmissionController(
+            Limit globalLimit,
+            Limit defaultClientLimit,
+            Map<String, Limit> clientLimits,
+            Clock clock) {
+        this(globalLimit, defaultClientLimit, clientLimits, null, clock);
+    }
+
+    public AdmissionController(
+            Limit globalLimit,
+            Limit defaultClientLimit,
+            Map<String, Limit> clientLimits,
+            AdmissionWindowService sharedWindows,
+            Clock clock) {
+        this.globalLimit = globalLimit;
+        this.global = globalLimit == null ? null : new TokenBucket(globalLimit, clock.millis());
+        this.defaultClientLimit = defaultClientLimit;
+        this.clientLimits = clientLimits;
+        this.sharedWindows = sharedWindows;
+        this.clock = clock;
+    }
+
+    /** Returns null when no limit is configured, so requests are not checked at all. */
+    public static AdmissionController fromConfig(ConfigurationService configurationService) {
+        Limit globalLimit = Limit.parse(configurationService.getDcsAdmissionGlobalLimit());
+        Limit defaultClientLimit =
+                Limit.parse(configurationService.getDcsAdmissionDefaultClientLimit());
+        Map<String, Limit> clientLimits =
+                parseClientLimits(configurationService.getDcsAdmissionClientLimits());
+        if (globalLimit == null && defaultClientLimit == null && clientLimits.isEmpty()) {
+            return null;
+        }
+        String tableName = configurationService.getDcsAdmissionTableName();
+        AdmissionWindowService sharedWindows =
+                tableName == null || tableName.isBlank()
+                        ? null
+                        : new AdmissionWindowService(configurationService);
+        return new AdmissionController(
+                globalLimit, defaultClientLimit, clientLimits, sharedWindows, Clock.systemUTC());
+    }
+
+    public void acquire(String clientId) throws AdmissionRejectedException {
+        String key = clientId == null ? UNKNOWN_CLIENT : clientId;
+        long now = clock.millis();
+        double globalFactor = getGlobalRateFactor();
+        Limit clientLimit = clientLimits.getOrDefault(key, defaultClientLimit);
+        TokenBucket client = clientLimit == null ? null : clientBucket(key, clientLimit, now);
+        if (client != null) {
+            long waitMillis = client.tryTake(now, 1);
+            if (waitMillis > 0) {
+                reject(MetricsHelper.DCS_ADMISSION_REJECTED_CLIENT, key, "client", waitMillis);
+            }
+        }
+        if (global != null) {
+            long waitMillis = global.tryTake(now, globalFactor);
+            if (waitMillis > 0) {
+                // The client did not get to call DCS, so it keeps its token
+                refund(client);
+                reject(MetricsHelper.DCS_ADMISSION_REJECTED_GLOBAL, key, "global", waitMillis);
+            }
+        }
+        if (sharedWindows == null) {
+            return;
+        }
+        String clientScope = CLIENT_SCOPE_PREFIX + key;
+        if (clientLimit != null && !tryShared(clientScope, clientLimit, 1, now)) {
+            refund(client);
+            refund(global);
+            reject(
+                    MetricsHelper.DCS_ADMISSION_REJECTED_CLIENT,
+                    key,
+                    "client",
+                    clientLimit.untilNextWindow(now));
+        }
+        if (globalLimit != null && !tryShared(GLOBAL_SCOPE, globalLimit, globalFactor, now)) {
+            refund(client);
+            refund(global);
+            if (clientLimit != null) {
+                releaseShared(clientScope, clientLimit, now);
+            }
+            reject(
+                    MetricsHelper.DCS_ADMISSION_REJECTED_GLOBAL,
+                    key,
+                    "global",
+                    globalLimit.untilNextWindow(now));
+        }
+    }
+
+    /**
+     * Adapts the global limit to how DCS is coping, given how a DCS call ended: null when DCS
+     * answered, otherwise the error the call failed with.
+     */
+    public void recordDcsOutcome(Throwable error) {
+        Throwable cause =
+                error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+        if (cause == null) {
+            recover();
+        } else if (isOverloaded(cause)) {
+            backOff(clock.millis());
+        }
+    }
+
+    synchronized double getGlobalRateFactor() {
+        return globalRateFactor;
+    }
+
+    private TokenBucket clientBucket(String clientId, Limit limit, long now) {
+        return clientBuckets.computeIfAbsent(clientId, key -> new TokenBucket(limit, now));
+    }
+
+    private boolean tryShared(String scope, Limit limit, double factor, long now) {
+        try {
+            return sharedWindows.tryAcquire(
+                    scope,
+                    limit.windowStart(now),
+                    limit.windowMillis(),
+                    limit.callsPerWindow(factor));
+        } catch (SdkException e) {
+            LOGGER.warn("Failed to count DCS call in the shared {} window", scope, e);
+            return true;
+        }
+    }
+
+    private void releaseShared(String scope, Limit limit, long now) {
+        try {
+            sharedWindows.release(scope, limit.windowStart(now));
+        } catch (SdkException e) {
+            LOGGER.warn("Failed to give back DCS call in the shared {} window", scope, e);
+        }
+    }
+
+    private static void refund(TokenBucket bucket) {
+        if (bucket != null) {
+            bucket.refund();
+        }
+    }
+
+    private static boolean isOverloaded(Throwable cause) {
+        if (cause instanceof HttpResponseException) {
+            int statusCode = ((HttpResponseException) cause).getStatusCode();
+            return statusCode == SC_TOO_MANY_REQUESTS
+                    || statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+        }
+        // Timeouts, connection failures and calls refused by the open circuit breaker
+        return cause instanceof IOException;
+    }
+
+    private synchronized void backOff(long now) {
+        // Calls that fail together are one sign of overload, not several
+        if (now - backedOffAt < BACK_OFF_INTERVAL_MILLIS) {
+            return;
+        }
+        backedOffAt = now;
+        globalRateFactor = Math.max(MIN_GLOBAL_RATE_FACTOR, globalRateFactor / 2);
+        LOGGER.warn("Global DCS admission rate cut to {} of its limit", globalRateFactor);
+    }
+
+    private synchronized void recover() {
+        globalRateFactor = Math.min(1, globalRateFactor + GLOBAL_RATE_RECOVERY_STEP);
+    }
+
+    private static void reject(String metricName, String clientId, String scope, long waitMillis)
+            throws AdmissionRejectedException {
+        LOGGER.warn("Rejected DCS call for client {} at the {} limit", clientId, scope);
+        MetricsHelper.putCount(metricName, 1);
+        long retryAfterSeconds = Math.max(1L, (waitMillis + 999L) / 1000L);
+        throw new AdmissionRejectedException(
+                String.format("DCS call rejected at the %s limit", scope), retryAfterSeconds);
+    }
+
+    private static Map<String, Limit> parseClientLimits(String value) {
+        Map<String, Limit> limits = new HashMap<>();
+        if (value == null || value.isBlank()) {
+            return limits;
+        }
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(
+                        String.format("Invalid DCS admission client limit: %s", entry));
+            }
+            limits.put(parts[0].trim(), Limit.parse(parts[1]));
+        }
+        return limits;
+    }
+
+    public static class Limit {
+        private final double ratePerSecond;
+        private final double burst;
+
+        public Limit(double ratePerSecond, double burst) {
+            if (ratePerSecond <= 0 || burst < 1) {
+                throw new IllegalArgumentException(
+                        "DCS admission limits need a positive rate and a burst of at least 1");
+            }
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+
+        /** Whole seconds, long enough for the window to allow at least one call. */
+        private long windowMillis() {
+            return ratePerSecond >= 1 ? 1000L : (long) Math.ceil(1 / ratePerSecond) * 1000L;
+        }
+
+        private long windowStart(long now) {
+            return now - Math.floorMod(now, windowMillis());
+        }
+
+        private long untilNextWindow(long now) {
+            return windowStart(now) + windowMillis() - now;
+        }
+
+        private long callsPerWindow(double factor) {
+            return Math.max(1L, (long) (ratePerSecond * factor * windowMillis() / 1000));
+        }
+
+        /** Parses {@code rate:burst}, or {@code rate} with a burst of the same size. */
+        public static Limit parse(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            String[] parts = value.trim().split(":");
+            try {
+                double ratePerSecond = Double.parseDouble(parts[0]);
+                double burst =
+                        parts.length > 1
+                                ? Double.parseDouble(parts[1])
+                                : Math.max(1, ratePerSecond);
+                return new Limit(ratePerSecond, burst);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(
+                        String.format("Invalid DCS admission limit: %s", value), e);
+            }
+        }
+    }
+
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerMilli;
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(Limit limit, long now) {
+            this.capacity = limit.burst;
+            this.tokensPerMilli = limit.ratePerSecond / 1000;
+            this.tokens = limit.burst;
+            this.refilledAt = now;
+        }
+
+        /**
+         * Takes a token and returns 0, or returns how long until the next token is available. The
+         * rate and burst are scaled by the factor.
+         */
+        private synchronized long tryTake(long now, double factor) {
+            double ratePerMilli = tokensPerMilli * factor;
+            double scaledCapacity = Math.max(1, capacity * factor);
+            if (now > refilledAt) {
+                tokens += (now - refilledAt) * ratePerMilli;
+                refilledAt = now;
+            }
+            tokens = Math.min(scaledCapacity, tokens);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / ratePerMilli);
+        }
+
+        private synchronized void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 public class ApiGatewayResponseGenerator {
@@ -31,8 +32,13 @@ public class ApiGatewayResponseGenerator {
     }
 
     public static <T> APIGatewayProxyResponseEvent proxyJsonResponse(int statusCode, T body) {
-        Map<String, String> responseHeaders =
-                Map.of(HttpHeaders.CONTENT_TYPE, JSON_CONTENT_TYPE_VALUE);
+        return proxyJsonResponse(statusCode, body, Collections.emptyMap());
+    }
+
+    public static <T> APIGatewayProxyResponseEvent proxyJsonResponse(
+            int statusCode, T body, Map<String, String> headers) {
+        Map<String, String> responseHeaders = new HashMap<>(headers);
+        responseHeaders.put(HttpHeaders.CONTENT_TYPE, JSON_CONTENT_TYPE_VALUE);
 
         try {
             return proxyResponse(statusCode, generateResponseBody(body), responseHeaders);
@@ -0,0 +1,127 @@
+package uk.gov.di.ipv.cri.passport.library.helpers;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.gov.di.ipv.cri.passport.library.exceptions.CallNotPermittedException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Stops calls to a failing downstream straight away instead of letting each one wait to fail.
+ * Opens after a run of consecutive failures. Once the open period has passed, it lets a few
+ * probe calls through and closes again when one of them succeeds. A bulkhead caps the number of
+ * calls in flight at once.
+ */
+public class CircuitBreaker {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    public enum State {
+        CLOSED(0),
+        HALF_OPEN(1),
+        OPEN(2);
+
+        private final int metricValue;
+
+        State(int metricValue) {
+            this.metricValue = metricValue;
+        }
+
+        public int getMetricValue() {
+            return metricValue;
+        }
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final int halfOpenProbes;
+    private final Semaphore bulkhead;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int probesInFlight;
+    private Instant openedAt;
+
+    public CircuitBreaker(
+            String name,
+            int failureThreshold,
+            Duration openDuration,
+            int halfOpenProbes,
+            int maxConcurrentCalls,
+            Clock clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.halfOpenProbes = halfOpenProbes;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a slot for a call. Every successful acquire must be followed by exactly one call to
+     * {@link #onSuccess()} or {@link #onFailure()}.
+     */
+    public void acquire() throws CallNotPermittedException {
+        if (!bulkhead.tryAcquire()) {
+            throw new CallNotPermittedException(name + " bulkhead is full");
+        }
+        try {
+            permitCall();
+        } catch (CallNotPermittedException e) {
+            bulkhead.release();
+            throw e;
+        }
+    }
+
+    public void onSuccess() {
+        bulkhead.release();
+        synchronized (this) {
+            consecutiveFailures = 0;
+            if (state == State.HALF_OPEN) {
+                LOGGER.info("{} circuit breaker closed after a successful probe", name);
+                state = State.CLOSED;
+                probesInFlight = 0;
+            }
+        }
+    }
+
+    public void onFailure() {
+        bulkhead.release();
+        synchronized (this) {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN
+                    || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                LOGGER.warn(
+                        "{} circuit breaker opened after {} consecutive failures",
+                        name,
+                        consecutiveFailures);
+                state = State.OPEN;
+                openedAt = clock.instant();
+                probesInFlight = 0;
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private synchronized void permitCall() throws CallNotPermittedException {
+        if (state == State.OPEN) {
+            if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+                throw new CallNotPermittedException(name + " circuit breaker is open");
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                throw new CallNotPermittedException(name + " circuit breaker is probing");
+            }
+            probesInFlight++;
+        }
+    }
+}
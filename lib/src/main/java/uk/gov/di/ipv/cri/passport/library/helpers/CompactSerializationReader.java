@@ -0,0 +1,203 @@
+package uk.gov.di.ipv.cri.passport.library.helpers;
+
+import uk.gov.di.ipv.cri.passport.library.domain.CompactSerialization;
+import uk.gov.di.ipv.cri.passport.library.exceptions.InvalidDcsResponseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Reads a JOSE compact serialization as it arrives. The body is rejected as soon as it passes
+ * the size limit, contains a byte outside the base64url alphabet or has too many segments, and
+ * the segment separators are recorded on the way so the body does not need splitting again.
+ */
+public class CompactSerializationReader {
+    private static final int INITIAL_CAPACITY = 8192;
+    private static final int CHUNK_SIZE = 4096;
+    private static final boolean[] BASE64URL_ALPHABET = buildBase64UrlAlphabet();
+
+    private final int maxBytes;
+    private final int[] separators;
+    private byte[] buffer;
+    private int length;
+    private int separatorsFound;
+
+    public CompactSerializationReader(int maxBytes, int segments, long declaredLength)
+            throws InvalidDcsResponseException {
+        if (declaredLength > maxBytes) {
+            throw tooLarge(declaredLength, maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.separators = new int[segments - 1];
+        int capacity =
+                declaredLength >= 0 ? (int) declaredLength : Math.min(INITIAL_CAPACITY, maxBytes);
+        this.buffer = new byte[capacity];
+    }
+
+    public static CompactSerialization read(
+            InputStream content, long declaredLength, int maxBytes, int segments)
+            throws IOException {
+        CompactSerializationReader reader =
+                new CompactSerializationReader(maxBytes, segments, declaredLength);
+        byte[] chunk = new byte[CHUNK_SIZE];
+        int count;
+        while ((count = content.read(chunk)) != -1) {
+            reader.append(chunk, 0, count);
+        }
+        return reader.finish();
+    }
+
+    public static BodySubscriber<CompactSerialization> subscriber(
+            int maxBytes, int segments, long declaredLength) {
+        return new BoundedBodySubscriber(maxBytes, segments, declaredLength);
+    }
+
+    public void append(byte[] chunk, int offset, int count) throws InvalidDcsResponseException {
+        ensureCapacity(count);
+        for (int i = offset; i < offset + count; i++) {
+            accept(chunk[i]);
+        }
+    }
+
+    public void append(ByteBuffer chunk) throws InvalidDcsResponseException {
+        ensureCapacity(chunk.remaining());
+        while (chunk.hasRemaining()) {
+            accept(chunk.get());
+        }
+    }
+
+    public CompactSerialization finish() throws InvalidDcsResponseException {
+        if (separatorsFound != separators.length) {
+            throw new InvalidDcsResponseException(
+                    String.format(
+                            "DCS response has %d segments, expected %d",
+                            separatorsFound + 1, separators.length + 1));
+        }
+        byte[] bytes = length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+        return new CompactSerialization(bytes, separators);
+    }
+
+    private void ensureCapacity(int count) throws InvalidDcsResponseException {
+        if (count > maxBytes - length) {
+            throw tooLarge((long) length + count, maxBytes);
+        }
+        int required = length + count;
+        if (required > buffer.length) {
+            int capacity = Math.min(maxBytes, Math.max(required, buffer.length * 2));
+            buffer = Arrays.copyOf(buffer, capacity);
+        }
+    }
+
+    private void accept(byte value) throws InvalidDcsResponseException {
+        if (value == '.') {
+            if (separatorsFound == separators.length) {
+                throw new InvalidDcsResponseException(
+                        String.format(
+                                "DCS response has more than %d segments", separators.length + 1));
+            }
+            separators[separatorsFound++] = length;
+        } else if (value < 0 || !BASE64URL_ALPHABET[value]) {
+            throw new InvalidDcsResponseException(
+                    String.format("DCS response has an invalid character at offset %d", length));
+        }
+        buffer[length++] = value;
+    }
+
+    private static InvalidDcsResponseException tooLarge(long size, int maxBytes) {
+        return new InvalidDcsResponseException(
+                String.format(
+                        "DCS response of at least %d bytes exceeds the limit of %d bytes",
+                        size, maxBytes));
+    }
+
+    private static boolean[] buildBase64UrlAlphabet() {
+        boolean[] alphabet = new boolean[128];
+        for (char c = 'A'; c <= 'Z'; c++) {
+            alphabet[c] = true;
+            alphabet[Character.toLowerCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            alphabet[c] = true;
+        }
+        alphabet['-'] = true;
+        alphabet['_'] = true;
+        return alphabet;
+    }
+
+    private static final class BoundedBodySubscriber
+            implements BodySubscriber<CompactSerialization> {
+        private final CompletableFuture<CompactSerialization> body = new CompletableFuture<>();
+        private final int maxBytes;
+        private final int segments;
+        private final long declaredLength;
+        private CompactSerializationReader reader;
+        private Flow.Subscription subscription;
+
+        private BoundedBodySubscriber(int maxBytes, int segments, long declaredLength) {
+            this.maxBytes = maxBytes;
+            this.segments = segments;
+            this.declaredLength = declaredLength;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            try {
+                reader = new CompactSerializationReader(maxBytes, segments, declaredLength);
+            } catch (InvalidDcsResponseException e) {
+                reject(e);
+                return;
+            }
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> chunks) {
+            if (body.isDone()) {
+                return;
+            }
+            try {
+                for (ByteBuffer chunk : chunks) {
+                    reader.append(chunk);
+                }
+            } catch (InvalidDcsResponseException e) {
+                reject(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (body.isDone()) {
+                return;
+            }
+            try {
+                body.complete(reader.finish());
+            } catch (InvalidDcsResponseException e) {
+                body.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public CompletionStage<CompactSerialization> getBody() {
+            return body;
+        }
+
+        private void reject(InvalidDcsResponseException e) {
+            // Cancelling closes the connection rather than reading the rest of the body
+            subscription.cancel();
+            body.completeExceptionally(e);
+        }
+    }
+}
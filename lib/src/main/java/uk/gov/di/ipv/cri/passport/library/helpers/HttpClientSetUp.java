@@ -1,12 +1,21 @@
 package uk.gov.di.ipv.cri.passport.library.helpers;
 
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.ssl.SSLContexts;
 import uk.gov.di.ipv.cri.passport.library.exceptions.HttpClientException;
 import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 
 import java.io.IOException;
 import java.security.Key;
@@ -18,6 +27,8 @@ import java.security.UnrecoverableKeyException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.spec.InvalidKeySpecException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 public class HttpClientSetUp {
 
@@ -28,6 +39,67 @@ public class HttpClientSetUp {
     public static HttpClient generateHttpClient(ConfigurationService configurationService)
             throws NoSuchAlgorithmException, InvalidKeySpecException, CertificateException,
                     KeyStoreException, IOException {
+        return generateHttpClient(
+                configurationService, createConnectionManager(configurationService));
+    }
+
+    public static HttpClient generateHttpClient(
+            ConfigurationService configurationService,
+            HttpClientConnectionManager connectionManager) {
+        RequestConfig requestConfig =
+                RequestConfig.custom()
+                        .setConnectTimeout(configurationService.getDcsConnectTimeoutMillis())
+                        .setSocketTimeout(configurationService.getDcsSocketTimeoutMillis())
+                        .setConnectionRequestTimeout(
+                                configurationService.getDcsConnectionRequestTimeoutMillis())
+                        .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(
+                        configurationService.getDcsConnectionMaxIdleSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    public static PoolingHttpClientConnectionManager createConnectionManager(
+            ConfigurationService configurationService)
+            throws NoSuchAlgorithmException, InvalidKeySpecException, CertificateException,
+                    KeyStoreException, IOException {
+        SSLContext sslContext = createSslContext(configurationService);
+
+        Registry<ConnectionSocketFactory> socketFactoryRegistry =
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", new SSLConnectionSocketFactory(sslContext))
+                        .build();
+
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        connectionManager.setMaxTotal(configurationService.getDcsMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(
+                configurationService.getDcsMaxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity(
+                configurationService.getDcsValidateAfterInactivityMillis());
+        return connectionManager;
+    }
+
+    public static java.net.http.HttpClient generateAsyncHttpClient(
+            ConfigurationService configurationService)
+            throws NoSuchAlgorithmException, InvalidKeySpecException, CertificateException,
+                    KeyStoreException, IOException {
+        return java.net.http.HttpClient.newBuilder()
+                .sslContext(createSslContext(configurationService))
+                .connectTimeout(
+                        Duration.ofMillis(configurationService.getDcsConnectTimeoutMillis()))
+                .version(java.net.http.HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    public static SSLContext createSslContext(ConfigurationService configurationService)
+            throws NoSuchAlgorithmException, InvalidKeySpecException, CertificateException,
+                    KeyStoreException, IOException {
         KeyStore keystoreTLS =
                 createKeyStore(
                         configurationService.getPassportCriTlsCert(),
@@ -35,18 +107,21 @@ public class HttpClientSetUp {
 
         KeyStore trustStore = createTrustStore(configurationService.getDcsTlsCertChain());
 
-        return contextSetup(keystoreTLS, trustStore);
+        SSLContext sslContext = contextSetup(keystoreTLS, trustStore);
+        // Keep DCS sessions so a replacement connection can resume rather than fully handshake
+        SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        sessionContext.setSessionCacheSize(configurationService.getDcsTlsSessionCacheSize());
+        sessionContext.setSessionTimeout(configurationService.getDcsTlsSessionTimeoutSeconds());
+
+        return sslContext;
     }
 
-    private static HttpClient contextSetup(KeyStore clientTls, KeyStore caBundle) {
+    private static SSLContext contextSetup(KeyStore clientTls, KeyStore caBundle) {
         try {
-            SSLContext sslContext =
-                    SSLContexts.custom()
-                            .loadKeyMaterial(clientTls, password)
-                            .loadTrustMaterial(caBundle, null)
-                            .build();
-
-            return HttpClients.custom().setSSLContext(sslContext).build();
+            return SSLContexts.custom()
+                    .loadKeyMaterial(clientTls, password)
+                    .loadTrustMaterial(caBundle, null)
+                    .build();
         } catch (NoSuchAlgorithmException
                 | KeyManagementException
                 | KeyStoreException
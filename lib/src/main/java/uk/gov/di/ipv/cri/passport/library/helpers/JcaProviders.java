@@ -0,0 +1,101 @@
+package uk.gov.di.ipv.cri.passport.library.helpers;
+
+import com.nimbusds.jose.jca.JCAAware;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.jca.JWEJCAContext;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.Security;
+import java.security.Signature;
+import java.util.Map;
+
+/**
+ * Resolves the JCA provider selected with JCA_PROVIDER and applies it to the RSA operations of JOSE
+ * components. A provider that is not yet registered is loaded from its class name when it is one
+ * of the known aliases, so it only has to be present on the classpath. The provider is passed to
+ * the components that use it rather than registered, so the JVM-wide provider order is left
+ * untouched, and TLS keeps the JDK defaults.
+ *
+ * <p>Neither BC nor AmazonCorrettoCryptoProvider is a runtime dependency of the lambdas; they are
+ * only on the jmh classpath, for JcaProviderBenchmark. JCA_PROVIDER should stay unset in deployed
+ * lambdas unless one of them is added to the lambda's dependencies.
+ */
+public class JcaProviders {
+
+    private static final String RSA_SIGNATURE = "SHA256withRSA";
+    private static final String RSA_OAEP_256_CIPHER = "RSA/ECB/OAEPWithSHA-256AndMGF1Padding";
+
+    private static final Map<String, String> KNOWN_PROVIDER_CLASSES =
+            Map.of(
+                    "BC",
+                    "org.bouncycastle.jce.provider.BouncyCastleProvider",
+                    "AmazonCorrettoCryptoProvider",
+                    "com.amazon.corretto.crypto.provider.AmazonCorrettoCryptoProvider");
+
+    private JcaProviders() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static Provider getProvider(String providerName) {
+        if (providerName == null || providerName.isBlank()) {
+            return null;
+        }
+        Provider provider = Security.getProvider(providerName);
+        if (provider == null) {
+            provider = loadKnownProvider(providerName);
+        }
+        requireRsaOperations(provider);
+        return provider;
+    }
+
+    /** Uses the provider for the RSA signature of a JWS signer or verifier. */
+    public static <T extends JCAAware<JCAContext>> T withProvider(T component, Provider provider) {
+        if (provider != null) {
+            component.getJCAContext().setProvider(provider);
+        }
+        return component;
+    }
+
+    /**
+     * Uses the provider for the RSA key encryption of a JWE encrypter or decrypter only, leaving
+     * content encryption and MAC on the JDK defaults.
+     */
+    public static <T extends JCAAware<JWEJCAContext>> T withKeyEncryptionProvider(
+            T component, Provider provider) {
+        if (provider != null) {
+            component.getJCAContext().setKeyEncryptionProvider(provider);
+        }
+        return component;
+    }
+
+    private static Provider loadKnownProvider(String providerName) {
+        String providerClass = KNOWN_PROVIDER_CLASSES.get(providerName);
+        if (providerClass == null) {
+            throw new IllegalArgumentException(
+                    String.format("Unknown JCA provider: %s", providerName));
+        }
+        try {
+            return (Provider) Class.forName(providerClass).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalArgumentException(
+                    String.format("JCA provider %s is not available", providerName), e);
+        }
+    }
+
+    private static void requireRsaOperations(Provider provider) {
+        try {
+            Signature.getInstance(RSA_SIGNATURE, provider);
+            Cipher.getInstance(RSA_OAEP_256_CIPHER, provider);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "JCA provider %s does not implement %s and %s",
+                            provider.getName(), RSA_SIGNATURE, RSA_OAEP_256_CIPHER),
+                    e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package uk.gov.di.ipv.cri.passport.library.helpers;
 
+import com.amazonaws.http.timers.client.ClientExecutionTimeoutException;
 import com.amazonaws.services.kms.AWSKMS;
 import com.amazonaws.services.kms.AWSKMSClientBuilder;
 import com.amazonaws.services.kms.model.MessageType;
@@ -13,6 +14,7 @@ import com.nimbusds.jose.JWSSigner;
 import com.nimbusds.jose.jca.JCAContext;
 import com.nimbusds.jose.util.Base64URL;
 import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.passport.library.exceptions.DeadlineExceededException;
 
 import java.nio.ByteBuffer;
 import java.security.MessageDigest;
@@ -49,14 +51,26 @@ public class KmsSigner implements JWSSigner {
             throw new JOSEException(e.getMessage());
         }
 
+        RequestDeadline deadline = RequestDeadline.current();
         SignRequest signRequest =
                 new SignRequest()
                         .withSigningAlgorithm(SigningAlgorithmSpec.ECDSA_SHA_256.toString())
                         .withKeyId(keyId)
                         .withMessage(ByteBuffer.wrap(signingInputHash))
-                        .withMessageType(MessageType.DIGEST);
+                        .withMessageType(MessageType.DIGEST)
+                        .withSdkClientExecutionTimeout(
+                                deadline.timeoutMillis(RequestDeadline.STAGE_KMS, 0));
 
-        SignResult signResult = kmsClient.sign(signRequest);
+        long start = System.nanoTime();
+        SignResult signResult;
+        try {
+            signResult = kmsClient.sign(signRequest);
+        } catch (ClientExecutionTimeoutException e) {
+            throw new DeadlineExceededException(
+                    RequestDeadline.STAGE_KMS, deadline.getBudgetMillis(), e);
+        } finally {
+            deadline.recordStage(RequestDeadline.STAGE_KMS, start);
+        }
 
         return Base64URL.encode(signResult.getSignature().array());
     }
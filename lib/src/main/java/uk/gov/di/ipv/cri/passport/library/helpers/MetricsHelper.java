@@ -0,0 +1,33 @@
+package uk.gov.di.ipv.cri.passport.library.helpers;
+
+import software.amazon.cloudwatchlogs.emf.model.Unit;
+import software.amazon.lambda.powertools.metrics.MetricsUtils;
+import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+
+@ExcludeFromGeneratedCoverageReport
+public class MetricsHelper {
+    public static final String SSM_ROUND_TRIPS = "SsmRoundTrips";
+    public static final String DCS_POOL_LEASED = "DcsConnectionPoolLeased";
+    public static final String DCS_POOL_AVAILABLE = "DcsConnectionPoolAvailable";
+    public static final String DCS_POOL_PENDING = "DcsConnectionPoolPending";
+    public static final String DCS_CIRCUIT_BREAKER_STATE = "DcsCircuitBreakerState";
+    public static final String REQUEST_DEADLINE_BUDGET = "RequestDeadlineBudget";
+    public static final String DCS_ADMISSION_REJECTED_CLIENT = "DcsAdmissionRejectedClient";
+    public static final String DCS_ADMISSION_REJECTED_GLOBAL = "DcsAdmissionRejectedGlobal";
+    public static final String REVERIFICATION_COMPLETED = "ReverificationCompleted";
+    public static final String REVERIFICATION_FAILED = "ReverificationFailed";
+    public static final String REVERIFICATION_SKIPPED = "ReverificationSkipped";
+    public static final String REVERIFICATION_PER_SECOND = "ReverificationPerSecond";
+
+    private MetricsHelper() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static void putCount(String metricName, double value) {
+        MetricsUtils.metricsLogger().putMetric(metricName, value, Unit.COUNT);
+    }
+
+    public static void putMilliseconds(String metricName, double value) {
+        MetricsUtils.metricsLogger().putMetric(metricName, value, Unit.MILLISECONDS);
+    }
+}
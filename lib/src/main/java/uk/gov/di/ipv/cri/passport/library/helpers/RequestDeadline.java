@@ -0,0 +1,126 @@
+package uk.gov.di.ipv.cri.passport.library.helpers;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.gov.di.ipv.cri.passport.library.exceptions.DeadlineExceededException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time left for the current invocation, shared with every downstream client so their per-call
+ * timeouts never outlive the Lambda. A container only ever runs one invocation at a time, so the
+ * current deadline is held statically rather than per thread and is visible to the background
+ * threads that make DCS calls.
+ */
+public class RequestDeadline {
+    public static final String STAGE_DCS = "Dcs";
+    public static final String STAGE_DYNAMODB = "DynamoDb";
+    public static final String STAGE_KMS = "Kms";
+    public static final String STAGE_SQS = "Sqs";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final RequestDeadline UNBOUNDED = new RequestDeadline(-1, System.nanoTime());
+
+    private static volatile RequestDeadline current = UNBOUNDED;
+
+    private final long budgetMillis;
+    private final long startNanos;
+    private final Map<String, Long> stageNanos = new ConcurrentHashMap<>();
+
+    RequestDeadline(long budgetMillis, long startNanos) {
+        this.budgetMillis = budgetMillis;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Starts the deadline for this invocation, holding back {@code reserveMillis} of the time the
+     * Lambda has left so there is still time to build the error response once it runs out.
+     */
+    public static RequestDeadline start(Context context, long reserveMillis) {
+        long budget = Math.max(0, context.getRemainingTimeInMillis() - reserveMillis);
+        current = new RequestDeadline(budget, System.nanoTime());
+        return current;
+    }
+
+    public static RequestDeadline current() {
+        return current;
+    }
+
+    /** Reports the time each stage took out of the budget and clears the current deadline. */
+    public static void finish() {
+        RequestDeadline deadline = current;
+        current = UNBOUNDED;
+        if (deadline.isBounded()) {
+            deadline.publish();
+        }
+    }
+
+    public boolean isBounded() {
+        return budgetMillis >= 0;
+    }
+
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    public long remainingMillis() {
+        if (!isBounded()) {
+            return Long.MAX_VALUE;
+        }
+        return budgetMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Caps a configured timeout to the time left. A configured value of 0 means no timeout, and is
+     * returned unchanged when there is no deadline. Throws once the deadline has passed, so the
+     * caller fails before making the call.
+     */
+    public int timeoutMillis(String stage, int configuredMillis) {
+        if (!isBounded()) {
+            return configuredMillis;
+        }
+        long remaining = remainingMillis();
+        if (remaining <= 0) {
+            throw new DeadlineExceededException(stage, budgetMillis);
+        }
+        long cap = Math.min(remaining, Integer.MAX_VALUE);
+        return (int) (configuredMillis > 0 ? Math.min(configuredMillis, cap) : cap);
+    }
+
+    /**
+     * Rethrows a deadline failure that a library wrapped in its own exception, such as a KMS
+     * timeout inside a nimbus signer or decrypter.
+     */
+    public static void rethrowIfExceeded(Throwable e) {
+        if (e.getCause() instanceof DeadlineExceededException) {
+            throw (DeadlineExceededException) e.getCause();
+        }
+    }
+
+    public void recordStage(String stage, long stageStartNanos) {
+        stageNanos.merge(stage, System.nanoTime() - stageStartNanos, Long::sum);
+    }
+
+    public Map<String, Long> getStageMillis() {
+        Map<String, Long> stageMillis = new TreeMap<>();
+        stageNanos.forEach(
+                (stage, nanos) -> stageMillis.put(stage, TimeUnit.NANOSECONDS.toMillis(nanos)));
+        return stageMillis;
+    }
+
+    private void publish() {
+        Map<String, Long> stageMillis = getStageMillis();
+        LOGGER.info(
+                "Used {} ms of the {} ms request budget, by stage: {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                budgetMillis,
+                stageMillis);
+        MetricsHelper.putMilliseconds(MetricsHelper.REQUEST_DEADLINE_BUDGET, budgetMillis);
+        stageMillis.forEach(
+                (stage, millis) -> MetricsHelper.putMilliseconds(stage + "StageTime", millis));
+    }
+}
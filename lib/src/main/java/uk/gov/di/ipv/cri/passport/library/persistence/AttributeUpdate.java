@@ -0,0 +1,96 @@
+package uk.gov.di.ipv.cri.passport.library.persistence;
+
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The attributes to change in one UpdateItem call. Only the named attributes are written, so
+ * concurrent updates to other attributes of the same item are not lost, and counters are
+ * incremented by DynamoDB rather than read and written back.
+ */
+public class AttributeUpdate {
+    private final List<String> setActions = new ArrayList<>();
+    private final List<String> addActions = new ArrayList<>();
+    private final Map<String, String> expressionNames = new HashMap<>();
+    private final Map<String, AttributeValue> expressionValues = new HashMap<>();
+    private Expression condition;
+
+    public AttributeUpdate set(String attributeName, String value) {
+        return set(attributeName, AttributeValue.builder().s(value).build());
+    }
+
+    public AttributeUpdate set(String attributeName, AttributeValue value) {
+        setActions.add(String.format("%s = %s", name(attributeName), value(value)));
+        return this;
+    }
+
+    /** Sets the attribute only if the item does not have it yet. */
+    public AttributeUpdate setIfNotExists(String attributeName, String value) {
+        String name = name(attributeName);
+        setActions.add(
+                String.format(
+                        "%s = if_not_exists(%s, %s)",
+                        name, name, value(AttributeValue.builder().s(value).build())));
+        return this;
+    }
+
+    /** Adds to a number attribute, starting from zero if the item does not have it yet. */
+    public AttributeUpdate add(String attributeName, long delta) {
+        addActions.add(
+                String.format(
+                        "%s %s",
+                        name(attributeName),
+                        value(AttributeValue.builder().n(Long.toString(delta)).build())));
+        return this;
+    }
+
+    /** A condition on the stored item, with its own placeholders, that must hold to update. */
+    public AttributeUpdate condition(Expression condition) {
+        this.condition = condition;
+        return this;
+    }
+
+    public String getUpdateExpression() {
+        List<String> clauses = new ArrayList<>();
+        if (!setActions.isEmpty()) {
+            clauses.add("SET " + String.join(", ", setActions));
+        }
+        if (!addActions.isEmpty()) {
+            clauses.add("ADD " + String.join(", ", addActions));
+        }
+        if (clauses.isEmpty()) {
+            throw new IllegalStateException("An attribute update needs at least one action");
+        }
+        return String.join(" ", clauses);
+    }
+
+    public Map<String, String> getExpressionNames() {
+        return Collections.unmodifiableMap(expressionNames);
+    }
+
+    public Map<String, AttributeValue> getExpressionValues() {
+        return Collections.unmodifiableMap(expressionValues);
+    }
+
+    public Expression getCondition() {
+        return condition;
+    }
+
+    private String name(String attributeName) {
+        String placeholder = "#u" + expressionNames.size();
+        expressionNames.put(placeholder, attributeName);
+        return placeholder;
+    }
+
+    private String value(AttributeValue value) {
+        String placeholder = ":u" + expressionValues.size();
+        expressionValues.put(placeholder, value);
+        return placeholder;
+    }
+}
@@ -0,0 +1,6 @@
+package uk.gov.di.ipv.cri.passport.library.persistence;
+
+public enum ConditionalWriteResult {
+    WRITTEN,
+    CONDITION_FAILED
+}
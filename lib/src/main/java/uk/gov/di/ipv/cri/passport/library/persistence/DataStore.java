@@ -2,26 +2,50 @@ package uk.gov.di.ipv.cri.passport.library.persistence;
 
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchGetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
-import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
-import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.DynamodbItem;
 import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
 
-import java.net.URI;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class DataStore<T extends DynamodbItem> {
+    private static final int BATCH_GET_LIMIT = 100;
+    private static final int BATCH_WRITE_LIMIT = 25;
+    private static final int BATCH_WRITE_ATTEMPTS = 3;
+    private static final long BATCH_WRITE_BACKOFF_MILLIS = 100L;
+
+    private static final String PARTITION_KEY_NAME = "#pk";
 
     private final DynamoDbEnhancedClient dynamoDbEnhancedClient;
+    private final DynamoDbClient dynamoDbClient;
     private final String tableName;
     private final Class<T> typeParameterClass;
+    private final TableSchema<T> tableSchema;
+    private final DynamoDbTable<T> table;
     private final ConfigurationService configurationService;
 
     public DataStore(
@@ -29,28 +53,61 @@ public class DataStore<T extends DynamodbItem> {
             Class<T> typeParameterClass,
             DynamoDbEnhancedClient dynamoDbEnhancedClient,
             ConfigurationService configurationService) {
+        this(tableName, typeParameterClass, dynamoDbEnhancedClient, null, configurationService);
+    }
+
+    /** The low level client is needed for {@link #updateAttributes}. */
+    public DataStore(
+            String tableName,
+            Class<T> typeParameterClass,
+            DynamoDbEnhancedClient dynamoDbEnhancedClient,
+            DynamoDbClient dynamoDbClient,
+            ConfigurationService configurationService) {
         this.tableName = tableName;
         this.typeParameterClass = typeParameterClass;
         this.dynamoDbEnhancedClient = dynamoDbEnhancedClient;
+        this.dynamoDbClient = dynamoDbClient;
         this.configurationService = configurationService;
+        // Resolving the schema is the expensive part, so each DataStore does it once
+        this.tableSchema = ItemTableSchemas.forClass(typeParameterClass);
+        this.table = dynamoDbEnhancedClient.table(tableName, tableSchema);
     }
 
-    public static DynamoDbEnhancedClient getClient(URI endpointOverride) {
-        DynamoDbClientBuilder clientBuilder =
-                DynamoDbClient.builder()
-                        .endpointOverride(endpointOverride)
-                        .httpClient(UrlConnectionHttpClient.create())
-                        .region(Region.EU_WEST_2);
+    public void create(T item) {
+        setBackendSessionTtl(item);
+        table.putItem(item);
+    }
 
-        return DynamoDbEnhancedClient.builder().dynamoDbClient(clientBuilder.build()).build();
+    /**
+     * Creates the item only if no item with its partition key exists, checking and writing in one
+     * conditional put so that concurrent callers cannot both succeed.
+     */
+    public ConditionalWriteResult createIfNotExists(T item) {
+        setBackendSessionTtl(item);
+        Expression condition =
+                Expression.builder()
+                        .expression(String.format("attribute_not_exists(%s)", PARTITION_KEY_NAME))
+                        .putExpressionName(
+                                PARTITION_KEY_NAME,
+                                tableSchema.tableMetadata().primaryPartitionKey())
+                        .build();
+        return createIfConditionMet(item, condition)
+                ? ConditionalWriteResult.WRITTEN
+                : ConditionalWriteResult.CONDITION_FAILED;
     }
 
-    public void create(T item) {
-        item.setTtl(
-                Instant.now()
-                        .plusSeconds(configurationService.getBackendSessionTtl())
-                        .getEpochSecond());
-        getTable().putItem(item);
+    /** Puts an item, keeping its own TTL, only if the condition holds for the stored item. */
+    public boolean createIfConditionMet(T item, Expression conditionExpression) {
+        try {
+            table.putItem(
+                    PutItemEnhancedRequest.builder(typeParameterClass)
+                            .item(item)
+                            .conditionExpression(conditionExpression)
+                            .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
     }
 
     public T getItem(String partitionValue, String sortValue) {
@@ -63,7 +120,7 @@ public class DataStore<T extends DynamodbItem> {
     }
 
     public List<T> getItems(String partitionValue) {
-        return getTable()
+        return table
                 .query(
                         QueryConditional.keyEqualTo(
                                 Key.builder().partitionValue(partitionValue).build()))
@@ -72,8 +129,112 @@ public class DataStore<T extends DynamodbItem> {
                 .collect(Collectors.toList());
     }
 
+    /** Reads the items with the given partition keys, skipping keys that have no item. */
+    public List<T> batchGetItems(Collection<String> partitionValues) {
+        List<String> keys = new ArrayList<>(new LinkedHashSet<>(partitionValues));
+        List<T> items = new ArrayList<>(keys.size());
+        for (int from = 0; from < keys.size(); from += BATCH_GET_LIMIT) {
+            ReadBatch.Builder<T> readBatch =
+                    ReadBatch.builder(typeParameterClass).mappedTableResource(table);
+            for (String key : keys.subList(from, Math.min(from + BATCH_GET_LIMIT, keys.size()))) {
+                readBatch.addGetItem(Key.builder().partitionValue(key).build());
+            }
+            // Unprocessed keys come back as further pages, so reading every page gets them all
+            dynamoDbEnhancedClient
+                    .batchGetItem(
+                            BatchGetItemEnhancedRequest.builder()
+                                    .readBatches(readBatch.build())
+                                    .build())
+                    .resultsForTable(table)
+                    .forEach(items::add);
+        }
+        return items;
+    }
+
+    /**
+     * Puts the items, keeping their own TTLs, and returns any that were still unprocessed after
+     * retrying.
+     */
+    public List<T> batchPutItems(List<T> items) {
+        List<T> unprocessed = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += BATCH_WRITE_LIMIT) {
+            List<T> pending = items.subList(from, Math.min(from + BATCH_WRITE_LIMIT, items.size()));
+            for (int attempt = 0; attempt < BATCH_WRITE_ATTEMPTS && !pending.isEmpty(); attempt++) {
+                if (attempt > 0 && !backOff(attempt)) {
+                    break;
+                }
+                WriteBatch.Builder<T> writeBatch =
+                        WriteBatch.builder(typeParameterClass).mappedTableResource(table);
+                pending.forEach(writeBatch::addPutItem);
+                pending =
+                        dynamoDbEnhancedClient
+                                .batchWriteItem(
+                                        BatchWriteItemEnhancedRequest.builder()
+                                                .writeBatches(writeBatch.build())
+                                                .build())
+                                .unprocessedPutItemsForTable(table);
+            }
+            unprocessed.addAll(pending);
+        }
+        return unprocessed;
+    }
+
     public T update(T item) {
-        return getTable().updateItem(item);
+        return table.updateItem(item);
+    }
+
+    /**
+     * Changes only the given attributes of an existing item in one round trip and returns the item
+     * as it is after the update, or null if there is no such item or the condition did not hold.
+     */
+    public T updateAttributes(String partitionValue, AttributeUpdate update) {
+        return executeUpdate(buildUpdateRequest(partitionValue, update, true));
+    }
+
+    /**
+     * The same as {@link #updateAttributes}, except that an item holding only the updated
+     * attributes is created if there is none, as for counters that start from nothing.
+     */
+    public T upsertAttributes(String partitionValue, AttributeUpdate update) {
+        return executeUpdate(buildUpdateRequest(partitionValue, update, false));
+    }
+
+    /** A put of the item, with the backend session TTL, for use in {@link #transactWrite}. */
+    public TransactWriteItem transactPut(T item) {
+        setBackendSessionTtl(item);
+        return TransactWriteItem.builder()
+                .put(
+                        Put.builder()
+                                .tableName(tableName)
+                                .item(tableSchema.itemToMap(item, true))
+                                .build())
+                .build();
+    }
+
+    /** The same update as {@link #updateAttributes}, for use in {@link #transactWrite}. */
+    public TransactWriteItem transactUpdate(String partitionValue, AttributeUpdate update) {
+        UpdateItemRequest request = buildUpdateRequest(partitionValue, update, true);
+        return TransactWriteItem.builder()
+                .update(
+                        Update.builder()
+                                .tableName(request.tableName())
+                                .key(request.key())
+                                .updateExpression(request.updateExpression())
+                                .conditionExpression(request.conditionExpression())
+                                .expressionAttributeNames(request.expressionAttributeNames())
+                                .expressionAttributeValues(request.expressionAttributeValues())
+                                .build())
+                .build();
+    }
+
+    /**
+     * Writes the items, which may belong to other tables, in one transaction: either all of them
+     * are written or none are. Throws TransactionCanceledException if any condition fails.
+     */
+    public void transactWrite(TransactWriteItem... items) {
+        getDynamoDbClient()
+                .transactWriteItems(
+                        TransactWriteItemsRequest.builder().transactItems(items).build());
     }
 
     public T delete(String partitionValue, String sortValue) {
@@ -84,16 +245,84 @@ public class DataStore<T extends DynamodbItem> {
         return delete(Key.builder().partitionValue(partitionValue).build());
     }
 
+    private T executeUpdate(UpdateItemRequest request) {
+        UpdateItemRequest returningItem =
+                request.toBuilder().returnValues(ReturnValue.ALL_NEW).build();
+        try {
+            Map<String, AttributeValue> attributes =
+                    getDynamoDbClient().updateItem(returningItem).attributes();
+            return tableSchema.mapToItem(attributes);
+        } catch (ConditionalCheckFailedException e) {
+            return null;
+        }
+    }
+
+    private UpdateItemRequest buildUpdateRequest(
+            String partitionValue, AttributeUpdate update, boolean requireExisting) {
+        String partitionKey = tableSchema.tableMetadata().primaryPartitionKey();
+        Map<String, String> names = new HashMap<>(update.getExpressionNames());
+        Map<String, AttributeValue> values = new HashMap<>(update.getExpressionValues());
+        String conditionExpression = null;
+        if (requireExisting) {
+            names.put(PARTITION_KEY_NAME, partitionKey);
+            // Without this an update would create a new item holding only the updated attributes
+            conditionExpression = String.format("attribute_exists(%s)", PARTITION_KEY_NAME);
+        }
+        Expression condition = update.getCondition();
+        if (condition != null) {
+            conditionExpression =
+                    conditionExpression == null
+                            ? condition.expression()
+                            : String.format(
+                                    "%s AND (%s)", conditionExpression, condition.expression());
+            if (condition.expressionNames() != null) {
+                names.putAll(condition.expressionNames());
+            }
+            if (condition.expressionValues() != null) {
+                values.putAll(condition.expressionValues());
+            }
+        }
+
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(partitionKey, AttributeValue.builder().s(partitionValue).build()))
+                .updateExpression(update.getUpdateExpression())
+                .conditionExpression(conditionExpression)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values.isEmpty() ? null : values)
+                .build();
+    }
+
+    private DynamoDbClient getDynamoDbClient() {
+        if (dynamoDbClient == null) {
+            throw new IllegalStateException(
+                    "Attribute updates and transactions need a low level DynamoDB client");
+        }
+        return dynamoDbClient;
+    }
+
+    private void setBackendSessionTtl(T item) {
+        item.setTtl(
+                Instant.now()
+                        .plusSeconds(configurationService.getBackendSessionTtl())
+                        .getEpochSecond());
+    }
+
     private T getItemByKey(Key key) {
-        return getTable().getItem(key);
+        return table.getItem(key);
     }
 
     private T delete(Key key) {
-        return getTable().deleteItem(key);
+        return table.deleteItem(key);
     }
 
-    private DynamoDbTable<T> getTable() {
-        return dynamoDbEnhancedClient.table(
-                tableName, TableSchema.fromBean(this.typeParameterClass));
+    private static boolean backOff(int attempt) {
+        try {
+            Thread.sleep(BATCH_WRITE_BACKOFF_MILLIS << (attempt - 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 }
@@ -0,0 +1,82 @@
+package uk.gov.di.ipv.cri.passport.library.persistence;
+
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import uk.gov.di.ipv.cri.passport.library.exceptions.DeadlineExceededException;
+import uk.gov.di.ipv.cri.passport.library.helpers.RequestDeadline;
+
+import java.time.Duration;
+
+/**
+ * Gives each DynamoDB call an API call timeout capped to the current {@link RequestDeadline} and
+ * records how long the calls took. The enhanced client requests have no per-call override of
+ * their own, so it is applied to the underlying request here. A call that runs out of time fails
+ * with {@link DeadlineExceededException} rather than the SDK's timeout.
+ */
+public class DeadlineExecutionInterceptor implements ExecutionInterceptor {
+    private static final ExecutionAttribute<Long> STAGE_START =
+            new ExecutionAttribute<>("RequestDeadlineStageStart");
+
+    @Override
+    public void beforeExecution(
+            Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(STAGE_START, System.nanoTime());
+    }
+
+    @Override
+    public SdkRequest modifyRequest(
+            Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (!deadline.isBounded() || !(context.request() instanceof AwsRequest)) {
+            return context.request();
+        }
+        Duration timeout =
+                Duration.ofMillis(deadline.timeoutMillis(RequestDeadline.STAGE_DYNAMODB, 0));
+        AwsRequest request = (AwsRequest) context.request();
+        AwsRequestOverrideConfiguration overrideConfiguration =
+                request.overrideConfiguration()
+                        .map(AwsRequestOverrideConfiguration::toBuilder)
+                        .orElseGet(AwsRequestOverrideConfiguration::builder)
+                        .apiCallTimeout(timeout)
+                        .build();
+        return request.toBuilder().overrideConfiguration(overrideConfiguration).build();
+    }
+
+    @Override
+    public Throwable modifyException(
+            Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (context.exception() instanceof ApiCallTimeoutException && deadline.isBounded()) {
+            return new DeadlineExceededException(
+                    RequestDeadline.STAGE_DYNAMODB,
+                    deadline.getBudgetMillis(),
+                    context.exception());
+        }
+        return context.exception();
+    }
+
+    @Override
+    public void afterExecution(
+            Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        recordStage(executionAttributes);
+    }
+
+    @Override
+    public void onExecutionFailure(
+            Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        recordStage(executionAttributes);
+    }
+
+    private void recordStage(ExecutionAttributes executionAttributes) {
+        Long start = executionAttributes.getAttribute(STAGE_START);
+        if (start != null) {
+            RequestDeadline.current().recordStage(RequestDeadline.STAGE_DYNAMODB, start);
+        }
+    }
+}
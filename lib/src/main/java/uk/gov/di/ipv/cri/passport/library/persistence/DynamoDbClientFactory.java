@@ -0,0 +1,90 @@
+package uk.gov.di.ipv.cri.passport.library.persistence;
+
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out one DynamoDB client per Lambda container, so every service in a handler shares a
+ * single pool of kept-alive connections instead of each opening its own. Clients are keyed by
+ * endpoint, so a local endpoint override still gets its own client.
+ */
+public final class DynamoDbClientFactory {
+    private static final String DEFAULT_ENDPOINT = "default";
+
+    private static final Map<String, DynamoDbClient> CLIENTS = new ConcurrentHashMap<>();
+    private static final Map<String, DynamoDbEnhancedClient> ENHANCED_CLIENTS =
+            new ConcurrentHashMap<>();
+
+    private DynamoDbClientFactory() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static DynamoDbEnhancedClient getClient(ConfigurationService configurationService) {
+        DynamoDbClient dynamoDbClient = getDynamoDbClient(configurationService);
+        return ENHANCED_CLIENTS.computeIfAbsent(
+                endpointKey(configurationService.getDynamoDbEndpointOverride()),
+                ignored -> DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build());
+    }
+
+    /** The low level client under {@link #getClient}, for requests the enhanced client lacks. */
+    public static DynamoDbClient getDynamoDbClient(ConfigurationService configurationService) {
+        URI endpointOverride = configurationService.getDynamoDbEndpointOverride();
+        return CLIENTS.computeIfAbsent(
+                endpointKey(endpointOverride),
+                ignored -> createClient(configurationService, endpointOverride));
+    }
+
+    private static String endpointKey(URI endpointOverride) {
+        return endpointOverride == null ? DEFAULT_ENDPOINT : endpointOverride.toString();
+    }
+
+    private static DynamoDbClient createClient(
+            ConfigurationService configurationService, URI endpointOverride) {
+        ApacheHttpClient.Builder httpClient =
+                ApacheHttpClient.builder()
+                        .maxConnections(configurationService.getDynamoDbMaxConnections())
+                        .connectionTimeout(
+                                Duration.ofMillis(
+                                        configurationService.getDynamoDbConnectTimeoutMillis()))
+                        .socketTimeout(
+                                Duration.ofMillis(
+                                        configurationService.getDynamoDbSocketTimeoutMillis()))
+                        .connectionMaxIdleTime(
+                                Duration.ofSeconds(
+                                        configurationService
+                                                .getDynamoDbConnectionMaxIdleSeconds()))
+                        .tcpKeepAlive(true)
+                        .useIdleConnectionReaper(true);
+
+        ClientOverrideConfiguration overrideConfiguration =
+                ClientOverrideConfiguration.builder()
+                        .retryPolicy(
+                                RetryPolicy.builder(RetryMode.STANDARD)
+                                        .numRetries(configurationService.getDynamoDbMaxRetries())
+                                        .build())
+                        .apiCallAttemptTimeout(
+                                Duration.ofMillis(
+                                        configurationService
+                                                .getDynamoDbCallAttemptTimeoutMillis()))
+                        .addExecutionInterceptor(new DeadlineExecutionInterceptor())
+                        .build();
+
+        return DynamoDbClient.builder()
+                .endpointOverride(endpointOverride)
+                .httpClientBuilder(httpClient)
+                .overrideConfiguration(overrideConfiguration)
+                .region(Region.EU_WEST_2)
+                .build();
+    }
+}
@@ -0,0 +1,477 @@
+package uk.gov.di.ipv.cri.passport.library.persistence;
+
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+import uk.gov.di.ipv.cri.passport.library.domain.AuthParams;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
+import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.ContraIndicators;
+import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Evidence;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.AccessTokenItem;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.AdmissionWindowItem;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.AuthorizationCodeItem;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.ClientAuthJwtIdItem;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckRequestItem;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportReverificationItem;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportSessionItem;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Table schemas for every item a DataStore holds, written out so that no bean introspection
+ * happens when a DataStore is created. Attribute names match what {@code TableSchema.fromBean}
+ * derives from the getters, so items written with either schema read back the same.
+ */
+public final class ItemTableSchemas {
+
+    public static final TableSchema<AuthParams> AUTH_PARAMS =
+            StaticTableSchema.builder(AuthParams.class)
+                    .newItemSupplier(AuthParams::new)
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("responseType")
+                                            .getter(AuthParams::getResponseType)
+                                            .setter(AuthParams::setResponseType))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("clientId")
+                                            .getter(AuthParams::getClientId)
+                                            .setter(AuthParams::setClientId))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("state")
+                                            .getter(AuthParams::getState)
+                                            .setter(AuthParams::setState))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("redirectUri")
+                                            .getter(AuthParams::getRedirectUri)
+                                            .setter(AuthParams::setRedirectUri))
+                    .build();
+
+    public static final TableSchema<DcsPayload> DCS_PAYLOAD =
+            StaticTableSchema.builder(DcsPayload.class)
+                    .newItemSupplier(DcsPayload::new)
+                    .addAttribute(
+                            UUID.class,
+                            a ->
+                                    a.name("correlationId")
+                                            .getter(DcsPayload::getCorrelationId)
+                                            .setter(DcsPayload::setCorrelationId))
+                    .addAttribute(
+                            UUID.class,
+                            a ->
+                                    a.name("requestId")
+                                            .getter(DcsPayload::getRequestId)
+                                            .setter(DcsPayload::setRequestId))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("timestamp")
+                                            .getter(DcsPayload::getTimestamp)
+                                            .setter(DcsPayload::setTimestamp))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("passportNumber")
+                                            .getter(DcsPayload::getPassportNumber)
+                                            .setter(DcsPayload::setPassportNumber))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("surname")
+                                            .getter(DcsPayload::getSurname)
+                                            .setter(DcsPayload::setSurname))
+                    .addAttribute(
+                            EnhancedType.listOf(String.class),
+                            a ->
+                                    a.name("forenames")
+                                            .getter(DcsPayload::getForenames)
+                                            .setter(DcsPayload::setForenames))
+                    .addAttribute(
+                            LocalDate.class,
+                            a ->
+                                    a.name("dateOfBirth")
+                                            .getter(DcsPayload::getDateOfBirth)
+                                            .setter(DcsPayload::setDateOfBirth))
+                    .addAttribute(
+                            LocalDate.class,
+                            a ->
+                                    a.name("expiryDate")
+                                            .getter(DcsPayload::getExpiryDate)
+                                            .setter(DcsPayload::setExpiryDate))
+                    .build();
+
+    public static final TableSchema<Evidence> EVIDENCE =
+            StaticTableSchema.builder(Evidence.class)
+                    .newItemSupplier(Evidence::new)
+                    .addAttribute(
+                            String.class,
+                            a -> a.name("type").getter(Evidence::getType).setter(Evidence::setType))
+                    .addAttribute(
+                            String.class,
+                            a -> a.name("txn").getter(Evidence::getTxn).setter(Evidence::setTxn))
+                    .addAttribute(
+                            Integer.class,
+                            a ->
+                                    a.name("strengthScore")
+                                            .getter(Evidence::getStrengthScore)
+                                            .setter(Evidence::setStrengthScore))
+                    .addAttribute(
+                            Integer.class,
+                            a ->
+                                    a.name("validityScore")
+                                            .getter(Evidence::getValidityScore)
+                                            .setter(Evidence::setValidityScore))
+                    .addAttribute(
+                            EnhancedType.listOf(ContraIndicators.class),
+                            a -> a.name("ci").getter(Evidence::getCi).setter(Evidence::setCi))
+                    .build();
+
+    public static final TableSchema<PassportSessionItem> PASSPORT_SESSION =
+            StaticTableSchema.builder(PassportSessionItem.class)
+                    .newItemSupplier(PassportSessionItem::new)
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("passportSessionId")
+                                            .getter(PassportSessionItem::getPassportSessionId)
+                                            .setter(PassportSessionItem::setPassportSessionId)
+                                            .tags(StaticAttributeTags.primaryPartitionKey()))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("creationDateTime")
+                                            .getter(PassportSessionItem::getCreationDateTime)
+                                            .setter(PassportSessionItem::setCreationDateTime))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("latestDcsResponseResourceId")
+                                            .getter(
+                                                    PassportSessionItem
+                                                            ::getLatestDcsResponseResourceId)
+                                            .setter(
+                                                    PassportSessionItem
+                                                            ::setLatestDcsResponseResourceId))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("userId")
+                                            .getter(PassportSessionItem::getUserId)
+                                            .setter(PassportSessionItem::setUserId))
+                    .addAttribute(
+                            Integer.class,
+                            a ->
+                                    a.name("attemptCount")
+                                            .getter(PassportSessionItem::getAttemptCount)
+                                            .setter(PassportSessionItem::setAttemptCount))
+                    .addAttribute(
+                            EnhancedType.documentOf(AuthParams.class, AUTH_PARAMS),
+                            a ->
+                                    a.name("authParams")
+                                            .getter(PassportSessionItem::getAuthParams)
+                                            .setter(PassportSessionItem::setAuthParams))
+                    .addAttribute(
+                            Long.class,
+                            a ->
+                                    a.name("ttl")
+                                            .getter(PassportSessionItem::getTtl)
+                                            .setter(PassportSessionItem::setTtl))
+                    .build();
+
+    public static final TableSchema<AccessTokenItem> ACCESS_TOKEN =
+            StaticTableSchema.builder(AccessTokenItem.class)
+                    .newItemSupplier(AccessTokenItem::new)
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("accessToken")
+                                            .getter(AccessTokenItem::getAccessToken)
+                                            .setter(AccessTokenItem::setAccessToken)
+                                            .tags(StaticAttributeTags.primaryPartitionKey()))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("accessTokenExpiryDateTime")
+                                            .getter(AccessTokenItem::getAccessTokenExpiryDateTime)
+                                            .setter(AccessTokenItem::setAccessTokenExpiryDateTime))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("resourceId")
+                                            .getter(AccessTokenItem::getResourceId)
+                                            .setter(AccessTokenItem::setResourceId))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("revokedAtDateTime")
+                                            .getter(AccessTokenItem::getRevokedAtDateTime)
+                                            .setter(AccessTokenItem::setRevokedAtDateTime))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("passportSessionId")
+                                            .getter(AccessTokenItem::getPassportSessionId)
+                                            .setter(AccessTokenItem::setPassportSessionId))
+                    .addAttribute(
+                            Long.class,
+                            a ->
+                                    a.name("ttl")
+                                            .getter(AccessTokenItem::getTtl)
+                                            .setter(AccessTokenItem::setTtl))
+                    .build();
+
+    public static final TableSchema<AuthorizationCodeItem> AUTHORIZATION_CODE =
+            StaticTableSchema.builder(AuthorizationCodeItem.class)
+                    .newItemSupplier(AuthorizationCodeItem::new)
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("authCode")
+                                            .getter(AuthorizationCodeItem::getAuthCode)
+                                            .setter(AuthorizationCodeItem::setAuthCode)
+                                            .tags(StaticAttributeTags.primaryPartitionKey()))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("resourceId")
+                                            .getter(AuthorizationCodeItem::getResourceId)
+                                            .setter(AuthorizationCodeItem::setResourceId))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("redirectUrl")
+                                            .getter(AuthorizationCodeItem::getRedirectUrl)
+                                            .setter(AuthorizationCodeItem::setRedirectUrl))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("creationDateTime")
+                                            .getter(AuthorizationCodeItem::getCreationDateTime)
+                                            .setter(AuthorizationCodeItem::setCreationDateTime))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("issuedAccessToken")
+                                            .getter(AuthorizationCodeItem::getIssuedAccessToken)
+                                            .setter(AuthorizationCodeItem::setIssuedAccessToken))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("exchangeDateTime")
+                                            .getter(AuthorizationCodeItem::getExchangeDateTime)
+                                            .setter(AuthorizationCodeItem::setExchangeDateTime))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("passportSessionId")
+                                            .getter(AuthorizationCodeItem::getPassportSessionId)
+                                            .setter(AuthorizationCodeItem::setPassportSessionId))
+                    .addAttribute(
+                            Long.class,
+                            a ->
+                                    a.name("ttl")
+                                            .getter(AuthorizationCodeItem::getTtl)
+                                            .setter(AuthorizationCodeItem::setTtl))
+                    .build();
+
+    public static final TableSchema<ClientAuthJwtIdItem> CLIENT_AUTH_JWT_ID =
+            StaticTableSchema.builder(ClientAuthJwtIdItem.class)
+                    .newItemSupplier(ClientAuthJwtIdItem::new)
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("jwtId")
+                                            .getter(ClientAuthJwtIdItem::getJwtId)
+                                            .setter(ClientAuthJwtIdItem::setJwtId)
+                                            .tags(StaticAttributeTags.primaryPartitionKey()))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("usedAtDateTime")
+                                            .getter(ClientAuthJwtIdItem::getUsedAtDateTime)
+                                            .setter(ClientAuthJwtIdItem::setUsedAtDateTime))
+                    .addAttribute(
+                            Long.class,
+                            a ->
+                                    a.name("ttl")
+                                            .getter(ClientAuthJwtIdItem::getTtl)
+                                            .setter(ClientAuthJwtIdItem::setTtl))
+                    .build();
+
+    public static final TableSchema<PassportCheckDao> PASSPORT_CHECK =
+            StaticTableSchema.builder(PassportCheckDao.class)
+                    .newItemSupplier(PassportCheckDao::new)
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("resourceId")
+                                            .getter(PassportCheckDao::getResourceId)
+                                            .setter(PassportCheckDao::setResourceId)
+                                            .tags(StaticAttributeTags.primaryPartitionKey()))
+                    .addAttribute(
+                            EnhancedType.documentOf(DcsPayload.class, DCS_PAYLOAD),
+                            a ->
+                                    a.name("dcsPayload")
+                                            .getter(PassportCheckDao::getDcsPayload)
+                                            .setter(PassportCheckDao::setDcsPayload))
+                    .addAttribute(
+                            EnhancedType.documentOf(Evidence.class, EVIDENCE),
+                            a ->
+                                    a.name("evidence")
+                                            .getter(PassportCheckDao::getEvidence)
+                                            .setter(PassportCheckDao::setEvidence))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("userId")
+                                            .getter(PassportCheckDao::getUserId)
+                                            .setter(PassportCheckDao::setUserId))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("clientId")
+                                            .getter(PassportCheckDao::getClientId)
+                                            .setter(PassportCheckDao::setClientId))
+                    .addAttribute(
+                            Long.class,
+                            a ->
+                                    a.name("ttl")
+                                            .getter(PassportCheckDao::getTtl)
+                                            .setter(PassportCheckDao::setTtl))
+                    .build();
+
+    public static final TableSchema<AdmissionWindowItem> ADMISSION_WINDOW =
+            StaticTableSchema.builder(AdmissionWindowItem.class)
+                    .newItemSupplier(AdmissionWindowItem::new)
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("windowKey")
+                                            .getter(AdmissionWindowItem::getWindowKey)
+                                            .setter(AdmissionWindowItem::setWindowKey)
+                                            .tags(StaticAttributeTags.primaryPartitionKey()))
+                    .addAttribute(
+                            Long.class,
+                            a ->
+                                    a.name("callCount")
+                                            .getter(AdmissionWindowItem::getCallCount)
+                                            .setter(AdmissionWindowItem::setCallCount))
+                    .addAttribute(
+                            Long.class,
+                            a ->
+                                    a.name("ttl")
+                                            .getter(AdmissionWindowItem::getTtl)
+                                            .setter(AdmissionWindowItem::setTtl))
+                    .build();
+
+    public static final TableSchema<PassportCheckRequestItem> PASSPORT_CHECK_REQUEST =
+            StaticTableSchema.builder(PassportCheckRequestItem.class)
+                    .newItemSupplier(PassportCheckRequestItem::new)
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("requestKey")
+                                            .getter(PassportCheckRequestItem::getRequestKey)
+                                            .setter(PassportCheckRequestItem::setRequestKey)
+                                            .tags(StaticAttributeTags.primaryPartitionKey()))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("status")
+                                            .getter(PassportCheckRequestItem::getStatus)
+                                            .setter(PassportCheckRequestItem::setStatus))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("result")
+                                            .getter(PassportCheckRequestItem::getResult)
+                                            .setter(PassportCheckRequestItem::setResult))
+                    .addAttribute(
+                            Long.class,
+                            a ->
+                                    a.name("ttl")
+                                            .getter(PassportCheckRequestItem::getTtl)
+                                            .setter(PassportCheckRequestItem::setTtl))
+                    .build();
+
+    public static final TableSchema<PassportReverificationItem> PASSPORT_REVERIFICATION =
+            StaticTableSchema.builder(PassportReverificationItem.class)
+                    .newItemSupplier(PassportReverificationItem::new)
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("checkpointKey")
+                                            .getter(PassportReverificationItem::getCheckpointKey)
+                                            .setter(PassportReverificationItem::setCheckpointKey)
+                                            .tags(StaticAttributeTags.primaryPartitionKey()))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("runId")
+                                            .getter(PassportReverificationItem::getRunId)
+                                            .setter(PassportReverificationItem::setRunId))
+                    .addAttribute(
+                            String.class,
+                            a ->
+                                    a.name("resourceId")
+                                            .getter(PassportReverificationItem::getResourceId)
+                                            .setter(PassportReverificationItem::setResourceId))
+                    .addAttribute(
+                            Boolean.class,
+                            a ->
+                                    a.name("valid")
+                                            .getter(PassportReverificationItem::isValid)
+                                            .setter(PassportReverificationItem::setValid))
+                    .addAttribute(
+                            EnhancedType.documentOf(Evidence.class, EVIDENCE),
+                            a ->
+                                    a.name("evidence")
+                                            .getter(PassportReverificationItem::getEvidence)
+                                            .setter(PassportReverificationItem::setEvidence))
+                    .addAttribute(
+                            Long.class,
+                            a ->
+                                    a.name("ttl")
+                                            .getter(PassportReverificationItem::getTtl)
+                                            .setter(PassportReverificationItem::setTtl))
+                    .build();
+
+    private static final Map<Class<?>, TableSchema<?>> SCHEMAS =
+            Map.of(
+                    PassportSessionItem.class, PASSPORT_SESSION,
+                    AccessTokenItem.class, ACCESS_TOKEN,
+                    AuthorizationCodeItem.class, AUTHORIZATION_CODE,
+                    ClientAuthJwtIdItem.class, CLIENT_AUTH_JWT_ID,
+                    PassportCheckDao.class, PASSPORT_CHECK,
+                    PassportCheckRequestItem.class, PASSPORT_CHECK_REQUEST,
+                    PassportReverificationItem.class, PASSPORT_REVERIFICATION,
+                    AdmissionWindowItem.class, ADMISSION_WINDOW);
+
+    private ItemTableSchemas() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Returns the static schema for the item class. A class without one is rejected rather than
+     * introspected, so a new item cannot quietly bring bean introspection back onto cold starts.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> TableSchema<T> forClass(Class<T> itemClass) {
+        TableSchema<?> schema = SCHEMAS.get(itemClass);
+        if (schema == null) {
+            throw new IllegalArgumentException(
+                    String.format("No table schema for item class %s", itemClass.getName()));
+        }
+        return (TableSchema<T>) schema;
+    }
+}
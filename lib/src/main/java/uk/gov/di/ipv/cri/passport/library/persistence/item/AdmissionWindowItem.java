@@ -0,0 +1,41 @@
+package uk.gov.di.ipv.cri.passport.library.persistence.item;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+
+@DynamoDbBean
+@ExcludeFromGeneratedCoverageReport
+public class AdmissionWindowItem implements DynamodbItem {
+    private String windowKey;
+    private long callCount;
+    private long ttl;
+
+    // required for DynamoDb BeanTableSchema
+    public AdmissionWindowItem() {}
+
+    @DynamoDbPartitionKey
+    public String getWindowKey() {
+        return windowKey;
+    }
+
+    public void setWindowKey(String windowKey) {
+        this.windowKey = windowKey;
+    }
+
+    public long getCallCount() {
+        return callCount;
+    }
+
+    public void setCallCount(long callCount) {
+        this.callCount = callCount;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+}
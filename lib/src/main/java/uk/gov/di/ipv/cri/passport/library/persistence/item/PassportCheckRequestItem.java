@@ -0,0 +1,56 @@
+package uk.gov.di.ipv.cri.passport.library.persistence.item;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+
+@DynamoDbBean
+@ExcludeFromGeneratedCoverageReport
+public class PassportCheckRequestItem implements DynamodbItem {
+    private String requestKey;
+    private String status;
+    private String result;
+    private long ttl;
+
+    // required for DynamoDb BeanTableSchema
+    public PassportCheckRequestItem() {}
+
+    public PassportCheckRequestItem(String requestKey, String status, String result) {
+        this.requestKey = requestKey;
+        this.status = status;
+        this.result = result;
+    }
+
+    @DynamoDbPartitionKey
+    public String getRequestKey() {
+        return requestKey;
+    }
+
+    public void setRequestKey(String requestKey) {
+        this.requestKey = requestKey;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+}
@@ -0,0 +1,78 @@
+package uk.gov.di.ipv.cri.passport.library.persistence.item;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Evidence;
+
+@DynamoDbBean
+@ExcludeFromGeneratedCoverageReport
+public class PassportReverificationItem implements DynamodbItem {
+    private String checkpointKey;
+    private String runId;
+    private String resourceId;
+    private boolean valid;
+    private Evidence evidence;
+    private long ttl;
+
+    // required for DynamoDb BeanTableSchema
+    public PassportReverificationItem() {}
+
+    public PassportReverificationItem(
+            String checkpointKey, String runId, String resourceId, Evidence evidence) {
+        this.checkpointKey = checkpointKey;
+        this.runId = runId;
+        this.resourceId = resourceId;
+        this.valid = evidence.getValidityScore() > 0;
+        this.evidence = evidence;
+    }
+
+    @DynamoDbPartitionKey
+    public String getCheckpointKey() {
+        return checkpointKey;
+    }
+
+    public void setCheckpointKey(String checkpointKey) {
+        this.checkpointKey = checkpointKey;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public void setRunId(String runId) {
+        this.runId = runId;
+    }
+
+    public String getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(String resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+
+    public Evidence getEvidence() {
+        return evidence;
+    }
+
+    public void setEvidence(Evidence evidence) {
+        this.evidence = evidence;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+}
@@ -10,11 +10,12 @@ import com.nimbusds.oauth2.sdk.TokenResponse;
 import com.nimbusds.oauth2.sdk.token.AccessToken;
 import com.nimbusds.oauth2.sdk.token.BearerAccessToken;
 import com.nimbusds.oauth2.sdk.token.Tokens;
-import com.nimbusds.oauth2.sdk.util.StringUtils;
 import org.apache.commons.codec.digest.DigestUtils;
 import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
 import uk.gov.di.ipv.cri.passport.library.helpers.LogHelper;
+import uk.gov.di.ipv.cri.passport.library.persistence.AttributeUpdate;
 import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.DynamoDbClientFactory;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.AccessTokenItem;
 import uk.gov.di.ipv.cri.passport.library.validation.ValidationResult;
 
@@ -23,6 +24,7 @@ import java.util.Objects;
 
 public class AccessTokenService {
     protected static final Scope DEFAULT_SCOPE = new Scope("user-credentials");
+    private static final String REVOKED_AT_DATE_TIME = "revokedAtDateTime";
     private final DataStore<AccessTokenItem> dataStore;
     private final ConfigurationService configurationService;
 
@@ -33,8 +35,8 @@ public class AccessTokenService {
                 new DataStore<>(
                         this.configurationService.getAccessTokensTableName(),
                         AccessTokenItem.class,
-                        DataStore.getClient(
-                                this.configurationService.getDynamoDbEndpointOverride()),
+                        DynamoDbClientFactory.getClient(this.configurationService),
+                        DynamoDbClientFactory.getDynamoDbClient(this.configurationService),
                         this.configurationService);
     }
 
@@ -78,14 +80,13 @@ public class AccessTokenService {
     }
 
     public void revokeAccessToken(String accessToken) throws IllegalArgumentException {
-        AccessTokenItem accessTokenItem = dataStore.getItem(accessToken);
-
-        if (Objects.nonNull(accessTokenItem)) {
-            if (StringUtils.isBlank(accessTokenItem.getRevokedAtDateTime())) {
-                accessTokenItem.setRevokedAtDateTime(Instant.now().toString());
-                dataStore.update(accessTokenItem);
-            }
-        } else {
+        // A token that is already revoked keeps the time it was first revoked at
+        AccessTokenItem accessTokenItem =
+                dataStore.updateAttributes(
+                        accessToken,
+                        new AttributeUpdate()
+                                .setIfNotExists(REVOKED_AT_DATE_TIME, Instant.now().toString()));
+        if (Objects.isNull(accessTokenItem)) {
             throw new IllegalArgumentException(
                     "Failed to revoke access token - access token could not be found in DynamoDB");
         }
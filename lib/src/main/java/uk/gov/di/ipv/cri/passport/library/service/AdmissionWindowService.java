@@ -0,0 +1,76 @@
+package uk.gov.di.ipv.cri.passport.library.service;
+
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.passport.library.persistence.AttributeUpdate;
+import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.DynamoDbClientFactory;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.AdmissionWindowItem;
+
+import java.util.Map;
+
+/**
+ * Counts DCS calls in fixed time windows held in DynamoDB, so that every Lambda container counts
+ * against the same admission limits. Each count is one conditional update, which fails once the
+ * window is full.
+ */
+public class AdmissionWindowService {
+    private static final String CALL_COUNT = "callCount";
+    private static final String TTL = "ttl";
+    private static final String BELOW_LIMIT_CONDITION =
+            "attribute_not_exists(#callCount) OR #callCount < :limit";
+    // A late release can still find the window it was counted in
+    private static final long TTL_GRACE_SECONDS = 60L;
+
+    private final DataStore<AdmissionWindowItem> dataStore;
+
+    @ExcludeFromGeneratedCoverageReport
+    public AdmissionWindowService(ConfigurationService configurationService) {
+        this.dataStore =
+                new DataStore<>(
+                        configurationService.getDcsAdmissionTableName(),
+                        AdmissionWindowItem.class,
+                        DynamoDbClientFactory.getClient(configurationService),
+                        DynamoDbClientFactory.getDynamoDbClient(configurationService),
+                        configurationService);
+    }
+
+    public AdmissionWindowService(DataStore<AdmissionWindowItem> dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    /**
+     * Counts a call in the window starting at {@code windowStartMillis} and returns true, or
+     * returns false without counting it if the window already holds {@code limit} calls.
+     */
+    public boolean tryAcquire(String scope, long windowStartMillis, long windowMillis, long limit) {
+        long expiresAt = (windowStartMillis + windowMillis) / 1000L + TTL_GRACE_SECONDS;
+        Expression belowLimit =
+                Expression.builder()
+                        .expression(BELOW_LIMIT_CONDITION)
+                        .expressionNames(Map.of("#callCount", CALL_COUNT))
+                        .expressionValues(Map.of(":limit", number(limit)))
+                        .build();
+        AttributeUpdate update =
+                new AttributeUpdate()
+                        .add(CALL_COUNT, 1)
+                        .set(TTL, number(expiresAt))
+                        .condition(belowLimit);
+        return dataStore.upsertAttributes(windowKey(scope, windowStartMillis), update) != null;
+    }
+
+    /** Gives back a call counted by {@link #tryAcquire} that did not go ahead. */
+    public void release(String scope, long windowStartMillis) {
+        dataStore.updateAttributes(
+                windowKey(scope, windowStartMillis), new AttributeUpdate().add(CALL_COUNT, -1));
+    }
+
+    private static AttributeValue number(long value) {
+        return AttributeValue.builder().n(Long.toString(value)).build();
+    }
+
+    private static String windowKey(String scope, long windowStartMillis) {
+        return scope + "#" + windowStartMillis;
+    }
+}
@@ -1,5 +1,6 @@
 package uk.gov.di.ipv.cri.passport.library.service;
 
+import com.amazonaws.http.timers.client.ClientExecutionTimeoutException;
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.AmazonSQSClientBuilder;
 import com.amazonaws.services.sqs.model.SendMessageRequest;
@@ -7,7 +8,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditEvent;
 import uk.gov.di.ipv.cri.passport.library.auditing.AuditEventTypes;
+import uk.gov.di.ipv.cri.passport.library.exceptions.DeadlineExceededException;
 import uk.gov.di.ipv.cri.passport.library.exceptions.SqsException;
+import uk.gov.di.ipv.cri.passport.library.helpers.RequestDeadline;
 
 public class AuditService {
     private final AmazonSQS sqs;
@@ -30,12 +33,23 @@ public class AuditService {
 
     public void sendAuditEvent(AuditEvent auditEvent) throws SqsException {
         try {
+            RequestDeadline deadline = RequestDeadline.current();
             SendMessageRequest sendMessageRequest =
                     new SendMessageRequest()
                             .withQueueUrl(queueUrl)
-                            .withMessageBody(objectMapper.writeValueAsString(auditEvent));
-
-            sqs.sendMessage(sendMessageRequest);
+                            .withMessageBody(objectMapper.writeValueAsString(auditEvent))
+                            .withSdkClientExecutionTimeout(
+                                    deadline.timeoutMillis(RequestDeadline.STAGE_SQS, 0));
+
+            long start = System.nanoTime();
+            try {
+                sqs.sendMessage(sendMessageRequest);
+            } catch (ClientExecutionTimeoutException e) {
+                throw new DeadlineExceededException(
+                        RequestDeadline.STAGE_SQS, deadline.getBudgetMillis(), e);
+            } finally {
+                deadline.recordStage(RequestDeadline.STAGE_SQS, start);
+            }
         } catch (JsonProcessingException e) {
             throw new SqsException(e);
         }
@@ -3,12 +3,17 @@ package uk.gov.di.ipv.cri.passport.library.service;
 import com.nimbusds.oauth2.sdk.AuthorizationCode;
 import org.apache.commons.codec.digest.DigestUtils;
 import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.passport.library.persistence.AttributeUpdate;
 import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.DynamoDbClientFactory;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.AuthorizationCodeItem;
 
 import java.time.Instant;
 
 public class AuthorizationCodeService {
+    private static final String ISSUED_ACCESS_TOKEN = "issuedAccessToken";
+    private static final String EXCHANGE_DATE_TIME = "exchangeDateTime";
+
     private final DataStore<AuthorizationCodeItem> dataStore;
     private final ConfigurationService configurationService;
 
@@ -19,7 +24,8 @@ public class AuthorizationCodeService {
                 new DataStore<>(
                         configurationService.getAuthCodesTableName(),
                         AuthorizationCodeItem.class,
-                        DataStore.getClient(configurationService.getDynamoDbEndpointOverride()),
+                        DynamoDbClientFactory.getClient(configurationService),
+                        DynamoDbClientFactory.getDynamoDbClient(configurationService),
                         configurationService);
     }
 
@@ -60,11 +66,11 @@ public class AuthorizationCodeService {
     }
 
     public void setIssuedAccessToken(String authorizationCode, String accessToken) {
-        AuthorizationCodeItem authorizationCodeItem = dataStore.getItem(authorizationCode);
-        authorizationCodeItem.setIssuedAccessToken(DigestUtils.sha256Hex(accessToken));
-        authorizationCodeItem.setExchangeDateTime(Instant.now().toString());
-
-        dataStore.update(authorizationCodeItem);
+        dataStore.updateAttributes(
+                authorizationCode,
+                new AttributeUpdate()
+                        .set(ISSUED_ACCESS_TOKEN, DigestUtils.sha256Hex(accessToken))
+                        .set(EXCHANGE_DATE_TIME, Instant.now().toString()));
     }
 
     public boolean isExpired(AuthorizationCodeItem authCodeItem) {
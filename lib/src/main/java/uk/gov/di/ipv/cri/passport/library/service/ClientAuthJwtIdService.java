@@ -1,7 +1,9 @@
 package uk.gov.di.ipv.cri.passport.library.service;
 
 import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.passport.library.persistence.ConditionalWriteResult;
 import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.DynamoDbClientFactory;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.ClientAuthJwtIdItem;
 
 import java.time.Instant;
@@ -17,8 +19,7 @@ public class ClientAuthJwtIdService {
                 new DataStore<>(
                         this.configurationService.getClientAuthJwtIdsTableName(),
                         ClientAuthJwtIdItem.class,
-                        DataStore.getClient(
-                                this.configurationService.getDynamoDbEndpointOverride()),
+                        DynamoDbClientFactory.getClient(this.configurationService),
                         this.configurationService);
     }
 
@@ -33,9 +34,10 @@ public class ClientAuthJwtIdService {
         return dataStore.getItem(jwtId);
     }
 
-    public void persistClientAuthJwtId(String jwtId) {
+    /** Records the jwt id, or returns CONDITION_FAILED if it has been recorded before. */
+    public ConditionalWriteResult recordClientAuthJwtId(String jwtId) {
         String timestamp = Instant.now().toString();
         ClientAuthJwtIdItem clientAuthJwtIdItem = new ClientAuthJwtIdItem(jwtId, timestamp);
-        dataStore.create(clientAuthJwtIdItem);
+        return dataStore.createIfNotExists(clientAuthJwtIdItem);
     }
 }
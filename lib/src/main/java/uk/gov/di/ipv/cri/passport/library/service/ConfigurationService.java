@@ -1,16 +1,32 @@
 package uk.gov.di.ipv.cri.passport.library.service;
 
-import com.nimbusds.jose.jwk.ECKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.SsmException;
 import software.amazon.lambda.powertools.parameters.ParamManager;
 import software.amazon.lambda.powertools.parameters.SSMProvider;
+import uk.gov.di.ipv.cri.passport.library.config.ClientConfig;
+import uk.gov.di.ipv.cri.passport.library.config.ClientRegistry;
+import uk.gov.di.ipv.cri.passport.library.config.ConfigParameter;
+import uk.gov.di.ipv.cri.passport.library.config.ConfigSnapshot;
+import uk.gov.di.ipv.cri.passport.library.config.ConfigSource;
+import uk.gov.di.ipv.cri.passport.library.config.EnvironmentConfigSource;
+import uk.gov.di.ipv.cri.passport.library.config.FileConfigSource;
+import uk.gov.di.ipv.cri.passport.library.config.KeyMaterialCache;
+import uk.gov.di.ipv.cri.passport.library.config.SsmConfigSource;
 import uk.gov.di.ipv.cri.passport.library.domain.Thumbprints;
+import uk.gov.di.ipv.cri.passport.library.exceptions.ConfigSourceException;
 import uk.gov.di.ipv.cri.passport.library.exceptions.UnknownClientException;
+import uk.gov.di.ipv.cri.passport.library.helpers.MetricsHelper;
 
 import java.io.ByteArrayInputStream;
 import java.net.URI;
+import java.nio.file.Path;
 import java.security.KeyFactory;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -20,52 +36,427 @@ import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
-import java.text.ParseException;
-import java.util.Arrays;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
-import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 public class ConfigurationService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationService.class);
     public static final int LOCALHOST_PORT = 4567;
     private static final String LOCALHOST_URI = "http://localhost:" + LOCALHOST_PORT;
     private static final long DEFAULT_ACCESS_TOKEN_EXPIRY_SECONDS = 3600L;
+    private static final long DEFAULT_CONFIG_REFRESH_INTERVAL_SECONDS = 300L;
+    private static final long DEFAULT_UNKNOWN_CLIENT_TTL_SECONDS = 30L;
+    private static final int DEFAULT_DCS_MAX_CONNECTIONS = 10;
+    private static final int DEFAULT_DCS_CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final int DEFAULT_DCS_SOCKET_TIMEOUT_MILLIS = 20000;
+    private static final int DEFAULT_DCS_CONNECTION_REQUEST_TIMEOUT_MILLIS = 2000;
+    private static final int DEFAULT_DCS_VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+    private static final long DEFAULT_DCS_CONNECTION_MAX_IDLE_SECONDS = 50L;
+    private static final int DEFAULT_DCS_TLS_SESSION_TIMEOUT_SECONDS = 3600;
+    private static final int DEFAULT_DCS_TLS_SESSION_CACHE_SIZE = 32;
+    private static final int DEFAULT_DCS_WARM_UP_TIMEOUT_MILLIS = 1500;
+    private static final int DEFAULT_DCS_MAX_RESPONSE_BYTES = 65536;
+    private static final int DEFAULT_REQUEST_DEADLINE_RESERVE_MILLIS = 500;
+    private static final int DEFAULT_DCS_CIRCUIT_FAILURE_THRESHOLD = 5;
+    private static final int DEFAULT_DCS_CIRCUIT_OPEN_MILLIS = 30000;
+    private static final int DEFAULT_DCS_CIRCUIT_HALF_OPEN_PROBES = 1;
+    private static final int DEFAULT_DUPLICATE_CHECK_TTL_SECONDS = 60;
+    private static final int DEFAULT_DUPLICATE_CHECK_WAIT_MILLIS = 10000;
+    private static final int DEFAULT_REVERIFICATION_DCS_CONCURRENCY = 4;
+    private static final int DEFAULT_REVERIFICATION_CHECKPOINT_TTL_SECONDS = 2592000;
+    private static final int DEFAULT_DYNAMODB_MAX_CONNECTIONS = 50;
+    private static final int DEFAULT_DYNAMODB_CONNECT_TIMEOUT_MILLIS = 1000;
+    private static final int DEFAULT_DYNAMODB_SOCKET_TIMEOUT_MILLIS = 2000;
+    private static final int DEFAULT_DYNAMODB_CALL_ATTEMPT_TIMEOUT_MILLIS = 2000;
+    private static final int DEFAULT_DYNAMODB_CONNECTION_MAX_IDLE_SECONDS = 50;
+    private static final int DEFAULT_DYNAMODB_MAX_RETRIES = 3;
+    private static final long FAILED_REFRESH_RETRY_SECONDS = 10L;
+    private static final double REFRESH_JITTER_RATIO = 0.2;
     private static final String IS_LOCAL = "IS_LOCAL";
-    private static final String CLIENT_REDIRECT_URL_SEPARATOR = ",";
+    private static final String CONFIG_REFRESH_INTERVAL_SECONDS = "CONFIG_REFRESH_INTERVAL_SECONDS";
+    private static final String UNKNOWN_CLIENT_TTL_SECONDS = "UNKNOWN_CLIENT_TTL_SECONDS";
+    private static final String CONFIG_SOURCE = "CONFIG_SOURCE";
+    private static final String CONFIG_FILE_PATH = "CONFIG_FILE_PATH";
+    private static final String DCS_JOSE_MODE = "DCS_JOSE_MODE";
+    private static final String DCS_PARALLEL_UNWRAP = "DCS_PARALLEL_UNWRAP";
+    private static final String JCA_PROVIDER = "JCA_PROVIDER";
+    private static final String DCS_ASYNC_CLIENT = "DCS_ASYNC_CLIENT";
     public static final String CREDENTIAL_ISSUERS_CONFIG_PARAM_PREFIX =
             "CREDENTIAL_ISSUERS_CONFIG_PARAM_PREFIX";
 
-    private final SSMProvider ssmProvider;
+    private final ConfigSource configSource;
+    private final SsmClient ssmClient;
+    private final ClientRegistry clientRegistry;
+    private final AtomicInteger ssmRoundTrips = new AtomicInteger();
+    private final KeyMaterialCache keyMaterialCache = new KeyMaterialCache();
+    private final Map<String, String> lastKnownValues = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshInFlight = new AtomicBoolean();
+    private volatile ConfigSnapshot configSnapshot = ConfigSnapshot.empty();
+    private volatile Instant nextRefreshAttempt = Instant.EPOCH;
+    private ScheduledExecutorService refreshExecutor;
 
     public ConfigurationService(SSMProvider ssmProvider) {
-        this.ssmProvider = ssmProvider;
+        this(new SsmConfigSource(ssmProvider, null));
+    }
+
+    public ConfigurationService(SSMProvider ssmProvider, SsmClient ssmClient) {
+        this(new SsmConfigSource(ssmProvider, ssmClient));
     }
 
     public ConfigurationService() {
-        if (isRunningLocally()) {
-            this.ssmProvider =
-                    ParamManager.getSsmProvider(
-                            SsmClient.builder()
-                                    .endpointOverride(URI.create(LOCALHOST_URI))
-                                    .httpClient(UrlConnectionHttpClient.create())
-                                    .region(Region.EU_WEST_2)
-                                    .build());
-        } else {
-            this.ssmProvider = ParamManager.getSsmProvider();
+        this(createConfigSource());
+    }
+
+    public ConfigurationService(ConfigSource configSource) {
+        this.configSource = configSource;
+        this.ssmClient =
+                configSource instanceof SsmConfigSource
+                        ? ((SsmConfigSource) configSource).getSsmClient()
+                        : null;
+        if (ssmClient == null) {
+            this.clientRegistry = null;
+            return;
+        }
+        this.clientRegistry = createClientRegistry(ssmClient);
+        boolean loaded = tryRefreshConfigSnapshot();
+        startBackgroundRefresh(loaded);
+    }
+
+    private static ConfigSource createConfigSource() {
+        String sourceType =
+                Optional.ofNullable(System.getenv(CONFIG_SOURCE))
+                        .orElse("ssm")
+                        .toLowerCase(Locale.ROOT);
+        switch (sourceType) {
+            case "env":
+                return new EnvironmentConfigSource();
+            case "file":
+                String configFilePath = System.getenv(CONFIG_FILE_PATH);
+                if (configFilePath == null || configFilePath.isBlank()) {
+                    throw new ConfigSourceException(
+                            "CONFIG_FILE_PATH must be set when CONFIG_SOURCE is file");
+                }
+                return new FileConfigSource(Path.of(configFilePath));
+            default:
+                SsmClient ssmClient = createSsmClient();
+                return new SsmConfigSource(ParamManager.getSsmProvider(ssmClient), ssmClient);
+        }
+    }
+
+    private static SsmClient createSsmClient() {
+        if (Boolean.parseBoolean(System.getenv(IS_LOCAL))) {
+            return SsmClient.builder()
+                    .endpointOverride(URI.create(LOCALHOST_URI))
+                    .httpClient(UrlConnectionHttpClient.create())
+                    .region(Region.EU_WEST_2)
+                    .build();
+        }
+        return SsmClient.builder().httpClient(UrlConnectionHttpClient.create()).build();
+    }
+
+    private ClientRegistry createClientRegistry(SsmClient ssmClient) {
+        String clientsPrefix = System.getenv(CREDENTIAL_ISSUERS_CONFIG_PARAM_PREFIX);
+        if (clientsPrefix == null || clientsPrefix.isEmpty()) {
+            return null;
         }
+        return new ClientRegistry(
+                ssmClient,
+                clientsPrefix,
+                Duration.ofSeconds(getUnknownClientTtlSeconds()),
+                Clock.systemUTC(),
+                ssmRoundTrips::incrementAndGet);
+    }
+
+    public void refreshConfigSnapshot() {
+        tryRefreshConfigSnapshot();
+    }
+
+    private boolean tryRefreshConfigSnapshot() {
+        if (ssmClient == null) {
+            return false;
+        }
+        try {
+            ConfigSnapshot snapshot =
+                    ConfigSnapshot.load(ssmClient, ssmRoundTrips::incrementAndGet);
+            configSnapshot = snapshot;
+            nextRefreshAttempt =
+                    snapshot.getLoadedAt().plusSeconds(getConfigRefreshIntervalSeconds());
+            if (clientRegistry != null) {
+                clientRegistry.refreshIfLoaded();
+            }
+            return true;
+        } catch (SdkException e) {
+            LOGGER.warn(
+                    "Failed to refresh config snapshot, continuing to serve previous values: {}",
+                    e.getMessage());
+            // Back off before the next attempt rather than retrying on every getter call
+            nextRefreshAttempt =
+                    Instant.now()
+                            .plusMillis(jitteredDelayMillis(failedRefreshRetrySeconds() * 1000));
+            return false;
+        }
+    }
+
+    private void startBackgroundRefresh(boolean lastRefreshSucceeded) {
+        if (getConfigRefreshIntervalSeconds() <= 0) {
+            return;
+        }
+        refreshExecutor =
+                Executors.newSingleThreadScheduledExecutor(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "config-snapshot-refresh");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        scheduleNextRefresh(lastRefreshSucceeded);
+    }
+
+    private void scheduleNextRefresh(boolean lastRefreshSucceeded) {
+        long baseDelaySeconds =
+                lastRefreshSucceeded
+                        ? getConfigRefreshIntervalSeconds()
+                        : failedRefreshRetrySeconds();
+        refreshExecutor.schedule(
+                () -> scheduleNextRefresh(tryRefreshConfigSnapshot()),
+                jitteredDelayMillis(baseDelaySeconds * 1000),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private long failedRefreshRetrySeconds() {
+        return Math.min(getConfigRefreshIntervalSeconds(), FAILED_REFRESH_RETRY_SECONDS);
+    }
+
+    static long jitteredDelayMillis(long baseDelayMillis) {
+        double jitter =
+                ThreadLocalRandom.current()
+                        .nextDouble(1 - REFRESH_JITTER_RATIO, 1 + REFRESH_JITTER_RATIO);
+        return Math.round(baseDelayMillis * jitter);
+    }
+
+    private void refreshIfStale() {
+        if (refreshExecutor == null
+                || getConfigRefreshIntervalSeconds() <= 0
+                || Instant.now().isBefore(nextRefreshAttempt)
+                || !refreshInFlight.compareAndSet(false, true)) {
+            return;
+        }
+        refreshExecutor.execute(
+                () -> {
+                    try {
+                        tryRefreshConfigSnapshot();
+                    } finally {
+                        refreshInFlight.set(false);
+                    }
+                });
+    }
+
+    public long getConfigRefreshIntervalSeconds() {
+        return Optional.ofNullable(System.getenv(CONFIG_REFRESH_INTERVAL_SECONDS))
+                .map(Long::valueOf)
+                .orElse(DEFAULT_CONFIG_REFRESH_INTERVAL_SECONDS);
+    }
+
+    public long getUnknownClientTtlSeconds() {
+        return Optional.ofNullable(System.getenv(UNKNOWN_CLIENT_TTL_SECONDS))
+                .map(Long::valueOf)
+                .orElse(DEFAULT_UNKNOWN_CLIENT_TTL_SECONDS);
+    }
+
+    public ConfigSnapshot getConfigSnapshot() {
+        return configSnapshot;
+    }
+
+    public void publishSsmRoundTripMetric() {
+        MetricsHelper.putCount(MetricsHelper.SSM_ROUND_TRIPS, ssmRoundTrips.getAndSet(0));
     }
 
     public SSMProvider getSsmProvider() {
-        return ssmProvider;
+        return configSource instanceof SsmConfigSource
+                ? ((SsmConfigSource) configSource).getSsmProvider()
+                : null;
     }
 
     public boolean isRunningLocally() {
         return Boolean.parseBoolean(System.getenv(IS_LOCAL));
     }
 
+    public boolean isDcsByteOrientedJoseEnabled() {
+        return "bytes".equalsIgnoreCase(System.getenv(DCS_JOSE_MODE));
+    }
+
+    public boolean isDcsParallelUnwrapEnabled() {
+        return Boolean.parseBoolean(System.getenv(DCS_PARALLEL_UNWRAP));
+    }
+
+    public boolean isDcsAsyncClientEnabled() {
+        return Boolean.parseBoolean(System.getenv(DCS_ASYNC_CLIENT));
+    }
+
+    public String getJcaProviderName() {
+        return System.getenv(JCA_PROVIDER);
+    }
+
+    public int getDcsMaxConnections() {
+        return getIntEnv("DCS_MAX_CONNECTIONS", DEFAULT_DCS_MAX_CONNECTIONS);
+    }
+
+    public int getDcsMaxConnectionsPerRoute() {
+        return getIntEnv("DCS_MAX_CONNECTIONS_PER_ROUTE", getDcsMaxConnections());
+    }
+
+    public int getDcsConnectTimeoutMillis() {
+        return getIntEnv("DCS_CONNECT_TIMEOUT_MILLIS", DEFAULT_DCS_CONNECT_TIMEOUT_MILLIS);
+    }
+
+    public int getDcsSocketTimeoutMillis() {
+        return getIntEnv("DCS_SOCKET_TIMEOUT_MILLIS", DEFAULT_DCS_SOCKET_TIMEOUT_MILLIS);
+    }
+
+    public int getDcsConnectionRequestTimeoutMillis() {
+        return getIntEnv(
+                "DCS_CONNECTION_REQUEST_TIMEOUT_MILLIS",
+                DEFAULT_DCS_CONNECTION_REQUEST_TIMEOUT_MILLIS);
+    }
+
+    public int getDcsValidateAfterInactivityMillis() {
+        return getIntEnv(
+                "DCS_VALIDATE_AFTER_INACTIVITY_MILLIS",
+                DEFAULT_DCS_VALIDATE_AFTER_INACTIVITY_MILLIS);
+    }
+
+    public long getDcsConnectionMaxIdleSeconds() {
+        return Optional.ofNullable(System.getenv("DCS_CONNECTION_MAX_IDLE_SECONDS"))
+                .map(Long::valueOf)
+                .orElse(DEFAULT_DCS_CONNECTION_MAX_IDLE_SECONDS);
+    }
+
+    public int getDcsTlsSessionTimeoutSeconds() {
+        return getIntEnv(
+                "DCS_TLS_SESSION_TIMEOUT_SECONDS", DEFAULT_DCS_TLS_SESSION_TIMEOUT_SECONDS);
+    }
+
+    public int getDcsTlsSessionCacheSize() {
+        return getIntEnv("DCS_TLS_SESSION_CACHE_SIZE", DEFAULT_DCS_TLS_SESSION_CACHE_SIZE);
+    }
+
+    public int getDcsWarmUpTimeoutMillis() {
+        return getIntEnv("DCS_WARM_UP_TIMEOUT_MILLIS", DEFAULT_DCS_WARM_UP_TIMEOUT_MILLIS);
+    }
+
+    public int getDcsMaxResponseBytes() {
+        return getIntEnv("DCS_MAX_RESPONSE_BYTES", DEFAULT_DCS_MAX_RESPONSE_BYTES);
+    }
+
+    public int getDcsCircuitFailureThreshold() {
+        return getIntEnv("DCS_CIRCUIT_FAILURE_THRESHOLD", DEFAULT_DCS_CIRCUIT_FAILURE_THRESHOLD);
+    }
+
+    public int getDcsCircuitOpenMillis() {
+        return getIntEnv("DCS_CIRCUIT_OPEN_MILLIS", DEFAULT_DCS_CIRCUIT_OPEN_MILLIS);
+    }
+
+    public int getDcsCircuitHalfOpenProbes() {
+        return getIntEnv("DCS_CIRCUIT_HALF_OPEN_PROBES", DEFAULT_DCS_CIRCUIT_HALF_OPEN_PROBES);
+    }
+
+    public int getDcsBulkheadMaxConcurrentCalls() {
+        return getIntEnv("DCS_BULKHEAD_MAX_CONCURRENT_CALLS", getDcsMaxConnections());
+    }
+
+    public int getRequestDeadlineReserveMillis() {
+        return getIntEnv(
+                "REQUEST_DEADLINE_RESERVE_MILLIS", DEFAULT_REQUEST_DEADLINE_RESERVE_MILLIS);
+    }
+
+    public int getDuplicateCheckTtlSeconds() {
+        return getIntEnv("DUPLICATE_CHECK_TTL_SECONDS", DEFAULT_DUPLICATE_CHECK_TTL_SECONDS);
+    }
+
+    public int getDuplicateCheckWaitMillis() {
+        return getIntEnv("DUPLICATE_CHECK_WAIT_MILLIS", DEFAULT_DUPLICATE_CHECK_WAIT_MILLIS);
+    }
+
+    /** The base64 encoded secret that passport check request keys are derived with. */
+    public byte[] getDuplicateCheckKey() {
+        return Base64.getDecoder().decode(getParameter(ConfigParameter.DUPLICATE_CHECK_KEY));
+    }
+
+    public int getReverificationDcsConcurrency() {
+        return getIntEnv("REVERIFICATION_DCS_CONCURRENCY", DEFAULT_REVERIFICATION_DCS_CONCURRENCY);
+    }
+
+    public int getReverificationCheckpointTtlSeconds() {
+        return getIntEnv(
+                "REVERIFICATION_CHECKPOINT_TTL_SECONDS",
+                DEFAULT_REVERIFICATION_CHECKPOINT_TTL_SECONDS);
+    }
+
+    public int getDynamoDbMaxConnections() {
+        return getIntEnv("DYNAMODB_MAX_CONNECTIONS", DEFAULT_DYNAMODB_MAX_CONNECTIONS);
+    }
+
+    public int getDynamoDbConnectTimeoutMillis() {
+        return getIntEnv(
+                "DYNAMODB_CONNECT_TIMEOUT_MILLIS", DEFAULT_DYNAMODB_CONNECT_TIMEOUT_MILLIS);
+    }
+
+    public int getDynamoDbSocketTimeoutMillis() {
+        return getIntEnv("DYNAMODB_SOCKET_TIMEOUT_MILLIS", DEFAULT_DYNAMODB_SOCKET_TIMEOUT_MILLIS);
+    }
+
+    public int getDynamoDbCallAttemptTimeoutMillis() {
+        return getIntEnv(
+                "DYNAMODB_CALL_ATTEMPT_TIMEOUT_MILLIS",
+                DEFAULT_DYNAMODB_CALL_ATTEMPT_TIMEOUT_MILLIS);
+    }
+
+    public int getDynamoDbConnectionMaxIdleSeconds() {
+        return getIntEnv(
+                "DYNAMODB_CONNECTION_MAX_IDLE_SECONDS",
+                DEFAULT_DYNAMODB_CONNECTION_MAX_IDLE_SECONDS);
+    }
+
+    public int getDynamoDbMaxRetries() {
+        return getIntEnv("DYNAMODB_MAX_RETRIES", DEFAULT_DYNAMODB_MAX_RETRIES);
+    }
+
+    public String getDcsAdmissionGlobalLimit() {
+        return System.getenv("DCS_ADMISSION_GLOBAL_LIMIT");
+    }
+
+    public String getDcsAdmissionDefaultClientLimit() {
+        return System.getenv("DCS_ADMISSION_DEFAULT_CLIENT_LIMIT");
+    }
+
+    public String getDcsAdmissionClientLimits() {
+        return System.getenv("DCS_ADMISSION_CLIENT_LIMITS");
+    }
+
+    public String getDcsAdmissionTableName() {
+        return System.getenv("DCS_ADMISSION_TABLE_NAME");
+    }
+
+    private static int getIntEnv(String name, int defaultValue) {
+        return Optional.ofNullable(System.getenv(name)).map(Integer::valueOf).orElse(defaultValue);
+    }
+
     public String getDcsResponseTableName() {
         return System.getenv("DCS_RESPONSE_TABLE_NAME");
     }
@@ -86,84 +477,188 @@ public class ConfigurationService {
         return System.getenv("PASSPORT_BACK_SESSIONS_TABLE_NAME");
     }
 
+    public String getPassportCheckRequestsTableName() {
+        return System.getenv("PASSPORT_CHECK_REQUESTS_TABLE_NAME");
+    }
+
+    public String getReverificationCheckpointsTableName() {
+        return System.getenv("REVERIFICATION_CHECKPOINTS_TABLE_NAME");
+    }
+
     public String getSqsAuditEventQueueUrl() {
         return System.getenv("SQS_AUDIT_EVENT_QUEUE_URL");
     }
 
-    private String getParameterFromStoreUsingEnv(String environmentVariable) {
-        return ssmProvider.get(System.getenv(environmentVariable));
+    private String getParameter(ConfigParameter parameter) {
+        ConfigSnapshot snapshot = configSnapshot;
+        refreshIfStale();
+        return snapshot.getString(parameter).orElseGet(() -> fetchParameter(parameter));
     }
 
-    private String getDecryptedParameterFromStoreUsingEnv(String environmentVariable) {
-        return ssmProvider.withDecryption().get(System.getenv(environmentVariable));
+    private String fetchParameter(ConfigParameter parameter) {
+        String name = parameter.getParameterName();
+        return fetchPreferringLastKnownValue(
+                name, () -> configSource.getParameter(name, parameter.isSecure()));
     }
 
-    private Certificate getCertificateFromStoreUsingEnv(String environmentVariable)
+    private String getClientParameter(String clientId, String path) {
+        String name =
+                String.format(
+                        "%s/%s/%s",
+                        System.getenv(CREDENTIAL_ISSUERS_CONFIG_PARAM_PREFIX), clientId, path);
+        return fetchPreferringLastKnownValue(name, () -> configSource.getParameter(name, false));
+    }
+
+    private String fetchPreferringLastKnownValue(String name, Supplier<String> fetch) {
+        if (configSource instanceof SsmConfigSource) {
+            ssmRoundTrips.incrementAndGet();
+        }
+        try {
+            String value = fetch.get();
+            if (name != null && value != null) {
+                lastKnownValues.put(name, value);
+            }
+            return value;
+        } catch (AwsServiceException e) {
+            String lastKnownValue = name == null ? null : lastKnownValues.get(name);
+            if (e.isThrottlingException() && lastKnownValue != null) {
+                LOGGER.warn("SSM throttled reading {}, serving last known value", name);
+                return lastKnownValue;
+            }
+            throw e;
+        }
+    }
+
+    private Certificate getCertificate(ConfigParameter parameter) throws CertificateException {
+        return getCertificate(configSnapshot, parameter);
+    }
+
+    private Certificate getCertificate(ConfigSnapshot snapshot, ConfigParameter parameter)
             throws CertificateException {
-        byte[] binaryCertificate =
-                Base64.getDecoder().decode(getParameterFromStoreUsingEnv(environmentVariable));
+        Optional<Long> version = snapshot.getVersion(parameter);
+        if (version.isEmpty()) {
+            return parseCertificate(getParameter(parameter));
+        }
+        String name = parameter.getParameterName();
+        Certificate cached = keyMaterialCache.get(name, version.get(), Certificate.class);
+        if (cached != null) {
+            return cached;
+        }
+        return keyMaterialCache.put(
+                name,
+                version.get(),
+                Certificate.class,
+                parseCertificate(snapshot.getString(parameter).orElseThrow()));
+    }
+
+    private RSAPublicKey getRsaPublicKey(ConfigParameter parameter) throws CertificateException {
+        // Read once, so the key is cached under the version of the certificate it came from
+        ConfigSnapshot snapshot = configSnapshot;
+        Optional<Long> version = snapshot.getVersion(parameter);
+        if (version.isEmpty()) {
+            return (RSAPublicKey) getCertificate(snapshot, parameter).getPublicKey();
+        }
+        String name = parameter.getParameterName();
+        RSAPublicKey cached = keyMaterialCache.get(name, version.get(), RSAPublicKey.class);
+        if (cached != null) {
+            return cached;
+        }
+        return keyMaterialCache.put(
+                name,
+                version.get(),
+                RSAPublicKey.class,
+                (RSAPublicKey) getCertificate(snapshot, parameter).getPublicKey());
+    }
+
+    private PrivateKey getKey(ConfigParameter parameter)
+            throws NoSuchAlgorithmException, InvalidKeySpecException {
+        ConfigSnapshot snapshot = configSnapshot;
+        Optional<Long> version = snapshot.getVersion(parameter);
+        if (version.isEmpty()) {
+            return parseKey(getParameter(parameter));
+        }
+        String name = parameter.getParameterName();
+        PrivateKey cached = keyMaterialCache.get(name, version.get(), PrivateKey.class);
+        if (cached != null) {
+            return cached;
+        }
+        return keyMaterialCache.put(
+                name,
+                version.get(),
+                PrivateKey.class,
+                parseKey(snapshot.getString(parameter).orElseThrow()));
+    }
+
+    private Certificate parseCertificate(String base64Certificate) throws CertificateException {
+        byte[] binaryCertificate = Base64.getDecoder().decode(base64Certificate);
         CertificateFactory factory = CertificateFactory.getInstance("X.509");
         return factory.generateCertificate(new ByteArrayInputStream(binaryCertificate));
     }
 
-    private PrivateKey getKeyFromStoreUsingEnv(String environmentVariable)
+    private PrivateKey parseKey(String base64Key)
             throws NoSuchAlgorithmException, InvalidKeySpecException {
-        byte[] binaryKey =
-                Base64.getDecoder()
-                        .decode(getDecryptedParameterFromStoreUsingEnv(environmentVariable));
+        byte[] binaryKey = Base64.getDecoder().decode(base64Key);
         KeyFactory factory = KeyFactory.getInstance("RSA");
         PKCS8EncodedKeySpec privateKeySpec = new PKCS8EncodedKeySpec(binaryKey);
         return factory.generatePrivate(privateKeySpec);
     }
 
     public Certificate getDcsEncryptionCert() throws CertificateException {
-        return getCertificateFromStoreUsingEnv("DCS_ENCRYPTION_CERT_PARAM");
+        return getCertificate(ConfigParameter.DCS_ENCRYPTION_CERT);
+    }
+
+    public RSAPublicKey getDcsEncryptionPublicKey() throws CertificateException {
+        return getRsaPublicKey(ConfigParameter.DCS_ENCRYPTION_CERT);
     }
 
     public Certificate getDcsSigningCert() throws CertificateException {
-        return getCertificateFromStoreUsingEnv("DCS_SIGNING_CERT_PARAM");
+        return getCertificate(ConfigParameter.DCS_SIGNING_CERT);
+    }
+
+    public RSAPublicKey getDcsSigningPublicKey() throws CertificateException {
+        return getRsaPublicKey(ConfigParameter.DCS_SIGNING_CERT);
     }
 
     public Certificate getJARSigningCert() throws CertificateException {
-        return getCertificateFromStoreUsingEnv("JAR_SIGNING_CERT_PARAM");
+        return getCertificate(ConfigParameter.JAR_SIGNING_CERT);
     }
 
     public PrivateKey getPassportCriPrivateKey()
             throws NoSuchAlgorithmException, InvalidKeySpecException {
-        return getKeyFromStoreUsingEnv("PASSPORT_CRI_ENCRYPTION_KEY_PARAM");
+        return getKey(ConfigParameter.PASSPORT_CRI_ENCRYPTION_KEY);
     }
 
     public Certificate getPassportCriEncryptionCert() throws CertificateException {
-        return getCertificateFromStoreUsingEnv("PASSPORT_CRI_ENCRYPTION_CERT_PARAM");
+        return getCertificate(ConfigParameter.PASSPORT_CRI_ENCRYPTION_CERT);
     }
 
     public PrivateKey getPassportCriSigningKey()
             throws NoSuchAlgorithmException, InvalidKeySpecException {
-        return getKeyFromStoreUsingEnv("PASSPORT_CRI_SIGNING_KEY_PARAM");
+        return getKey(ConfigParameter.PASSPORT_CRI_SIGNING_KEY);
     }
 
     public PrivateKey getPassportCriTlsKey()
             throws NoSuchAlgorithmException, InvalidKeySpecException {
-        return getKeyFromStoreUsingEnv("PASSPORT_CRI_TLS_KEY_PARAM");
+        return getKey(ConfigParameter.PASSPORT_CRI_TLS_KEY);
     }
 
     public Certificate getPassportCriSigningCert() throws CertificateException {
-        return getCertificateFromStoreUsingEnv("PASSPORT_CRI_SIGNING_CERT_PARAM");
+        return getCertificate(ConfigParameter.PASSPORT_CRI_SIGNING_CERT);
     }
 
     public Certificate getPassportCriTlsCert() throws CertificateException {
-        return getCertificateFromStoreUsingEnv("PASSPORT_CRI_TLS_CERT_PARAM");
+        return getCertificate(ConfigParameter.PASSPORT_CRI_TLS_CERT);
     }
 
     public Certificate[] getDcsTlsCertChain() throws CertificateException {
         return new Certificate[] {
-            getCertificateFromStoreUsingEnv("DCS_TLS_ROOT_CERT_PARAM"),
-            getCertificateFromStoreUsingEnv("DCS_TLS_INTERMEDIATE_CERT_PARAM")
+            getCertificate(ConfigParameter.DCS_TLS_ROOT_CERT),
+            getCertificate(ConfigParameter.DCS_TLS_INTERMEDIATE_CERT)
         };
     }
 
     public String getDCSPostUrl() {
-        return getParameterFromStoreUsingEnv("DCS_POST_URL_PARAM");
+        return getParameter(ConfigParameter.DCS_POST_URL);
     }
 
     public Thumbprints makeThumbprints() throws CertificateException, NoSuchAlgorithmException {
@@ -183,11 +678,7 @@ public class ConfigurationService {
     }
 
     public long getAuthCodeExpirySeconds() {
-        return Long.parseLong(
-                ssmProvider.get(
-                        String.format(
-                                "/%s/credentialIssuers/ukPassport/self/authCodeExpirySeconds",
-                                System.getenv("ENVIRONMENT"))));
+        return Long.parseLong(getParameter(ConfigParameter.AUTH_CODE_EXPIRY_SECONDS));
     }
 
     public long getAccessTokenExpirySeconds() {
@@ -204,68 +695,69 @@ public class ConfigurationService {
         return null;
     }
 
-    public ECKey getClientSigningPublicJwk(String clientId) throws ParseException {
-        return ECKey.parse(
-                ssmProvider.get(
-                        String.format(
-                                "%s/%s/signingPublicJwk",
-                                System.getenv(CREDENTIAL_ISSUERS_CONFIG_PARAM_PREFIX), clientId)));
-    }
-
-    public List<String> getClientRedirectUrls(String clientId) throws UnknownClientException {
-        String redirectUrlStrings =
-                ssmProvider.get(
-                        String.format(
-                                "%s/%s/jwtAuthentication/validRedirectUrls",
-                                System.getenv(CREDENTIAL_ISSUERS_CONFIG_PARAM_PREFIX), clientId));
-
-        return Arrays.asList(redirectUrlStrings.split(CLIENT_REDIRECT_URL_SEPARATOR));
-    }
-
-    public String getClientIssuer(String clientId) throws UnknownClientException {
-        return ssmProvider.get(
-                String.format(
-                        "%s/%s/jwtAuthentication/issuer",
-                        System.getenv(CREDENTIAL_ISSUERS_CONFIG_PARAM_PREFIX), clientId));
+    public ClientConfig getClientConfig(String clientId) throws UnknownClientException {
+        if (clientRegistry == null) {
+            return fetchClientConfig(clientId);
+        }
+        return clientRegistry
+                .getClient(clientId)
+                .orElseThrow(
+                        () ->
+                                new UnknownClientException(
+                                        String.format("Unknown client id: %s", clientId)));
+    }
+
+    private ClientConfig fetchClientConfig(String clientId) {
+        String signingPublicJwk;
+        String validRedirectUrls;
+        String issuer;
+        try {
+            signingPublicJwk = getClientParameter(clientId, "signingPublicJwk");
+            validRedirectUrls = getClientParameter(clientId, "jwtAuthentication/validRedirectUrls");
+            issuer = getClientParameter(clientId, "jwtAuthentication/issuer");
+        } catch (SsmException e) {
+            throw new UnknownClientException(String.format("Unknown client id: %s", clientId));
+        }
+        // The environment and file sources return null where SSM would throw
+        if (signingPublicJwk == null || validRedirectUrls == null || issuer == null) {
+            throw new UnknownClientException(String.format("Unknown client id: %s", clientId));
+        }
+        return ClientConfig.parse(clientId, signingPublicJwk, validRedirectUrls, issuer);
     }
 
     public String getAudienceForClients() {
-        return getParameterFromStoreUsingEnv("PASSPORT_CRI_CLIENT_AUDIENCE");
+        return getParameter(ConfigParameter.PASSPORT_CRI_CLIENT_AUDIENCE);
     }
 
     public String getVerifiableCredentialIssuer() {
-        return getParameterFromStoreUsingEnv("VERIFIABLE_CREDENTIAL_ISSUER_PARAM");
+        return getParameter(ConfigParameter.VERIFIABLE_CREDENTIAL_ISSUER);
     }
 
     public String getMaxClientAuthTokenTtl() {
-        return getParameterFromStoreUsingEnv("PASSPORT_CRI_CLIENT_AUTH_MAX_TTL");
+        return getParameter(ConfigParameter.PASSPORT_CRI_CLIENT_AUTH_MAX_TTL);
     }
 
     public String getVerifiableCredentialKmsSigningKeyId() {
-        return ssmProvider.get(System.getenv("VERIFIABLE_CREDENTIAL_SIGNING_KEY_ID_PARAM"));
+        return getParameter(ConfigParameter.VERIFIABLE_CREDENTIAL_SIGNING_KEY_ID);
     }
 
     public String getJarKmsEncryptionKeyId() {
-        return ssmProvider.get(System.getenv("JAR_ENCRYPTION_KEY_ID_PARAM"));
+        return getParameter(ConfigParameter.JAR_ENCRYPTION_KEY_ID);
     }
 
     public String getJarKmsPublicKey() {
-        return ssmProvider.get(System.getenv("JAR_KMS_PUBLIC_KEY_PARAM"));
+        return getParameter(ConfigParameter.JAR_KMS_PUBLIC_KEY);
     }
 
     public long maxJwtTtl() {
-        return Long.parseLong(ssmProvider.get(System.getenv("MAX_JWT_TTL")));
+        return Long.parseLong(getParameter(ConfigParameter.MAX_JWT_TTL));
     }
 
     public long getBackendSessionTtl() {
-        return Long.parseLong(
-                ssmProvider.get(
-                        String.format(
-                                "/%s/credentialIssuers/ukPassport/self/backendSessionTtl",
-                                System.getenv("ENVIRONMENT"))));
+        return Long.parseLong(getParameter(ConfigParameter.BACKEND_SESSION_TTL));
     }
 
     public int getMaximumAttemptCount() {
-        return Integer.parseInt(ssmProvider.get(System.getenv("MAXIMUM_ATTEMPT_COUNT_PARAM")));
+        return Integer.parseInt(getParameter(ConfigParameter.MAXIMUM_ATTEMPT_COUNT));
     }
 }
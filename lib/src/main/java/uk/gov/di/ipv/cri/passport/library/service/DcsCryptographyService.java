@@ -3,12 +3,11 @@ package uk.gov.di.ipv.cri.passport.library.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import com.nimbusds.jose.EncryptionMethod;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JOSEObjectType;
 import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWECryptoParts;
 import com.nimbusds.jose.JWEHeader;
 import com.nimbusds.jose.JWEObject;
 import com.nimbusds.jose.JWSAlgorithm;
@@ -19,29 +18,143 @@ import com.nimbusds.jose.crypto.RSADecrypter;
 import com.nimbusds.jose.crypto.RSAEncrypter;
 import com.nimbusds.jose.crypto.RSASSASigner;
 import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jca.JCAAware;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.jca.JWEJCAContext;
+import com.nimbusds.jose.util.Base64URL;
+import uk.gov.di.ipv.cri.passport.library.config.KeyBoundComponent;
+import uk.gov.di.ipv.cri.passport.library.domain.CompactSerialization;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsResponse;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsSignedEncryptedResponse;
-import uk.gov.di.ipv.cri.passport.library.domain.ProtectedHeader;
-import uk.gov.di.ipv.cri.passport.library.domain.Thumbprints;
 import uk.gov.di.ipv.cri.passport.library.exceptions.IpvCryptoException;
+import uk.gov.di.ipv.cri.passport.library.helpers.JcaProviders;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAPublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class DcsCryptographyService {
 
+    private static final Base64.Encoder BASE64URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64URL_DECODER = Base64.getUrlDecoder();
+    private static final JWEHeader COMPACT_JWE_HEADER = buildCompactJweHeader();
+    private static final String OUTER_SIGNATURE_INVALID = "DCS Response Outer Signature invalid.";
+
     private final ConfigurationService configurationService;
-    private final Gson gson = new Gson();
     private final ObjectMapper objectMapper =
             new ObjectMapper().registerModule(new JavaTimeModule());
+    private final KeyBoundComponent<PrivateKey, RSASSASigner> signer =
+            new KeyBoundComponent<>(key -> withProvider(new RSASSASigner(key)));
+    private final KeyBoundComponent<RSAPublicKey, RSAEncrypter> encrypter =
+            new KeyBoundComponent<>(key -> withKeyEncryptionProvider(new RSAEncrypter(key)));
+    private final KeyBoundComponent<RSAPublicKey, RSASSAVerifier> verifier =
+            new KeyBoundComponent<>(key -> withProvider(new RSASSAVerifier(key)));
+    private final KeyBoundComponent<PrivateKey, RSADecrypter> decrypter =
+            new KeyBoundComponent<>(key -> withKeyEncryptionProvider(new RSADecrypter(key)));
+    private final KeyBoundComponent<Certificate, SigningHeader> headerTemplate =
+            new KeyBoundComponent<>(this::buildHeaderTemplate);
+    private final boolean byteOrientedJose;
+    private final ExecutorService unwrapExecutor;
+    private final Provider jcaProvider;
 
     public DcsCryptographyService(ConfigurationService configurationService) {
+        this(
+                configurationService,
+                configurationService.isDcsByteOrientedJoseEnabled(),
+                configurationService.isDcsParallelUnwrapEnabled()
+                        ? UnwrapExecutorHolder.EXECUTOR
+                        : null,
+                JcaProviders.getProvider(configurationService.getJcaProviderName()));
+    }
+
+    public DcsCryptographyService(
+            ConfigurationService configurationService, boolean byteOrientedJose) {
+        this(configurationService, byteOrientedJose, null);
+    }
+
+    /**
+     * When an unwrap executor is given, the outer signature of a DCS response is verified on it
+     * while the calling thread decrypts the inner payload. The decrypted payload is discarded
+     * unless the outer signature is valid.
+     */
+    public DcsCryptographyService(
+            ConfigurationService configurationService,
+            boolean byteOrientedJose,
+            ExecutorService unwrapExecutor) {
+        this(configurationService, byteOrientedJose, unwrapExecutor, null);
+    }
+
+    public DcsCryptographyService(
+            ConfigurationService configurationService,
+            boolean byteOrientedJose,
+            ExecutorService unwrapExecutor,
+            Provider jcaProvider) {
         this.configurationService = configurationService;
+        this.byteOrientedJose = byteOrientedJose;
+        this.unwrapExecutor = unwrapExecutor;
+        this.jcaProvider = jcaProvider;
+    }
+
+    public byte[] prepareRequestBody(DcsPayload passportDetails)
+            throws CertificateException, NoSuchAlgorithmException, InvalidKeySpecException,
+                    JOSEException, JsonProcessingException {
+        if (!byteOrientedJose) {
+            return preparePayload(passportDetails).serialize().getBytes(StandardCharsets.US_ASCII);
+        }
+        byte[] signedPassportDetails = signCompact(objectMapper.writeValueAsBytes(passportDetails));
+        return signCompact(encryptCompact(signedPassportDetails));
+    }
+
+    public DcsResponse unwrapResponseBody(byte[] responseBody)
+            throws CertificateException, ParseException, JOSEException, JsonProcessingException {
+        if (!byteOrientedJose) {
+            return unwrapDcsResponse(
+                    new DcsSignedEncryptedResponse(
+                            new String(responseBody, StandardCharsets.US_ASCII)));
+        }
+        return unwrapResponseBody(
+                new CompactSerialization(responseBody, findSegmentSeparators(responseBody, 2)));
+    }
+
+    /** Unwraps a response whose outer segments were already found while reading it from DCS. */
+    public DcsResponse unwrapResponseBody(CompactSerialization responseBody)
+            throws CertificateException, ParseException, JOSEException, JsonProcessingException {
+        if (!byteOrientedJose) {
+            return unwrapDcsResponse(new DcsSignedEncryptedResponse(responseBody.serialize()));
+        }
+        byte[] compact = responseBody.getBytes();
+        int[] dots = responseBody.getSeparators();
+        byte[] decryptedSignedPayload;
+        if (unwrapExecutor == null) {
+            byte[] encryptedSignedPayload = verifyCompact(compact, dots, "Outer");
+            decryptedSignedPayload = decryptCompact(encryptedSignedPayload);
+        } else {
+            Future<Boolean> outerSignatureCheck =
+                    unwrapExecutor.submit(() -> hasValidSignature(compact, dots));
+            decryptedSignedPayload =
+                    decryptWhileVerifying(
+                            outerSignatureCheck,
+                            () -> decryptCompact(decodeSegment(compact, dots[0] + 1, dots[1])));
+        }
+        return parseDcsResponse(verifyCompact(decryptedSignedPayload, "Inner"));
     }
 
     public JWSObject preparePayload(DcsPayload passportDetails)
@@ -56,12 +169,23 @@ public class DcsCryptographyService {
     public DcsResponse unwrapDcsResponse(DcsSignedEncryptedResponse dcsSignedEncryptedResponse)
             throws CertificateException, ParseException, JOSEException, JsonProcessingException {
         JWSObject outerSignedPayload = JWSObject.parse(dcsSignedEncryptedResponse.getPayload());
-        if (isInvalidSignature(outerSignedPayload)) {
-            throw new IpvCryptoException("DCS Response Outer Signature invalid.");
+        JWSObject decryptedSignedPayload;
+        if (unwrapExecutor == null) {
+            if (isInvalidSignature(outerSignedPayload)) {
+                throw new IpvCryptoException(OUTER_SIGNATURE_INVALID);
+            }
+            JWEObject encryptedSignedPayload =
+                    JWEObject.parse(outerSignedPayload.getPayload().toString());
+            decryptedSignedPayload = decrypt(encryptedSignedPayload);
+        } else {
+            String encryptedSignedPayload = outerSignedPayload.getPayload().toString();
+            Future<Boolean> outerSignatureCheck =
+                    unwrapExecutor.submit(() -> !isInvalidSignature(outerSignedPayload));
+            decryptedSignedPayload =
+                    decryptWhileVerifying(
+                            outerSignatureCheck,
+                            () -> decrypt(JWEObject.parse(encryptedSignedPayload)));
         }
-        JWEObject encryptedSignedPayload =
-                JWEObject.parse(outerSignedPayload.getPayload().toString());
-        JWSObject decryptedSignedPayload = decrypt(encryptedSignedPayload);
         if (isInvalidSignature(decryptedSignedPayload)) {
             throw new IpvCryptoException("DCS Response Inner Signature invalid.");
         }
@@ -75,35 +199,51 @@ public class DcsCryptographyService {
         }
     }
 
+    private <T extends JCAAware<JCAContext>> T withProvider(T component) {
+        return JcaProviders.withProvider(component, jcaProvider);
+    }
+
+    private <T extends JCAAware<JWEJCAContext>> T withKeyEncryptionProvider(T component) {
+        return JcaProviders.withKeyEncryptionProvider(component, jcaProvider);
+    }
+
     private JWSObject createJWS(String stringToSign)
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     CertificateException {
 
-        Thumbprints thumbprints = configurationService.makeThumbprints();
-
-        ProtectedHeader protectedHeader =
-                new ProtectedHeader(
-                        JWSAlgorithm.RS256.toString(),
-                        thumbprints.getSha1Thumbprint(),
-                        thumbprints.getSha256Thumbprint());
-
-        String jsonHeaders = gson.toJson(protectedHeader);
-
         JWSObject jwsObject =
                 new JWSObject(
-                        new JWSHeader.Builder(JWSAlgorithm.RS256)
-                                .customParams(
-                                        gson.fromJson(
-                                                jsonHeaders,
-                                                new TypeToken<Map<String, Object>>() {}.getType()))
-                                .build(),
+                        headerTemplate.get(configurationService.getPassportCriSigningCert())
+                                .header,
                         new Payload(stringToSign));
 
-        jwsObject.sign(new RSASSASigner(configurationService.getPassportCriSigningKey()));
+        jwsObject.sign(signer.get(configurationService.getPassportCriSigningKey()));
 
         return jwsObject;
     }
 
+    private SigningHeader buildHeaderTemplate(Certificate signingCert) {
+        try {
+            X509Certificate x509SigningCert = (X509Certificate) signingCert;
+            JWSHeader header =
+                    new JWSHeader.Builder(JWSAlgorithm.RS256)
+                            .customParams(
+                                    Map.of(
+                                            "x5t",
+                                            configurationService.getThumbprint(
+                                                    x509SigningCert, "SHA-1"),
+                                            "x5t#S256",
+                                            configurationService.getThumbprint(
+                                                    x509SigningCert, "SHA-256")))
+                            .build();
+            // A parsed header keeps its encoded form, so it is not re-encoded for each JWS
+            return new SigningHeader(JWSHeader.parse(header.toBase64URL()));
+        } catch (NoSuchAlgorithmException | CertificateEncodingException | ParseException e) {
+            throw new IpvCryptoException(
+                    String.format("Failed to build JWS header for DCS: %s", e.getMessage()));
+        }
+    }
+
     private JWEObject createJWE(String data) throws JOSEException, CertificateException {
 
         var header =
@@ -112,9 +252,7 @@ public class DcsCryptographyService {
                         .build();
         var jwe = new JWEObject(header, new Payload(data));
 
-        jwe.encrypt(
-                new RSAEncrypter(
-                        (RSAPublicKey) configurationService.getDcsEncryptionCert().getPublicKey()));
+        jwe.encrypt(encrypter.get(configurationService.getDcsEncryptionPublicKey()));
 
         if (!jwe.getState().equals(JWEObject.State.ENCRYPTED)) {
             throw new IpvCryptoException("Something went wrong, couldn't encrypt JWE");
@@ -125,17 +263,12 @@ public class DcsCryptographyService {
 
     private boolean isInvalidSignature(JWSObject jwsObject)
             throws CertificateException, JOSEException {
-        RSASSAVerifier rsassaVerifier =
-                new RSASSAVerifier(
-                        (RSAPublicKey) configurationService.getDcsSigningCert().getPublicKey());
-        return !jwsObject.verify(rsassaVerifier);
+        return !jwsObject.verify(verifier.get(configurationService.getDcsSigningPublicKey()));
     }
 
     public JWSObject decrypt(JWEObject encrypted) {
         try {
-            RSADecrypter rsaDecrypter =
-                    new RSADecrypter(configurationService.getPassportCriPrivateKey());
-            encrypted.decrypt(rsaDecrypter);
+            encrypted.decrypt(decrypter.get(configurationService.getPassportCriPrivateKey()));
 
             return JWSObject.parse(encrypted.getPayload().toString());
         } catch (ParseException
@@ -146,4 +279,212 @@ public class DcsCryptographyService {
                     String.format("Cannot Decrypt DCS Payload: %s", exception.getMessage()));
         }
     }
+
+    private byte[] signCompact(byte[] payload)
+            throws CertificateException, NoSuchAlgorithmException, InvalidKeySpecException,
+                    JOSEException {
+        SigningHeader signingHeader =
+                headerTemplate.get(configurationService.getPassportCriSigningCert());
+        byte[] signingInput = join(signingHeader.encoded, BASE64URL_ENCODER.encode(payload));
+        Base64URL signature =
+                signer.get(configurationService.getPassportCriSigningKey())
+                        .sign(signingHeader.header, signingInput);
+        return join(signingInput, ascii(signature));
+    }
+
+    private byte[] encryptCompact(byte[] clearText) throws CertificateException, JOSEException {
+        JWECryptoParts parts =
+                encrypter
+                        .get(configurationService.getDcsEncryptionPublicKey())
+                        .encrypt(COMPACT_JWE_HEADER, clearText);
+        return join(
+                ascii(parts.getHeader().toBase64URL()),
+                ascii(parts.getEncryptedKey()),
+                ascii(parts.getInitializationVector()),
+                ascii(parts.getCipherText()),
+                ascii(parts.getAuthenticationTag()));
+    }
+
+    private byte[] verifyCompact(byte[] compact, String layer)
+            throws CertificateException, ParseException, JOSEException {
+        return verifyCompact(compact, findSegmentSeparators(compact, 2), layer);
+    }
+
+    private byte[] verifyCompact(byte[] compact, int[] dots, String layer)
+            throws CertificateException, ParseException, JOSEException {
+        if (!hasValidSignature(compact, dots)) {
+            throw new IpvCryptoException(
+                    String.format("DCS Response %s Signature invalid.", layer));
+        }
+        return decodeSegment(compact, dots[0] + 1, dots[1]);
+    }
+
+    private boolean hasValidSignature(byte[] compact, int[] dots)
+            throws CertificateException, ParseException, JOSEException {
+        JWSHeader header = JWSHeader.parse(segment(compact, 0, dots[0]));
+        byte[] signingInput = Arrays.copyOf(compact, dots[1]);
+        Base64URL signature = segment(compact, dots[1] + 1, compact.length);
+        return verifier.get(configurationService.getDcsSigningPublicKey())
+                .verify(header, signingInput, signature);
+    }
+
+    private <T> T decryptWhileVerifying(Future<Boolean> outerSignatureCheck, DecryptStep<T> step)
+            throws CertificateException, ParseException, JOSEException {
+        T decrypted;
+        try {
+            decrypted = step.decrypt();
+        } catch (ParseException | RuntimeException e) {
+            // An invalid outer signature takes precedence, as it would when unwrapping in sequence
+            requireValidOuterSignature(outerSignatureCheck);
+            throw e;
+        }
+        requireValidOuterSignature(outerSignatureCheck);
+        return decrypted;
+    }
+
+    private static void requireValidOuterSignature(Future<Boolean> outerSignatureCheck)
+            throws CertificateException, ParseException, JOSEException {
+        try {
+            if (!outerSignatureCheck.get()) {
+                throw new IpvCryptoException(OUTER_SIGNATURE_INVALID);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IpvCryptoException(
+                    "Interrupted while verifying DCS Response Outer Signature.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CertificateException) {
+                throw (CertificateException) cause;
+            }
+            if (cause instanceof ParseException) {
+                throw (ParseException) cause;
+            }
+            if (cause instanceof JOSEException) {
+                throw (JOSEException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IpvCryptoException(
+                    String.format(
+                            "Failed to verify DCS Response Outer Signature: %s",
+                            cause.getMessage()));
+        }
+    }
+
+    private byte[] decryptCompact(byte[] compact) throws ParseException {
+        int[] dots = findSegmentSeparators(compact, 4);
+        try {
+            JWEHeader header = JWEHeader.parse(segment(compact, 0, dots[0]));
+            return decrypter
+                    .get(configurationService.getPassportCriPrivateKey())
+                    .decrypt(
+                            header,
+                            segment(compact, dots[0] + 1, dots[1]),
+                            segment(compact, dots[1] + 1, dots[2]),
+                            segment(compact, dots[2] + 1, dots[3]),
+                            segment(compact, dots[3] + 1, compact.length));
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException | JOSEException exception) {
+            throw new IpvCryptoException(
+                    String.format("Cannot Decrypt DCS Payload: %s", exception.getMessage()));
+        }
+    }
+
+    private DcsResponse parseDcsResponse(byte[] json) {
+        try {
+            return objectMapper.readValue(json, DcsResponse.class);
+        } catch (IOException exception) {
+            throw new IpvCryptoException(
+                    String.format(
+                            "Failed to parse decrypted DCS response: %s", exception.getMessage()));
+        }
+    }
+
+    private static int[] findSegmentSeparators(byte[] compact, int expected)
+            throws ParseException {
+        int[] dots = new int[expected];
+        int found = 0;
+        for (int i = 0; i < compact.length; i++) {
+            if (compact[i] == '.') {
+                if (found == expected) {
+                    throw new ParseException("Too many segments in compact serialization", i);
+                }
+                dots[found++] = i;
+            }
+        }
+        if (found != expected) {
+            throw new ParseException("Too few segments in compact serialization", 0);
+        }
+        return dots;
+    }
+
+    private static Base64URL segment(byte[] compact, int from, int to) {
+        return new Base64URL(new String(compact, from, to - from, StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] decodeSegment(byte[] compact, int from, int to) {
+        ByteBuffer decoded = BASE64URL_DECODER.decode(ByteBuffer.wrap(compact, from, to - from));
+        return decoded.remaining() == decoded.array().length
+                ? decoded.array()
+                : Arrays.copyOfRange(decoded.array(), decoded.position(), decoded.limit());
+    }
+
+    private static byte[] ascii(Base64URL value) {
+        return value.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] join(byte[]... segments) {
+        int length = segments.length - 1;
+        for (byte[] segment : segments) {
+            length += segment.length;
+        }
+        byte[] joined = new byte[length];
+        int offset = 0;
+        for (int i = 0; i < segments.length; i++) {
+            if (i > 0) {
+                joined[offset++] = '.';
+            }
+            System.arraycopy(segments[i], 0, joined, offset, segments[i].length);
+            offset += segments[i].length;
+        }
+        return joined;
+    }
+
+    private static JWEHeader buildCompactJweHeader() {
+        JWEHeader header =
+                new JWEHeader.Builder(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A128CBC_HS256)
+                        .type(new JOSEObjectType("JWE"))
+                        .build();
+        try {
+            return JWEHeader.parse(header.toBase64URL());
+        } catch (ParseException e) {
+            throw new IllegalStateException("Failed to parse DCS JWE header", e);
+        }
+    }
+
+    private interface DecryptStep<T> {
+        T decrypt() throws ParseException;
+    }
+
+    private static final class UnwrapExecutorHolder {
+        private static final ExecutorService EXECUTOR =
+                Executors.newFixedThreadPool(
+                        2,
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "dcs-response-unwrap");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+    }
+
+    private static final class SigningHeader {
+        private final JWSHeader header;
+        private final byte[] encoded;
+
+        private SigningHeader(JWSHeader header) {
+            this.header = header;
+            this.encoded = ascii(header.toBase64URL());
+        }
+    }
 }
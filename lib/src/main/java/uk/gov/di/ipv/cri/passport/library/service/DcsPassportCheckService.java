@@ -2,6 +2,7 @@ package uk.gov.di.ipv.cri.passport.library.service;
 
 import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
 import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.DynamoDbClientFactory;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
 
 public class DcsPassportCheckService {
@@ -13,7 +14,7 @@ public class DcsPassportCheckService {
                 new DataStore<>(
                         configurationService.getDcsResponseTableName(),
                         PassportCheckDao.class,
-                        DataStore.getClient(configurationService.getDynamoDbEndpointOverride()),
+                        DynamoDbClientFactory.getClient(configurationService),
                         configurationService);
     }
 
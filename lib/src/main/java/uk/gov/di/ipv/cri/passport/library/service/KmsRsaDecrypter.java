@@ -1,5 +1,6 @@
 package uk.gov.di.ipv.cri.passport.library.service;
 
+import com.amazonaws.http.timers.client.ClientExecutionTimeoutException;
 import com.amazonaws.services.kms.AWSKMS;
 import com.amazonaws.services.kms.AWSKMSClientBuilder;
 import com.amazonaws.services.kms.model.DecryptRequest;
@@ -14,6 +15,8 @@ import com.nimbusds.jose.crypto.impl.ContentCryptoProvider;
 import com.nimbusds.jose.jca.JWEJCAContext;
 import com.nimbusds.jose.util.Base64URL;
 import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.passport.library.exceptions.DeadlineExceededException;
+import uk.gov.di.ipv.cri.passport.library.helpers.RequestDeadline;
 
 import javax.crypto.spec.SecretKeySpec;
 
@@ -71,13 +74,25 @@ public class KmsRsaDecrypter implements JWEDecrypter {
                     AlgorithmSupportMessage.unsupportedJWEAlgorithm(alg, supportedJWEAlgorithms()));
         }
 
+        RequestDeadline deadline = RequestDeadline.current();
         DecryptRequest encryptedKeyDecryptRequest =
                 new DecryptRequest()
                         .withCiphertextBlob(ByteBuffer.wrap(encryptedKey.decode()))
                         .withEncryptionAlgorithm(RSAES_OAEP_SHA_256)
-                        .withKeyId(keyId);
-
-        DecryptResult decryptResult = kmsClient.decrypt(encryptedKeyDecryptRequest);
+                        .withKeyId(keyId)
+                        .withSdkClientExecutionTimeout(
+                                deadline.timeoutMillis(RequestDeadline.STAGE_KMS, 0));
+
+        long start = System.nanoTime();
+        DecryptResult decryptResult;
+        try {
+            decryptResult = kmsClient.decrypt(encryptedKeyDecryptRequest);
+        } catch (ClientExecutionTimeoutException e) {
+            throw new DeadlineExceededException(
+                    RequestDeadline.STAGE_KMS, deadline.getBudgetMillis(), e);
+        } finally {
+            deadline.recordStage(RequestDeadline.STAGE_KMS, start);
+        }
 
         SecretKeySpec contentEncryptionKey =
                 new SecretKeySpec(decryptResult.getPlaintext().array(), "AES");
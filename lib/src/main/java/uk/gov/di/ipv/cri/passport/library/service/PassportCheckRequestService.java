@@ -0,0 +1,136 @@
+package uk.gov.di.ipv.cri.passport.library.service;
+
+import org.apache.commons.codec.digest.HmacAlgorithms;
+import org.apache.commons.codec.digest.HmacUtils;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
+import uk.gov.di.ipv.cri.passport.library.helpers.RequestDeadline;
+import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.DynamoDbClientFactory;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckRequestItem;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records each passport check submission so that a duplicate of one that is in flight, or has
+ * just completed, is answered with the stored result instead of another DCS call.
+ */
+public class PassportCheckRequestService {
+    public static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    private static final long POLL_INTERVAL_MILLIS = 200L;
+    private static final String CLAIM_CONDITION =
+            "attribute_not_exists(#requestKey) OR #ttl < :now";
+
+    private final DataStore<PassportCheckRequestItem> dataStore;
+    private final ConfigurationService configurationService;
+    private final Clock clock;
+
+    @ExcludeFromGeneratedCoverageReport
+    public PassportCheckRequestService(ConfigurationService configurationService) {
+        this.configurationService = configurationService;
+        this.dataStore =
+                new DataStore<>(
+                        this.configurationService.getPassportCheckRequestsTableName(),
+                        PassportCheckRequestItem.class,
+                        DynamoDbClientFactory.getClient(this.configurationService),
+                        this.configurationService);
+        this.clock = Clock.systemUTC();
+    }
+
+    public PassportCheckRequestService(
+            DataStore<PassportCheckRequestItem> dataStore,
+            ConfigurationService configurationService,
+            Clock clock) {
+        this.dataStore = dataStore;
+        this.configurationService = configurationService;
+        this.clock = clock;
+    }
+
+    /**
+     * Derives the key with an HMAC over the passport details, so a leaked key cannot be matched
+     * back to a passport without the DUPLICATE_CHECK_KEY secret.
+     */
+    public String createRequestKey(String passportSessionId, DcsPayload dcsPayload) {
+        // The correlation id, request id and timestamp are generated per request, so leave them out
+        String identity =
+                String.join(
+                        "\n",
+                        dcsPayload.getPassportNumber(),
+                        dcsPayload.getSurname(),
+                        String.join(" ", dcsPayload.getForenames()),
+                        String.valueOf(dcsPayload.getDateOfBirth()),
+                        String.valueOf(dcsPayload.getExpiryDate()));
+        byte[] key = configurationService.getDuplicateCheckKey();
+        String digest = new HmacUtils(HmacAlgorithms.HMAC_SHA_256, key).hmacHex(identity);
+        return passportSessionId + "#" + digest;
+    }
+
+    /**
+     * Returns true if this call now owns the check, false if another submission with the same
+     * key is in flight or completed within DUPLICATE_CHECK_TTL_SECONDS.
+     */
+    public boolean claim(String requestKey) {
+        long now = clock.instant().getEpochSecond();
+        PassportCheckRequestItem item =
+                new PassportCheckRequestItem(requestKey, STATUS_IN_PROGRESS, null);
+        item.setTtl(now + configurationService.getDuplicateCheckTtlSeconds());
+        // DynamoDB removes expired items lazily, so an expired claim must not block a new one
+        AttributeValue nowValue = AttributeValue.builder().n(Long.toString(now)).build();
+        Expression condition =
+                Expression.builder()
+                        .expression(CLAIM_CONDITION)
+                        .expressionNames(Map.of("#requestKey", "requestKey", "#ttl", "ttl"))
+                        .expressionValues(Map.of(":now", nowValue))
+                        .build();
+        return dataStore.createIfConditionMet(item, condition);
+    }
+
+    public void complete(String requestKey, String result) {
+        PassportCheckRequestItem item =
+                new PassportCheckRequestItem(requestKey, STATUS_COMPLETED, result);
+        item.setTtl(
+                clock.instant().getEpochSecond()
+                        + configurationService.getDuplicateCheckTtlSeconds());
+        dataStore.update(item);
+    }
+
+    public void release(String requestKey) {
+        dataStore.delete(requestKey);
+    }
+
+    /**
+     * Polls for the result of the submission holding the claim, for up to
+     * DUPLICATE_CHECK_WAIT_MILLIS or the remaining request deadline.
+     */
+    public Optional<String> awaitResult(String requestKey) {
+        int waitMillis = configurationService.getDuplicateCheckWaitMillis();
+        if (waitMillis > 0) {
+            waitMillis =
+                    RequestDeadline.current()
+                            .timeoutMillis(RequestDeadline.STAGE_DYNAMODB, waitMillis);
+        }
+        long waitUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        while (true) {
+            PassportCheckRequestItem item = dataStore.getItem(requestKey);
+            if (item != null && STATUS_COMPLETED.equals(item.getStatus())) {
+                return Optional.of(item.getResult());
+            }
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(waitUntil - System.nanoTime());
+            if (remainingMillis <= 0) {
+                return Optional.empty();
+            }
+            try {
+                Thread.sleep(Math.min(POLL_INTERVAL_MILLIS, remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            }
+        }
+    }
+}
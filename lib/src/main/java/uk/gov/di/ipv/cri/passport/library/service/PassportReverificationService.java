@@ -0,0 +1,97 @@
+package uk.gov.di.ipv.cri.passport.library.service;
+
+import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Evidence;
+import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.DynamoDbClientFactory;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportReverificationItem;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads passport checks in bulk for a re-verification run, and records the evidence from each
+ * re-verification in a checkpoint of its own, so a resumed run skips it. The original checks and
+ * their evidence are left as they were issued.
+ */
+public class PassportReverificationService {
+    private final DataStore<PassportCheckDao> passportCheckDataStore;
+    private final DataStore<PassportReverificationItem> checkpointDataStore;
+    private final ConfigurationService configurationService;
+    private final Clock clock;
+
+    @ExcludeFromGeneratedCoverageReport
+    public PassportReverificationService(ConfigurationService configurationService) {
+        this.configurationService = configurationService;
+        this.passportCheckDataStore =
+                new DataStore<>(
+                        configurationService.getDcsResponseTableName(),
+                        PassportCheckDao.class,
+                        DynamoDbClientFactory.getClient(configurationService),
+                        configurationService);
+        this.checkpointDataStore =
+                new DataStore<>(
+                        configurationService.getReverificationCheckpointsTableName(),
+                        PassportReverificationItem.class,
+                        DynamoDbClientFactory.getClient(configurationService),
+                        configurationService);
+        this.clock = Clock.systemUTC();
+    }
+
+    public PassportReverificationService(
+            DataStore<PassportCheckDao> passportCheckDataStore,
+            DataStore<PassportReverificationItem> checkpointDataStore,
+            ConfigurationService configurationService,
+            Clock clock) {
+        this.passportCheckDataStore = passportCheckDataStore;
+        this.checkpointDataStore = checkpointDataStore;
+        this.configurationService = configurationService;
+        this.clock = clock;
+    }
+
+    public Set<String> getCompletedResourceIds(String runId, Collection<String> resourceIds) {
+        List<String> checkpointKeys =
+                resourceIds.stream()
+                        .map(resourceId -> checkpointKey(runId, resourceId))
+                        .collect(Collectors.toList());
+        return checkpointDataStore.batchGetItems(checkpointKeys).stream()
+                .map(PassportReverificationItem::getResourceId)
+                .collect(Collectors.toSet());
+    }
+
+    public List<PassportCheckDao> getPassportChecks(Collection<String> resourceIds) {
+        return passportCheckDataStore.batchGetItems(resourceIds);
+    }
+
+    /**
+     * Checkpoints each re-verified check with the evidence from its re-verification. Returns the
+     * resource ids whose results could not be written, which are left for the run to retry.
+     */
+    public Set<String> saveResults(String runId, Map<String, Evidence> evidenceByResourceId) {
+        long ttl =
+                clock.instant().getEpochSecond()
+                        + configurationService.getReverificationCheckpointTtlSeconds();
+        List<PassportReverificationItem> checkpoints = new ArrayList<>();
+        evidenceByResourceId.forEach(
+                (resourceId, evidence) -> {
+                    PassportReverificationItem checkpoint =
+                            new PassportReverificationItem(
+                                    checkpointKey(runId, resourceId), runId, resourceId, evidence);
+                    checkpoint.setTtl(ttl);
+                    checkpoints.add(checkpoint);
+                });
+        return checkpointDataStore.batchPutItems(checkpoints).stream()
+                .map(PassportReverificationItem::getResourceId)
+                .collect(Collectors.toSet());
+    }
+
+    private static String checkpointKey(String runId, String resourceId) {
+        return runId + "#" + resourceId;
+    }
+}
@@ -1,40 +1,99 @@
 package uk.gov.di.ipv.cri.passport.library.service;
 
 import com.nimbusds.jose.JWSObject;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import uk.gov.di.ipv.cri.passport.library.domain.CompactSerialization;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsSignedEncryptedResponse;
+import uk.gov.di.ipv.cri.passport.library.exceptions.CallNotPermittedException;
 import uk.gov.di.ipv.cri.passport.library.exceptions.EmptyDcsResponseException;
+import uk.gov.di.ipv.cri.passport.library.exceptions.InvalidDcsResponseException;
+import uk.gov.di.ipv.cri.passport.library.helpers.CircuitBreaker;
+import uk.gov.di.ipv.cri.passport.library.helpers.CompactSerializationReader;
 import uk.gov.di.ipv.cri.passport.library.helpers.HttpClientSetUp;
+import uk.gov.di.ipv.cri.passport.library.helpers.MetricsHelper;
+import uk.gov.di.ipv.cri.passport.library.helpers.RequestDeadline;
 import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.DynamoDbClientFactory;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpResponse.BodySubscribers;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.spec.InvalidKeySpecException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class PassportService {
 
     public static final String CONTENT_TYPE = "content-type";
     public static final String APPLICATION_JOSE = "application/jose";
+    private static final String CONTENT_LENGTH = "content-length";
+    private static final int DCS_RESPONSE_SEGMENTS = 3;
     private static final Logger LOGGER = LoggerFactory.getLogger(PassportService.class);
     private final ConfigurationService configurationService;
     private final DataStore<PassportCheckDao> dataStore;
     private final HttpClient httpClient;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final java.net.http.HttpClient asyncHttpClient;
+    private final CircuitBreaker circuitBreaker;
 
     public PassportService(
             HttpClient httpClient,
             ConfigurationService configurationService,
             DataStore<PassportCheckDao> dataStore) {
+        this(httpClient, null, configurationService, dataStore);
+    }
+
+    public PassportService(
+            HttpClient httpClient,
+            PoolingHttpClientConnectionManager connectionManager,
+            ConfigurationService configurationService,
+            DataStore<PassportCheckDao> dataStore) {
+        this(httpClient, connectionManager, null, null, configurationService, dataStore);
+    }
+
+    public PassportService(
+            HttpClient httpClient,
+            PoolingHttpClientConnectionManager connectionManager,
+            java.net.http.HttpClient asyncHttpClient,
+            CircuitBreaker circuitBreaker,
+            ConfigurationService configurationService,
+            DataStore<PassportCheckDao> dataStore) {
         this.httpClient = httpClient;
+        this.connectionManager = connectionManager;
+        this.asyncHttpClient = asyncHttpClient;
+        this.circuitBreaker = circuitBreaker;
         this.configurationService = configurationService;
         this.dataStore = dataStore;
     }
@@ -47,18 +106,174 @@ public class PassportService {
                 new DataStore<>(
                         this.configurationService.getDcsResponseTableName(),
                         PassportCheckDao.class,
-                        DataStore.getClient(
-                                this.configurationService.getDynamoDbEndpointOverride()),
+                        DynamoDbClientFactory.getClient(this.configurationService),
                         configurationService);
-        this.httpClient = HttpClientSetUp.generateHttpClient(this.configurationService);
+        this.connectionManager = HttpClientSetUp.createConnectionManager(configurationService);
+        this.httpClient =
+                HttpClientSetUp.generateHttpClient(configurationService, connectionManager);
+        this.asyncHttpClient =
+                configurationService.isDcsAsyncClientEnabled()
+                        ? HttpClientSetUp.generateAsyncHttpClient(configurationService)
+                        : null;
+        this.circuitBreaker =
+                new CircuitBreaker(
+                        "DCS",
+                        configurationService.getDcsCircuitFailureThreshold(),
+                        Duration.ofMillis(configurationService.getDcsCircuitOpenMillis()),
+                        configurationService.getDcsCircuitHalfOpenProbes(),
+                        configurationService.getDcsBulkheadMaxConcurrentCalls(),
+                        Clock.systemUTC());
     }
 
     public DcsSignedEncryptedResponse dcsPassportCheck(JWSObject payload)
             throws IOException, EmptyDcsResponseException {
+        return new DcsSignedEncryptedResponse(
+                postToDcs(new StringEntity(payload.serialize())).serialize());
+    }
+
+    public CompactSerialization dcsPassportCheck(byte[] requestBody)
+            throws IOException, EmptyDcsResponseException {
+        return postToDcs(new ByteArrayEntity(requestBody));
+    }
+
+    /**
+     * Sends the passport check without holding the calling thread for the DCS round trip. Uses
+     * the non-blocking client when DCS_ASYNC_CLIENT is set, otherwise the pooled blocking client
+     * on a background thread. The future fails with the same exceptions as the blocking call.
+     */
+    public CompletableFuture<DcsSignedEncryptedResponse> dcsPassportCheckAsync(
+            JWSObject payload) {
+        if (asyncHttpClient == null) {
+            return supplyBlocking(() -> dcsPassportCheck(payload));
+        }
+        return postToDcsAsync(BodyPublishers.ofString(payload.serialize()))
+                .thenApply(response -> new DcsSignedEncryptedResponse(response.serialize()));
+    }
+
+    public CompletableFuture<CompactSerialization> dcsPassportCheckAsync(byte[] requestBody) {
+        if (asyncHttpClient == null) {
+            return supplyBlocking(() -> dcsPassportCheck(requestBody));
+        }
+        return postToDcsAsync(BodyPublishers.ofByteArray(requestBody));
+    }
+
+    private CompletableFuture<CompactSerialization> postToDcsAsync(BodyPublisher requestBody) {
+        RequestDeadline deadline = RequestDeadline.current();
+        Duration timeout =
+                Duration.ofMillis(
+                        deadline.timeoutMillis(
+                                RequestDeadline.STAGE_DCS,
+                                configurationService.getDcsSocketTimeoutMillis()));
+        HttpRequest request =
+                HttpRequest.newBuilder(URI.create(configurationService.getDCSPostUrl()))
+                        .header(CONTENT_TYPE, APPLICATION_JOSE)
+                        .timeout(timeout)
+                        .POST(requestBody)
+                        .build();
+
+        try {
+            acquireCircuit();
+        } catch (CallNotPermittedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long start = System.nanoTime();
+        CompletableFuture<java.net.http.HttpResponse<CompactSerialization>> responseFuture;
+        try {
+            responseFuture = asyncHttpClient.sendAsync(request, boundedBodyHandler());
+        } catch (RuntimeException e) {
+            deadline.recordStage(RequestDeadline.STAGE_DCS, start);
+            recordCircuitOutcome(e);
+            return CompletableFuture.failedFuture(e);
+        }
+        return responseFuture
+                .whenComplete(
+                        (response, error) -> deadline.recordStage(RequestDeadline.STAGE_DCS, start))
+                .thenApply(
+                        response -> {
+                            if (response.statusCode() != 200) {
+                                LOGGER.error(
+                                        "Response from DCS has status code: {}",
+                                        response.statusCode());
+                                throw new CompletionException(
+                                        new HttpResponseException(
+                                                response.statusCode(),
+                                                "DCS responded with an error"));
+                            }
+                            if (response.body() == null) {
+                                throw new CompletionException(
+                                        new EmptyDcsResponseException(
+                                                "Response from DCS is empty"));
+                            }
+                            return response.body();
+                        })
+                .whenComplete((body, error) -> recordCircuitOutcome(error));
+    }
+
+    private BodyHandler<CompactSerialization> boundedBodyHandler() {
+        int maxBytes = configurationService.getDcsMaxResponseBytes();
+        return responseInfo ->
+                responseInfo.statusCode() != 200
+                        ? BodySubscribers.replacing(null)
+                        : CompactSerializationReader.subscriber(
+                                maxBytes,
+                                DCS_RESPONSE_SEGMENTS,
+                                responseInfo
+                                        .headers()
+                                        .firstValueAsLong(CONTENT_LENGTH)
+                                        .orElse(-1L));
+    }
+
+    private static <T> CompletableFuture<T> supplyBlocking(DcsCall<T> call) {
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    try {
+                        return call.execute();
+                    } catch (IOException | EmptyDcsResponseException e) {
+                        throw new CompletionException(e);
+                    }
+                },
+                DcsCallExecutorHolder.EXECUTOR);
+    }
+
+    private CompactSerialization postToDcs(HttpEntity requestEntity)
+            throws IOException, EmptyDcsResponseException {
+        RequestDeadline deadline = RequestDeadline.current();
         HttpPost request = new HttpPost(configurationService.getDCSPostUrl());
         request.addHeader(CONTENT_TYPE, APPLICATION_JOSE);
-        request.setEntity(new StringEntity(payload.serialize()));
+        request.setEntity(requestEntity);
+        request.setConfig(
+                RequestConfig.custom()
+                        .setConnectTimeout(
+                                deadline.timeoutMillis(
+                                        RequestDeadline.STAGE_DCS,
+                                        configurationService.getDcsConnectTimeoutMillis()))
+                        .setSocketTimeout(
+                                deadline.timeoutMillis(
+                                        RequestDeadline.STAGE_DCS,
+                                        configurationService.getDcsSocketTimeoutMillis()))
+                        .setConnectionRequestTimeout(
+                                deadline.timeoutMillis(
+                                        RequestDeadline.STAGE_DCS,
+                                        configurationService
+                                                .getDcsConnectionRequestTimeoutMillis()))
+                        .build());
 
+        acquireCircuit();
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            return executeDcsPost(request);
+        } catch (IOException | EmptyDcsResponseException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            deadline.recordStage(RequestDeadline.STAGE_DCS, start);
+            recordCircuitOutcome(failure);
+        }
+    }
+
+    private CompactSerialization executeDcsPost(HttpPost request)
+            throws IOException, EmptyDcsResponseException {
         HttpResponse response = httpClient.execute(request);
 
         if (response == null) {
@@ -68,14 +283,161 @@ public class PassportService {
         if (response.getStatusLine().getStatusCode() != 200) {
             int statusCode = response.getStatusLine().getStatusCode();
             LOGGER.error("Response from DCS has status code: {}", statusCode);
+            // Release the pooled connection, the error body is not used
+            EntityUtils.consumeQuietly(response.getEntity());
             throw new HttpResponseException(
                     response.getStatusLine().getStatusCode(), "DCS responded with an error");
         }
 
-        return new DcsSignedEncryptedResponse(EntityUtils.toString(response.getEntity()));
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            throw new EmptyDcsResponseException("Response from DCS is empty");
+        }
+        InputStream content = entity.getContent();
+        try {
+            return CompactSerializationReader.read(
+                    content,
+                    entity.getContentLength(),
+                    configurationService.getDcsMaxResponseBytes(),
+                    DCS_RESPONSE_SEGMENTS);
+        } catch (InvalidDcsResponseException e) {
+            LOGGER.error("Rejected response from DCS: {}", e.getMessage());
+            // Drop the connection rather than draining the rest of the body into the pool
+            request.abort();
+            throw e;
+        } finally {
+            content.close();
+        }
+    }
+
+    private void acquireCircuit() throws CallNotPermittedException {
+        if (circuitBreaker != null) {
+            circuitBreaker.acquire();
+        }
+    }
+
+    private void recordCircuitOutcome(Throwable error) {
+        if (circuitBreaker == null) {
+            return;
+        }
+        Throwable cause =
+                error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+        // A 4xx means DCS rejected this request, not that DCS is unhealthy
+        if (cause == null
+                || (cause instanceof HttpResponseException
+                        && ((HttpResponseException) cause).getStatusCode() < 500)) {
+            circuitBreaker.onSuccess();
+        } else {
+            circuitBreaker.onFailure();
+        }
     }
 
     public void persistDcsResponse(PassportCheckDao responsePayload) {
         dataStore.create(responsePayload);
     }
+
+    /** The write of a DCS response, to commit along with the passport session. */
+    public TransactWriteItem createDcsResponseWrite(PassportCheckDao responsePayload) {
+        return dataStore.transactPut(responsePayload);
+    }
+
+    /**
+     * Opens and handshakes a pooled connection to DCS so the first passport check does not pay
+     * for it. Bounded by DCS_WARM_UP_TIMEOUT_MILLIS (0 disables it); failures are only logged.
+     */
+    public void warmUpDcsConnection() {
+        int timeoutMillis = configurationService.getDcsWarmUpTimeoutMillis();
+        if (timeoutMillis <= 0) {
+            return;
+        }
+        if (asyncHttpClient != null) {
+            HttpRequest request =
+                    HttpRequest.newBuilder(URI.create(configurationService.getDCSPostUrl()))
+                            .method("HEAD", BodyPublishers.noBody())
+                            .timeout(Duration.ofMillis(timeoutMillis))
+                            .build();
+            awaitWarmUp(
+                    asyncHttpClient
+                            .sendAsync(request, BodyHandlers.discarding())
+                            .thenApply(java.net.http.HttpResponse::statusCode),
+                    timeoutMillis,
+                    () -> {});
+            return;
+        }
+        HttpHead request = new HttpHead(configurationService.getDCSPostUrl());
+        request.setConfig(
+                RequestConfig.custom()
+                        .setConnectTimeout(timeoutMillis)
+                        .setSocketTimeout(timeoutMillis)
+                        .setConnectionRequestTimeout(timeoutMillis)
+                        .build());
+        awaitWarmUp(
+                CompletableFuture.supplyAsync(() -> executeWarmUp(request)),
+                timeoutMillis,
+                request::abort);
+    }
+
+    private void awaitWarmUp(CompletableFuture<Integer> warmUp, int timeoutMillis, Runnable abort) {
+        long start = System.nanoTime();
+        try {
+            int statusCode = warmUp.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            LOGGER.info(
+                    "Warmed up DCS connection in {} ms, DCS responded with status code {}",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    statusCode);
+        } catch (TimeoutException e) {
+            abort.run();
+            LOGGER.warn("DCS connection warm-up did not complete within {} ms", timeoutMillis);
+        } catch (InterruptedException e) {
+            abort.run();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.warn("DCS connection warm-up failed: {}", e.getCause().getMessage());
+        }
+    }
+
+    private int executeWarmUp(HttpHead request) {
+        try {
+            HttpResponse response = httpClient.execute(request);
+            // A HEAD response has no body, so the connection is already back in the pool
+            return response.getStatusLine().getStatusCode();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void publishCircuitBreakerMetrics() {
+        if (circuitBreaker != null) {
+            MetricsHelper.putCount(
+                    MetricsHelper.DCS_CIRCUIT_BREAKER_STATE,
+                    circuitBreaker.getState().getMetricValue());
+        }
+    }
+
+    public void publishConnectionPoolMetrics() {
+        if (connectionManager == null) {
+            return;
+        }
+        PoolStats stats = connectionManager.getTotalStats();
+        MetricsHelper.putCount(MetricsHelper.DCS_POOL_LEASED, stats.getLeased());
+        MetricsHelper.putCount(MetricsHelper.DCS_POOL_AVAILABLE, stats.getAvailable());
+        MetricsHelper.putCount(MetricsHelper.DCS_POOL_PENDING, stats.getPending());
+    }
+
+    @FunctionalInterface
+    private interface DcsCall<T> {
+        T execute() throws IOException, EmptyDcsResponseException;
+    }
+
+    private static final class DcsCallExecutorHolder {
+        private static final ExecutorService EXECUTOR =
+                Executors.newCachedThreadPool(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "dcs-passport-check");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+    }
 }
@@ -1,21 +1,34 @@
 package uk.gov.di.ipv.cri.passport.library.service;
 
 import com.nimbusds.jwt.JWTClaimsSet;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 import uk.gov.di.ipv.cri.passport.library.annotations.ExcludeFromGeneratedCoverageReport;
 import uk.gov.di.ipv.cri.passport.library.domain.AuthParams;
 import uk.gov.di.ipv.cri.passport.library.helpers.LogHelper;
 import uk.gov.di.ipv.cri.passport.library.helpers.SecureTokenHelper;
+import uk.gov.di.ipv.cri.passport.library.persistence.AttributeUpdate;
 import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.DynamoDbClientFactory;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportSessionItem;
 
 import java.text.ParseException;
 import java.time.Instant;
+import java.util.List;
 
 public class PassportSessionService {
     private static final String RESPONSE_TYPE = "response_type";
     private static final String CLIENT_ID = "client_id";
     private static final String STATE = "state";
     private static final String REDIRECT_URI = "redirect_uri";
+    private static final String LATEST_DCS_RESPONSE_RESOURCE_ID = "latestDcsResponseResourceId";
+    private static final String ATTEMPT_COUNT = "attemptCount";
+    private static final int RECORD_PASSPORT_CHECK_ATTEMPTS = 3;
+    private static final int SESSION_UPDATE_INDEX = 1;
+    private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
 
     private final DataStore<PassportSessionItem> dataStore;
     private final ConfigurationService configurationService;
@@ -27,8 +40,8 @@ public class PassportSessionService {
                 new DataStore<>(
                         this.configurationService.getPassportBackSessionsTableName(),
                         PassportSessionItem.class,
-                        DataStore.getClient(
-                                this.configurationService.getDynamoDbEndpointOverride()),
+                        DynamoDbClientFactory.getClient(this.configurationService),
+                        DynamoDbClientFactory.getDynamoDbClient(this.configurationService),
                         this.configurationService);
     }
 
@@ -67,14 +80,72 @@ public class PassportSessionService {
     }
 
     public void setLatestDcsResponseResourceId(String passportSessionID, String resourceId) {
-        PassportSessionItem passportSessionItem = dataStore.getItem(passportSessionID);
-        passportSessionItem.setLatestDcsResponseResourceId(resourceId);
-        dataStore.update(passportSessionItem);
+        dataStore.updateAttributes(
+                passportSessionID,
+                new AttributeUpdate().set(LATEST_DCS_RESPONSE_RESOURCE_ID, resourceId));
     }
 
-    public void incrementAttemptCount(String passportSessionID) {
-        PassportSessionItem passportSessionItem = dataStore.getItem(passportSessionID);
-        passportSessionItem.setAttemptCount(passportSessionItem.getAttemptCount() + 1);
-        dataStore.update(passportSessionItem);
+    /** Returns the attempt count after this attempt. */
+    public int incrementAttemptCount(String passportSessionID) {
+        PassportSessionItem passportSessionItem =
+                dataStore.updateAttributes(
+                        passportSessionID, new AttributeUpdate().add(ATTEMPT_COUNT, 1));
+        if (passportSessionItem == null) {
+            throw new IllegalArgumentException(
+                    "Failed to increment attempt count - passport session could not be found");
+        }
+        return passportSessionItem.getAttemptCount();
+    }
+
+    /**
+     * Writes the passport check, points the session at it and counts the attempt in one
+     * transaction, returning the new attempt count. The count is only written if it still holds
+     * the value the caller read, so it never has to be read back; if another attempt has moved it,
+     * the session is read again and the transaction retried. Any other cancellation is rethrown.
+     */
+    public int recordPassportCheck(
+            String passportSessionID,
+            int previousAttemptCount,
+            String resourceId,
+            TransactWriteItem passportCheckWrite) {
+        int attemptCount = previousAttemptCount;
+        for (int attempt = 1; ; attempt++) {
+            AttributeUpdate update =
+                    new AttributeUpdate()
+                            .set(LATEST_DCS_RESPONSE_RESOURCE_ID, resourceId)
+                            .set(ATTEMPT_COUNT, numberValue(attemptCount + 1))
+                            .condition(
+                                    Expression.builder()
+                                            .expression("#attemptCount = :attemptCount")
+                                            .putExpressionName("#attemptCount", ATTEMPT_COUNT)
+                                            .putExpressionValue(
+                                                    ":attemptCount", numberValue(attemptCount))
+                                            .build());
+            try {
+                dataStore.transactWrite(
+                        passportCheckWrite, dataStore.transactUpdate(passportSessionID, update));
+                return attemptCount + 1;
+            } catch (TransactionCanceledException e) {
+                if (attempt >= RECORD_PASSPORT_CHECK_ATTEMPTS || !isAttemptCountMoved(e)) {
+                    throw e;
+                }
+                PassportSessionItem passportSessionItem = dataStore.getItem(passportSessionID);
+                if (passportSessionItem == null) {
+                    throw new IllegalArgumentException(
+                            "Failed to record check - passport session could not be found");
+                }
+                attemptCount = passportSessionItem.getAttemptCount();
+            }
+        }
+    }
+
+    private static boolean isAttemptCountMoved(TransactionCanceledException e) {
+        List<CancellationReason> reasons = e.cancellationReasons();
+        return reasons.size() > SESSION_UPDATE_INDEX
+                && CONDITIONAL_CHECK_FAILED.equals(reasons.get(SESSION_UPDATE_INDEX).code());
+    }
+
+    private static AttributeValue numberValue(int value) {
+        return AttributeValue.builder().n(Integer.toString(value)).build();
     }
 }
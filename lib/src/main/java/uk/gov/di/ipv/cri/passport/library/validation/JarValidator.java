@@ -4,6 +4,7 @@ import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWEObject;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
 import com.nimbusds.jwt.JWTClaimNames;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
@@ -13,9 +14,12 @@ import com.nimbusds.oauth2.sdk.OAuth2Error;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.ssm.model.SsmException;
+import uk.gov.di.ipv.cri.passport.library.config.ClientConfig;
 import uk.gov.di.ipv.cri.passport.library.exceptions.JarValidationException;
 import uk.gov.di.ipv.cri.passport.library.exceptions.RecoverableJarValidationException;
+import uk.gov.di.ipv.cri.passport.library.exceptions.UnknownClientException;
 import uk.gov.di.ipv.cri.passport.library.helpers.JwtHelper;
+import uk.gov.di.ipv.cri.passport.library.helpers.RequestDeadline;
 import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
 import uk.gov.di.ipv.cri.passport.library.service.KmsRsaDecrypter;
 
@@ -23,7 +27,6 @@ import java.net.URI;
 import java.text.ParseException;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.util.List;
 import java.util.Set;
 
 public class JarValidator {
@@ -47,6 +50,7 @@ public class JarValidator {
 
             return jweObject.getPayload().toSignedJWT();
         } catch (JOSEException e) {
+            RequestDeadline.rethrowIfExceeded(e);
             LOGGER.error("Failed to decrypt the JWE");
             throw new JarValidationException(
                     OAuth2Error.INVALID_REQUEST_OBJECT.setDescription(
@@ -56,15 +60,15 @@ public class JarValidator {
 
     public JWTClaimsSet validateRequestJwt(SignedJWT signedJWT, String clientId)
             throws JarValidationException, ParseException {
-        validateQueryParamClientIdIsRecognised(clientId);
+        ClientConfig client = getRecognisedClient(clientId);
         validateJWTHeader(signedJWT);
-        validateSignature(signedJWT, clientId);
+        validateSignature(signedJWT, client);
         JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
         validateQueryParamClientIdMatchesRequestObjectClientId(clientId, claimsSet);
-        URI redirectUri = validateRedirectUri(claimsSet, clientId);
+        URI redirectUri = validateRedirectUri(claimsSet, client, clientId);
 
         try {
-            JWTClaimsSet validatedClaimSet = getValidatedClaimSet(signedJWT, clientId);
+            JWTClaimsSet validatedClaimSet = getValidatedClaimSet(signedJWT, client);
             return validatedClaimSet;
         } catch (JarValidationException e) {
             String state = claimsSet.getStringClaim(STATE);
@@ -73,11 +77,10 @@ public class JarValidator {
         }
     }
 
-    private void validateQueryParamClientIdIsRecognised(String clientId)
-            throws JarValidationException {
+    private ClientConfig getRecognisedClient(String clientId) throws JarValidationException {
         try {
-            configurationService.getClientIssuer(clientId);
-        } catch (SsmException e) {
+            return configurationService.getClientConfig(clientId);
+        } catch (UnknownClientException | SsmException e) {
             LOGGER.error("Unknown client id provided {}", clientId);
             throw new JarValidationException(
                     OAuth2Error.INVALID_CLIENT.setDescription("Unknown client id was provided"));
@@ -115,8 +118,16 @@ public class JarValidator {
         }
     }
 
-    private void validateSignature(SignedJWT signedJWT, String clientId)
+    private void validateSignature(SignedJWT signedJWT, ClientConfig client)
             throws JarValidationException {
+        ECKey signingPublicJwk = client.getSigningPublicJwk();
+        if (signingPublicJwk == null) {
+            LOGGER.error(
+                    "No valid signing public JWK configured for client {}", client.getClientId());
+            throw new JarValidationException(
+                    OAuth2Error.INVALID_REQUEST_OBJECT.setDescription(
+                            "Failed to parse JWT when attempting signature validation"));
+        }
         try {
             SignedJWT concatSignatureJwt;
             if (JwtHelper.signatureIsDerFormat(signedJWT)) {
@@ -124,10 +135,7 @@ public class JarValidator {
             } else {
                 concatSignatureJwt = signedJWT;
             }
-            boolean valid =
-                    concatSignatureJwt.verify(
-                            new ECDSAVerifier(
-                                    configurationService.getClientSigningPublicJwk(clientId)));
+            boolean valid = concatSignatureJwt.verify(new ECDSAVerifier(signingPublicJwk));
 
             if (!valid) {
                 LOGGER.error("JWT signature validation failed");
@@ -143,11 +151,11 @@ public class JarValidator {
         }
     }
 
-    private JWTClaimsSet getValidatedClaimSet(SignedJWT signedJWT, String clientId)
+    private JWTClaimsSet getValidatedClaimSet(SignedJWT signedJWT, ClientConfig client)
             throws JarValidationException {
 
         String criAudience = configurationService.getAudienceForClients();
-        String clientIssuer = configurationService.getClientIssuer(clientId);
+        String clientIssuer = client.getIssuer();
 
         DefaultJWTClaimsVerifier<?> verifier =
                 new DefaultJWTClaimsVerifier<>(
@@ -190,13 +198,12 @@ public class JarValidator {
         }
     }
 
-    private URI validateRedirectUri(JWTClaimsSet claimsSet, String clientId)
+    private URI validateRedirectUri(JWTClaimsSet claimsSet, ClientConfig client, String clientId)
             throws JarValidationException {
         try {
             URI redirectUri = claimsSet.getURIClaim(REDIRECT_URI_CLAIM);
-            List<String> allowedRedirectUris = configurationService.getClientRedirectUrls(clientId);
 
-            if (!allowedRedirectUris.contains(redirectUri.toString())) {
+            if (!client.isRedirectUrlAllowed(redirectUri.toString())) {
                 LOGGER.error(
                         "Invalid redirect_uri claim ({}) provided for client: {}",
                         redirectUri,
@@ -0,0 +1,125 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathResponse;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.di.ipv.cri.passport.library.helpers.fixtures.TestFixtures.EC_PUBLIC_JWK_1;
+
+@ExtendWith(MockitoExtension.class)
+class ClientRegistryTest {
+
+    private static final String PREFIX = "/test/credentialIssuers/ukPassport/clients";
+    private static final Instant NOW = Instant.parse("2022-03-01T10:00:00Z");
+
+    @Mock private SsmClient mockSsmClient;
+    @Mock private Clock mockClock;
+
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private ClientRegistry underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest =
+                new ClientRegistry(
+                        mockSsmClient,
+                        PREFIX,
+                        Duration.ofSeconds(30),
+                        mockClock,
+                        roundTrips::incrementAndGet);
+    }
+
+    @Test
+    void shouldLoadAllClientsAcrossPagesAndParseThemOnce() {
+        when(mockClock.instant()).thenReturn(NOW);
+        when(mockSsmClient.getParametersByPath(any(GetParametersByPathRequest.class)))
+                .thenReturn(
+                        GetParametersByPathResponse.builder()
+                                .parameters(
+                                        parameter("client-a/signingPublicJwk", EC_PUBLIC_JWK_1),
+                                        parameter(
+                                                "client-a/jwtAuthentication/validRedirectUrls",
+                                                "https://a.example/one,https://a.example/two"))
+                                .nextToken("page-2")
+                                .build(),
+                        GetParametersByPathResponse.builder()
+                                .parameters(
+                                        parameter(
+                                                "client-a/jwtAuthentication/issuer", "issuer-a"),
+                                        parameter("client-b/jwtAuthentication/issuer", "issuer-b"))
+                                .build());
+
+        ClientConfig clientA = underTest.getClient("client-a").orElseThrow();
+        ClientConfig clientB = underTest.getClient("client-b").orElseThrow();
+
+        assertEquals("issuer-a", clientA.getIssuer());
+        assertEquals("EC", clientA.getSigningPublicJwk().getKeyType().getValue());
+        assertTrue(clientA.isRedirectUrlAllowed("https://a.example/two"));
+        assertFalse(clientA.isRedirectUrlAllowed("https://a.example"));
+        assertEquals("issuer-b", clientB.getIssuer());
+        assertNull(clientB.getSigningPublicJwk());
+        verify(mockSsmClient, times(2))
+                .getParametersByPath(any(GetParametersByPathRequest.class));
+        assertEquals(2, roundTrips.get());
+    }
+
+    @Test
+    void shouldNegativelyCacheUnknownClientUntilTtlExpires() {
+        when(mockClock.instant())
+                .thenReturn(NOW, NOW.plusSeconds(31), NOW.plusSeconds(31), NOW.plusSeconds(45));
+        when(mockSsmClient.getParametersByPath(any(GetParametersByPathRequest.class)))
+                .thenReturn(
+                        GetParametersByPathResponse.builder()
+                                .parameters(parameter("client-a/jwtAuthentication/issuer", "a"))
+                                .build());
+
+        assertEquals(Optional.empty(), underTest.getClient("unknown-client"));
+        assertEquals(Optional.empty(), underTest.getClient("unknown-client"));
+
+        verify(mockSsmClient, times(2))
+                .getParametersByPath(any(GetParametersByPathRequest.class));
+    }
+
+    @Test
+    void shouldFindNewlyAddedClientOnReloadAfterTtl() {
+        when(mockClock.instant()).thenReturn(NOW, NOW.plusSeconds(31), NOW.plusSeconds(31));
+        when(mockSsmClient.getParametersByPath(any(GetParametersByPathRequest.class)))
+                .thenReturn(
+                        GetParametersByPathResponse.builder()
+                                .parameters(parameter("client-a/jwtAuthentication/issuer", "a"))
+                                .build(),
+                        GetParametersByPathResponse.builder()
+                                .parameters(
+                                        parameter("client-a/jwtAuthentication/issuer", "a"),
+                                        parameter("client-new/jwtAuthentication/issuer", "new"))
+                                .build());
+
+        underTest.getClient("client-a");
+
+        assertEquals("new", underTest.getClient("client-new").orElseThrow().getIssuer());
+    }
+
+    private Parameter parameter(String relativeName, String value) {
+        return Parameter.builder().name(PREFIX + "/" + relativeName).value(value).build();
+    }
+}
@@ -0,0 +1,162 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParametersRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersResponse;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+import software.amazon.awssdk.services.ssm.model.SsmException;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@ExtendWith(SystemStubsExtension.class)
+class ConfigSnapshotTest {
+
+    @SystemStub private EnvironmentVariables environmentVariables;
+
+    @Mock private SsmClient mockSsmClient;
+
+    @Test
+    void shouldLoadAllConfiguredParametersInOneBatch() {
+        environmentVariables.set("ENVIRONMENT", "test");
+        environmentVariables.set("DCS_POST_URL_PARAM", "/test/dcs/postUrl");
+        environmentVariables.set("MAXIMUM_ATTEMPT_COUNT_PARAM", "/test/maxAttempts");
+        when(mockSsmClient.getParameters(any(GetParametersRequest.class)))
+                .thenReturn(
+                        GetParametersResponse.builder()
+                                .parameters(
+                                        parameter("/test/dcs/postUrl", "https://dcs.example"),
+                                        parameter("/test/maxAttempts", "2"),
+                                        parameter(
+                                                "/test/credentialIssuers/ukPassport/self/backendSessionTtl",
+                                                "7200"))
+                                .invalidParameters(
+                                        "/test/credentialIssuers/ukPassport/self/authCodeExpirySeconds")
+                                .build());
+        AtomicInteger roundTrips = new AtomicInteger();
+
+        ConfigSnapshot snapshot = ConfigSnapshot.load(mockSsmClient, roundTrips::incrementAndGet);
+
+        ArgumentCaptor<GetParametersRequest> requestCaptor =
+                ArgumentCaptor.forClass(GetParametersRequest.class);
+        verify(mockSsmClient).getParameters(requestCaptor.capture());
+        assertEquals(4, requestCaptor.getValue().names().size());
+        assertTrue(requestCaptor.getValue().withDecryption());
+        assertEquals(1, roundTrips.get());
+        assertEquals(
+                Optional.of("https://dcs.example"),
+                snapshot.getString(ConfigParameter.DCS_POST_URL));
+        assertEquals(Optional.of(2), snapshot.getInt(ConfigParameter.MAXIMUM_ATTEMPT_COUNT));
+        assertEquals(Optional.of(7200L), snapshot.getLong(ConfigParameter.BACKEND_SESSION_TTL));
+        assertEquals(
+                Optional.empty(), snapshot.getString(ConfigParameter.AUTH_CODE_EXPIRY_SECONDS));
+    }
+
+    @Test
+    void shouldSplitRequestsIntoBatchesOfTen() {
+        List<String> environmentVariableNames =
+                List.of(
+                        "DCS_ENCRYPTION_CERT_PARAM",
+                        "DCS_SIGNING_CERT_PARAM",
+                        "JAR_SIGNING_CERT_PARAM",
+                        "PASSPORT_CRI_ENCRYPTION_KEY_PARAM",
+                        "PASSPORT_CRI_ENCRYPTION_CERT_PARAM",
+                        "PASSPORT_CRI_SIGNING_KEY_PARAM",
+                        "PASSPORT_CRI_SIGNING_CERT_PARAM",
+                        "PASSPORT_CRI_TLS_KEY_PARAM",
+                        "PASSPORT_CRI_TLS_CERT_PARAM",
+                        "DCS_TLS_ROOT_CERT_PARAM",
+                        "DCS_TLS_INTERMEDIATE_CERT_PARAM");
+        environmentVariableNames.forEach(name -> environmentVariables.set(name, "/test/" + name));
+        when(mockSsmClient.getParameters(any(GetParametersRequest.class)))
+                .thenReturn(GetParametersResponse.builder().build());
+        AtomicInteger roundTrips = new AtomicInteger();
+
+        ConfigSnapshot.load(mockSsmClient, roundTrips::incrementAndGet);
+
+        verify(mockSsmClient, times(2)).getParameters(any(GetParametersRequest.class));
+        assertEquals(2, roundTrips.get());
+    }
+
+    @Test
+    void shouldKeepOtherBatchesWhenOneBatchIsRejected() {
+        List<String> environmentVariableNames =
+                List.of(
+                        "DCS_ENCRYPTION_CERT_PARAM",
+                        "DCS_SIGNING_CERT_PARAM",
+                        "JAR_SIGNING_CERT_PARAM",
+                        "PASSPORT_CRI_ENCRYPTION_KEY_PARAM",
+                        "PASSPORT_CRI_ENCRYPTION_CERT_PARAM",
+                        "PASSPORT_CRI_SIGNING_KEY_PARAM",
+                        "PASSPORT_CRI_SIGNING_CERT_PARAM",
+                        "PASSPORT_CRI_TLS_KEY_PARAM",
+                        "PASSPORT_CRI_TLS_CERT_PARAM",
+                        "DCS_TLS_ROOT_CERT_PARAM",
+                        "DCS_POST_URL_PARAM");
+        environmentVariableNames.forEach(name -> environmentVariables.set(name, "/test/" + name));
+        when(mockSsmClient.getParameters(any(GetParametersRequest.class)))
+                .thenThrow(accessDenied())
+                .thenReturn(
+                        GetParametersResponse.builder()
+                                .parameters(
+                                        parameter(
+                                                "/test/DCS_POST_URL_PARAM",
+                                                "https://dcs.example"))
+                                .build());
+
+        ConfigSnapshot snapshot = ConfigSnapshot.load(mockSsmClient, () -> {});
+
+        verify(mockSsmClient, times(2)).getParameters(any(GetParametersRequest.class));
+        assertEquals(
+                Optional.of("https://dcs.example"),
+                snapshot.getString(ConfigParameter.DCS_POST_URL));
+        assertEquals(Optional.empty(), snapshot.getString(ConfigParameter.DCS_SIGNING_CERT));
+    }
+
+    @Test
+    void shouldFailWhenEveryBatchIsRejected() {
+        environmentVariables.set("DCS_POST_URL_PARAM", "/test/dcs/postUrl");
+        when(mockSsmClient.getParameters(any(GetParametersRequest.class)))
+                .thenThrow(accessDenied());
+
+        assertThrows(SsmException.class, () -> ConfigSnapshot.load(mockSsmClient, () -> {}));
+    }
+
+    @Test
+    void shouldNotCallSsmWhenNoParametersAreConfigured() {
+        ConfigSnapshot snapshot = ConfigSnapshot.load(mockSsmClient, () -> {});
+
+        verifyNoInteractions(mockSsmClient);
+        assertTrue(snapshot.isEmpty());
+    }
+
+    private SsmException accessDenied() {
+        return SsmException.builder()
+                .message("not authorized to perform: ssm:GetParameters")
+                .statusCode(400)
+                .build();
+    }
+
+    private Parameter parameter(String name, String value) {
+        return Parameter.builder().name(name).value(value).build();
+    }
+}
@@ -0,0 +1,34 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@ExtendWith(SystemStubsExtension.class)
+class EnvironmentConfigSourceTest {
+
+    @SystemStub private EnvironmentVariables environmentVariables;
+
+    private final EnvironmentConfigSource underTest = new EnvironmentConfigSource();
+
+    @Test
+    void shouldDeriveVariableNameFromParameterName() {
+        assertEquals(
+                "CONFIG_DEV_CREDENTIALISSUERS_UKPASSPORT_SELF_MAXJWTTTL",
+                EnvironmentConfigSource.toVariableName(
+                        "/dev/credentialIssuers/ukPassport/self/maxJwtTtl"));
+    }
+
+    @Test
+    void shouldReadParameterFromEnvironment() {
+        environmentVariables.set("CONFIG_DEV_DCS_POST_URL", "https://dcs.example");
+
+        assertEquals("https://dcs.example", underTest.getParameter("/dev/dcs-post-url", false));
+        assertNull(underTest.getParameter("/dev/missing", false));
+    }
+}
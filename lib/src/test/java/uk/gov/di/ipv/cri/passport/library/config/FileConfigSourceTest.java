@@ -0,0 +1,50 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.di.ipv.cri.passport.library.exceptions.ConfigSourceException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileConfigSourceTest {
+
+    @TempDir Path tempDir;
+
+    @Test
+    void shouldReadParametersFromJsonFile() throws IOException {
+        Path file = tempDir.resolve("config.json");
+        Files.writeString(
+                file,
+                "{\"/dev/dcs/postUrl\": \"https://dcs.example\", \"/dev/maxAttempts\": \"2\"}");
+
+        FileConfigSource underTest = new FileConfigSource(file);
+
+        assertEquals("https://dcs.example", underTest.getParameter("/dev/dcs/postUrl", false));
+        assertEquals("2", underTest.getParameter("/dev/maxAttempts", true));
+        assertNull(underTest.getParameter("/dev/missing", false));
+    }
+
+    @Test
+    void shouldReadParametersFromPropertiesFile() throws IOException {
+        Path file = tempDir.resolve("config.properties");
+        Files.writeString(file, "/dev/dcs/postUrl=https://dcs.example\n/dev/maxAttempts=2\n");
+
+        FileConfigSource underTest = new FileConfigSource(file);
+
+        assertEquals("https://dcs.example", underTest.getParameter("/dev/dcs/postUrl", false));
+        assertEquals("2", underTest.getParameter("/dev/maxAttempts", false));
+    }
+
+    @Test
+    void shouldThrowWhenFileCannotBeRead() {
+        Path missingFile = tempDir.resolve("missing.json");
+
+        assertThrows(ConfigSourceException.class, () -> new FileConfigSource(missingFile));
+    }
+}
@@ -0,0 +1,39 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class KeyBoundComponentTest {
+
+    private final AtomicInteger builds = new AtomicInteger();
+    private final KeyBoundComponent<String, StringBuilder> underTest =
+            new KeyBoundComponent<>(
+                    key -> {
+                        builds.incrementAndGet();
+                        return new StringBuilder(key);
+                    });
+
+    @Test
+    void shouldReuseComponentWhileKeyIsUnchanged() {
+        StringBuilder first = underTest.get("key-1");
+        StringBuilder second = underTest.get(new String("key-1"));
+
+        assertSame(first, second);
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void shouldRebuildComponentWhenKeyRotates() {
+        StringBuilder first = underTest.get("key-1");
+        StringBuilder rotated = underTest.get("key-2");
+
+        assertNotSame(first, rotated);
+        assertEquals("key-2", rotated.toString());
+        assertEquals(2, builds.get());
+    }
+}
@@ -0,0 +1,60 @@
+package uk.gov.di.ipv.cri.passport.library.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class KeyMaterialCacheTest {
+
+    private static final String PARAMETER_NAME = "/test/signing-cert";
+
+    private final KeyMaterialCache underTest = new KeyMaterialCache();
+
+    @Test
+    void shouldReturnCachedValueForMatchingVersion() {
+        underTest.put(PARAMETER_NAME, 1L, String.class, "version-1");
+
+        assertEquals("version-1", underTest.get(PARAMETER_NAME, 1L, String.class));
+    }
+
+    @Test
+    void shouldMissWhenSsmReportsNewVersion() {
+        underTest.put(PARAMETER_NAME, 1L, String.class, "version-1");
+
+        assertNull(underTest.get(PARAMETER_NAME, 2L, String.class));
+    }
+
+    @Test
+    void shouldReplaceOlderVersionAndKeepOneEntryPerParameter() {
+        underTest.put(PARAMETER_NAME, 1L, String.class, "version-1");
+        underTest.put(PARAMETER_NAME, 2L, String.class, "version-2");
+
+        assertEquals("version-2", underTest.get(PARAMETER_NAME, 2L, String.class));
+        assertEquals(1, underTest.size());
+    }
+
+    @Test
+    void shouldKeepFirstValueParsedForSameVersion() {
+        underTest.put(PARAMETER_NAME, 1L, String.class, "first");
+
+        assertEquals("first", underTest.put(PARAMETER_NAME, 1L, String.class, "second"));
+    }
+
+    @Test
+    void shouldNotOverwriteNewerVersionWithStaleValue() {
+        underTest.put(PARAMETER_NAME, 2L, String.class, "version-2");
+
+        assertEquals("version-1", underTest.put(PARAMETER_NAME, 1L, String.class, "version-1"));
+        assertEquals("version-2", underTest.get(PARAMETER_NAME, 2L, String.class));
+    }
+
+    @Test
+    void shouldCacheDifferentTypesForSameParameterSeparately() {
+        underTest.put(PARAMETER_NAME, 1L, String.class, "certificate");
+        underTest.put(PARAMETER_NAME, 1L, Integer.class, 42);
+
+        assertEquals("certificate", underTest.get(PARAMETER_NAME, 1L, String.class));
+        assertEquals(42, underTest.get(PARAMETER_NAME, 1L, Integer.class));
+    }
+}
@@ -0,0 +1,207 @@
+package uk.gov.di.ipv.cri.passport.library.helpers;
+
+import org.apache.http.client.HttpResponseException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import uk.gov.di.ipv.cri.passport.library.exceptions.AdmissionRejectedException;
+import uk.gov.di.ipv.cri.passport.library.service.AdmissionWindowService;
+import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
+
+import java.net.SocketTimeoutException;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AdmissionControllerTest {
+    private static final long NOW = 1_646_128_800_000L;
+
+    @Mock private Clock mockClock;
+    @Mock private ConfigurationService mockConfigurationService;
+    @Mock private AdmissionWindowService mockAdmissionWindowService;
+
+    @Test
+    void shouldRejectClientOnceItsBurstIsUsedUntilTokensRefill() throws Exception {
+        when(mockClock.millis()).thenReturn(NOW, NOW, NOW, NOW + 500);
+        AdmissionController underTest =
+                new AdmissionController(
+                        null,
+                        new AdmissionController.Limit(2, 2),
+                        Map.of(),
+                        mockClock);
+
+        underTest.acquire("client-a");
+        underTest.acquire("client-a");
+        AdmissionRejectedException exception =
+                assertThrows(AdmissionRejectedException.class, () -> underTest.acquire("client-a"));
+        assertEquals(1, exception.getRetryAfterSeconds());
+
+        assertDoesNotThrow(() -> underTest.acquire("client-a"));
+    }
+
+    @Test
+    void shouldLimitEachClientSeparately() throws Exception {
+        when(mockClock.millis()).thenReturn(NOW);
+        AdmissionController underTest =
+                new AdmissionController(
+                        null,
+                        new AdmissionController.Limit(1, 1),
+                        Map.of("client-b", new AdmissionController.Limit(1, 2)),
+                        mockClock);
+
+        underTest.acquire("client-a");
+        assertThrows(AdmissionRejectedException.class, () -> underTest.acquire("client-a"));
+
+        underTest.acquire("client-b");
+        underTest.acquire("client-b");
+    }
+
+    @Test
+    void shouldRejectAtGlobalCeilingWithoutChargingTheClient() throws Exception {
+        when(mockClock.millis()).thenReturn(NOW);
+        AdmissionController underTest =
+                new AdmissionController(
+                        new AdmissionController.Limit(1, 1),
+                        new AdmissionController.Limit(1, 1),
+                        Map.of(),
+                        mockClock);
+
+        underTest.acquire("client-a");
+        AdmissionRejectedException exception =
+                assertThrows(AdmissionRejectedException.class, () -> underTest.acquire("client-b"));
+
+        assertEquals("DCS call rejected at the global limit", exception.getMessage());
+        when(mockClock.millis()).thenReturn(NOW + 1000);
+        underTest.acquire("client-b");
+    }
+
+    @Test
+    void shouldRejectWhenTheSharedClientWindowIsFull() {
+        when(mockClock.millis()).thenReturn(NOW);
+        when(mockAdmissionWindowService.tryAcquire("client#client-a", NOW, 1000L, 2L))
+                .thenReturn(false);
+        AdmissionController underTest =
+                new AdmissionController(
+                        new AdmissionController.Limit(10, 10),
+                        new AdmissionController.Limit(2, 2),
+                        Map.of(),
+                        mockAdmissionWindowService,
+                        mockClock);
+
+        AdmissionRejectedException exception =
+                assertThrows(AdmissionRejectedException.class, () -> underTest.acquire("client-a"));
+
+        assertEquals("DCS call rejected at the client limit", exception.getMessage());
+        verify(mockAdmissionWindowService, never())
+                .tryAcquire(eq("global"), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void shouldGiveBackSharedClientCountWhenTheSharedGlobalWindowIsFull() {
+        when(mockClock.millis()).thenReturn(NOW + 250);
+        when(mockAdmissionWindowService.tryAcquire("client#client-a", NOW, 1000L, 2L))
+                .thenReturn(true);
+        when(mockAdmissionWindowService.tryAcquire("global", NOW, 1000L, 10L)).thenReturn(false);
+        AdmissionController underTest =
+                new AdmissionController(
+                        new AdmissionController.Limit(10, 10),
+                        new AdmissionController.Limit(2, 2),
+                        Map.of(),
+                        mockAdmissionWindowService,
+                        mockClock);
+
+        AdmissionRejectedException exception =
+                assertThrows(AdmissionRejectedException.class, () -> underTest.acquire("client-a"));
+
+        assertEquals("DCS call rejected at the global limit", exception.getMessage());
+        assertEquals(1, exception.getRetryAfterSeconds());
+        verify(mockAdmissionWindowService).release("client#client-a", NOW);
+    }
+
+    @Test
+    void shouldAdmitOnLocalLimitsWhenTheSharedCountFails() {
+        when(mockClock.millis()).thenReturn(NOW);
+        when(mockAdmissionWindowService.tryAcquire(anyString(), anyLong(), anyLong(), anyLong()))
+                .thenThrow(SdkClientException.create("Unable to connect"));
+        AdmissionController underTest =
+                new AdmissionController(
+                        new AdmissionController.Limit(1, 1),
+                        null,
+                        Map.of(),
+                        mockAdmissionWindowService,
+                        mockClock);
+
+        assertDoesNotThrow(() -> underTest.acquire("client-a"));
+        assertThrows(AdmissionRejectedException.class, () -> underTest.acquire("client-a"));
+    }
+
+    @Test
+    void shouldBackOffGlobalRateWhileDcsIsOverloaded() {
+        when(mockClock.millis()).thenReturn(NOW, NOW, NOW + 500, NOW + 1000);
+        AdmissionController underTest =
+                new AdmissionController(
+                        new AdmissionController.Limit(10, 10), null, Map.of(), mockClock);
+
+        underTest.recordDcsOutcome(new HttpResponseException(503, "Service Unavailable"));
+        assertEquals(0.5, underTest.getGlobalRateFactor());
+
+        underTest.recordDcsOutcome(new CompletionException(new SocketTimeoutException()));
+        assertEquals(0.5, underTest.getGlobalRateFactor());
+
+        underTest.recordDcsOutcome(new HttpResponseException(429, "Too Many Requests"));
+        assertEquals(0.25, underTest.getGlobalRateFactor());
+
+        underTest.recordDcsOutcome(new HttpResponseException(400, "Bad Request"));
+        assertEquals(0.25, underTest.getGlobalRateFactor());
+
+        underTest.recordDcsOutcome(null);
+        assertEquals(0.3, underTest.getGlobalRateFactor(), 1e-9);
+    }
+
+    @Test
+    void shouldScaleTheGlobalBucketByTheRateFactor() throws Exception {
+        when(mockClock.millis()).thenReturn(NOW);
+        AdmissionController underTest =
+                new AdmissionController(
+                        new AdmissionController.Limit(4, 4), null, Map.of(), mockClock);
+
+        underTest.recordDcsOutcome(new HttpResponseException(500, "Internal Server Error"));
+
+        underTest.acquire("client-a");
+        underTest.acquire("client-a");
+        assertThrows(AdmissionRejectedException.class, () -> underTest.acquire("client-a"));
+    }
+
+    @Test
+    void shouldParseLimitsFromConfig() throws Exception {
+        when(mockConfigurationService.getDcsAdmissionGlobalLimit()).thenReturn("100:200");
+        when(mockConfigurationService.getDcsAdmissionDefaultClientLimit()).thenReturn(null);
+        when(mockConfigurationService.getDcsAdmissionClientLimits())
+                .thenReturn("client-a=0.5:1, client-b=10");
+
+        AdmissionController underTest = AdmissionController.fromConfig(mockConfigurationService);
+
+        underTest.acquire("client-a");
+        assertThrows(AdmissionRejectedException.class, () -> underTest.acquire("client-a"));
+        underTest.acquire("client-c");
+    }
+
+    @Test
+    void shouldBeDisabledWithoutAnyLimits() {
+        assertNull(AdmissionController.fromConfig(mockConfigurationService));
+    }
+}
@@ -0,0 +1,108 @@
+package uk.gov.di.ipv.cri.passport.library.helpers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.passport.library.exceptions.CallNotPermittedException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CircuitBreakerTest {
+    private static final Instant NOW = Instant.parse("2022-03-01T10:00:00Z");
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    @Mock private Clock mockClock;
+
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = new CircuitBreaker("DCS", 2, OPEN_DURATION, 1, 2, mockClock);
+    }
+
+    @Test
+    void shouldOpenAfterConsecutiveFailuresAndRejectCalls() throws Exception {
+        when(mockClock.instant()).thenReturn(NOW);
+
+        failCall();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        failCall();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(CallNotPermittedException.class, circuitBreaker::acquire);
+    }
+
+    @Test
+    void shouldResetFailureCountAfterASuccess() throws Exception {
+        failCall();
+        circuitBreaker.acquire();
+        circuitBreaker.onSuccess();
+        failCall();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void shouldLetOneProbeThroughOnceOpenPeriodHasPassed() throws Exception {
+        when(mockClock.instant()).thenReturn(NOW, NOW.plus(OPEN_DURATION));
+        failCall();
+        failCall();
+
+        circuitBreaker.acquire();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertThrows(CallNotPermittedException.class, circuitBreaker::acquire);
+    }
+
+    @Test
+    void shouldCloseWhenProbeSucceeds() throws Exception {
+        when(mockClock.instant()).thenReturn(NOW, NOW.plus(OPEN_DURATION));
+        failCall();
+        failCall();
+
+        circuitBreaker.acquire();
+        circuitBreaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertDoesNotThrow(circuitBreaker::acquire);
+    }
+
+    @Test
+    void shouldReopenWhenProbeFails() throws Exception {
+        when(mockClock.instant())
+                .thenReturn(NOW, NOW.plus(OPEN_DURATION), NOW.plus(OPEN_DURATION));
+        failCall();
+        failCall();
+
+        failCall();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(CallNotPermittedException.class, circuitBreaker::acquire);
+    }
+
+    @Test
+    void shouldRejectCallsOnceBulkheadIsFull() throws Exception {
+        circuitBreaker.acquire();
+        circuitBreaker.acquire();
+
+        assertThrows(CallNotPermittedException.class, circuitBreaker::acquire);
+
+        circuitBreaker.onSuccess();
+        assertDoesNotThrow(circuitBreaker::acquire);
+    }
+
+    private void failCall() throws CallNotPermittedException {
+        circuitBreaker.acquire();
+        circuitBreaker.onFailure();
+    }
+}
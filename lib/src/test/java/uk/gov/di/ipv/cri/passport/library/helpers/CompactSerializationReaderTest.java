@@ -0,0 +1,118 @@
+package uk.gov.di.ipv.cri.passport.library.helpers;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.di.ipv.cri.passport.library.domain.CompactSerialization;
+import uk.gov.di.ipv.cri.passport.library.exceptions.InvalidDcsResponseException;
+
+import java.io.ByteArrayInputStream;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactSerializationReaderTest {
+    private static final byte[] COMPACT =
+            "eyJhbGciOiJSUzI1NiJ9.cGF5bG9hZA.c2lnbmF0dXJl".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    void shouldRecordSegmentSeparatorsWhileReading() throws Exception {
+        CompactSerialization compact =
+                CompactSerializationReader.read(new ByteArrayInputStream(COMPACT), -1, 1024, 3);
+
+        assertArrayEquals(COMPACT, compact.getBytes());
+        assertArrayEquals(new int[] {20, 31}, compact.getSeparators());
+    }
+
+    @Test
+    void shouldRejectDeclaredLengthOverTheLimitBeforeReading() {
+        assertThrows(
+                InvalidDcsResponseException.class,
+                () -> new CompactSerializationReader(16, 3, COMPACT.length));
+    }
+
+    @Test
+    void shouldRejectUndeclaredBodyOnceItPassesTheLimit() {
+        ByteArrayInputStream content = new ByteArrayInputStream(COMPACT);
+
+        assertThrows(
+                InvalidDcsResponseException.class,
+                () -> CompactSerializationReader.read(content, -1, 16, 3));
+    }
+
+    @Test
+    void shouldRejectTooManySegments() throws Exception {
+        CompactSerializationReader reader = new CompactSerializationReader(1024, 3, -1);
+        byte[] chunk = "a.b.c.d".getBytes(StandardCharsets.US_ASCII);
+
+        InvalidDcsResponseException exception =
+                assertThrows(
+                        InvalidDcsResponseException.class,
+                        () -> reader.append(chunk, 0, chunk.length));
+
+        assertEquals("DCS response has more than 3 segments", exception.getMessage());
+    }
+
+    @Test
+    void shouldRejectTooFewSegments() throws Exception {
+        CompactSerializationReader reader = new CompactSerializationReader(1024, 3, -1);
+        reader.append(ByteBuffer.wrap("a.b".getBytes(StandardCharsets.US_ASCII)));
+
+        InvalidDcsResponseException exception =
+                assertThrows(InvalidDcsResponseException.class, reader::finish);
+
+        assertEquals("DCS response has 2 segments, expected 3", exception.getMessage());
+    }
+
+    @Test
+    void shouldCompleteSubscriberFromChunks() throws Exception {
+        BodySubscriber<CompactSerialization> subscriber =
+                CompactSerializationReader.subscriber(1024, 3, -1);
+        TestSubscription subscription = new TestSubscription();
+
+        subscriber.onSubscribe(subscription);
+        subscriber.onNext(
+                List.of(
+                        ByteBuffer.wrap(COMPACT, 0, 25),
+                        ByteBuffer.wrap(COMPACT, 25, COMPACT.length - 25)));
+        subscriber.onComplete();
+
+        CompactSerialization compact = subscriber.getBody().toCompletableFuture().get();
+        assertArrayEquals(COMPACT, compact.getBytes());
+        assertArrayEquals(new int[] {20, 31}, compact.getSeparators());
+    }
+
+    @Test
+    void shouldCancelSubscriptionOnMalformedChunk() {
+        BodySubscriber<CompactSerialization> subscriber =
+                CompactSerializationReader.subscriber(1024, 3, -1);
+        TestSubscription subscription = new TestSubscription();
+
+        subscriber.onSubscribe(subscription);
+        subscriber.onNext(List.of(ByteBuffer.wrap("<html>".getBytes(StandardCharsets.US_ASCII))));
+
+        CompletableFuture<CompactSerialization> body = subscriber.getBody().toCompletableFuture();
+        ExecutionException exception = assertThrows(ExecutionException.class, body::get);
+        assertTrue(exception.getCause() instanceof InvalidDcsResponseException);
+        assertTrue(subscription.cancelled);
+    }
+
+    private static class TestSubscription implements Flow.Subscription {
+        private boolean cancelled;
+
+        @Override
+        public void request(long n) {}
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
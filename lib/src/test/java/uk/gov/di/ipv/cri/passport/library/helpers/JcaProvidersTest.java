@@ -0,0 +1,87 @@
+package uk.gov.di.ipv.cri.passport.library.helpers;
+
+import com.nimbusds.jose.crypto.RSADecrypter;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.Security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JcaProvidersTest {
+
+    @Test
+    void shouldReturnNullWhenNoProviderIsSelected() {
+        assertNull(JcaProviders.getProvider(null));
+        assertNull(JcaProviders.getProvider(""));
+    }
+
+    @Test
+    void shouldLoadKnownProviderWithoutRegisteringIt() {
+        Provider provider = JcaProviders.getProvider("BC");
+
+        assertEquals("BC", provider.getName());
+        assertNull(Security.getProvider("BC"));
+    }
+
+    @Test
+    void shouldRejectUnknownProvider() {
+        assertThrows(
+                IllegalArgumentException.class, () -> JcaProviders.getProvider("NotARealProvider"));
+    }
+
+    @Test
+    void shouldRejectKnownProviderMissingFromClasspath() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> JcaProviders.getProvider("AmazonCorrettoCryptoProvider"));
+    }
+
+    @Test
+    void shouldRejectProviderWithoutRsaKeyEncryption() {
+        assertThrows(IllegalArgumentException.class, () -> JcaProviders.getProvider("SunRsaSign"));
+    }
+
+    @Test
+    void shouldApplyProviderToJoseSigner() throws NoSuchAlgorithmException {
+        Provider provider = Security.getProvider("SunRsaSign");
+        RSASSASigner signer = new RSASSASigner(generatePrivateKey());
+
+        JcaProviders.withProvider(signer, provider);
+
+        assertSame(provider, signer.getJCAContext().getProvider());
+    }
+
+    @Test
+    void shouldApplyProviderToKeyEncryptionOnly() throws NoSuchAlgorithmException {
+        Provider provider = Security.getProvider("SunJCE");
+        RSADecrypter decrypter = new RSADecrypter(generatePrivateKey());
+
+        JcaProviders.withKeyEncryptionProvider(decrypter, provider);
+
+        assertSame(provider, decrypter.getJCAContext().getKeyEncryptionProvider());
+        assertNull(decrypter.getJCAContext().getContentEncryptionProvider());
+        assertNull(decrypter.getJCAContext().getMACProvider());
+    }
+
+    @Test
+    void shouldLeaveJoseComponentOnDefaultProvidersWhenNoneSelected()
+            throws NoSuchAlgorithmException {
+        RSASSASigner signer = new RSASSASigner(generatePrivateKey());
+
+        JcaProviders.withProvider(signer, null);
+
+        assertNull(signer.getJCAContext().getProvider());
+    }
+
+    private PrivateKey generatePrivateKey() throws NoSuchAlgorithmException {
+        return KeyPairGenerator.getInstance("RSA").generateKeyPair().getPrivate();
+    }
+}
@@ -1,8 +1,10 @@
 package uk.gov.di.ipv.cri.passport.library.helpers;
 
+import com.amazonaws.http.timers.client.ClientExecutionTimeoutException;
 import com.amazonaws.services.kms.AWSKMS;
 import com.amazonaws.services.kms.model.SignRequest;
 import com.amazonaws.services.kms.model.SignResult;
+import com.amazonaws.services.lambda.runtime.Context;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSHeader;
@@ -10,10 +12,12 @@ import com.nimbusds.jose.JWSObject;
 import com.nimbusds.jose.Payload;
 import com.nimbusds.jose.shaded.json.JSONObject;
 import com.nimbusds.jose.util.Base64URL;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.passport.library.exceptions.DeadlineExceededException;
 
 import java.nio.ByteBuffer;
 import java.util.Base64;
@@ -21,6 +25,7 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -32,6 +37,12 @@ class KmsSignerTest {
 
     @Mock private AWSKMS kmsClient;
     @Mock private SignResult signResult;
+    @Mock private Context lambdaContext;
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.finish();
+    }
 
     @Test
     void shouldSignJWSObject() throws JOSEException {
@@ -73,4 +84,25 @@ class KmsSignerTest {
                         .endsWith("=="));
         assertFalse(signatureString.endsWith("="));
     }
+
+    @Test
+    void shouldReportKmsTimeoutAsDeadlineExceeded() {
+        when(lambdaContext.getRemainingTimeInMillis()).thenReturn(1_000);
+        RequestDeadline.start(lambdaContext, 0);
+        when(kmsClient.sign(any(SignRequest.class)))
+                .thenThrow(new ClientExecutionTimeoutException());
+        KmsSigner kmsSigner = new KmsSigner(KEY_ID, kmsClient);
+        JWSObject jwsObject =
+                new JWSObject(
+                        new JWSHeader.Builder(JWSAlgorithm.ES256).build(),
+                        new Payload(new JSONObject(Map.of("test", "test"))));
+
+        JOSEException wrapped = assertThrows(JOSEException.class, () -> jwsObject.sign(kmsSigner));
+        DeadlineExceededException exceeded =
+                assertThrows(
+                        DeadlineExceededException.class,
+                        () -> RequestDeadline.rethrowIfExceeded(wrapped));
+
+        assertEquals(RequestDeadline.STAGE_KMS, exceeded.getStage());
+    }
 }
@@ -0,0 +1,95 @@
+package uk.gov.di.ipv.cri.passport.library.helpers;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.passport.library.exceptions.DeadlineExceededException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RequestDeadlineTest {
+
+    @Mock private Context context;
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.finish();
+    }
+
+    @Test
+    void shouldStartFromContextLessTheReserveAndClearOnFinish() {
+        when(context.getRemainingTimeInMillis()).thenReturn(10_000);
+
+        RequestDeadline deadline = RequestDeadline.start(context, 500);
+
+        assertSame(deadline, RequestDeadline.current());
+        assertEquals(9_500, deadline.getBudgetMillis());
+
+        RequestDeadline.finish();
+
+        assertFalse(RequestDeadline.current().isBounded());
+    }
+
+    @Test
+    void shouldCapConfiguredTimeoutToRemainingBudget() {
+        RequestDeadline deadline = new RequestDeadline(1_000, System.nanoTime());
+
+        int timeout = deadline.timeoutMillis(RequestDeadline.STAGE_DCS, 20_000);
+
+        assertTrue(timeout > 0 && timeout <= 1_000);
+        assertEquals(200, deadline.timeoutMillis(RequestDeadline.STAGE_DCS, 200));
+    }
+
+    @Test
+    void shouldUseRemainingBudgetWhenNoTimeoutIsConfigured() {
+        RequestDeadline deadline = new RequestDeadline(1_000, System.nanoTime());
+
+        int timeout = deadline.timeoutMillis(RequestDeadline.STAGE_SQS, 0);
+
+        assertTrue(timeout > 0 && timeout <= 1_000);
+    }
+
+    @Test
+    void shouldLeaveTimeoutsUnchangedWithoutADeadline() {
+        RequestDeadline deadline = RequestDeadline.current();
+
+        assertFalse(deadline.isBounded());
+        assertEquals(0, deadline.timeoutMillis(RequestDeadline.STAGE_KMS, 0));
+        assertEquals(20_000, deadline.timeoutMillis(RequestDeadline.STAGE_DCS, 20_000));
+    }
+
+    @Test
+    void shouldThrowOnceTheBudgetIsSpent() {
+        RequestDeadline deadline =
+                new RequestDeadline(10, System.nanoTime() - TimeUnit.SECONDS.toNanos(1));
+
+        DeadlineExceededException exception =
+                assertThrows(
+                        DeadlineExceededException.class,
+                        () -> deadline.timeoutMillis(RequestDeadline.STAGE_DYNAMODB, 0));
+
+        assertEquals(RequestDeadline.STAGE_DYNAMODB, exception.getStage());
+    }
+
+    @Test
+    void shouldSumTimeSpentInEachStage() {
+        RequestDeadline deadline = new RequestDeadline(1_000, System.nanoTime());
+        long fiveMillisAgo = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5);
+
+        deadline.recordStage(RequestDeadline.STAGE_DYNAMODB, fiveMillisAgo);
+        deadline.recordStage(RequestDeadline.STAGE_DYNAMODB, fiveMillisAgo);
+
+        assertTrue(deadline.getStageMillis().get(RequestDeadline.STAGE_DYNAMODB) >= 10);
+    }
+}
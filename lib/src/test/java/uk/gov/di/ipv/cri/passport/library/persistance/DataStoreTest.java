@@ -12,22 +12,41 @@ import software.amazon.awssdk.core.pagination.sync.SdkIterable;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import uk.gov.di.ipv.cri.passport.library.persistence.AttributeUpdate;
+import uk.gov.di.ipv.cri.passport.library.persistence.ConditionalWriteResult;
 import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.ItemTableSchemas;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.AuthorizationCodeItem;
 import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
 
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -41,6 +60,7 @@ class DataStoreTest {
     @Mock private DynamoDbIndex<AuthorizationCodeItem> mockIndex;
     @Mock private SdkIterable<Page<AuthorizationCodeItem>> mockIterable;
     @Mock private ConfigurationService mockConfigurationService;
+    @Mock private DynamoDbClient mockDynamoDbClient;
 
     private AuthorizationCodeItem authorizationCodeItem;
     private DataStore<AuthorizationCodeItem> dataStore;
@@ -176,4 +196,164 @@ class DataStoreTest {
         assertEquals("partition-key-12345", keyCaptor.getValue().partitionKeyValue().s());
         assertTrue(keyCaptor.getValue().sortKeyValue().isEmpty());
     }
+
+    @Test
+    void shouldResolveTableOnceWithStaticSchema() {
+        dataStore.getItem("partition-key-12345");
+        dataStore.update(authorizationCodeItem);
+        dataStore.delete("partition-key-12345");
+
+        verify(mockDynamoDbEnhancedClient, times(1))
+                .table(TEST_TABLE_NAME, ItemTableSchemas.AUTHORIZATION_CODE);
+    }
+
+    @Test
+    void shouldCreateItemOnlyIfItsPartitionKeyIsNew() {
+        dataStore.createIfNotExists(authorizationCodeItem);
+
+        ArgumentCaptor<PutItemEnhancedRequest<AuthorizationCodeItem>> requestCaptor =
+                ArgumentCaptor.forClass(PutItemEnhancedRequest.class);
+        verify(mockDynamoDbTable).putItem(requestCaptor.capture());
+        PutItemEnhancedRequest<AuthorizationCodeItem> request = requestCaptor.getValue();
+        assertEquals(authorizationCodeItem, request.item());
+        assertEquals("attribute_not_exists(#pk)", request.conditionExpression().expression());
+        assertEquals(Map.of("#pk", "authCode"), request.conditionExpression().expressionNames());
+    }
+
+    @Test
+    void shouldReportExistingItemAsConditionFailed() {
+        doThrow(ConditionalCheckFailedException.builder().build())
+                .when(mockDynamoDbTable)
+                .putItem(ArgumentMatchers.<PutItemEnhancedRequest<AuthorizationCodeItem>>any());
+
+        assertEquals(
+                ConditionalWriteResult.CONDITION_FAILED,
+                dataStore.createIfNotExists(authorizationCodeItem));
+    }
+
+    @Test
+    void shouldUpdateAttributesInOneConditionalRequest() {
+        DataStore<AuthorizationCodeItem> updatingDataStore = updatingDataStore();
+        when(mockDynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(
+                        UpdateItemResponse.builder()
+                                .attributes(
+                                        Map.of(
+                                                "authCode",
+                                                AttributeValue.builder().s("test-code").build(),
+                                                "exchangeDateTime",
+                                                AttributeValue.builder().s("now").build()))
+                                .build());
+
+        AuthorizationCodeItem updated =
+                updatingDataStore.updateAttributes(
+                        "test-code",
+                        new AttributeUpdate()
+                                .set("exchangeDateTime", "now")
+                                .condition(
+                                        Expression.builder()
+                                                .expression("attribute_not_exists(#c)")
+                                                .putExpressionName("#c", "issuedAccessToken")
+                                                .build()));
+
+        ArgumentCaptor<UpdateItemRequest> requestCaptor =
+                ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(mockDynamoDbClient).updateItem(requestCaptor.capture());
+        UpdateItemRequest request = requestCaptor.getValue();
+        assertEquals(TEST_TABLE_NAME, request.tableName());
+        assertEquals("test-code", request.key().get("authCode").s());
+        assertEquals("SET #u0 = :u0", request.updateExpression());
+        assertEquals(
+                "attribute_exists(#pk) AND (attribute_not_exists(#c))",
+                request.conditionExpression());
+        assertEquals(
+                Map.of("#pk", "authCode", "#u0", "exchangeDateTime", "#c", "issuedAccessToken"),
+                request.expressionAttributeNames());
+        assertEquals(ReturnValue.ALL_NEW, request.returnValues());
+        assertEquals("test-code", updated.getAuthCode());
+        assertEquals("now", updated.getExchangeDateTime());
+    }
+
+    @Test
+    void shouldReturnNullWhenAttributeUpdateConditionFails() {
+        DataStore<AuthorizationCodeItem> updatingDataStore = updatingDataStore();
+        when(mockDynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().build());
+
+        assertNull(
+                updatingDataStore.updateAttributes(
+                        "test-code", new AttributeUpdate().set("exchangeDateTime", "now")));
+    }
+
+    @Test
+    void shouldUpsertAttributesWithoutRequiringAnExistingItem() {
+        DataStore<AuthorizationCodeItem> updatingDataStore = updatingDataStore();
+        when(mockDynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenReturn(
+                        UpdateItemResponse.builder()
+                                .attributes(
+                                        Map.of(
+                                                "authCode",
+                                                AttributeValue.builder().s("test-code").build()))
+                                .build());
+
+        updatingDataStore.upsertAttributes(
+                "test-code",
+                new AttributeUpdate()
+                        .set("exchangeDateTime", "now")
+                        .condition(
+                                Expression.builder()
+                                        .expression("attribute_not_exists(#c)")
+                                        .putExpressionName("#c", "issuedAccessToken")
+                                        .build()));
+
+        ArgumentCaptor<UpdateItemRequest> requestCaptor =
+                ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(mockDynamoDbClient).updateItem(requestCaptor.capture());
+        assertEquals("attribute_not_exists(#c)", requestCaptor.getValue().conditionExpression());
+        assertEquals(
+                Map.of("#u0", "exchangeDateTime", "#c", "issuedAccessToken"),
+                requestCaptor.getValue().expressionAttributeNames());
+    }
+
+    @Test
+    void shouldNotUpdateAttributesWithoutLowLevelClient() {
+        AttributeUpdate update = new AttributeUpdate().add("attemptCount", 1);
+
+        assertThrows(
+                IllegalStateException.class, () -> dataStore.updateAttributes("test-code", update));
+    }
+
+    @Test
+    void shouldWriteTransactItemsInOneRequest() {
+        DataStore<AuthorizationCodeItem> updatingDataStore = updatingDataStore();
+        when(mockConfigurationService.getBackendSessionTtl()).thenReturn(3600L);
+
+        TransactWriteItem put = updatingDataStore.transactPut(authorizationCodeItem);
+        TransactWriteItem update =
+                updatingDataStore.transactUpdate(
+                        "test-code", new AttributeUpdate().set("exchangeDateTime", "now"));
+        updatingDataStore.transactWrite(put, update);
+
+        ArgumentCaptor<TransactWriteItemsRequest> requestCaptor =
+                ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(mockDynamoDbClient).transactWriteItems(requestCaptor.capture());
+        assertEquals(List.of(put, update), requestCaptor.getValue().transactItems());
+        assertEquals(TEST_TABLE_NAME, put.put().tableName());
+        assertEquals(authorizationCodeItem.getAuthCode(), put.put().item().get("authCode").s());
+        assertTrue(authorizationCodeItem.getTtl() > 0);
+        assertEquals(TEST_TABLE_NAME, update.update().tableName());
+        assertEquals("test-code", update.update().key().get("authCode").s());
+        assertEquals("SET #u0 = :u0", update.update().updateExpression());
+        assertEquals("attribute_exists(#pk)", update.update().conditionExpression());
+    }
+
+    private DataStore<AuthorizationCodeItem> updatingDataStore() {
+        return new DataStore<>(
+                TEST_TABLE_NAME,
+                AuthorizationCodeItem.class,
+                mockDynamoDbEnhancedClient,
+                mockDynamoDbClient,
+                mockConfigurationService);
+    }
 }
@@ -0,0 +1,68 @@
+package uk.gov.di.ipv.cri.passport.library.persistance;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.interceptor.Context.FailedExecution;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import uk.gov.di.ipv.cri.passport.library.exceptions.DeadlineExceededException;
+import uk.gov.di.ipv.cri.passport.library.helpers.RequestDeadline;
+import uk.gov.di.ipv.cri.passport.library.persistence.DeadlineExecutionInterceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeadlineExecutionInterceptorTest {
+
+    @Mock private Context context;
+    @Mock private FailedExecution failedExecution;
+
+    private final DeadlineExecutionInterceptor interceptor = new DeadlineExecutionInterceptor();
+    private final ExecutionAttributes attributes = new ExecutionAttributes();
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.finish();
+    }
+
+    @Test
+    void shouldReportApiCallTimeoutAsDeadlineExceeded() {
+        when(context.getRemainingTimeInMillis()).thenReturn(1_000);
+        RequestDeadline.start(context, 0);
+        ApiCallTimeoutException timeout = ApiCallTimeoutException.create(1_000);
+        when(failedExecution.exception()).thenReturn(timeout);
+
+        Throwable result = interceptor.modifyException(failedExecution, attributes);
+
+        assertTrue(result instanceof DeadlineExceededException);
+        assertEquals(
+                RequestDeadline.STAGE_DYNAMODB, ((DeadlineExceededException) result).getStage());
+        assertSame(timeout, result.getCause());
+    }
+
+    @Test
+    void shouldLeaveOtherFailuresUnchanged() {
+        when(context.getRemainingTimeInMillis()).thenReturn(1_000);
+        RequestDeadline.start(context, 0);
+        SdkClientException failure = SdkClientException.create("Unable to connect");
+        when(failedExecution.exception()).thenReturn(failure);
+
+        assertSame(failure, interceptor.modifyException(failedExecution, attributes));
+    }
+
+    @Test
+    void shouldLeaveApiCallTimeoutUnchangedWithoutADeadline() {
+        ApiCallTimeoutException timeout = ApiCallTimeoutException.create(1_000);
+        when(failedExecution.exception()).thenReturn(timeout);
+
+        assertSame(timeout, interceptor.modifyException(failedExecution, attributes));
+    }
+}
@@ -0,0 +1,52 @@
+package uk.gov.di.ipv.cri.passport.library.persistance;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import uk.gov.di.ipv.cri.passport.library.persistence.DynamoDbClientFactory;
+import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DynamoDbClientFactoryTest {
+
+    @Mock private ConfigurationService mockConfigurationService;
+    @Mock private ConfigurationService mockOtherConfigurationService;
+
+    @Test
+    void shouldShareOneClientForTheSameEndpoint() {
+        givenEndpoint(mockConfigurationService, "http://localhost:18000");
+
+        DynamoDbEnhancedClient first = DynamoDbClientFactory.getClient(mockConfigurationService);
+        DynamoDbEnhancedClient second = DynamoDbClientFactory.getClient(mockConfigurationService);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void shouldCreateSeparateClientsForDifferentEndpoints() {
+        givenEndpoint(mockConfigurationService, "http://localhost:18001");
+        givenEndpoint(mockOtherConfigurationService, "http://localhost:18002");
+
+        assertNotSame(
+                DynamoDbClientFactory.getClient(mockConfigurationService),
+                DynamoDbClientFactory.getClient(mockOtherConfigurationService));
+    }
+
+    private static void givenEndpoint(ConfigurationService configurationService, String endpoint) {
+        when(configurationService.getDynamoDbEndpointOverride()).thenReturn(URI.create(endpoint));
+        when(configurationService.getDynamoDbMaxConnections()).thenReturn(50);
+        when(configurationService.getDynamoDbConnectTimeoutMillis()).thenReturn(1000);
+        when(configurationService.getDynamoDbSocketTimeoutMillis()).thenReturn(2000);
+        when(configurationService.getDynamoDbConnectionMaxIdleSeconds()).thenReturn(50);
+        when(configurationService.getDynamoDbMaxRetries()).thenReturn(3);
+        when(configurationService.getDynamoDbCallAttemptTimeoutMillis()).thenReturn(2000);
+    }
+}
@@ -0,0 +1,190 @@
+package uk.gov.di.ipv.cri.passport.library.persistance;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import uk.gov.di.ipv.cri.passport.library.domain.AuthParams;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
+import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.ContraIndicators;
+import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Evidence;
+import uk.gov.di.ipv.cri.passport.library.persistence.ItemTableSchemas;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.AccessTokenItem;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.AdmissionWindowItem;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.AuthorizationCodeItem;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.ClientAuthJwtIdItem;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckRequestItem;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportReverificationItem;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportSessionItem;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ItemTableSchemasTest {
+
+    @Test
+    void shouldWritePassportSessionItemsLikeTheBeanSchema() {
+        PassportSessionItem item = new PassportSessionItem();
+        item.setPassportSessionId("test-passport-session-id");
+        item.setCreationDateTime("2022-01-01T00:00:00Z");
+        item.setLatestDcsResponseResourceId("test-resource-id");
+        item.setUserId("test-user-id");
+        item.setAttemptCount(2);
+        item.setAuthParams(
+                new AuthParams("code", "test-client-id", "test-state", "https://example.com"));
+        item.setTtl(1234L);
+
+        assertSameAttributes(ItemTableSchemas.PASSPORT_SESSION, PassportSessionItem.class, item);
+    }
+
+    @Test
+    void shouldWriteAccessTokenItemsLikeTheBeanSchema() {
+        AccessTokenItem item =
+                new AccessTokenItem(
+                        "test-access-token",
+                        "test-resource-id",
+                        "2022-01-01T00:00:00Z",
+                        "test-passport-session-id");
+        item.setRevokedAtDateTime("2022-01-02T00:00:00Z");
+        item.setTtl(1234L);
+
+        assertSameAttributes(ItemTableSchemas.ACCESS_TOKEN, AccessTokenItem.class, item);
+    }
+
+    @Test
+    void shouldWriteAuthorizationCodeItemsLikeTheBeanSchema() {
+        AuthorizationCodeItem item =
+                new AuthorizationCodeItem(
+                        "test-auth-code",
+                        "test-resource-id",
+                        "https://example.com",
+                        "2022-01-01T00:00:00Z",
+                        "test-passport-session-id");
+        item.setIssuedAccessToken("test-access-token");
+        item.setExchangeDateTime("2022-01-02T00:00:00Z");
+        item.setTtl(1234L);
+
+        assertSameAttributes(
+                ItemTableSchemas.AUTHORIZATION_CODE, AuthorizationCodeItem.class, item);
+    }
+
+    @Test
+    void shouldWriteClientAuthJwtIdItemsLikeTheBeanSchema() {
+        ClientAuthJwtIdItem item = new ClientAuthJwtIdItem("test-jwt-id", "2022-01-01T00:00:00Z");
+        item.setTtl(1234L);
+
+        assertSameAttributes(ItemTableSchemas.CLIENT_AUTH_JWT_ID, ClientAuthJwtIdItem.class, item);
+    }
+
+    @Test
+    void shouldWriteAdmissionWindowItemsLikeTheBeanSchema() {
+        AdmissionWindowItem item = new AdmissionWindowItem();
+        item.setWindowKey("global#1646128800000");
+        item.setCallCount(3L);
+        item.setTtl(1234L);
+
+        assertSameAttributes(ItemTableSchemas.ADMISSION_WINDOW, AdmissionWindowItem.class, item);
+    }
+
+    @Test
+    void shouldWritePassportChecksLikeTheBeanSchema() {
+        PassportCheckDao item =
+                new PassportCheckDao(
+                        "test-resource-id",
+                        new DcsPayload(
+                                "1234567890",
+                                "Tattsyrup",
+                                List.of("Tubbs"),
+                                LocalDate.of(1984, 9, 28),
+                                LocalDate.of(2024, 9, 3)),
+                        new Evidence("test-txn", 4, 0, List.of(ContraIndicators.D02)),
+                        "test-user-id",
+                        "test-client-id");
+        item.setTtl(1234L);
+
+        assertSameAttributes(ItemTableSchemas.PASSPORT_CHECK, PassportCheckDao.class, item);
+    }
+
+    @Test
+    void shouldReadPassportChecksBackFromTheirAttributes() {
+        DcsPayload dcsPayload =
+                new DcsPayload(
+                        "1234567890",
+                        "Tattsyrup",
+                        List.of("Tubbs"),
+                        LocalDate.of(1984, 9, 28),
+                        LocalDate.of(2024, 9, 3));
+        PassportCheckDao item =
+                new PassportCheckDao(
+                        "test-resource-id",
+                        dcsPayload,
+                        new Evidence("test-txn", 4, 2, null),
+                        "test-user-id",
+                        "test-client-id");
+
+        PassportCheckDao read =
+                ItemTableSchemas.PASSPORT_CHECK.mapToItem(
+                        ItemTableSchemas.PASSPORT_CHECK.itemToMap(item, true));
+
+        assertEquals("test-resource-id", read.getResourceId());
+        assertEquals(dcsPayload.getRequestId(), read.getDcsPayload().getRequestId());
+        assertEquals(dcsPayload.getDateOfBirth(), read.getDcsPayload().getDateOfBirth());
+        assertEquals(List.of("Tubbs"), read.getDcsPayload().getForenames());
+        assertEquals(2, read.getEvidence().getValidityScore());
+        assertEquals("test-client-id", read.getClientId());
+    }
+
+    @Test
+    void shouldWritePassportCheckRequestItemsLikeTheBeanSchema() {
+        PassportCheckRequestItem item =
+                new PassportCheckRequestItem("test-request-key", "COMPLETE", "test-result");
+        item.setTtl(1234L);
+
+        assertSameAttributes(
+                ItemTableSchemas.PASSPORT_CHECK_REQUEST, PassportCheckRequestItem.class, item);
+    }
+
+    @Test
+    void shouldWritePassportReverificationItemsLikeTheBeanSchema() {
+        PassportReverificationItem item =
+                new PassportReverificationItem(
+                        "test-run-id#test-resource-id",
+                        "test-run-id",
+                        "test-resource-id",
+                        new Evidence("test-txn", 4, 0, List.of(ContraIndicators.D02)));
+        item.setTtl(1234L);
+
+        assertSameAttributes(
+                ItemTableSchemas.PASSPORT_REVERIFICATION, PassportReverificationItem.class, item);
+    }
+
+    @Test
+    void shouldReturnTheStaticSchemaForEachItem() {
+        assertSame(
+                ItemTableSchemas.PASSPORT_CHECK, ItemTableSchemas.forClass(PassportCheckDao.class));
+        assertSame(
+                ItemTableSchemas.PASSPORT_CHECK_REQUEST,
+                ItemTableSchemas.forClass(PassportCheckRequestItem.class));
+        assertSame(
+                ItemTableSchemas.PASSPORT_REVERIFICATION,
+                ItemTableSchemas.forClass(PassportReverificationItem.class));
+    }
+
+    @Test
+    void shouldRejectClassesWithoutAStaticSchema() {
+        assertThrows(
+                IllegalArgumentException.class, () -> ItemTableSchemas.forClass(AuthParams.class));
+    }
+
+    private static <T> void assertSameAttributes(
+            TableSchema<T> staticSchema, Class<T> itemClass, T item) {
+        Map<String, AttributeValue> expected =
+                TableSchema.fromBean(itemClass).itemToMap(item, true);
+        assertEquals(expected, staticSchema.itemToMap(item, true));
+    }
+}
@@ -17,6 +17,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.passport.library.persistence.AttributeUpdate;
 import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.AccessTokenItem;
 import uk.gov.di.ipv.cri.passport.library.validation.ValidationResult;
@@ -31,6 +32,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.gov.di.ipv.cri.passport.library.service.AccessTokenService.DEFAULT_SCOPE;
@@ -163,29 +165,7 @@ class AccessTokenServiceTest {
     }
 
     @Test
-    void shouldRevokeAccessToken() {
-        String accessToken = "test-access-token";
-
-        AccessTokenItem accessTokenItem =
-                new AccessTokenItem(
-                        accessToken,
-                        UUID.randomUUID().toString(),
-                        Instant.now().toString(),
-                        UUID.randomUUID().toString());
-
-        when(mockDataStore.getItem(accessToken)).thenReturn(accessTokenItem);
-
-        accessTokenService.revokeAccessToken(accessToken);
-
-        ArgumentCaptor<AccessTokenItem> accessTokenItemArgCaptor =
-                ArgumentCaptor.forClass(AccessTokenItem.class);
-
-        verify(mockDataStore).update(accessTokenItemArgCaptor.capture());
-        assertNotNull(accessTokenItemArgCaptor.getValue().getRevokedAtDateTime());
-    }
-
-    @Test
-    void shouldNotAttemptUpdateIfAccessTokenIsAlreadyRevoked() {
+    void shouldRevokeAccessTokenKeepingAnyEarlierRevocationTime() {
         String accessToken = "test-access-token";
 
         AccessTokenItem accessTokenItem =
@@ -196,10 +176,18 @@ class AccessTokenServiceTest {
                         UUID.randomUUID().toString());
         accessTokenItem.setRevokedAtDateTime(Instant.now().toString());
 
-        when(mockDataStore.getItem(accessToken)).thenReturn(accessTokenItem);
+        when(mockDataStore.updateAttributes(eq(accessToken), any(AttributeUpdate.class)))
+                .thenReturn(accessTokenItem);
 
         accessTokenService.revokeAccessToken(accessToken);
 
+        ArgumentCaptor<AttributeUpdate> attributeUpdateArgCaptor =
+                ArgumentCaptor.forClass(AttributeUpdate.class);
+        verify(mockDataStore).updateAttributes(eq(accessToken), attributeUpdateArgCaptor.capture());
+        AttributeUpdate attributeUpdate = attributeUpdateArgCaptor.getValue();
+        assertEquals("SET #u0 = if_not_exists(#u0, :u0)", attributeUpdate.getUpdateExpression());
+        assertEquals("revokedAtDateTime", attributeUpdate.getExpressionNames().get("#u0"));
+        assertNotNull(attributeUpdate.getExpressionValues().get(":u0").s());
         verify(mockDataStore, Mockito.times(0)).update(any());
     }
 
@@ -207,7 +195,8 @@ class AccessTokenServiceTest {
     void shouldThrowExceptionIfAccessTokenCanNotBeFoundWhenRevoking() {
         String accessToken = "test-access-token";
 
-        when(mockDataStore.getItem(accessToken)).thenReturn(null);
+        when(mockDataStore.updateAttributes(eq(accessToken), any(AttributeUpdate.class)))
+                .thenReturn(null);
 
         try {
             accessTokenService.revokeAccessToken(accessToken);
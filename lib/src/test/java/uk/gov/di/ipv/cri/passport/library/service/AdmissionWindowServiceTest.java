@@ -0,0 +1,74 @@
+package uk.gov.di.ipv.cri.passport.library.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.passport.library.persistence.AttributeUpdate;
+import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.AdmissionWindowItem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AdmissionWindowServiceTest {
+    private static final long WINDOW_START = 1_646_128_800_000L;
+
+    @Mock private DataStore<AdmissionWindowItem> mockDataStore;
+
+    private AdmissionWindowService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new AdmissionWindowService(mockDataStore);
+    }
+
+    @Test
+    void shouldCountCallWhileTheWindowIsBelowItsLimit() {
+        when(mockDataStore.upsertAttributes(
+                        eq("global#" + WINDOW_START), any(AttributeUpdate.class)))
+                .thenReturn(new AdmissionWindowItem());
+
+        assertTrue(underTest.tryAcquire("global", WINDOW_START, 1000L, 25L));
+
+        ArgumentCaptor<AttributeUpdate> update = ArgumentCaptor.forClass(AttributeUpdate.class);
+        verify(mockDataStore).upsertAttributes(eq("global#" + WINDOW_START), update.capture());
+        assertEquals("SET #u1 = :u1 ADD #u0 :u0", update.getValue().getUpdateExpression());
+        assertEquals("1", update.getValue().getExpressionValues().get(":u0").n());
+        assertEquals(
+                Long.toString(WINDOW_START / 1000 + 61),
+                update.getValue().getExpressionValues().get(":u1").n());
+        assertEquals(
+                "attribute_not_exists(#callCount) OR #callCount < :limit",
+                update.getValue().getCondition().expression());
+        assertEquals(
+                "25", update.getValue().getCondition().expressionValues().get(":limit").n());
+    }
+
+    @Test
+    void shouldNotCountCallOnceTheWindowIsFull() {
+        when(mockDataStore.upsertAttributes(
+                        eq("client#client-a#" + WINDOW_START), any(AttributeUpdate.class)))
+                .thenReturn(null);
+
+        assertFalse(underTest.tryAcquire("client#client-a", WINDOW_START, 1000L, 2L));
+    }
+
+    @Test
+    void shouldGiveBackACountedCall() {
+        underTest.release("global", WINDOW_START);
+
+        ArgumentCaptor<AttributeUpdate> update = ArgumentCaptor.forClass(AttributeUpdate.class);
+        verify(mockDataStore).updateAttributes(eq("global#" + WINDOW_START), update.capture());
+        assertEquals("ADD #u0 :u0", update.getValue().getUpdateExpression());
+        assertEquals("-1", update.getValue().getExpressionValues().get(":u0").n());
+    }
+}
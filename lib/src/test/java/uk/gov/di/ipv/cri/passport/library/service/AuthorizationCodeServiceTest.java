@@ -8,17 +8,18 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.passport.library.persistence.AttributeUpdate;
 import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.AuthorizationCodeItem;
 
 import java.time.Instant;
-import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -93,24 +94,24 @@ class AuthorizationCodeServiceTest {
     }
 
     @Test
-    void shouldCallUpdateWithIssuedAccessTokenValue() {
+    void shouldUpdateOnlyIssuedAccessTokenAndExchangeDateTime() {
         AuthorizationCode testCode = new AuthorizationCode();
-        AuthorizationCodeItem authorizationCodeItem =
-                new AuthorizationCodeItem(
-                        testCode.getValue(),
-                        "test-resource",
-                        "http://example.com",
-                        Instant.now().toString(),
-                        UUID.randomUUID().toString());
 
-        when(mockDataStore.getItem(testCode.getValue())).thenReturn(authorizationCodeItem);
         authorizationCodeService.setIssuedAccessToken(testCode.getValue(), "test-access-token");
 
-        ArgumentCaptor<AuthorizationCodeItem> authorizationCodeItemArgumentCaptor =
-                ArgumentCaptor.forClass(AuthorizationCodeItem.class);
-        verify(mockDataStore).update(authorizationCodeItemArgumentCaptor.capture());
+        ArgumentCaptor<AttributeUpdate> attributeUpdateArgumentCaptor =
+                ArgumentCaptor.forClass(AttributeUpdate.class);
+        verify(mockDataStore)
+                .updateAttributes(eq(testCode.getValue()), attributeUpdateArgumentCaptor.capture());
+        AttributeUpdate attributeUpdate = attributeUpdateArgumentCaptor.getValue();
 
-        assertNotNull(authorizationCodeItemArgumentCaptor.getValue().getExchangeDateTime());
+        assertEquals("SET #u0 = :u0, #u1 = :u1", attributeUpdate.getUpdateExpression());
+        assertEquals("issuedAccessToken", attributeUpdate.getExpressionNames().get("#u0"));
+        assertEquals(
+                DigestUtils.sha256Hex("test-access-token"),
+                attributeUpdate.getExpressionValues().get(":u0").s());
+        assertEquals("exchangeDateTime", attributeUpdate.getExpressionNames().get("#u1"));
+        assertNotNull(attributeUpdate.getExpressionValues().get(":u1").s());
     }
 
     @Test
@@ -6,6 +6,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.passport.library.persistence.ConditionalWriteResult;
 import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.ClientAuthJwtIdItem;
 
@@ -13,6 +14,7 @@ import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -36,16 +38,29 @@ public class ClientAuthJwtIdServiceTest {
     }
 
     @Test
-    void shouldPersistClientAuthJwtId() {
+    void shouldRecordClientAuthJwtIdWithConditionalCreate() {
         String testJwtId = "test-jwt-id";
         ArgumentCaptor<ClientAuthJwtIdItem> clientAuthJwtIdItemArgCaptor =
                 ArgumentCaptor.forClass(ClientAuthJwtIdItem.class);
+        when(mockDataStore.createIfNotExists(any(ClientAuthJwtIdItem.class)))
+                .thenReturn(ConditionalWriteResult.WRITTEN);
 
-        clientAuthJwtIdService.persistClientAuthJwtId(testJwtId);
+        ConditionalWriteResult result = clientAuthJwtIdService.recordClientAuthJwtId(testJwtId);
 
-        verify(mockDataStore).create(clientAuthJwtIdItemArgCaptor.capture());
+        assertEquals(ConditionalWriteResult.WRITTEN, result);
+        verify(mockDataStore).createIfNotExists(clientAuthJwtIdItemArgCaptor.capture());
         ClientAuthJwtIdItem capturedClientAuthJwtIdItem = clientAuthJwtIdItemArgCaptor.getValue();
-        assertNotNull(capturedClientAuthJwtIdItem);
+        assertNotNull(capturedClientAuthJwtIdItem.getUsedAtDateTime());
         assertEquals(testJwtId, capturedClientAuthJwtIdItem.getJwtId());
     }
+
+    @Test
+    void shouldReportReplayedClientAuthJwtId() {
+        when(mockDataStore.createIfNotExists(any(ClientAuthJwtIdItem.class)))
+                .thenReturn(ConditionalWriteResult.CONDITION_FAILED);
+
+        assertEquals(
+                ConditionalWriteResult.CONDITION_FAILED,
+                clientAuthJwtIdService.recordClientAuthJwtId("test-jwt-id"));
+    }
 }
@@ -7,29 +7,54 @@ import com.github.tomakehurst.wiremock.junit5.WireMockTest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParametersRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersResponse;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+import software.amazon.awssdk.services.ssm.model.SsmException;
 import software.amazon.lambda.powertools.parameters.SSMProvider;
+import uk.gov.di.ipv.cri.passport.library.config.ClientConfig;
 import uk.gov.di.ipv.cri.passport.library.domain.Thumbprints;
+import uk.gov.di.ipv.cri.passport.library.exceptions.ConfigSourceException;
+import uk.gov.di.ipv.cri.passport.library.exceptions.UnknownClientException;
 import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
 import uk.org.webcompere.systemstubs.jupiter.SystemStub;
 import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 import uk.org.webcompere.systemstubs.properties.SystemProperties;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
+import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.security.spec.InvalidKeySpecException;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.getAllServeEvents;
 import static com.github.tomakehurst.wiremock.client.WireMock.ok;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static uk.gov.di.ipv.cri.passport.library.helpers.fixtures.TestFixtures.EC_PUBLIC_JWK_1;
 
 @WireMockTest(httpPort = ConfigurationService.LOCALHOST_PORT)
 @ExtendWith(MockitoExtension.class)
@@ -49,6 +74,8 @@ class ConfigurationServiceTest {
 
     @Mock SSMProvider ssmProviderWithDecryption;
 
+    @Mock SsmClient ssmClient;
+
     private ConfigurationService configurationService;
 
     @BeforeEach
@@ -119,4 +146,188 @@ class ConfigurationServiceTest {
                 .thenReturn(String.valueOf(ttl));
         assertEquals(ttl, configurationService.getBackendSessionTtl());
     }
+
+    @Test
+    void shouldServeParametersFromSnapshotWithoutFurtherSsmCalls() {
+        environmentVariables.set("CONFIG_REFRESH_INTERVAL_SECONDS", "0");
+        environmentVariables.set("DCS_POST_URL_PARAM", "/dev/dcs/postUrl");
+        environmentVariables.set("MAXIMUM_ATTEMPT_COUNT_PARAM", "/dev/maxAttempts");
+        when(ssmClient.getParameters(any(GetParametersRequest.class)))
+                .thenReturn(
+                        GetParametersResponse.builder()
+                                .parameters(
+                                        Parameter.builder()
+                                                .name("/dev/dcs/postUrl")
+                                                .value("https://dcs.example")
+                                                .build(),
+                                        Parameter.builder()
+                                                .name("/dev/maxAttempts")
+                                                .value("2")
+                                                .build())
+                                .build());
+
+        ConfigurationService underTest = new ConfigurationService(ssmProvider, ssmClient);
+
+        assertEquals("https://dcs.example", underTest.getDCSPostUrl());
+        assertEquals(2, underTest.getMaximumAttemptCount());
+        verify(ssmClient).getParameters(any(GetParametersRequest.class));
+        verifyNoInteractions(ssmProvider);
+    }
+
+    @Test
+    void shouldFallBackToSsmProviderForParametersMissingFromSnapshot() {
+        environmentVariables.set("CONFIG_REFRESH_INTERVAL_SECONDS", "0");
+        environmentVariables.set("DCS_POST_URL_PARAM", "/dev/dcs/postUrl");
+        when(ssmClient.getParameters(any(GetParametersRequest.class)))
+                .thenReturn(
+                        GetParametersResponse.builder()
+                                .invalidParameters("/dev/dcs/postUrl")
+                                .build());
+        when(ssmProvider.get("/dev/dcs/postUrl")).thenReturn("https://dcs.example");
+
+        ConfigurationService underTest = new ConfigurationService(ssmProvider, ssmClient);
+
+        assertEquals("https://dcs.example", underTest.getDCSPostUrl());
+    }
+
+    @Test
+    void shouldParseCertificateOncePerSsmParameterVersion() throws CertificateException {
+        environmentVariables.set("CONFIG_REFRESH_INTERVAL_SECONDS", "0");
+        environmentVariables.set("DCS_SIGNING_CERT_PARAM", "/dev/dcs/signing-cert");
+        when(ssmClient.getParameters(any(GetParametersRequest.class)))
+                .thenReturn(
+                        certificateResponse("/dev/dcs/signing-cert", 1L),
+                        certificateResponse("/dev/dcs/signing-cert", 2L));
+
+        ConfigurationService underTest = new ConfigurationService(ssmProvider, ssmClient);
+        Certificate firstCall = underTest.getDcsSigningCert();
+        Certificate secondCall = underTest.getDcsSigningCert();
+        assertSame(firstCall, secondCall);
+        assertSame(underTest.getDcsSigningPublicKey(), underTest.getDcsSigningPublicKey());
+
+        underTest.refreshConfigSnapshot();
+
+        assertNotSame(firstCall, underTest.getDcsSigningCert());
+        assertEquals(firstCall, underTest.getDcsSigningCert());
+    }
+
+    private GetParametersResponse certificateResponse(String name, long version) {
+        return GetParametersResponse.builder()
+                .parameters(
+                        Parameter.builder().name(name).value(TEST_CERT).version(version).build())
+                .build();
+    }
+
+    @Test
+    void shouldServeLastKnownValueWhenSsmThrottles() {
+        environmentVariables.set("DCS_POST_URL_PARAM", "/dev/dcs/postUrl");
+        when(ssmProvider.get("/dev/dcs/postUrl"))
+                .thenReturn("https://dcs.example")
+                .thenThrow(throttlingException());
+
+        assertEquals("https://dcs.example", configurationService.getDCSPostUrl());
+        assertEquals("https://dcs.example", configurationService.getDCSPostUrl());
+    }
+
+    @Test
+    void shouldRethrowThrottlingWhenNoValueHasBeenSeen() {
+        environmentVariables.set("DCS_POST_URL_PARAM", "/dev/dcs/postUrl");
+        when(ssmProvider.get("/dev/dcs/postUrl")).thenThrow(throttlingException());
+
+        assertThrows(SsmException.class, () -> configurationService.getDCSPostUrl());
+    }
+
+    @Test
+    void shouldWaitBeforeRetryingAFailedSnapshotRefresh() {
+        environmentVariables.set("DCS_POST_URL_PARAM", "/dev/dcs/postUrl");
+        when(ssmClient.getParameters(any(GetParametersRequest.class)))
+                .thenThrow(SsmException.builder().message("SSM unavailable").build());
+        when(ssmProvider.get("/dev/dcs/postUrl")).thenReturn("https://dcs.example");
+
+        ConfigurationService underTest = new ConfigurationService(ssmProvider, ssmClient);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("https://dcs.example", underTest.getDCSPostUrl());
+        }
+
+        verify(ssmClient, after(200).times(1)).getParameters(any(GetParametersRequest.class));
+    }
+
+    @Test
+    void shouldReadParametersFromEnvironmentWhenConfigSourceIsEnv() {
+        environmentVariables.set("CONFIG_SOURCE", "env");
+        environmentVariables.set("DCS_POST_URL_PARAM", "/dev/dcs/postUrl");
+        environmentVariables.set("CONFIG_DEV_DCS_POSTURL", "https://dcs.example");
+
+        ConfigurationService underTest = new ConfigurationService();
+
+        assertNull(underTest.getSsmProvider());
+        assertEquals("https://dcs.example", underTest.getDCSPostUrl());
+    }
+
+    @Test
+    void shouldReadParametersFromFileWhenConfigSourceIsFile(@TempDir Path tempDir)
+            throws IOException {
+        Path configFile = tempDir.resolve("config.json");
+        Files.writeString(
+                configFile,
+                new ObjectMapper()
+                        .writeValueAsString(
+                                Map.of(
+                                        "/dev/dcs/postUrl",
+                                        "https://dcs.example",
+                                        "/dev/clients/test-client/signingPublicJwk",
+                                        EC_PUBLIC_JWK_1,
+                                        "/dev/clients/test-client/jwtAuthentication/"
+                                                + "validRedirectUrls",
+                                        "https://client.example/callback",
+                                        "/dev/clients/test-client/jwtAuthentication/issuer",
+                                        "test-issuer")));
+        environmentVariables.set("CONFIG_SOURCE", "file");
+        environmentVariables.set("CONFIG_FILE_PATH", configFile.toString());
+        environmentVariables.set("DCS_POST_URL_PARAM", "/dev/dcs/postUrl");
+        environmentVariables.set("CREDENTIAL_ISSUERS_CONFIG_PARAM_PREFIX", "/dev/clients");
+
+        ConfigurationService underTest = new ConfigurationService();
+
+        assertNull(underTest.getSsmProvider());
+        assertEquals("https://dcs.example", underTest.getDCSPostUrl());
+        ClientConfig clientConfig = underTest.getClientConfig("test-client");
+        assertEquals("test-issuer", clientConfig.getIssuer());
+        assertEquals(Set.of("https://client.example/callback"), clientConfig.getRedirectUrls());
+    }
+
+    @Test
+    void shouldRejectFileConfigSourceWithoutPath() {
+        environmentVariables.set("CONFIG_SOURCE", "file");
+
+        assertThrows(ConfigSourceException.class, ConfigurationService::new);
+    }
+
+    @Test
+    void shouldReportClientMissingFromEnvironmentSourceAsUnknown() {
+        environmentVariables.set("CONFIG_SOURCE", "env");
+        environmentVariables.set("CREDENTIAL_ISSUERS_CONFIG_PARAM_PREFIX", "/dev/clients");
+
+        ConfigurationService underTest = new ConfigurationService();
+
+        assertThrows(
+                UnknownClientException.class, () -> underTest.getClientConfig("unknown-client"));
+    }
+
+    @Test
+    void shouldJitterRefreshDelayWithinTwentyPercent() {
+        for (int i = 0; i < 100; i++) {
+            long delay = ConfigurationService.jitteredDelayMillis(300_000);
+            assertTrue(delay >= 240_000 && delay <= 360_000);
+        }
+    }
+
+    private SsmException throttlingException() {
+        return (SsmException)
+                SsmException.builder()
+                        .statusCode(400)
+                        .awsErrorDetails(
+                                AwsErrorDetails.builder().errorCode("ThrottlingException").build())
+                        .build();
+    }
 }
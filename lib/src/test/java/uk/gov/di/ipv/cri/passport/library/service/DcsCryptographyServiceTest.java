@@ -18,6 +18,7 @@ import com.nimbusds.jose.crypto.RSADecrypter;
 import com.nimbusds.jose.crypto.RSAEncrypter;
 import com.nimbusds.jose.crypto.RSASSASigner;
 import com.nimbusds.jose.crypto.RSASSAVerifier;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -26,11 +27,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsResponse;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsSignedEncryptedResponse;
-import uk.gov.di.ipv.cri.passport.library.domain.Thumbprints;
 import uk.gov.di.ipv.cri.passport.library.exceptions.IpvCryptoException;
 import uk.gov.di.ipv.cri.passport.library.utils.TestUtils;
 
 import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
@@ -48,15 +49,22 @@ import java.text.ParseException;
 import java.time.LocalDate;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
-class DcsCryptographyServiceTest {
+public class DcsCryptographyServiceTest {
     public static final String BASE64_DCS_SIGNING_CERT =
             "MIIFVjCCAz4CCQDGbJ/u6uFT6DANBgkqhkiG9w0BAQsFADBtMQswCQYDVQQGEwJHQjENMAsGA1UECAwEVGVzdDENMAsGA1UEBwwEVGVzdDENMAsGA1UECgwEVEVzdDENMAsGA1UECwwEVEVzdDENMAsGA1UEAwwEVEVzdDETMBEGCSqGSIb3DQEJARYEVGVzdDAeFw0yMjAxMDcxNTM0NTlaFw0yMzAxMDcxNTM0NTlaMG0xCzAJBgNVBAYTAkdCMQ0wCwYDVQQIDARUZXN0MQ0wCwYDVQQHDARUZXN0MQ0wCwYDVQQKDARURXN0MQ0wCwYDVQQLDARURXN0MQ0wCwYDVQQDDARURXN0MRMwEQYJKoZIhvcNAQkBFgRUZXN0MIICIjANBgkqhkiG9w0BAQEFAAOCAg8AMIICCgKCAgEAy1cVZ1KfFmgFlDQyf/R3LF/Js6jAS2Zzbs8WGSS0ys6Z+XR4x5DTIznZp5cHuuQmqOFylXSw5oGBwMXd2L6NimG9rJnJ4w8Gy5A6ImGsiDZC+3AXRBb5hq/IdDTBjbUqRxAKokSVwotWZt554BdSRPTmlYDujzxnClNKA06Xb/X3rTsgCUmZhUnSVtOzKytP3Bdv88VI5gq5tlZOtKXCB0PnJOqRbBmuL1RNkeTny4ZJW3I2ywSATwDDyDm4pJ8XGGNFKaYYTwr6uNTQ2VHb1FVC33oWbg+Zu9D4p5l7ONicCCF3V+GbvmyeCmHGnXznz0nYX1LFqaKtruEh3/GXyLy5X03Jzq6HhTf1SNFBmzziuCovhbR4v5aFDqAYNPWz+ajOdTUfP1I18c5jR1xGUxEiiLKBZWU1J5mhqCa+0CdI0mi3HwFmluudh47I2Xw++JiqZQpxRqNGcKJOPnWDgKOKXQ/ag37aJkxqoYWk9pQ/pXOdIKm//+B//8nWGo8BA/bfdmMHyzhWWxqtydjie2EZ5ODSdQ+yu1xU5cwP59BEQoU7FKVEGiJa4kzrsI2cgloUPlsPfLENMa5i09exDo//eDB/zNy9ACgGCriov1ex3uv4vHp3WtpZYe+akGEJeP0N5dejs0hkBuX+LUcM30TnQ424tEzcuaJ1F7r4FP0CAwEAATANBgkqhkiG9w0BAQsFAAOCAgEAUh5gZx8S/XoZZoQai2uTyW/lyr1LpXMQyfvdWRr5+/OtFuASG3fAPXOTiUfuqH6Uma8BaXPRbSGWxBOFg0EbyvUY4UczZXZgVqyzkGjD2bVcnGra1OHz2AkcJm7OvzjMUvmXdDiQ8WcKIH16BZVsJFveTffJbM/KxL9UUdSLT0fNw1OvZWN1LxRj+X16B26ZnmaXPdmEC8MfwNcEU63qSlIbAvLg9Dp03weqO1qWR1vI/n1jwqidCUVwT0XF88/pJrds8/8guKlawhp9Yv+jMVYaawBiALR+5PFN56DivtmSVI5uv3oFh5tqJXXn9PhsPcIq0YKGQvvcdZl7vCikS65VzmswXBVFJNsYeeZ5NmiH2ANQd4+BLetgLAoXZxaOJ4nK+3Ml+gMwpZRRAbtixKJQDtVy+Ahuh1TEwTS1CERDYq43LhVYbMcgxdOLpZLvMew2tvJc3HfSWQKuF+NjGn/RwG54GyhjpdbfNZMB/EJXNJMt1j9RSVbPLsWjaENUkZoXE0otSou9tJOR0fwoqBJGUi5GCp98+iBdIQMAvXW5JkoDS6CM1FOfSv9ZXLvfXHOuBfKTDeVNy7u3QvyJ+BdkSc0iH4gj1F2zLHNIaZbDzwRzcDf2s3D1wTtoJ/WxfRSLGBMuUsXSduh9Md1S862N3Ce6wpri1IsgySCP84Y=";
     public static final String BASE64_DCS_SIGNING_KEY =
@@ -75,19 +83,26 @@ class DcsCryptographyServiceTest {
     @Mock ConfigurationService configurationService;
     private DcsCryptographyService underTest;
 
+    private final ExecutorService unwrapExecutor = Executors.newSingleThreadExecutor();
+
     @BeforeEach
     void setUp() {
         underTest = new DcsCryptographyService(configurationService);
     }
 
+    @AfterEach
+    void tearDown() {
+        unwrapExecutor.shutdownNow();
+    }
+
     @Test
     void shouldPreparePayloadForDcsRequest()
             throws JOSEException, InvalidKeySpecException, NoSuchAlgorithmException,
                     CertificateException, ParseException, JsonProcessingException {
         when(configurationService.getPassportCriSigningKey()).thenReturn(getSigningPrivateKey());
-        when(configurationService.makeThumbprints())
-                .thenReturn(new Thumbprints(SHA_1_THUMBPRINT, SHA_256_THUMBPRINT));
-        when(configurationService.getDcsEncryptionCert()).thenReturn(getEncryptionCertificate());
+        stubSigningCertThumbprints();
+        when(configurationService.getDcsEncryptionPublicKey())
+                .thenReturn((RSAPublicKey) getEncryptionCertificate().getPublicKey());
 
         DcsPayload dcsPayload =
                 new DcsPayload(
@@ -110,16 +125,43 @@ class DcsCryptographyServiceTest {
                 JWSObject.parse(encryptedContents.getPayload().toString());
 
         assertTrue(decryptedPassportDetails.verify(verifier));
+        Map<String, Object> header = decryptedPassportDetails.getHeader().toJSONObject();
+        assertEquals(SHA_1_THUMBPRINT, header.get("x5t"));
+        assertEquals(SHA_256_THUMBPRINT, header.get("x5t#S256"));
         String expected = objectMapper.writeValueAsString(dcsPayload);
         assertEquals(expected, decryptedPassportDetails.getPayload().toString());
     }
 
+    @Test
+    void shouldBuildHeaderTemplateOnceForUnchangedSigningCert()
+            throws JOSEException, InvalidKeySpecException, NoSuchAlgorithmException,
+                    CertificateException, JsonProcessingException {
+        when(configurationService.getPassportCriSigningKey()).thenReturn(getSigningPrivateKey());
+        stubSigningCertThumbprints();
+        when(configurationService.getDcsEncryptionPublicKey())
+                .thenReturn((RSAPublicKey) getEncryptionCertificate().getPublicKey());
+        DcsPayload dcsPayload =
+                new DcsPayload(
+                        "PASSPORT_NUMBER",
+                        "SURNAME",
+                        List.of("FORENAMES"),
+                        LocalDate.now(),
+                        LocalDate.now());
+
+        JWSObject first = underTest.preparePayload(dcsPayload);
+        JWSObject second = underTest.preparePayload(dcsPayload);
+
+        assertEquals(first.getHeader().toBase64URL(), second.getHeader().toBase64URL());
+        verify(configurationService, times(1)).getThumbprint(any(), eq("SHA-1"));
+        verify(configurationService, times(1)).getThumbprint(any(), eq("SHA-256"));
+    }
+
     @Test
     void shouldUnwrapDcsResponse()
             throws CertificateException, NoSuchAlgorithmException, InvalidKeySpecException,
                     ParseException, JOSEException, JsonProcessingException {
-        when(configurationService.getDcsSigningCert())
-                .thenReturn(TestUtils.getDcsSigningCertificate(BASE64_DCS_SIGNING_CERT));
+        when(configurationService.getDcsSigningPublicKey())
+                .thenReturn(getDcsSigningPublicKey(BASE64_DCS_SIGNING_CERT));
         when(configurationService.getPassportCriPrivateKey()).thenReturn(getEncryptionPrivateKey());
         DcsResponse expectedDcsResponse =
                 new DcsResponse(
@@ -143,8 +185,8 @@ class DcsCryptographyServiceTest {
     void shouldThrowExceptionForInvalidOuterSignatureWhenUsingIncorrectCertificate()
             throws CertificateException, NoSuchAlgorithmException, InvalidKeySpecException,
                     JOSEException {
-        when(configurationService.getDcsSigningCert())
-                .thenReturn(TestUtils.getDcsSigningCertificate(BASE64_ENCRYPTION_PUBLIC_CERT));
+        when(configurationService.getDcsSigningPublicKey())
+                .thenReturn(getDcsSigningPublicKey(BASE64_ENCRYPTION_PUBLIC_CERT));
         String payload = "some test data";
         String dcsResponse = generateDCSResponse(payload);
         DcsSignedEncryptedResponse dcsResponseItem = new DcsSignedEncryptedResponse(dcsResponse);
@@ -161,8 +203,8 @@ class DcsCryptographyServiceTest {
     void shouldThrowExceptionWhenFailingToDecryptWithInvalidPrivateKey()
             throws CertificateException, NoSuchAlgorithmException, InvalidKeySpecException,
                     JOSEException {
-        when(configurationService.getDcsSigningCert())
-                .thenReturn(TestUtils.getDcsSigningCertificate(BASE64_DCS_SIGNING_CERT));
+        when(configurationService.getDcsSigningPublicKey())
+                .thenReturn(getDcsSigningPublicKey(BASE64_DCS_SIGNING_CERT));
         when(configurationService.getPassportCriPrivateKey()).thenReturn(getSigningPrivateKey());
         String payload = "some test data";
         String dcsResponse = generateDCSResponse(payload);
@@ -180,10 +222,10 @@ class DcsCryptographyServiceTest {
     void shouldThrowExceptionForInvalidInnerSignatureWhenUsingIncorrectCertificate()
             throws CertificateException, NoSuchAlgorithmException, InvalidKeySpecException,
                     JOSEException {
-        when(configurationService.getDcsSigningCert())
+        when(configurationService.getDcsSigningPublicKey())
                 .thenReturn(
-                        TestUtils.getDcsSigningCertificate(BASE64_DCS_SIGNING_CERT),
-                        TestUtils.getDcsSigningCertificate(BASE64_ENCRYPTION_PUBLIC_CERT));
+                        getDcsSigningPublicKey(BASE64_DCS_SIGNING_CERT),
+                        getDcsSigningPublicKey(BASE64_ENCRYPTION_PUBLIC_CERT));
         when(configurationService.getPassportCriPrivateKey()).thenReturn(getEncryptionPrivateKey());
 
         String payload = "some test data";
@@ -198,6 +240,188 @@ class DcsCryptographyServiceTest {
         assertEquals("DCS Response Inner Signature invalid.", thrownException.getMessage());
     }
 
+    @Test
+    void shouldPrepareByteOrientedRequestBodyForDcs()
+            throws JOSEException, InvalidKeySpecException, NoSuchAlgorithmException,
+                    CertificateException, ParseException, JsonProcessingException {
+        underTest = new DcsCryptographyService(configurationService, true);
+        when(configurationService.getPassportCriSigningKey()).thenReturn(getSigningPrivateKey());
+        stubSigningCertThumbprints();
+        when(configurationService.getDcsEncryptionPublicKey())
+                .thenReturn((RSAPublicKey) getEncryptionCertificate().getPublicKey());
+        DcsPayload dcsPayload =
+                new DcsPayload(
+                        "PASSPORT_NUMBER",
+                        "SURNAME",
+                        List.of("FORENAMES"),
+                        LocalDate.now(),
+                        LocalDate.now());
+
+        byte[] requestBody = underTest.prepareRequestBody(dcsPayload);
+
+        JWSVerifier verifier =
+                new RSASSAVerifier((RSAPublicKey) getSigningPublicKey(getSigningPrivateKey()));
+        JWSObject outerSignedPayload =
+                JWSObject.parse(new String(requestBody, StandardCharsets.US_ASCII));
+        assertTrue(outerSignedPayload.verify(verifier));
+        JWEObject encryptedContents = JWEObject.parse(outerSignedPayload.getPayload().toString());
+        encryptedContents.decrypt(new RSADecrypter(getEncryptionPrivateKey()));
+        JWSObject decryptedPassportDetails =
+                JWSObject.parse(encryptedContents.getPayload().toString());
+        assertTrue(decryptedPassportDetails.verify(verifier));
+        assertEquals(
+                objectMapper.writeValueAsString(dcsPayload),
+                decryptedPassportDetails.getPayload().toString());
+    }
+
+    @Test
+    void shouldUnwrapByteOrientedDcsResponse()
+            throws CertificateException, NoSuchAlgorithmException, InvalidKeySpecException,
+                    ParseException, JOSEException, JsonProcessingException {
+        underTest = new DcsCryptographyService(configurationService, true);
+        when(configurationService.getDcsSigningPublicKey())
+                .thenReturn(getDcsSigningPublicKey(BASE64_DCS_SIGNING_CERT));
+        when(configurationService.getPassportCriPrivateKey()).thenReturn(getEncryptionPrivateKey());
+        DcsResponse expectedDcsResponse =
+                new DcsResponse(
+                        UUID.randomUUID().toString(),
+                        UUID.randomUUID().toString(),
+                        false,
+                        true,
+                        null);
+        byte[] dcsResponse =
+                generateDCSResponse(objectMapper.writeValueAsString(expectedDcsResponse))
+                        .getBytes(StandardCharsets.US_ASCII);
+
+        DcsResponse actualDcsResponse = underTest.unwrapResponseBody(dcsResponse);
+
+        assertEquals(expectedDcsResponse.getCorrelationId(), actualDcsResponse.getCorrelationId());
+        assertEquals(expectedDcsResponse.getRequestId(), actualDcsResponse.getRequestId());
+        assertEquals(expectedDcsResponse.isError(), actualDcsResponse.isError());
+        assertEquals(expectedDcsResponse.isValid(), actualDcsResponse.isValid());
+    }
+
+    @Test
+    void shouldThrowExceptionForInvalidOuterSignatureInByteOrientedMode()
+            throws CertificateException, NoSuchAlgorithmException, InvalidKeySpecException,
+                    JOSEException {
+        underTest = new DcsCryptographyService(configurationService, true);
+        when(configurationService.getDcsSigningPublicKey())
+                .thenReturn(getDcsSigningPublicKey(BASE64_ENCRYPTION_PUBLIC_CERT));
+        byte[] dcsResponse =
+                generateDCSResponse("some test data").getBytes(StandardCharsets.US_ASCII);
+
+        IpvCryptoException thrownException =
+                assertThrows(
+                        IpvCryptoException.class, () -> underTest.unwrapResponseBody(dcsResponse));
+
+        assertEquals("DCS Response Outer Signature invalid.", thrownException.getMessage());
+    }
+
+    @Test
+    void shouldRejectMalformedByteOrientedDcsResponse() {
+        underTest = new DcsCryptographyService(configurationService, true);
+        byte[] dcsResponse = "not-a-jws".getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(ParseException.class, () -> underTest.unwrapResponseBody(dcsResponse));
+    }
+
+    @Test
+    void shouldUnwrapDcsResponseWithParallelOuterVerification()
+            throws CertificateException, NoSuchAlgorithmException, InvalidKeySpecException,
+                    ParseException, JOSEException, JsonProcessingException {
+        underTest = new DcsCryptographyService(configurationService, false, unwrapExecutor);
+        when(configurationService.getDcsSigningPublicKey())
+                .thenReturn(getDcsSigningPublicKey(BASE64_DCS_SIGNING_CERT));
+        when(configurationService.getPassportCriPrivateKey()).thenReturn(getEncryptionPrivateKey());
+        DcsResponse expectedDcsResponse =
+                new DcsResponse(
+                        UUID.randomUUID().toString(),
+                        UUID.randomUUID().toString(),
+                        false,
+                        true,
+                        null);
+        String dcsResponse =
+                generateDCSResponse(objectMapper.writeValueAsString(expectedDcsResponse));
+
+        DcsResponse actualDcsResponse =
+                underTest.unwrapDcsResponse(new DcsSignedEncryptedResponse(dcsResponse));
+
+        assertEquals(expectedDcsResponse.getCorrelationId(), actualDcsResponse.getCorrelationId());
+        assertEquals(expectedDcsResponse.getRequestId(), actualDcsResponse.getRequestId());
+    }
+
+    @Test
+    void shouldUnwrapByteOrientedDcsResponseWithParallelOuterVerification()
+            throws CertificateException, NoSuchAlgorithmException, InvalidKeySpecException,
+                    ParseException, JOSEException, JsonProcessingException {
+        underTest = new DcsCryptographyService(configurationService, true, unwrapExecutor);
+        when(configurationService.getDcsSigningPublicKey())
+                .thenReturn(getDcsSigningPublicKey(BASE64_DCS_SIGNING_CERT));
+        when(configurationService.getPassportCriPrivateKey()).thenReturn(getEncryptionPrivateKey());
+        DcsResponse expectedDcsResponse =
+                new DcsResponse(
+                        UUID.randomUUID().toString(),
+                        UUID.randomUUID().toString(),
+                        false,
+                        true,
+                        null);
+        byte[] dcsResponse =
+                generateDCSResponse(objectMapper.writeValueAsString(expectedDcsResponse))
+                        .getBytes(StandardCharsets.US_ASCII);
+
+        DcsResponse actualDcsResponse = underTest.unwrapResponseBody(dcsResponse);
+
+        assertEquals(expectedDcsResponse.getCorrelationId(), actualDcsResponse.getCorrelationId());
+        assertEquals(expectedDcsResponse.getRequestId(), actualDcsResponse.getRequestId());
+    }
+
+    @Test
+    void shouldDiscardDecryptedPayloadWhenParallelOuterVerificationFails()
+            throws CertificateException, NoSuchAlgorithmException, InvalidKeySpecException,
+                    JOSEException {
+        underTest = new DcsCryptographyService(configurationService, true, unwrapExecutor);
+        when(configurationService.getDcsSigningPublicKey())
+                .thenReturn(getDcsSigningPublicKey(BASE64_ENCRYPTION_PUBLIC_CERT));
+        when(configurationService.getPassportCriPrivateKey()).thenReturn(getEncryptionPrivateKey());
+        byte[] dcsResponse =
+                generateDCSResponse("some test data").getBytes(StandardCharsets.US_ASCII);
+
+        IpvCryptoException thrownException =
+                assertThrows(
+                        IpvCryptoException.class, () -> underTest.unwrapResponseBody(dcsResponse));
+
+        assertEquals("DCS Response Outer Signature invalid.", thrownException.getMessage());
+    }
+
+    @Test
+    void shouldReportOuterSignatureFailureWhenParallelDecryptAlsoFails()
+            throws CertificateException, NoSuchAlgorithmException, InvalidKeySpecException,
+                    JOSEException {
+        underTest = new DcsCryptographyService(configurationService, false, unwrapExecutor);
+        when(configurationService.getDcsSigningPublicKey())
+                .thenReturn(getDcsSigningPublicKey(BASE64_ENCRYPTION_PUBLIC_CERT));
+        when(configurationService.getPassportCriPrivateKey()).thenReturn(getSigningPrivateKey());
+        DcsSignedEncryptedResponse dcsResponseItem =
+                new DcsSignedEncryptedResponse(generateDCSResponse("some test data"));
+
+        IpvCryptoException thrownException =
+                assertThrows(
+                        IpvCryptoException.class,
+                        () -> underTest.unwrapDcsResponse(dcsResponseItem));
+
+        assertEquals("DCS Response Outer Signature invalid.", thrownException.getMessage());
+    }
+
+    private void stubSigningCertThumbprints()
+            throws CertificateException, NoSuchAlgorithmException {
+        when(configurationService.getPassportCriSigningCert())
+                .thenReturn(getEncryptionCertificate());
+        when(configurationService.getThumbprint(any(), eq("SHA-1"))).thenReturn(SHA_1_THUMBPRINT);
+        when(configurationService.getThumbprint(any(), eq("SHA-256")))
+                .thenReturn(SHA_256_THUMBPRINT);
+    }
+
     private String generateDCSResponse(String innerPayload)
             throws CertificateException, JOSEException, InvalidKeySpecException,
                     NoSuchAlgorithmException {
@@ -267,6 +491,11 @@ class DcsCryptographyServiceTest {
                                 Base64.getDecoder().decode(BASE64_ENCRYPTION_PRIVATE_KEY)));
     }
 
+    private RSAPublicKey getDcsSigningPublicKey(String base64Certificate)
+            throws CertificateException {
+        return (RSAPublicKey) TestUtils.getDcsSigningCertificate(base64Certificate).getPublicKey();
+    }
+
     private Certificate getEncryptionCertificate() throws CertificateException {
         byte[] binaryCertificate = Base64.getDecoder().decode(BASE64_ENCRYPTION_PUBLIC_CERT);
         CertificateFactory factory = CertificateFactory.getInstance("X.509");
@@ -0,0 +1,155 @@
+package uk.gov.di.ipv.cri.passport.library.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
+import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckRequestItem;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PassportCheckRequestServiceTest {
+    private static final String PASSPORT_SESSION_ID = "test-passport-session-id";
+    private static final String REQUEST_KEY = PASSPORT_SESSION_ID + "#request-hash";
+    private static final Instant NOW = Instant.parse("2022-03-01T10:00:00Z");
+    private static final byte[] DUPLICATE_CHECK_KEY =
+            "duplicate-check-secret".getBytes(StandardCharsets.UTF_8);
+
+    @Mock private ConfigurationService mockConfigurationService;
+    @Mock private DataStore<PassportCheckRequestItem> mockDataStore;
+
+    private PassportCheckRequestService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest =
+                new PassportCheckRequestService(
+                        mockDataStore,
+                        mockConfigurationService,
+                        Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void shouldKeyOnSessionAndPassportDetailsOnly() {
+        when(mockConfigurationService.getDuplicateCheckKey()).thenReturn(DUPLICATE_CHECK_KEY);
+
+        String requestKey = underTest.createRequestKey(PASSPORT_SESSION_ID, dcsPayload("123"));
+
+        assertTrue(requestKey.startsWith(PASSPORT_SESSION_ID + "#"));
+        assertEquals(
+                requestKey, underTest.createRequestKey(PASSPORT_SESSION_ID, dcsPayload("123")));
+        assertNotEquals(
+                requestKey, underTest.createRequestKey(PASSPORT_SESSION_ID, dcsPayload("456")));
+        assertNotEquals(requestKey, underTest.createRequestKey("other-session", dcsPayload("123")));
+    }
+
+    @Test
+    void shouldDeriveKeyFromTheSecret() {
+        when(mockConfigurationService.getDuplicateCheckKey())
+                .thenReturn(DUPLICATE_CHECK_KEY, "another-secret".getBytes(StandardCharsets.UTF_8));
+
+        assertNotEquals(
+                underTest.createRequestKey(PASSPORT_SESSION_ID, dcsPayload("123")),
+                underTest.createRequestKey(PASSPORT_SESSION_ID, dcsPayload("123")));
+    }
+
+    @Test
+    void shouldClaimWithConditionalWrite() {
+        when(mockConfigurationService.getDuplicateCheckTtlSeconds()).thenReturn(60);
+        when(mockDataStore.createIfConditionMet(
+                        any(PassportCheckRequestItem.class), any(Expression.class)))
+                .thenReturn(false);
+
+        assertFalse(underTest.claim(REQUEST_KEY));
+
+        ArgumentCaptor<PassportCheckRequestItem> item =
+                ArgumentCaptor.forClass(PassportCheckRequestItem.class);
+        ArgumentCaptor<Expression> condition = ArgumentCaptor.forClass(Expression.class);
+        verify(mockDataStore).createIfConditionMet(item.capture(), condition.capture());
+        assertEquals(REQUEST_KEY, item.getValue().getRequestKey());
+        assertEquals(PassportCheckRequestService.STATUS_IN_PROGRESS, item.getValue().getStatus());
+        assertEquals(NOW.getEpochSecond() + 60, item.getValue().getTtl());
+        assertEquals(
+                "attribute_not_exists(#requestKey) OR #ttl < :now",
+                condition.getValue().expression());
+        assertEquals(
+                Long.toString(NOW.getEpochSecond()),
+                condition.getValue().expressionValues().get(":now").n());
+    }
+
+    @Test
+    void shouldStoreResultOnCompletion() {
+        when(mockConfigurationService.getDuplicateCheckTtlSeconds()).thenReturn(60);
+
+        underTest.complete(REQUEST_KEY, "finish");
+
+        ArgumentCaptor<PassportCheckRequestItem> item =
+                ArgumentCaptor.forClass(PassportCheckRequestItem.class);
+        verify(mockDataStore).update(item.capture());
+        assertEquals(PassportCheckRequestService.STATUS_COMPLETED, item.getValue().getStatus());
+        assertEquals("finish", item.getValue().getResult());
+        assertEquals(NOW.getEpochSecond() + 60, item.getValue().getTtl());
+    }
+
+    @Test
+    void shouldDeleteClaimOnRelease() {
+        underTest.release(REQUEST_KEY);
+
+        verify(mockDataStore).delete(REQUEST_KEY);
+    }
+
+    @Test
+    void shouldReturnResultOnceTheFirstCheckCompletes() {
+        when(mockConfigurationService.getDuplicateCheckWaitMillis()).thenReturn(1000);
+        when(mockDataStore.getItem(REQUEST_KEY))
+                .thenReturn(
+                        new PassportCheckRequestItem(
+                                REQUEST_KEY, PassportCheckRequestService.STATUS_IN_PROGRESS, null),
+                        new PassportCheckRequestItem(
+                                REQUEST_KEY,
+                                PassportCheckRequestService.STATUS_COMPLETED,
+                                "retry"));
+
+        assertEquals(Optional.of("retry"), underTest.awaitResult(REQUEST_KEY));
+    }
+
+    @Test
+    void shouldStopWaitingWhileTheFirstCheckIsStillInProgress() {
+        when(mockConfigurationService.getDuplicateCheckWaitMillis()).thenReturn(0);
+        when(mockDataStore.getItem(REQUEST_KEY))
+                .thenReturn(
+                        new PassportCheckRequestItem(
+                                REQUEST_KEY, PassportCheckRequestService.STATUS_IN_PROGRESS, null));
+
+        assertEquals(Optional.empty(), underTest.awaitResult(REQUEST_KEY));
+    }
+
+    private static DcsPayload dcsPayload(String passportNumber) {
+        return new DcsPayload(
+                passportNumber,
+                "Tattsyrup",
+                List.of("Tubbs"),
+                LocalDate.of(1984, 9, 28),
+                LocalDate.of(2024, 9, 3));
+    }
+}
@@ -0,0 +1,96 @@
+package uk.gov.di.ipv.cri.passport.library.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.ContraIndicators;
+import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Evidence;
+import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportReverificationItem;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PassportReverificationServiceTest {
+    private static final String RUN_ID = "test-run-id";
+    private static final Instant NOW = Instant.parse("2022-03-01T10:00:00Z");
+
+    @Mock private DataStore<PassportCheckDao> mockPassportCheckDataStore;
+    @Mock private DataStore<PassportReverificationItem> mockCheckpointDataStore;
+    @Mock private ConfigurationService mockConfigurationService;
+
+    private PassportReverificationService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest =
+                new PassportReverificationService(
+                        mockPassportCheckDataStore,
+                        mockCheckpointDataStore,
+                        mockConfigurationService,
+                        Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void shouldCheckpointEvidenceWithoutWritingThePassportChecks() {
+        Evidence valid = new Evidence("txn", 4, 2, null);
+        Evidence invalid = new Evidence("txn", 4, 0, List.of(ContraIndicators.D02));
+        Map<String, Evidence> evidenceByResourceId = new LinkedHashMap<>();
+        evidenceByResourceId.put("resource-1", valid);
+        evidenceByResourceId.put("resource-2", invalid);
+        when(mockConfigurationService.getReverificationCheckpointTtlSeconds()).thenReturn(3600);
+        when(mockCheckpointDataStore.batchPutItems(anyList())).thenReturn(List.of());
+
+        Set<String> unsaved = underTest.saveResults(RUN_ID, evidenceByResourceId);
+
+        assertTrue(unsaved.isEmpty());
+        ArgumentCaptor<List<PassportReverificationItem>> saved =
+                ArgumentCaptor.forClass(List.class);
+        verify(mockCheckpointDataStore).batchPutItems(saved.capture());
+        PassportReverificationItem first = saved.getValue().get(0);
+        assertEquals(RUN_ID + "#resource-1", first.getCheckpointKey());
+        assertEquals("resource-1", first.getResourceId());
+        assertTrue(first.isValid());
+        assertSame(valid, first.getEvidence());
+        assertEquals(NOW.getEpochSecond() + 3600, first.getTtl());
+        PassportReverificationItem second = saved.getValue().get(1);
+        assertFalse(second.isValid());
+        assertSame(invalid, second.getEvidence());
+        verifyNoInteractions(mockPassportCheckDataStore);
+    }
+
+    @Test
+    void shouldReturnResourceIdsWhoseCheckpointsWereNotWritten() {
+        Evidence evidence = new Evidence("txn", 4, 2, null);
+        PassportReverificationItem unprocessed =
+                new PassportReverificationItem(
+                        RUN_ID + "#resource-1", RUN_ID, "resource-1", evidence);
+        when(mockConfigurationService.getReverificationCheckpointTtlSeconds()).thenReturn(3600);
+        when(mockCheckpointDataStore.batchPutItems(anyList())).thenReturn(List.of(unprocessed));
+
+        Set<String> unsaved =
+                underTest.saveResults(
+                        RUN_ID, Map.of("resource-1", evidence, "resource-2", evidence));
+
+        assertEquals(Set.of("resource-1"), unsaved);
+    }
+}
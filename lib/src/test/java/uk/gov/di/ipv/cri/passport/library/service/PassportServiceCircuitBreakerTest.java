@@ -0,0 +1,142 @@
+package uk.gov.di.ipv.cri.passport.library.service;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.passport.library.domain.CompactSerialization;
+import uk.gov.di.ipv.cri.passport.library.exceptions.CallNotPermittedException;
+import uk.gov.di.ipv.cri.passport.library.helpers.CircuitBreaker;
+import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.badRequest;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.serverError;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+@WireMockTest
+@ExtendWith(MockitoExtension.class)
+class PassportServiceCircuitBreakerTest {
+    private static final String DCS_PATH = "/checks/passport";
+    private static final byte[] REQUEST_BODY =
+            "header.payload.signature".getBytes(StandardCharsets.US_ASCII);
+    private static final Instant NOW = Instant.parse("2022-03-01T10:00:00Z");
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    @Mock private ConfigurationService mockConfigurationService;
+    @Mock private DataStore<PassportCheckDao> mockDataStore;
+    @Mock private Clock mockClock;
+    @Mock private HttpClient mockAsyncHttpClient;
+
+    private CircuitBreaker circuitBreaker;
+    private PassportService underTest;
+
+    @BeforeEach
+    void setUp(WireMockRuntimeInfo wmRuntimeInfo) {
+        when(mockConfigurationService.getDCSPostUrl())
+                .thenReturn(wmRuntimeInfo.getHttpBaseUrl() + DCS_PATH);
+        circuitBreaker = new CircuitBreaker("DCS", 2, OPEN_DURATION, 1, 10, mockClock);
+        underTest =
+                new PassportService(
+                        HttpClients.createDefault(),
+                        null,
+                        null,
+                        circuitBreaker,
+                        mockConfigurationService,
+                        mockDataStore);
+    }
+
+    @Test
+    void shouldShortCircuitWithoutCallingDcsOnceItKeepsFailing() {
+        stubFor(post(DCS_PATH).willReturn(serverError()));
+        when(mockClock.instant()).thenReturn(NOW);
+
+        assertThrows(HttpResponseException.class, () -> underTest.dcsPassportCheck(REQUEST_BODY));
+        assertThrows(HttpResponseException.class, () -> underTest.dcsPassportCheck(REQUEST_BODY));
+        assertThrows(
+                CallNotPermittedException.class, () -> underTest.dcsPassportCheck(REQUEST_BODY));
+
+        verify(exactly(2), postRequestedFor(urlEqualTo(DCS_PATH)));
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void shouldCloseOnceAProbeToDcsSucceeds() throws Exception {
+        stubFor(post(DCS_PATH).willReturn(serverError()));
+        when(mockClock.instant()).thenReturn(NOW, NOW.plus(OPEN_DURATION));
+        assertThrows(HttpResponseException.class, () -> underTest.dcsPassportCheck(REQUEST_BODY));
+        assertThrows(HttpResponseException.class, () -> underTest.dcsPassportCheck(REQUEST_BODY));
+
+        when(mockConfigurationService.getDcsMaxResponseBytes()).thenReturn(65536);
+        stubFor(post(DCS_PATH).willReturn(ok("header.payload.signature")));
+        CompactSerialization response = underTest.dcsPassportCheck(REQUEST_BODY);
+
+        assertEquals("header.payload.signature", response.serialize());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void shouldNotOpenWhenDcsRejectsTheRequest() {
+        stubFor(post(DCS_PATH).willReturn(badRequest()));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(
+                    HttpResponseException.class, () -> underTest.dcsPassportCheck(REQUEST_BODY));
+        }
+
+        verify(exactly(3), postRequestedFor(urlEqualTo(DCS_PATH)));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void shouldReleaseTheBulkheadWhenTheAsyncClientThrowsBeforeSending() {
+        CircuitBreaker singleCallBreaker =
+                new CircuitBreaker("DCS", 10, OPEN_DURATION, 1, 1, mockClock);
+        underTest =
+                new PassportService(
+                        null,
+                        null,
+                        mockAsyncHttpClient,
+                        singleCallBreaker,
+                        mockConfigurationService,
+                        mockDataStore);
+        when(mockConfigurationService.getDcsSocketTimeoutMillis()).thenReturn(20000);
+        doThrow(new IllegalArgumentException("unsupported request"))
+                .when(mockAsyncHttpClient)
+                .sendAsync(any(HttpRequest.class), any());
+
+        for (int i = 0; i < 2; i++) {
+            ExecutionException exception =
+                    assertThrows(
+                            ExecutionException.class,
+                            () -> underTest.dcsPassportCheckAsync(REQUEST_BODY).get());
+            assertTrue(exception.getCause() instanceof IllegalArgumentException);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, singleCallBreaker.getState());
+    }
+}
@@ -6,8 +6,11 @@ import org.apache.http.HttpResponse;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,28 +19,48 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import uk.gov.di.ipv.cri.passport.library.domain.CompactSerialization;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsPayload;
 import uk.gov.di.ipv.cri.passport.library.domain.DcsSignedEncryptedResponse;
 import uk.gov.di.ipv.cri.passport.library.domain.verifiablecredential.Evidence;
 import uk.gov.di.ipv.cri.passport.library.exceptions.EmptyDcsResponseException;
+import uk.gov.di.ipv.cri.passport.library.exceptions.InvalidDcsResponseException;
 import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportCheckDao;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class PassportServiceTest {
     public static final String CHECK_PASSPORT_URI = "https://localhost/check/passport";
+    private static final String DCS_RESPONSE = "header.payload.signature";
+    private static final int MAX_RESPONSE_BYTES = 65536;
 
     @Mock ConfigurationService configurationService;
     @Mock DataStore<PassportCheckDao> dataStore;
@@ -45,6 +68,9 @@ class PassportServiceTest {
     @Mock JWSObject jwsObject;
     @Mock HttpResponse httpResponse;
     @Mock StatusLine statusLine;
+    @Mock PoolingHttpClientConnectionManager connectionManager;
+    @Mock java.net.http.HttpClient asyncHttpClient;
+    @Mock java.net.http.HttpResponse<CompactSerialization> asyncHttpResponse;
 
     @Captor ArgumentCaptor<HttpPost> httpPost;
 
@@ -58,8 +84,9 @@ class PassportServiceTest {
     @Test
     void shouldPostToDcsEndpoint() throws IOException, EmptyDcsResponseException {
         String expectedPayload = "Test";
-        HttpEntity httpEntity = new StringEntity(expectedPayload);
+        HttpEntity httpEntity = new StringEntity(DCS_RESPONSE);
         when(configurationService.getDCSPostUrl()).thenReturn(CHECK_PASSPORT_URI);
+        when(configurationService.getDcsMaxResponseBytes()).thenReturn(MAX_RESPONSE_BYTES);
         when(httpResponse.getStatusLine()).thenReturn(statusLine);
         when(httpResponse.getEntity()).thenReturn(httpEntity);
         when(statusLine.getStatusCode()).thenReturn(200);
@@ -75,7 +102,64 @@ class PassportServiceTest {
                 "application/jose", httpPost.getValue().getFirstHeader("content-type").getValue());
         assertEquals(expectedPayload, EntityUtils.toString(httpPost.getValue().getEntity()));
 
-        assertEquals(expectedPayload, actualResponse.getPayload());
+        assertEquals(DCS_RESPONSE, actualResponse.getPayload());
+    }
+
+    @Test
+    void shouldPostRequestBodyBytesToDcsEndpoint() throws IOException, EmptyDcsResponseException {
+        byte[] requestBody = "request.payload.signature".getBytes(StandardCharsets.US_ASCII);
+        when(configurationService.getDCSPostUrl()).thenReturn(CHECK_PASSPORT_URI);
+        when(configurationService.getDcsMaxResponseBytes()).thenReturn(MAX_RESPONSE_BYTES);
+        when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        when(httpResponse.getEntity()).thenReturn(new StringEntity(DCS_RESPONSE));
+        when(statusLine.getStatusCode()).thenReturn(200);
+        when(httpClient.execute(any(HttpPost.class))).thenReturn(httpResponse);
+
+        CompactSerialization actualResponse = underTest.dcsPassportCheck(requestBody);
+
+        verify(httpClient, times(1)).execute(httpPost.capture());
+        assertEquals(
+                "application/jose", httpPost.getValue().getFirstHeader("content-type").getValue());
+        assertArrayEquals(requestBody, EntityUtils.toByteArray(httpPost.getValue().getEntity()));
+        assertEquals(DCS_RESPONSE, actualResponse.serialize());
+        assertArrayEquals(new int[] {6, 14}, actualResponse.getSeparators());
+    }
+
+    @Test
+    void shouldRejectDcsResponseLargerThanTheLimitWithoutReadingIt() throws IOException {
+        HttpEntity httpEntity = mock(HttpEntity.class);
+        when(configurationService.getDCSPostUrl()).thenReturn(CHECK_PASSPORT_URI);
+        when(configurationService.getDcsMaxResponseBytes()).thenReturn(16);
+        when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        when(httpResponse.getEntity()).thenReturn(httpEntity);
+        byte[] body = DCS_RESPONSE.getBytes(StandardCharsets.US_ASCII);
+        when(httpEntity.getContent()).thenReturn(new ByteArrayInputStream(body));
+        when(httpEntity.getContentLength()).thenReturn(1_048_576L);
+        when(statusLine.getStatusCode()).thenReturn(200);
+        when(httpClient.execute(any(HttpPost.class))).thenReturn(httpResponse);
+
+        assertThrows(
+                InvalidDcsResponseException.class, () -> underTest.dcsPassportCheck(new byte[0]));
+
+        verify(httpClient).execute(httpPost.capture());
+        assertTrue(httpPost.getValue().isAborted());
+    }
+
+    @Test
+    void shouldRejectDcsResponseThatIsNotACompactSerialization() throws IOException {
+        when(configurationService.getDCSPostUrl()).thenReturn(CHECK_PASSPORT_URI);
+        when(configurationService.getDcsMaxResponseBytes()).thenReturn(MAX_RESPONSE_BYTES);
+        when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        when(httpResponse.getEntity()).thenReturn(new StringEntity("{\"error\": \"Bad\"}"));
+        when(statusLine.getStatusCode()).thenReturn(200);
+        when(httpClient.execute(any(HttpPost.class))).thenReturn(httpResponse);
+
+        InvalidDcsResponseException exception =
+                assertThrows(
+                        InvalidDcsResponseException.class,
+                        () -> underTest.dcsPassportCheck(new byte[0]));
+
+        assertEquals("DCS response has an invalid character at offset 0", exception.getMessage());
     }
 
     @Test
@@ -109,6 +193,134 @@ class PassportServiceTest {
         assertEquals("Response from DCS is empty", emptyDcsResponseException.getMessage());
     }
 
+    @Test
+    void shouldPostRequestBodyBytesWithNonBlockingClient() throws Exception {
+        underTest =
+                new PassportService(
+                        httpClient, null, asyncHttpClient, null, configurationService, dataStore);
+        CompactSerialization expectedResponse =
+                new CompactSerialization(
+                        DCS_RESPONSE.getBytes(StandardCharsets.US_ASCII), new int[] {6, 14});
+        when(configurationService.getDCSPostUrl()).thenReturn(CHECK_PASSPORT_URI);
+        when(configurationService.getDcsSocketTimeoutMillis()).thenReturn(20000);
+        when(asyncHttpResponse.statusCode()).thenReturn(200);
+        when(asyncHttpResponse.body()).thenReturn(expectedResponse);
+        doReturn(CompletableFuture.completedFuture(asyncHttpResponse))
+                .when(asyncHttpClient)
+                .sendAsync(any(HttpRequest.class), any());
+
+        CompactSerialization actualResponse =
+                underTest
+                        .dcsPassportCheckAsync(
+                                "header.payload.signature".getBytes(StandardCharsets.US_ASCII))
+                        .get();
+
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(asyncHttpClient).sendAsync(request.capture(), any());
+        assertEquals(CHECK_PASSPORT_URI, request.getValue().uri().toString());
+        assertEquals("POST", request.getValue().method());
+        assertEquals(
+                Optional.of("application/jose"),
+                request.getValue().headers().firstValue("content-type"));
+        assertEquals(expectedResponse, actualResponse);
+    }
+
+    @Test
+    void shouldFailNonBlockingCheckWhenDcsRespondsWithNon200() {
+        underTest =
+                new PassportService(
+                        httpClient, null, asyncHttpClient, null, configurationService, dataStore);
+        when(configurationService.getDCSPostUrl()).thenReturn(CHECK_PASSPORT_URI);
+        when(configurationService.getDcsSocketTimeoutMillis()).thenReturn(20000);
+        when(asyncHttpResponse.statusCode()).thenReturn(500);
+        doReturn(CompletableFuture.completedFuture(asyncHttpResponse))
+                .when(asyncHttpClient)
+                .sendAsync(any(HttpRequest.class), any());
+
+        CompletableFuture<CompactSerialization> response =
+                underTest.dcsPassportCheckAsync(new byte[0]);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, response::get);
+        assertTrue(exception.getCause() instanceof HttpResponseException);
+        assertEquals(500, ((HttpResponseException) exception.getCause()).getStatusCode());
+    }
+
+    @Test
+    void shouldRunBlockingCheckInBackgroundWithoutNonBlockingClient() throws Exception {
+        when(configurationService.getDCSPostUrl()).thenReturn(CHECK_PASSPORT_URI);
+        when(configurationService.getDcsMaxResponseBytes()).thenReturn(MAX_RESPONSE_BYTES);
+        when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        when(httpResponse.getEntity()).thenReturn(new StringEntity(DCS_RESPONSE));
+        when(statusLine.getStatusCode()).thenReturn(200);
+        when(httpClient.execute(any(HttpPost.class))).thenReturn(httpResponse);
+
+        CompactSerialization actualResponse = underTest.dcsPassportCheckAsync(new byte[0]).get();
+
+        assertEquals(DCS_RESPONSE, actualResponse.serialize());
+    }
+
+    @Test
+    void shouldWarmUpDcsConnectionWithHeadRequest() throws IOException {
+        when(configurationService.getDcsWarmUpTimeoutMillis()).thenReturn(1000);
+        when(configurationService.getDCSPostUrl()).thenReturn(CHECK_PASSPORT_URI);
+        when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        when(statusLine.getStatusCode()).thenReturn(405);
+        when(httpClient.execute(any(HttpHead.class))).thenReturn(httpResponse);
+
+        underTest.warmUpDcsConnection();
+
+        ArgumentCaptor<HttpHead> headRequest = ArgumentCaptor.forClass(HttpHead.class);
+        verify(httpClient).execute(headRequest.capture());
+        assertEquals(CHECK_PASSPORT_URI, headRequest.getValue().getURI().toString());
+        assertEquals(1000, headRequest.getValue().getConfig().getConnectTimeout());
+    }
+
+    @Test
+    void shouldNotFailWhenDcsConnectionWarmUpFails() throws IOException {
+        when(configurationService.getDcsWarmUpTimeoutMillis()).thenReturn(1000);
+        when(configurationService.getDCSPostUrl()).thenReturn(CHECK_PASSPORT_URI);
+        when(httpClient.execute(any(HttpHead.class))).thenThrow(new IOException("refused"));
+
+        assertDoesNotThrow(() -> underTest.warmUpDcsConnection());
+    }
+
+    @Test
+    void shouldAbandonDcsConnectionWarmUpAfterTimeout() throws IOException {
+        when(configurationService.getDcsWarmUpTimeoutMillis()).thenReturn(50);
+        when(configurationService.getDCSPostUrl()).thenReturn(CHECK_PASSPORT_URI);
+        when(httpClient.execute(any(HttpHead.class)))
+                .thenAnswer(
+                        invocation -> {
+                            Thread.sleep(1000);
+                            return httpResponse;
+                        });
+
+        long start = System.nanoTime();
+        underTest.warmUpDcsConnection();
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+    }
+
+    @Test
+    void shouldSkipDcsConnectionWarmUpWhenDisabled() {
+        when(configurationService.getDcsWarmUpTimeoutMillis()).thenReturn(0);
+
+        underTest.warmUpDcsConnection();
+
+        verifyNoInteractions(httpClient);
+    }
+
+    @Test
+    void shouldPublishConnectionPoolStats() {
+        underTest =
+                new PassportService(httpClient, connectionManager, configurationService, dataStore);
+        when(connectionManager.getTotalStats()).thenReturn(new PoolStats(1, 0, 2, 10));
+
+        underTest.publishConnectionPoolMetrics();
+
+        verify(connectionManager).getTotalStats();
+    }
+
     @Test
     void shouldCreateDcsResponseInDataStore() {
         DcsPayload dcsPayload =
@@ -125,4 +337,25 @@ class PassportServiceTest {
         underTest.persistDcsResponse(dcsResponse);
         verify(dataStore).create(dcsResponse);
     }
+
+    @Test
+    void shouldCreateDcsResponseWriteForTransaction() {
+        PassportCheckDao dcsResponse =
+                new PassportCheckDao(
+                        "UUID",
+                        new DcsPayload(
+                                "PASSPORT_NUMBER",
+                                "SURNAME",
+                                List.of("FORENAMES"),
+                                LocalDate.now(),
+                                LocalDate.now()),
+                        new Evidence(UUID.randomUUID().toString(), 4, 4, null),
+                        "test-user-id",
+                        "test-client-id");
+        TransactWriteItem write = TransactWriteItem.builder().build();
+        when(dataStore.transactPut(dcsResponse)).thenReturn(write);
+
+        assertSame(write, underTest.createDcsResponseWrite(dcsResponse));
+        verify(dataStore, never()).create(any());
+    }
 }
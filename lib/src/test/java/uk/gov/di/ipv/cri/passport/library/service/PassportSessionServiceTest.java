@@ -7,7 +7,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 import uk.gov.di.ipv.cri.passport.library.helpers.SecureTokenHelper;
+import uk.gov.di.ipv.cri.passport.library.persistence.AttributeUpdate;
 import uk.gov.di.ipv.cri.passport.library.persistence.DataStore;
 import uk.gov.di.ipv.cri.passport.library.persistence.item.PassportSessionItem;
 
@@ -16,6 +20,12 @@ import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -75,30 +85,150 @@ class PassportSessionServiceTest {
         String passportSessionID = SecureTokenHelper.generate();
         String latestDcsResponseResourceId = "test";
 
-        when(mockDataStore.getItem(passportSessionID)).thenReturn(new PassportSessionItem());
         underTest.setLatestDcsResponseResourceId(passportSessionID, latestDcsResponseResourceId);
 
-        ArgumentCaptor<PassportSessionItem> passportSessionItemArgumentCaptor =
-                ArgumentCaptor.forClass(PassportSessionItem.class);
-        verify(mockDataStore).update(passportSessionItemArgumentCaptor.capture());
+        ArgumentCaptor<AttributeUpdate> attributeUpdateArgumentCaptor =
+                ArgumentCaptor.forClass(AttributeUpdate.class);
+        verify(mockDataStore)
+                .updateAttributes(eq(passportSessionID), attributeUpdateArgumentCaptor.capture());
+        AttributeUpdate attributeUpdate = attributeUpdateArgumentCaptor.getValue();
+        assertEquals("SET #u0 = :u0", attributeUpdate.getUpdateExpression());
+        assertEquals(
+                "latestDcsResponseResourceId", attributeUpdate.getExpressionNames().get("#u0"));
         assertEquals(
-                passportSessionItemArgumentCaptor.getValue().getLatestDcsResponseResourceId(),
-                latestDcsResponseResourceId);
+                latestDcsResponseResourceId, attributeUpdate.getExpressionValues().get(":u0").s());
     }
 
     @Test
-    void shouldIncrementAttemptCount() {
+    void shouldIncrementAttemptCountAtomically() {
         String passportSessionID = SecureTokenHelper.generate();
 
+        PassportSessionItem updatedItem = new PassportSessionItem();
+        updatedItem.setAttemptCount(2);
+
+        when(mockDataStore.updateAttributes(eq(passportSessionID), any(AttributeUpdate.class)))
+                .thenReturn(updatedItem);
+
+        assertEquals(2, underTest.incrementAttemptCount(passportSessionID));
+
+        ArgumentCaptor<AttributeUpdate> attributeUpdateArgumentCaptor =
+                ArgumentCaptor.forClass(AttributeUpdate.class);
+        verify(mockDataStore)
+                .updateAttributes(eq(passportSessionID), attributeUpdateArgumentCaptor.capture());
+        AttributeUpdate attributeUpdate = attributeUpdateArgumentCaptor.getValue();
+        assertEquals("ADD #u0 :u0", attributeUpdate.getUpdateExpression());
+        assertEquals("attemptCount", attributeUpdate.getExpressionNames().get("#u0"));
+        assertEquals("1", attributeUpdate.getExpressionValues().get(":u0").n());
+        verify(mockDataStore, never()).update(any());
+    }
+
+    @Test
+    void shouldThrowIfSessionIsMissingWhenIncrementingAttemptCount() {
+        String passportSessionID = SecureTokenHelper.generate();
+
+        when(mockDataStore.updateAttributes(eq(passportSessionID), any(AttributeUpdate.class)))
+                .thenReturn(null);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> underTest.incrementAttemptCount(passportSessionID));
+    }
+
+    @Test
+    void shouldRecordPassportCheckInOneTransaction() {
+        String passportSessionID = SecureTokenHelper.generate();
+        TransactWriteItem passportCheckWrite = TransactWriteItem.builder().build();
+        TransactWriteItem sessionWrite = TransactWriteItem.builder().build();
+        when(mockDataStore.transactUpdate(eq(passportSessionID), any(AttributeUpdate.class)))
+                .thenReturn(sessionWrite);
+
+        int attemptCount =
+                underTest.recordPassportCheck(
+                        passportSessionID, 1, "test-resource-id", passportCheckWrite);
+
+        assertEquals(2, attemptCount);
+        ArgumentCaptor<AttributeUpdate> attributeUpdateArgumentCaptor =
+                ArgumentCaptor.forClass(AttributeUpdate.class);
+        verify(mockDataStore)
+                .transactUpdate(eq(passportSessionID), attributeUpdateArgumentCaptor.capture());
+        verify(mockDataStore).transactWrite(passportCheckWrite, sessionWrite);
+        verify(mockDataStore, never()).getItem(any());
+        AttributeUpdate attributeUpdate = attributeUpdateArgumentCaptor.getValue();
+        assertEquals("SET #u0 = :u0, #u1 = :u1", attributeUpdate.getUpdateExpression());
+        assertEquals("test-resource-id", attributeUpdate.getExpressionValues().get(":u0").s());
+        assertEquals("attemptCount", attributeUpdate.getExpressionNames().get("#u1"));
+        assertEquals("2", attributeUpdate.getExpressionValues().get(":u1").n());
+        assertEquals(
+                "1", attributeUpdate.getCondition().expressionValues().get(":attemptCount").n());
+    }
+
+    @Test
+    void shouldCountOnFromConcurrentAttemptWhenTransactionIsCancelled() {
+        String passportSessionID = SecureTokenHelper.generate();
+        TransactWriteItem passportCheckWrite = TransactWriteItem.builder().build();
+        PassportSessionItem concurrentlyUpdatedItem = new PassportSessionItem();
+        concurrentlyUpdatedItem.setAttemptCount(2);
+        when(mockDataStore.getItem(passportSessionID)).thenReturn(concurrentlyUpdatedItem);
+        doThrow(transactionCanceled("ConditionalCheckFailed"))
+                .doNothing()
+                .when(mockDataStore)
+                .transactWrite(any(), any());
+
+        int attemptCount =
+                underTest.recordPassportCheck(
+                        passportSessionID, 1, "test-resource-id", passportCheckWrite);
+
+        assertEquals(3, attemptCount);
+        ArgumentCaptor<AttributeUpdate> attributeUpdateArgumentCaptor =
+                ArgumentCaptor.forClass(AttributeUpdate.class);
+        verify(mockDataStore, times(2))
+                .transactUpdate(eq(passportSessionID), attributeUpdateArgumentCaptor.capture());
+        AttributeUpdate retriedUpdate = attributeUpdateArgumentCaptor.getAllValues().get(1);
+        assertEquals("3", retriedUpdate.getExpressionValues().get(":u1").n());
+        assertEquals("2", retriedUpdate.getCondition().expressionValues().get(":attemptCount").n());
+    }
+
+    @Test
+    void shouldGiveUpRecordingPassportCheckAfterRepeatedCancellations() {
+        String passportSessionID = SecureTokenHelper.generate();
         PassportSessionItem passportSessionItem = new PassportSessionItem();
         passportSessionItem.setAttemptCount(1);
-
         when(mockDataStore.getItem(passportSessionID)).thenReturn(passportSessionItem);
-        underTest.incrementAttemptCount(passportSessionID);
+        doThrow(transactionCanceled("ConditionalCheckFailed"))
+                .when(mockDataStore)
+                .transactWrite(any(), any());
+
+        TransactWriteItem passportCheckWrite = TransactWriteItem.builder().build();
+        assertThrows(
+                TransactionCanceledException.class,
+                () ->
+                        underTest.recordPassportCheck(
+                                passportSessionID, 1, "test-resource-id", passportCheckWrite));
+        verify(mockDataStore, times(3)).transactWrite(any(), any());
+    }
 
-        ArgumentCaptor<PassportSessionItem> passportSessionItemArgumentCaptor =
-                ArgumentCaptor.forClass(PassportSessionItem.class);
-        verify(mockDataStore).update(passportSessionItemArgumentCaptor.capture());
-        assertEquals(2, passportSessionItemArgumentCaptor.getValue().getAttemptCount());
+    @Test
+    void shouldNotRetryRecordingPassportCheckWhenCancelledForAnotherReason() {
+        String passportSessionID = SecureTokenHelper.generate();
+        doThrow(transactionCanceled("TransactionConflict"))
+                .when(mockDataStore)
+                .transactWrite(any(), any());
+
+        TransactWriteItem passportCheckWrite = TransactWriteItem.builder().build();
+        assertThrows(
+                TransactionCanceledException.class,
+                () ->
+                        underTest.recordPassportCheck(
+                                passportSessionID, 1, "test-resource-id", passportCheckWrite));
+        verify(mockDataStore, times(1)).transactWrite(any(), any());
+        verify(mockDataStore, never()).getItem(any());
+    }
+
+    private TransactionCanceledException transactionCanceled(String sessionUpdateReason) {
+        return TransactionCanceledException.builder()
+                .cancellationReasons(
+                        CancellationReason.builder().code("None").build(),
+                        CancellationReason.builder().code(sessionUpdateReason).build())
+                .build();
     }
 }
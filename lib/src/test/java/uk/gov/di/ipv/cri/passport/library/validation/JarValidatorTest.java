@@ -18,9 +18,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import software.amazon.awssdk.services.ssm.model.SsmException;
+import uk.gov.di.ipv.cri.passport.library.config.ClientConfig;
 import uk.gov.di.ipv.cri.passport.library.exceptions.JarValidationException;
 import uk.gov.di.ipv.cri.passport.library.exceptions.RecoverableJarValidationException;
+import uk.gov.di.ipv.cri.passport.library.exceptions.UnknownClientException;
 import uk.gov.di.ipv.cri.passport.library.service.ConfigurationService;
 import uk.gov.di.ipv.cri.passport.library.service.KmsRsaDecrypter;
 
@@ -37,6 +38,7 @@ import java.util.Base64;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -98,13 +100,10 @@ class JarValidatorTest {
     void shouldPassValidationChecksOnValidJARRequest()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(clientConfig(EC_PUBLIC_JWK_1, redirectUriClaim));
         when(configurationService.getAudienceForClients()).thenReturn(audienceClaim);
-        when(configurationService.getClientIssuer(anyString())).thenReturn(issuerClaim);
         when(configurationService.getMaxClientAuthTokenTtl()).thenReturn("1500");
-        when(configurationService.getClientRedirectUrls(anyString()))
-                .thenReturn(Collections.singletonList(redirectUriClaim));
 
         SignedJWT signedJWT = generateJWT(getValidClaimsSetValues());
 
@@ -114,8 +113,8 @@ class JarValidatorTest {
     @Test
     void shouldFailValidationChecksOnInvalidClientId()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException {
-        when(configurationService.getClientIssuer(anyString()))
-                .thenThrow(SsmException.builder().build());
+        when(configurationService.getClientConfig(anyString()))
+                .thenThrow(new UnknownClientException("Unknown client id"));
 
         SignedJWT signedJWT = generateJWT(getValidClaimsSetValues());
 
@@ -160,8 +159,8 @@ class JarValidatorTest {
     void shouldFailValidationChecksOnInvalidJWTSignature()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_2));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(clientConfig(EC_PUBLIC_JWK_2, redirectUriClaim));
 
         SignedJWT signedJWT = generateJWT(getValidClaimsSetValues());
 
@@ -181,8 +180,10 @@ class JarValidatorTest {
     void shouldFailValidationChecksOnInvalidPublicJwk()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenThrow(new ParseException("test-error", 0));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(
+                        new ClientConfig(
+                                clientIdClaim, null, Set.of(redirectUriClaim), issuerClaim));
 
         SignedJWT signedJWT = generateJWT(getValidClaimsSetValues());
 
@@ -204,12 +205,9 @@ class JarValidatorTest {
     void shouldFailValidationChecksOnMissingRequiredClaimWithRecoverableError()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientRedirectUrls(anyString()))
-                .thenReturn(Collections.singletonList(redirectUriClaim));
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(clientConfig(EC_PUBLIC_JWK_1, redirectUriClaim));
         when(configurationService.getAudienceForClients()).thenReturn(audienceClaim);
-        when(configurationService.getClientIssuer(anyString())).thenReturn(issuerClaim);
 
         ECDSASigner signer = new ECDSASigner(getPrivateKey());
 
@@ -245,12 +243,9 @@ class JarValidatorTest {
     void shouldFailValidationChecksOnInvalidAudienceClaimWithRecoverableError()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientRedirectUrls(anyString()))
-                .thenReturn(Collections.singletonList(redirectUriClaim));
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(clientConfig(EC_PUBLIC_JWK_1, redirectUriClaim));
         when(configurationService.getAudienceForClients()).thenReturn(audienceClaim);
-        when(configurationService.getClientIssuer(anyString())).thenReturn(issuerClaim);
 
         Map<String, Object> invalidAudienceClaims =
                 Map.of(
@@ -295,12 +290,9 @@ class JarValidatorTest {
     void shouldFailValidationChecksOnInvalidIssuerClaimWithRecoverableError()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientRedirectUrls(anyString()))
-                .thenReturn(Collections.singletonList(redirectUriClaim));
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(clientConfig(EC_PUBLIC_JWK_1, redirectUriClaim));
         when(configurationService.getAudienceForClients()).thenReturn(audienceClaim);
-        when(configurationService.getClientIssuer(anyString())).thenReturn(issuerClaim);
 
         Map<String, Object> invalidAudienceClaims =
                 Map.of(
@@ -346,12 +338,9 @@ class JarValidatorTest {
     void shouldFailValidationChecksOnInvalidResponseTypeClaimWithRecoverableError()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientRedirectUrls(anyString()))
-                .thenReturn(Collections.singletonList(redirectUriClaim));
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(clientConfig(EC_PUBLIC_JWK_1, redirectUriClaim));
         when(configurationService.getAudienceForClients()).thenReturn(audienceClaim);
-        when(configurationService.getClientIssuer(anyString())).thenReturn(issuerClaim);
 
         Map<String, Object> invalidAudienceClaims =
                 Map.of(
@@ -397,12 +386,9 @@ class JarValidatorTest {
     void shouldFailValidationChecksOnExpiredJWTWithRecoverableError()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientRedirectUrls(anyString()))
-                .thenReturn(Collections.singletonList(redirectUriClaim));
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(clientConfig(EC_PUBLIC_JWK_1, redirectUriClaim));
         when(configurationService.getAudienceForClients()).thenReturn(audienceClaim);
-        when(configurationService.getClientIssuer(anyString())).thenReturn(issuerClaim);
 
         Map<String, Object> invalidAudienceClaims =
                 Map.of(
@@ -446,12 +432,9 @@ class JarValidatorTest {
     void shouldFailValidationChecksOnFutureNbfClaimWithRecoverableError()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientRedirectUrls(anyString()))
-                .thenReturn(Collections.singletonList(redirectUriClaim));
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(clientConfig(EC_PUBLIC_JWK_1, redirectUriClaim));
         when(configurationService.getAudienceForClients()).thenReturn(audienceClaim);
-        when(configurationService.getClientIssuer(anyString())).thenReturn(issuerClaim);
 
         Map<String, Object> invalidAudienceClaims =
                 Map.of(
@@ -495,12 +478,9 @@ class JarValidatorTest {
     void shouldFailValidationChecksOnExpiryClaimTooFarInFutureWithRecoverableError()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientRedirectUrls(anyString()))
-                .thenReturn(Collections.singletonList(redirectUriClaim));
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(clientConfig(EC_PUBLIC_JWK_1, redirectUriClaim));
         when(configurationService.getAudienceForClients()).thenReturn(audienceClaim);
-        when(configurationService.getClientIssuer(anyString())).thenReturn(issuerClaim);
         when(configurationService.getMaxClientAuthTokenTtl()).thenReturn("1500");
 
         Map<String, Object> invalidAudienceClaims =
@@ -547,8 +527,8 @@ class JarValidatorTest {
     void shouldFailValidationChecksOnMisMatchingClientIds()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(clientConfig(EC_PUBLIC_JWK_1, redirectUriClaim));
 
         Map<String, Object> validClaimsSetValues = getValidClaimsSetValues();
         validClaimsSetValues.put("client_id", "not-the-client-id-you-are-looking-for");
@@ -572,8 +552,8 @@ class JarValidatorTest {
     void shouldFailValidationChecksIfClientIdNotString()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(clientConfig(EC_PUBLIC_JWK_1, redirectUriClaim));
 
         Map<String, Object> validClaimsSetValues = getValidClaimsSetValues();
         validClaimsSetValues.put("client_id", 4444244);
@@ -595,10 +575,8 @@ class JarValidatorTest {
     void shouldFailValidationChecksOnInvalidRedirectUriClaim()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
-        when(configurationService.getClientRedirectUrls(anyString()))
-                .thenReturn(Collections.singletonList("https://wrong.example.com"));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(clientConfig(EC_PUBLIC_JWK_1, "https://wrong.example.com"));
 
         SignedJWT signedJWT = generateJWT(getValidClaimsSetValues());
 
@@ -620,8 +598,8 @@ class JarValidatorTest {
     void shouldFailValidationChecksOnParseFailureOfRedirectUri()
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException,
                     ParseException {
-        when(configurationService.getClientSigningPublicJwk(anyString()))
-                .thenReturn(ECKey.parse(EC_PUBLIC_JWK_1));
+        when(configurationService.getClientConfig(anyString()))
+                .thenReturn(clientConfig(EC_PUBLIC_JWK_1, redirectUriClaim));
 
         Map<String, Object> claims =
                 Map.of(
@@ -663,6 +641,12 @@ class JarValidatorTest {
                 errorObject.getDescription());
     }
 
+    private ClientConfig clientConfig(String signingPublicJwk, String redirectUrl)
+            throws ParseException {
+        return new ClientConfig(
+                clientIdClaim, ECKey.parse(signingPublicJwk), Set.of(redirectUrl), issuerClaim);
+    }
+
     private SignedJWT generateJWT(Map<String, Object> claimsSetValues)
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException {
         ECDSASigner signer = new ECDSASigner(getPrivateKey());